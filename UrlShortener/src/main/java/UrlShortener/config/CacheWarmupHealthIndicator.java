@@ -0,0 +1,27 @@
+package UrlShortener.config;
+
+import UrlShortener.service.CacheWarmupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Exposed as "cacheWarmup" and included in the readiness group
+@Component
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private CacheWarmupService cacheWarmupService;
+
+    @Override
+    public Health health() {
+        if (!cacheWarmupService.isFinished()) {
+            return Health.outOfService().withDetail("phase", "warming").build();
+        }
+        return Health.up()
+                .withDetail("warmed", cacheWarmupService.getWarmed())
+                .withDetail("durationMs", cacheWarmupService.getDurationMs())
+                .withDetail("stoppedAtBudget", cacheWarmupService.isTimedOut())
+                .build();
+    }
+}
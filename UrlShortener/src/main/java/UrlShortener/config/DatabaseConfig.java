@@ -2,12 +2,17 @@ package UrlShortener.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
@@ -15,6 +20,12 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 
 @Configuration
@@ -27,6 +38,12 @@ import java.util.Properties;
 @EnableTransactionManagement
 public class DatabaseConfig {
 
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${spring.datasource.url}")
     private String databaseUrl;
 
@@ -39,6 +56,24 @@ public class DatabaseConfig {
     @Value("${spring.datasource.driver-class-name}")
     private String databaseDriverClassName;
 
+    // Leave the replica URL empty to serve the analytics pool from the primary
+    @Value("${app.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${app.datasource.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    // Applied to every pooled connection with that pool's statement timeout in milliseconds
+    @Value("${app.datasource.statement-timeout-sql:SET SESSION max_execution_time = %d}")
+    private String statementTimeoutSql;
+
+    // How long a user's reads stay on the primary after one of their writes
+    @Value("${app.datasource.replica.read-your-writes-window-ms:5000}")
+    private long readYourWritesWindowMs;
+
     @Value("${spring.jpa.hibernate.ddl-auto}")
     private String hibernateDdlAuto;
 
@@ -48,19 +83,59 @@ public class DatabaseConfig {
     @Value("${spring.jpa.properties.hibernate.dialect}")
     private String hibernateDialect;
 
+    @Value("${app.persistence.jdbc-batch-size:50}")
+    private int jdbcBatchSize;
+
+    @Value("${app.persistence.hibernate-statistics:false}")
+    private boolean hibernateStatistics;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard() {
+        return new ReplicaLagGuard(readYourWritesWindowMs);
+    }
+
+    @Bean
+    public EndpointQueryStats endpointQueryStats() {
+        return new EndpointQueryStats();
+    }
+
+    // One pool per workload class so a slow analytics scan can never take the connections
+    // that redirect cache misses and writes depend on
     @Bean
     @Primary
     public DataSource dataSource() {
-        HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(databaseUrl);
-        hikariConfig.setUsername(databaseUsername);
-        hikariConfig.setPassword(databasePassword);
-        hikariConfig.setDriverClassName(databaseDriverClassName);
-
-        hikariConfig.setMaximumPoolSize(20);
-        hikariConfig.setMinimumIdle(5);
+        Map<Workload, HikariDataSource> workloadPools = new EnumMap<>(Workload.class);
+        workloadPools.put(Workload.REDIRECT, createPool(Workload.REDIRECT, databaseUrl, databaseUsername,
+                databasePassword, 8, 2, 250, 500, false));
+        workloadPools.put(Workload.OLTP, createPool(Workload.OLTP, databaseUrl, databaseUsername,
+                databasePassword, 10, 2, 2000, 5000, false));
+        workloadPools.put(Workload.INGEST, createPool(Workload.INGEST, databaseUrl, databaseUsername,
+                databasePassword, 6, 1, 1000, 5000, false));
+
+        boolean hasReplica = !replicaUrl.isBlank();
+        workloadPools.put(Workload.ANALYTICS, createPool(Workload.ANALYTICS,
+                hasReplica ? replicaUrl : databaseUrl,
+                hasReplica ? replicaUsername : databaseUsername,
+                hasReplica ? replicaPassword : databasePassword,
+                6, 1, 1000, 30000, hasReplica));
+
+        Map<Object, Object> targets = new HashMap<>(workloadPools);
+
+        WorkloadRoutingDataSource routingDataSource = new WorkloadRoutingDataSource(replicaLagGuard());
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(workloadPools.get(Workload.OLTP));
+        routingDataSource.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
 
-        return new HikariDataSource(hikariConfig);
+    @PreDestroy
+    public void closePools() {
+        for (HikariDataSource pool : pools) {
+            pool.close();
+        }
     }
 
     @Bean
@@ -83,11 +158,56 @@ public class DatabaseConfig {
         return transactionManager;
     }
 
+    // Every setting can be overridden with app.datasource.pools.<workload>.*
+    private HikariDataSource createPool(Workload workload, String url, String username, String password,
+                                        int maximumPoolSize, int minimumIdle, long connectionTimeoutMs,
+                                        long statementTimeoutMs, boolean readOnly) {
+        String name = workload.name().toLowerCase(Locale.ROOT);
+        String prefix = "app.datasource.pools." + name + ".";
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(name);
+        hikariConfig.setJdbcUrl(url);
+        hikariConfig.setUsername(username);
+        hikariConfig.setPassword(password);
+        hikariConfig.setDriverClassName(databaseDriverClassName);
+
+        hikariConfig.setMaximumPoolSize(environment.getProperty(prefix + "maximum-pool-size", Integer.class, maximumPoolSize));
+        hikariConfig.setMinimumIdle(environment.getProperty(prefix + "minimum-idle", Integer.class, minimumIdle));
+        hikariConfig.setConnectionTimeout(environment.getProperty(prefix + "connection-timeout-ms", Long.class, connectionTimeoutMs));
+        hikariConfig.setReadOnly(readOnly);
+
+        long statementTimeout = environment.getProperty(prefix + "statement-timeout-ms", Long.class, statementTimeoutMs);
+        if (statementTimeout > 0 && !statementTimeoutSql.isBlank()) {
+            hikariConfig.setConnectionInitSql(String.format(statementTimeoutSql, statementTimeout));
+        }
+
+        // Publishes hikaricp.connections.acquire (wait time), .active, .pending and .timeout per pool
+        hikariConfig.setMetricRegistry(meterRegistry);
+
+        HikariDataSource pool = new HikariDataSource(hikariConfig);
+        pools.add(pool);
+        return pool;
+    }
+
     private Properties hibernateProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.hbm2ddl.auto", hibernateDdlAuto);
         properties.setProperty("hibernate.show_sql", hibernateShowSql);
         properties.setProperty("hibernate.dialect", hibernateDialect);
+        properties.put("hibernate.session_factory.statement_inspector",
+                new QueryTrackingStatementInspector(replicaLagGuard(), endpointQueryStats()));
+
+        // Group inserts and updates into JDBC batches; ordering lets statements for the same table share a batch
+        properties.setProperty("hibernate.jdbc.batch_size", Integer.toString(jdbcBatchSize));
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+        // Load lazy associations for several owners at once instead of one query each
+        properties.setProperty("hibernate.default_batch_fetch_size", "16");
+        // Pad IN lists to powers of two so dictionary lookups reuse a handful of statements and query plans
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
+        properties.setProperty("hibernate.generate_statistics", Boolean.toString(hibernateStatistics));
         return properties;
     }
 }
@@ -0,0 +1,97 @@
+package UrlShortener.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counts SQL statements per MVC endpoint (method + mapping pattern), so a change in the number of
+// queries an endpoint issues shows up directly. Statements outside a request count as "background".
+public class EndpointQueryStats implements HandlerInterceptor {
+
+    private static final String BACKGROUND = "background";
+
+    private final ThreadLocal<RequestTally> currentRequest = new ThreadLocal<>();
+
+    private final Map<String, EndpointTally> tallies = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        currentRequest.set(new RequestTally(endpoint));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTally tally = currentRequest.get();
+        currentRequest.remove();
+        if (tally != null) {
+            tallies.computeIfAbsent(tally.endpoint, k -> new EndpointTally()).recordRequest(tally.statements);
+        }
+    }
+
+    public void recordStatement(boolean write) {
+        RequestTally request = currentRequest.get();
+        if (request != null) {
+            request.statements++;
+        }
+
+        EndpointTally tally = tallies.computeIfAbsent(request != null ? request.endpoint : BACKGROUND,
+                k -> new EndpointTally());
+        tally.statements.increment();
+        if (write) {
+            tally.writes.increment();
+        }
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        tallies.forEach((endpoint, tally) -> {
+            long requests = tally.requests.sum();
+            long statements = tally.statements.sum();
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", requests);
+            stats.put("statements", statements);
+            stats.put("writes", tally.writes.sum());
+            stats.put("statementsPerRequest", requests > 0 ? (double) statements / requests : null);
+            stats.put("maxStatementsPerRequest", tally.maxPerRequest.get());
+            result.put(endpoint, stats);
+        });
+        return result;
+    }
+
+    public void reset() {
+        tallies.clear();
+    }
+
+    private static final class RequestTally {
+        private final String endpoint;
+        private int statements;
+
+        private RequestTally(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static final class EndpointTally {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder writes = new LongAdder();
+        private final AtomicLong maxPerRequest = new AtomicLong();
+
+        private void recordRequest(int requestStatements) {
+            requests.increment();
+            maxPerRequest.accumulateAndGet(requestStatements, Math::max);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package UrlShortener.config;
+
+import UrlShortener.utils.SnowflakeIds;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Node id for SnowflakeIds. Two instances with the same id mint the same ids, so an id is either set
+// explicitly per instance or leased from Redis: ids:node:<n> is claimed with SET NX PX and renewed while
+// the instance runs. Minting stops once the lease has not been renewed for its full TTL, since another
+// instance may claim the id from then on; clicks taken meanwhile are journaled without an id and get one
+// when replayed. Startup fails when no id can be configured or leased.
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final String LEASE_KEY_PREFIX = "ids:node:";
+
+    // PEXPIRE only while the key still holds our token
+    private static final DefaultRedisScript<Long> RENEW_LEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "return 0",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_LEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    // 0-15, unique per running instance; -1 leases a free id from Redis
+    @Value("${app.ids.node-id:-1}")
+    private int nodeId;
+
+    @Value("${app.ids.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+
+    private final String token = UUID.randomUUID().toString();
+    private volatile int leasedNodeId = -1;
+
+    @PostConstruct
+    public void configureNodeId() {
+        if (nodeId >= 0) {
+            SnowflakeIds.setNodeId(nodeId);
+            return;
+        }
+        if (!acquireLease()) {
+            throw new IllegalStateException("No free node id in Redis (" + LEASE_KEY_PREFIX + "0-"
+                    + SnowflakeIds.MAX_NODE_ID + "); set app.ids.node-id explicitly or stop an instance");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ids.lease-renew-interval-ms:10000}")
+    public void renewLease() {
+        if (nodeId >= 0) {
+            return;
+        }
+        int leased = leasedNodeId;
+        long renewedAt = System.currentTimeMillis();
+        try {
+            if (leased < 0) {
+                // Lost earlier with no free id at the time
+                acquireLease();
+                return;
+            }
+            Long renewed = stringRedisTemplate.execute(RENEW_LEASE, List.of(LEASE_KEY_PREFIX + leased),
+                    token, Long.toString(leaseTtlMs));
+            if (renewed != null && renewed == 1) {
+                SnowflakeIds.setNodeId(leased, renewedAt + leaseTtlMs);
+                return;
+            }
+            // Expired and possibly taken by another instance; never keep minting under it
+            System.err.println("Lost node id lease " + leased + ", leasing a new node id");
+            SnowflakeIds.revokeNodeId();
+            leasedNodeId = -1;
+            if (!acquireLease()) {
+                System.err.println("No free node id to lease; id generation is paused");
+            }
+        } catch (Exception e) {
+            // Minting goes on until the current lease runs out, and stops there if Redis stays unreachable
+            System.err.println("Failed to renew node id lease " + leased + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        int leased = leasedNodeId;
+        if (leased < 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE, List.of(LEASE_KEY_PREFIX + leased), token);
+        } catch (Exception e) {
+            // The lease expires on its own
+        }
+    }
+
+    private boolean acquireLease() {
+        int slots = SnowflakeIds.MAX_NODE_ID + 1;
+        int first = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int candidate = (first + i) % slots;
+            long acquiredAt = System.currentTimeMillis();
+            Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(LEASE_KEY_PREFIX + candidate, token,
+                    Duration.ofMillis(leaseTtlMs));
+            if (Boolean.TRUE.equals(acquired)) {
+                leasedNodeId = candidate;
+                SnowflakeIds.setNodeId(candidate, acquiredAt + leaseTtlMs);
+                System.out.println("Leased node id " + candidate);
+                return true;
+            }
+        }
+        return false;
+    }
+}
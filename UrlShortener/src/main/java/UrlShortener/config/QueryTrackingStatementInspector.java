@@ -0,0 +1,40 @@
+package UrlShortener.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Sees every SQL statement Hibernate prepares. Writes are reported to the replica lag guard, so
+// read-your-writes only kicks in after real DML, and every statement is tallied against the
+// MVC endpoint that issued it.
+public class QueryTrackingStatementInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    // StatementInspector is Serializable, but the instance is handed to Hibernate directly and never serialized
+    private final transient ReplicaLagGuard replicaLagGuard;
+    private final transient EndpointQueryStats endpointQueryStats;
+
+    public QueryTrackingStatementInspector(ReplicaLagGuard replicaLagGuard, EndpointQueryStats endpointQueryStats) {
+        this.replicaLagGuard = replicaLagGuard;
+        this.endpointQueryStats = endpointQueryStats;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        boolean write = isWrite(sql);
+        if (write) {
+            replicaLagGuard.recordWrite();
+        }
+        endpointQueryStats.recordStatement(write);
+        return sql;
+    }
+
+    private boolean isWrite(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "insert", 0, 6)
+                || sql.regionMatches(true, start, "update", 0, 6)
+                || sql.regionMatches(true, start, "delete", 0, 6);
+    }
+}
@@ -0,0 +1,54 @@
+package UrlShortener.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Remembers which users wrote recently so their reads stay on the primary until the replica has caught up.
+// Per node only: a user whose requests land on another node right after a write may still read stale data.
+public class ReplicaLagGuard {
+
+    private final long windowMillis;
+
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+    public ReplicaLagGuard(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public void recordWrite() {
+        String user = currentUser();
+        if (user != null && windowMillis > 0) {
+            lastWriteByUser.put(user, System.currentTimeMillis());
+        }
+    }
+
+    public boolean wroteRecently() {
+        if (windowMillis <= 0 || lastWriteByUser.isEmpty()) {
+            return false;
+        }
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long lastWrite = lastWriteByUser.get(user);
+        return lastWrite != null && System.currentTimeMillis() - lastWrite < windowMillis;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        lastWriteByUser.values().removeIf(lastWrite -> lastWrite < cutoff);
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -2,9 +2,16 @@ package UrlShortener.config;
 
 import UrlShortener.security.CustomDetailsService;
 import UrlShortener.security.JwtAuthenticationFilter;
+import UrlShortener.security.RateLimitFilter;
+import UrlShortener.security.WorkloadBulkheadFilter;
+import UrlShortener.service.RateLimitService;
+import UrlShortener.service.WorkloadBulkheads;
+import UrlShortener.utils.ClientIpResolver;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -33,6 +40,15 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    @Autowired
+    private WorkloadBulkheads workloadBulkheads;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -40,8 +56,7 @@ public class SecurityConfig {
 
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService);
+        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
         return authProvider;
     }
@@ -53,11 +68,14 @@ public class SecurityConfig {
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.cors().and().csrf().disable()
-                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
-                .and()
+        http.cors(Customizer.withDefaults())
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Completion of SSE and streamed responses; the JWT was checked on the initial dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/api/debug/persistence-stats/**").hasRole(CustomDetailsService.ADMIN_ROLE)
                         .requestMatchers("/api/debug/**").permitAll()
                         .requestMatchers("/", "/health", "/home", "/error").permitAll()
                         .requestMatchers("/preview/**").permitAll()
@@ -74,6 +92,8 @@ public class SecurityConfig {
 
         http.authenticationProvider(authenticationProvider());
         http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(new RateLimitFilter(rateLimitService, clientIpResolver), JwtAuthenticationFilter.class);
+        http.addFilterAfter(new WorkloadBulkheadFilter(workloadBulkheads), RateLimitFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,29 @@
+package UrlShortener.config;
+
+// Workload classes that get their own connection pool and concurrency bulkhead.
+// The current class is carried in a thread-local and read by WorkloadRoutingDataSource
+// when a connection is actually needed.
+public enum Workload {
+    REDIRECT, OLTP, INGEST, ANALYTICS;
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    public static Workload current() {
+        return CURRENT.get();
+    }
+
+    // Returns the previous workload so callers can restore it in a finally block
+    public Workload enter() {
+        Workload previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    public static void restore(Workload previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package UrlShortener.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Picks the connection pool for the current workload. Read-only transactions outside the redirect
+// and ingest paths go to the analytics pool, which is backed by the replica when one is configured.
+// Must sit behind a LazyConnectionDataSourceProxy: the transaction's read-only flag is only
+// visible once the transaction has started, after Hibernate has asked for a connection.
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaLagGuard replicaLagGuard;
+
+    public WorkloadRoutingDataSource(ReplicaLagGuard replicaLagGuard) {
+        this.replicaLagGuard = replicaLagGuard;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Workload workload = Workload.current();
+        if (workload == Workload.REDIRECT || workload == Workload.INGEST) {
+            return workload;
+        }
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Read-your-writes: the replica may not have this user's last change yet
+            return replicaLagGuard.wroteRecently() ? Workload.OLTP : Workload.ANALYTICS;
+        }
+
+        // Writes never go to the analytics pool, which may point at a read-only replica
+        return Workload.OLTP;
+    }
+}
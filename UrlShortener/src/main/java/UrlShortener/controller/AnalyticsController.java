@@ -1,14 +1,27 @@
 package UrlShortener.controller;
 
+import UrlShortener.dto.response.AccountAnalyticsResponse;
 import UrlShortener.dto.response.AnalyticsResponse;
+import UrlShortener.model.Url;
 import UrlShortener.model.User;
+import UrlShortener.service.AccountAnalyticsService;
+import UrlShortener.service.AnalyticsCacheService;
 import UrlShortener.service.AnalyticsService;
+import UrlShortener.service.ClickExportService;
+import UrlShortener.service.LiveAnalyticsService;
 import UrlShortener.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,12 +33,25 @@ public class AnalyticsController {
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ClickExportService clickExportService;
+
+    @Autowired
+    private LiveAnalyticsService liveAnalyticsService;
+
+    @Autowired
+    private AccountAnalyticsService accountAnalyticsService;
+
     @GetMapping("/{shortCode}")
     public ResponseEntity<?> getUrlAnalytics(@PathVariable String shortCode,
                                              @RequestParam(defaultValue = "30") int days,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
                                              Authentication authentication) {
         try {
             if (authentication == null || !authentication.isAuthenticated()) {
@@ -35,13 +61,22 @@ public class AnalyticsController {
                 return ResponseEntity.status(401).body(errorResponse);
             }
 
-            AnalyticsResponse analytics = analyticsService.getUrlAnalytics(shortCode, days);
+            // The tag changes with every click written for the link, so a matching client copy is still current
+            AnalyticsCacheService.CacheTag tag = analyticsCacheService.tag(shortCode, days);
+            if (analyticsCacheService.isNotModified(tag, ifNoneMatch)) {
+                return ResponseEntity.status(304).eTag(tag.getETag()).cacheControl(CacheControl.noCache().cachePrivate()).build();
+            }
+
+            AnalyticsResponse analytics = analyticsCacheService.get(tag, () -> analyticsService.getUrlAnalytics(shortCode, days));
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("data", analytics);
 
-            return ResponseEntity.ok(response);
+            if (tag == null) {
+                return ResponseEntity.ok(response);
+            }
+            return ResponseEntity.ok().eTag(tag.getETag()).cacheControl(CacheControl.noCache().cachePrivate()).body(response);
 
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
@@ -52,6 +87,66 @@ public class AnalyticsController {
         }
     }
 
+    // Server-Sent Events with click increments for the link ("delta" events), coalesced per tick. Clients load
+    // the full analytics first and add each delta to it; 503 when this node has no room for another viewer
+    @GetMapping(value = "/{shortCode}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUrlAnalytics(@PathVariable String shortCode,
+                                                         Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
+
+        SseEmitter emitter = liveAnalyticsService.subscribe(shortCode);
+        if (emitter == null) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                // Stops nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    // Streams click events straight from a database cursor; errors surface through GlobalExceptionHandler
+    @GetMapping("/{shortCode}/export")
+    public ResponseEntity<StreamingResponseBody> exportClickEvents(@PathVariable String shortCode,
+                                                                   @RequestParam(defaultValue = "csv") String format,
+                                                                   @RequestParam(required = false) Integer days,
+                                                                   @RequestParam(required = false)
+                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                   @RequestParam(required = false)
+                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                   @RequestParam(defaultValue = "false") boolean gzip,
+                                                                   Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(401).build();
+        }
+
+        User user = getCurrentUser(authentication);
+        Url url = clickExportService.findExportableUrl(shortCode, user);
+        ClickExportService.Format exportFormat = ClickExportService.Format.fromParameter(format);
+
+        LocalDateTime start = from;
+        if (start == null && days != null) {
+            start = LocalDateTime.now().minusDays(days);
+        }
+        LocalDateTime rangeStart = start;
+        Long urlId = url.getId();
+
+        StreamingResponseBody body = outputStream ->
+                clickExportService.export(urlId, exportFormat, rangeStart, to, gzip, outputStream);
+
+        String fileName = shortCode + "-clicks." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8");
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+
     @GetMapping("/dashboard")
     public ResponseEntity<?> getUserDashboard(Authentication authentication) {
         try {
@@ -80,6 +175,39 @@ public class AnalyticsController {
         }
     }
 
+    // Totals across all of the caller's links; complete is false when the time budget cut the report short
+    @GetMapping("/account")
+    public ResponseEntity<?> getAccountAnalytics(@RequestParam(defaultValue = "30") int days,
+                                                 Authentication authentication) {
+        try {
+            if (authentication == null || !authentication.isAuthenticated()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("error", "Authentication required");
+                return ResponseEntity.status(401).body(errorResponse);
+            }
+            if (days < 1 || days > 3660) {
+                throw new RuntimeException("days must be between 1 and 3660");
+            }
+
+            User user = getCurrentUser(authentication);
+            AccountAnalyticsResponse analytics = accountAnalyticsService.getAccountAnalytics(user, days);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", analytics);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
     private User getCurrentUser(Authentication authentication) {
         String email = authentication.getName();
         return userService.findByEmail(email)
@@ -1,11 +1,16 @@
 package UrlShortener.controller;
 
+import UrlShortener.config.EndpointQueryStats;
 import UrlShortener.security.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -16,6 +21,12 @@ public class DebugController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EndpointQueryStats endpointQueryStats;
+
     @GetMapping("/test-jwt")
     public ResponseEntity<?> testJwt() {
         try {
@@ -72,4 +83,54 @@ public class DebugController {
 
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    // Hibernate session-factory statistics plus SQL statement counts per endpoint
+    @GetMapping("/persistence-stats")
+    public ResponseEntity<?> persistenceStats() {
+        try {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+            Map<String, Object> hibernate = new LinkedHashMap<>();
+            hibernate.put("enabled", statistics.isStatisticsEnabled());
+            hibernate.put("prepareStatementCount", statistics.getPrepareStatementCount());
+            hibernate.put("queryExecutionCount", statistics.getQueryExecutionCount());
+            hibernate.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+            hibernate.put("queryExecutionMaxTimeQueryString", statistics.getQueryExecutionMaxTimeQueryString());
+            hibernate.put("entityLoadCount", statistics.getEntityLoadCount());
+            hibernate.put("entityFetchCount", statistics.getEntityFetchCount());
+            hibernate.put("entityInsertCount", statistics.getEntityInsertCount());
+            hibernate.put("entityUpdateCount", statistics.getEntityUpdateCount());
+            hibernate.put("collectionFetchCount", statistics.getCollectionFetchCount());
+            hibernate.put("flushCount", statistics.getFlushCount());
+            hibernate.put("transactionCount", statistics.getTransactionCount());
+            hibernate.put("sessionOpenCount", statistics.getSessionOpenCount());
+            hibernate.put("queryPlanCacheHitCount", statistics.getQueryPlanCacheHitCount());
+            hibernate.put("queryPlanCacheMissCount", statistics.getQueryPlanCacheMissCount());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("hibernate", hibernate);
+            response.put("endpoints", endpointQueryStats.snapshot());
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @PostMapping("/persistence-stats/reset")
+    public ResponseEntity<?> resetPersistenceStats() {
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear();
+        endpointQueryStats.reset();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Persistence statistics reset");
+
+        return ResponseEntity.ok(response);
+    }
+}
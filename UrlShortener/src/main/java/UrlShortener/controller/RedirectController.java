@@ -1,17 +1,34 @@
 package UrlShortener.controller;
 
+import UrlShortener.dto.response.ResolvedUrl;
+import UrlShortener.exception.ResourceNotFoundException;
+import UrlShortener.model.BotClickRollup;
 import UrlShortener.model.Url;
 import UrlShortener.service.AnalyticsService;
+import UrlShortener.service.BotClickCounter;
+import UrlShortener.service.ClickCounterBuffer;
+import UrlShortener.service.ClickJournal;
+import UrlShortener.service.ClickStreamService;
+import UrlShortener.service.ShortCodeFilterService;
+import UrlShortener.service.ShortCodeResolver;
 import UrlShortener.service.UrlService;
 import UrlShortener.repository.UrlRepository;
 import UrlShortener.repository.ClickEventRepository;
+import UrlShortener.utils.BotClassifier;
+import UrlShortener.utils.ClientIpResolver;
+import UrlShortener.utils.IpAddress;
+import UrlShortener.utils.SnowflakeIds;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,10 +50,43 @@ public class RedirectController {
     @Autowired
     private ClickEventRepository clickEventRepository;
 
+    @Autowired
+    private ShortCodeFilterService shortCodeFilterService;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    @Autowired
+    private BotClassifier botClassifier;
+
+    @Autowired
+    private BotClickCounter botClickCounter;
+
+    @Autowired
+    private ClickCounterBuffer clickCounterBuffer;
+
+    @Autowired
+    private ShortCodeResolver shortCodeResolver;
+
+    @Autowired
+    private ClickJournal clickJournal;
+
+    @Autowired
+    private ClickStreamService clickStreamService;
+
+    // How long browsers and CDNs may cache a 301/308 when the link has no earlier expiry
+    @Value("${app.redirect.permanent-max-age-seconds:86400}")
+    private long permanentMaxAgeSeconds;
+
     // Main redirect endpoint for short URLs
     @GetMapping("/{shortCode}")
     public ResponseEntity<?> redirectToOriginalUrl(@PathVariable String shortCode,
                                                    HttpServletRequest request) {
+        // Codes that were certainly never issued are answered before any logging, cache or DB work
+        if (!shortCodeFilterService.mightExist(shortCode)) {
+            return ResponseEntity.notFound().build();
+        }
+
         System.out.println("=== REDIRECT DEBUG ===");
         System.out.println("Received short code: '" + shortCode + "'");
         System.out.println("Request URL: " + request.getRequestURL());
@@ -62,28 +112,30 @@ public class RedirectController {
             }
 
             System.out.println("Finding URL for short code: " + shortCode);
-            Url url = urlService.findByShortCode(shortCode);
+            ResolvedUrl url = shortCodeResolver.resolve(shortCode);
 
             System.out.println("URL found:");
-            System.out.println("  - Original URL: " + url.getOriginalUrl());
-            System.out.println("  - Is Active: " + url.getIsActive());
+            System.out.println("  - Location: " + url.getLocation());
+            System.out.println("  - Redirect Type: " + url.getRedirectType());
+            System.out.println("  - Is Active: " + url.isActive());
             System.out.println("  - Expires At: " + url.getExpiresAt());
-            System.out.println("  - Current Click Count: " + url.getClickCount());
 
             // Check if URL is active
-            if (!url.getIsActive()) {
+            if (!url.isActive()) {
                 System.out.println("URL is not active - returning 404");
                 return ResponseEntity.notFound().build();
             }
 
             // Check if URL is expired
-            if (url.isExpired()) {
+            if (url.hasExpired()) {
                 System.out.println("URL is expired - returning 410");
                 return ResponseEntity.status(HttpStatus.GONE).build();
             }
 
             // Get client information for analytics
-            String ipAddress = getClientIpAddress(request);
+            IpAddress clientAddress = new IpAddress();
+            boolean addressKnown = clientIpResolver.resolve(request, clientAddress);
+            String ipAddress = addressKnown ? clientAddress.toString() : request.getRemoteAddr();
             String userAgent = request.getHeader("User-Agent");
             String referrer = request.getHeader("Referer");
 
@@ -92,12 +144,25 @@ public class RedirectController {
             System.out.println("  - User Agent: " + (userAgent != null ? userAgent.substring(0, Math.min(userAgent.length(), 50)) + "..." : "null"));
             System.out.println("  - Referrer: " + referrer);
 
-            String originalUrl = url.getOriginalUrl();
+            if (url.getLocation() == null) {
+                System.out.println("Stored URL is not a valid Location - returning 404");
+                return ResponseEntity.notFound().build();
+            }
+
+            // Bots are only counted; they never reach click_events or click_count
+            BotClickRollup.Category botCategory = botClassifier.classify(ipAddress, userAgent);
+            if (botCategory != null) {
+                System.out.println("Bot hit (" + botCategory + "), counting only");
+                botClickCounter.record(url.getId(), botCategory);
+                return redirect(url);
+            }
 
             // Record analytics event
             try {
                 System.out.println("Recording click event...");
-                analyticsService.recordClickEvent(url, ipAddress, userAgent, referrer);
+                // Only the /24 or /48 network is kept, before the click is journaled or published
+                clientAddress.truncate();
+                recordClick(url.getId(), url.getShortCode(), addressKnown ? clientAddress.toString() : null, userAgent, referrer);
                 System.out.println("Click event recorded successfully");
             } catch (Exception e) {
                 System.err.println("Failed to record click event: " + e.getMessage());
@@ -105,24 +170,17 @@ public class RedirectController {
                 // Continue with redirect even if analytics fails
             }
 
-            // Update click count
-            try {
-                System.out.println("Incrementing click count...");
-                urlService.incrementClickCount(url);
-                System.out.println("Click count incremented successfully");
-            } catch (Exception e) {
-                System.err.println("Failed to increment click count: " + e.getMessage());
-                e.printStackTrace();
-                // Continue with redirect even if count update fails
-            }
+            // Update click count; buffered and written in batches, so the cached URL stays cached
+            clickCounterBuffer.increment(url.getId(), url.getShortCode());
 
-            System.out.println("Redirecting to: " + originalUrl);
+            System.out.println("Redirecting to: " + url.getLocation());
 
             // Perform the redirect
-            return ResponseEntity.status(HttpStatus.FOUND)
-                    .location(URI.create(originalUrl))
-                    .build();
+            return redirect(url);
 
+        } catch (ResourceNotFoundException e) {
+            shortCodeFilterService.recordFalsePositive();
+            return ResponseEntity.notFound().build();
         } catch (Exception e) {
             System.err.println("Exception in redirect:");
             System.err.println("  - Type: " + e.getClass().getSimpleName());
@@ -208,7 +266,7 @@ public class RedirectController {
     public ResponseEntity<?> debugClickEvents(@PathVariable String shortCode) {
         try {
             Url url = urlService.findByShortCode(shortCode);
-            long clickEventCount = clickEventRepository.countByUrl(url);
+            long clickEventCount = clickEventRepository.countByUrlId(url.getId());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -234,10 +292,10 @@ public class RedirectController {
             Url url = urlService.findByShortCode(shortCode);
 
             // Record a test click event
-            analyticsService.recordClickEvent(url, "127.0.0.1", "Test-User-Agent/1.0", "http://test.com");
+            recordClick(url.getId(), url.getShortCode(), "127.0.0.1", "Test-User-Agent/1.0", "http://test.com");
 
             // Increment click count
-            urlService.incrementClickCount(url);
+            clickCounterBuffer.increment(url.getId(), url.getShortCode());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -254,6 +312,46 @@ public class RedirectController {
         }
     }
 
+    // Clicks go to the shared stream when this node publishes there, otherwise (or when Redis is down) to
+    // the local click journal; the direct insert is only used when neither can take the click. Without a
+    // node id lease the click is journaled with id 0 and gets its id when replayed.
+    private void recordClick(Long urlId, String shortCode, String ipAddress, String userAgent, String referrer) {
+        long id = SnowflakeIds.tryNextId();
+        long now = System.currentTimeMillis();
+        if (id != 0 && clickStreamService.isPublishing()
+                && clickStreamService.publish(id, urlId, now, ipAddress, userAgent, referrer)) {
+            return;
+        }
+        if (clickJournal.isEnabled()
+                && clickJournal.append(id, urlId, now, ipAddress, userAgent, referrer)) {
+            return;
+        }
+        if (!analyticsService.recordClickEvent(urlId, shortCode, ipAddress, userAgent, referrer)) {
+            // Counted in clicks.dropped; click_count is still incremented by the caller
+            System.err.println("Click for " + shortCode + " not stored: stream, journal and direct insert unavailable");
+        }
+    }
+
+    // Location was encoded when the entry was cached; only the cache headers depend on the clock
+    private ResponseEntity<?> redirect(ResolvedUrl url) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.LOCATION, url.getLocation());
+
+        if (url.getRedirectType().isPermanent()) {
+            long maxAge = permanentMaxAgeSeconds;
+            if (url.getExpiresAt() != null) {
+                maxAge = Math.max(0L, Math.min(maxAge, Duration.between(LocalDateTime.now(), url.getExpiresAt()).getSeconds()));
+                headers.set(HttpHeaders.EXPIRES, url.getExpiresHeader());
+            }
+            headers.set(HttpHeaders.CACHE_CONTROL, "public, max-age=" + maxAge);
+        } else {
+            // Temporary redirects must reach us on every click or the analytics miss them
+            headers.set(HttpHeaders.CACHE_CONTROL, "no-store");
+        }
+
+        return new ResponseEntity<>(headers, HttpStatusCode.valueOf(url.getRedirectType().getStatus()));
+    }
+
     // Helper method to check if a path is a system path (to avoid conflicts)
     private boolean isSystemPath(String path) {
         return path.equals("api") ||
@@ -268,41 +366,4 @@ public class RedirectController {
                 path.equals("debug") ||
                 path.equals("preview");
     }
-
-    // Helper method to get the real client IP address
-    private String getClientIpAddress(HttpServletRequest request) {
-        // Check for X-Forwarded-For header (common in load balancers/proxies)
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            // Take the first IP if there are multiple
-            return xForwardedFor.split(",")[0].trim();
-        }
-
-        // Check for X-Real-IP header
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isEmpty()) {
-            return xRealIp;
-        }
-
-        // Check for X-Forwarded header
-        String xForwarded = request.getHeader("X-Forwarded");
-        if (xForwarded != null && !xForwarded.isEmpty()) {
-            return xForwarded;
-        }
-
-        // Check for Forwarded-For header
-        String forwardedFor = request.getHeader("Forwarded-For");
-        if (forwardedFor != null && !forwardedFor.isEmpty()) {
-            return forwardedFor;
-        }
-
-        // Check for Forwarded header
-        String forwarded = request.getHeader("Forwarded");
-        if (forwarded != null && !forwarded.isEmpty()) {
-            return forwarded;
-        }
-
-        // Fall back to remote address
-        return request.getRemoteAddr();
-    }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ package UrlShortener.controller;
 
 import UrlShortener.dto.request.CreateUrlRequest;
 import UrlShortener.dto.response.UrlResponse;
+import UrlShortener.model.Url;
 import UrlShortener.model.User;
 import UrlShortener.service.UrlService;
 import UrlShortener.service.UserService;
@@ -133,6 +134,30 @@ public class UrlController {
         }
     }
 
+    // Body: {"redirectType": "MOVED_PERMANENTLY" | "FOUND" | "TEMPORARY_REDIRECT" | "PERMANENT_REDIRECT"}
+    @PutMapping("/{shortCode}/redirect-type")
+    public ResponseEntity<?> updateRedirectType(@PathVariable String shortCode,
+                                                @RequestBody Map<String, String> request,
+                                                Authentication authentication) {
+        try {
+            User user = getCurrentUser(authentication);
+            Url.RedirectType redirectType = Url.RedirectType.valueOf(request.get("redirectType"));
+            UrlResponse urlResponse = urlService.updateRedirectType(shortCode, redirectType, user);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", urlResponse);
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/top")
     public ResponseEntity<?> getTopUrls(@RequestParam(defaultValue = "10") int limit,
                                         Authentication authentication) {
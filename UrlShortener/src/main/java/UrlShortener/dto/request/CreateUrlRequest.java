@@ -1,5 +1,6 @@
 package UrlShortener.dto.request;
 
+import UrlShortener.model.Url;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.constraints.Pattern;
@@ -20,6 +21,12 @@ public class CreateUrlRequest {
 
     private LocalDateTime expiresAt;
 
+    // Optional; the configured default (302) when absent
+    private Url.RedirectType redirectType;
+
+    // When true and this user already has an active link to the same normalized URL, that link is returned
+    private Boolean reuseExisting;
+
     // Constructors
     public CreateUrlRequest() {}
 
@@ -40,4 +47,10 @@ public class CreateUrlRequest {
 
     public LocalDateTime getExpiresAt() { return expiresAt; }
     public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
-}
\ No newline at end of file
+
+    public Url.RedirectType getRedirectType() { return redirectType; }
+    public void setRedirectType(Url.RedirectType redirectType) { this.redirectType = redirectType; }
+
+    public Boolean getReuseExisting() { return reuseExisting; }
+    public void setReuseExisting(Boolean reuseExisting) { this.reuseExisting = reuseExisting; }
+}
@@ -0,0 +1,86 @@
+package UrlShortener.dto.response;
+
+import java.util.List;
+
+// Analytics across all links of one account. When the time budget runs out before every partition of
+// links is done, the report covers linksCovered of totalLinks links and complete is false.
+public class AccountAnalyticsResponse {
+
+    private int days;
+    private int totalLinks;
+    private int linksCovered;
+    private boolean complete;
+    private long elapsedMs;
+    private Long totalClicks;
+    private List<AnalyticsResponse.DailyClickData> dailyClicks;
+    private List<AnalyticsResponse.CountryClickData> topCountries;
+    private List<AnalyticsResponse.BrowserClickData> browserStats;
+    private List<AnalyticsResponse.DeviceClickData> deviceStats;
+    private List<LinkClickData> topLinks;
+
+    // Constructors
+    public AccountAnalyticsResponse() {}
+
+    public AccountAnalyticsResponse(int days, int totalLinks) {
+        this.days = days;
+        this.totalLinks = totalLinks;
+    }
+
+    // Getters and Setters
+    public int getDays() { return days; }
+    public void setDays(int days) { this.days = days; }
+
+    public int getTotalLinks() { return totalLinks; }
+    public void setTotalLinks(int totalLinks) { this.totalLinks = totalLinks; }
+
+    public int getLinksCovered() { return linksCovered; }
+    public void setLinksCovered(int linksCovered) { this.linksCovered = linksCovered; }
+
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+
+    public long getElapsedMs() { return elapsedMs; }
+    public void setElapsedMs(long elapsedMs) { this.elapsedMs = elapsedMs; }
+
+    public Long getTotalClicks() { return totalClicks; }
+    public void setTotalClicks(Long totalClicks) { this.totalClicks = totalClicks; }
+
+    public List<AnalyticsResponse.DailyClickData> getDailyClicks() { return dailyClicks; }
+    public void setDailyClicks(List<AnalyticsResponse.DailyClickData> dailyClicks) { this.dailyClicks = dailyClicks; }
+
+    public List<AnalyticsResponse.CountryClickData> getTopCountries() { return topCountries; }
+    public void setTopCountries(List<AnalyticsResponse.CountryClickData> topCountries) { this.topCountries = topCountries; }
+
+    public List<AnalyticsResponse.BrowserClickData> getBrowserStats() { return browserStats; }
+    public void setBrowserStats(List<AnalyticsResponse.BrowserClickData> browserStats) { this.browserStats = browserStats; }
+
+    public List<AnalyticsResponse.DeviceClickData> getDeviceStats() { return deviceStats; }
+    public void setDeviceStats(List<AnalyticsResponse.DeviceClickData> deviceStats) { this.deviceStats = deviceStats; }
+
+    public List<LinkClickData> getTopLinks() { return topLinks; }
+    public void setTopLinks(List<LinkClickData> topLinks) { this.topLinks = topLinks; }
+
+    public static class LinkClickData {
+        private String shortCode;
+        private Long clicks;
+        private Double percentage;
+
+        public LinkClickData() {}
+
+        public LinkClickData(String shortCode, Long clicks, Double percentage) {
+            this.shortCode = shortCode;
+            this.clicks = clicks;
+            this.percentage = percentage;
+        }
+
+        // Getters and Setters
+        public String getShortCode() { return shortCode; }
+        public void setShortCode(String shortCode) { this.shortCode = shortCode; }
+
+        public Long getClicks() { return clicks; }
+        public void setClicks(Long clicks) { this.clicks = clicks; }
+
+        public Double getPercentage() { return percentage; }
+        public void setPercentage(Double percentage) { this.percentage = percentage; }
+    }
+}
@@ -15,6 +15,11 @@ public class AnalyticsResponse {
     private List<CountryClickData> topCountries;
     private List<BrowserClickData> browserStats;
     private List<DeviceClickData> deviceStats;
+    private List<ReferrerClickData> topReferrers;
+    private List<ReferrerSourceData> referrerSources;
+    private Long humanClicks;
+    private Long botClicks;
+    private List<BotClickData> botStats;
 
     // Constructors
     public AnalyticsResponse() {}
@@ -51,11 +56,28 @@ public class AnalyticsResponse {
     public List<DeviceClickData> getDeviceStats() { return deviceStats; }
     public void setDeviceStats(List<DeviceClickData> deviceStats) { this.deviceStats = deviceStats; }
 
+    public List<ReferrerClickData> getTopReferrers() { return topReferrers; }
+    public void setTopReferrers(List<ReferrerClickData> topReferrers) { this.topReferrers = topReferrers; }
+
+    public List<ReferrerSourceData> getReferrerSources() { return referrerSources; }
+    public void setReferrerSources(List<ReferrerSourceData> referrerSources) { this.referrerSources = referrerSources; }
+
+    public Long getHumanClicks() { return humanClicks; }
+    public void setHumanClicks(Long humanClicks) { this.humanClicks = humanClicks; }
+
+    public Long getBotClicks() { return botClicks; }
+    public void setBotClicks(Long botClicks) { this.botClicks = botClicks; }
+
+    public List<BotClickData> getBotStats() { return botStats; }
+    public void setBotStats(List<BotClickData> botStats) { this.botStats = botStats; }
+
     // Inner classes for structured data
     public static class DailyClickData {
         private LocalDate date;
         private Long clicks;
 
+        public DailyClickData() {}
+
         public DailyClickData(LocalDate date, Long clicks) {
             this.date = date;
             this.clicks = clicks;
@@ -74,6 +96,8 @@ public class AnalyticsResponse {
         private Long clicks;
         private Double percentage;
 
+        public CountryClickData() {}
+
         public CountryClickData(String country, Long clicks, Double percentage) {
             this.country = country;
             this.clicks = clicks;
@@ -96,6 +120,8 @@ public class AnalyticsResponse {
         private Long clicks;
         private Double percentage;
 
+        public BrowserClickData() {}
+
         public BrowserClickData(String browser, Long clicks, Double percentage) {
             this.browser = browser;
             this.clicks = clicks;
@@ -118,6 +144,8 @@ public class AnalyticsResponse {
         private Long clicks;
         private Double percentage;
 
+        public DeviceClickData() {}
+
         public DeviceClickData(String deviceType, Long clicks, Double percentage) {
             this.deviceType = deviceType;
             this.clicks = clicks;
@@ -134,4 +162,81 @@ public class AnalyticsResponse {
         public Double getPercentage() { return percentage; }
         public void setPercentage(Double percentage) { this.percentage = percentage; }
     }
+
+    public static class ReferrerClickData {
+        private String domain;
+        private String source;
+        private Long clicks;
+        private Double percentage;
+
+        public ReferrerClickData() {}
+
+        public ReferrerClickData(String domain, String source, Long clicks, Double percentage) {
+            this.domain = domain;
+            this.source = source;
+            this.clicks = clicks;
+            this.percentage = percentage;
+        }
+
+        // Getters and Setters
+        public String getDomain() { return domain; }
+        public void setDomain(String domain) { this.domain = domain; }
+
+        public String getSource() { return source; }
+        public void setSource(String source) { this.source = source; }
+
+        public Long getClicks() { return clicks; }
+        public void setClicks(Long clicks) { this.clicks = clicks; }
+
+        public Double getPercentage() { return percentage; }
+        public void setPercentage(Double percentage) { this.percentage = percentage; }
+    }
+
+    public static class ReferrerSourceData {
+        private String source;
+        private Long clicks;
+        private Double percentage;
+
+        public ReferrerSourceData() {}
+
+        public ReferrerSourceData(String source, Long clicks, Double percentage) {
+            this.source = source;
+            this.clicks = clicks;
+            this.percentage = percentage;
+        }
+
+        // Getters and Setters
+        public String getSource() { return source; }
+        public void setSource(String source) { this.source = source; }
+
+        public Long getClicks() { return clicks; }
+        public void setClicks(Long clicks) { this.clicks = clicks; }
+
+        public Double getPercentage() { return percentage; }
+        public void setPercentage(Double percentage) { this.percentage = percentage; }
+    }
+
+    public static class BotClickData {
+        private String category;
+        private Long clicks;
+        private Double percentage;
+
+        public BotClickData() {}
+
+        public BotClickData(String category, Long clicks, Double percentage) {
+            this.category = category;
+            this.clicks = clicks;
+            this.percentage = percentage;
+        }
+
+        // Getters and Setters
+        public String getCategory() { return category; }
+        public void setCategory(String category) { this.category = category; }
+
+        public Long getClicks() { return clicks; }
+        public void setClicks(Long clicks) { this.clicks = clicks; }
+
+        public Double getPercentage() { return percentage; }
+        public void setPercentage(Double percentage) { this.percentage = percentage; }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package UrlShortener.dto.response;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Clicks recorded for one link since the previous delta. Dashboards load the full AnalyticsResponse once
+// and add these increments to it as they arrive on the analytics stream.
+public class LiveAnalyticsDelta {
+
+    private Long urlId;
+    private long clicks;
+    private Map<String, Long> countries = new HashMap<>();
+    private Map<String, Long> devices = new HashMap<>();
+
+    // Constructors
+    public LiveAnalyticsDelta() {}
+
+    public LiveAnalyticsDelta(Long urlId) {
+        this.urlId = urlId;
+    }
+
+    // Adds another delta for the same link into this one
+    public LiveAnalyticsDelta merge(LiveAnalyticsDelta other) {
+        clicks += other.clicks;
+        other.countries.forEach((country, count) -> countries.merge(country, count, Long::sum));
+        other.devices.forEach((device, count) -> devices.merge(device, count, Long::sum));
+        return this;
+    }
+
+    // Getters and Setters
+    public Long getUrlId() { return urlId; }
+    public void setUrlId(Long urlId) { this.urlId = urlId; }
+
+    public long getClicks() { return clicks; }
+    public void setClicks(long clicks) { this.clicks = clicks; }
+
+    public Map<String, Long> getCountries() { return countries; }
+    public void setCountries(Map<String, Long> countries) { this.countries = countries; }
+
+    public Map<String, Long> getDevices() { return devices; }
+    public void setDevices(Map<String, Long> devices) { this.devices = devices; }
+}
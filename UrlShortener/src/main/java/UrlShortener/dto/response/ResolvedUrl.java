@@ -0,0 +1,136 @@
+package UrlShortener.dto.response;
+
+import UrlShortener.model.Url;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+// The few fields a redirect needs, small enough to keep hundreds of thousands of them on the heap.
+// The Location header value is validated and ASCII-encoded once when the entry is loaded, not per hit.
+// Stored in Redis as "id|active|expiresAtEpochMillis|status|location"; the location goes last so it may contain '|'.
+public class ResolvedUrl {
+
+    private Long id;
+    private String shortCode;
+    private String location;
+    private Url.RedirectType redirectType = Url.RedirectType.FOUND;
+    private boolean active;
+    private LocalDateTime expiresAt;
+    private String expiresHeader;
+
+    // Constructors
+    public ResolvedUrl() {}
+
+    // Used by JPQL constructor projections
+    public ResolvedUrl(Long id, String shortCode, String originalUrl, Boolean active, LocalDateTime expiresAt,
+                       Url.RedirectType redirectType) {
+        this.id = id;
+        this.shortCode = shortCode;
+        this.location = toLocation(originalUrl);
+        this.redirectType = Url.RedirectType.orDefault(redirectType);
+        this.active = Boolean.TRUE.equals(active);
+        this.expiresAt = expiresAt;
+        this.expiresHeader = expiresHeaderOf(expiresAt);
+    }
+
+    public boolean hasExpired() {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+
+    public String encode() {
+        long expires = expiresAt != null ? expiresAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+        return id + "|" + (active ? '1' : '0') + "|" + expires + "|" + redirectType.getStatus() + "|"
+                + (location != null ? location : "");
+    }
+
+    // Returns null when the value was not written by encode()
+    public static ResolvedUrl decode(String shortCode, String value) {
+        if (value == null) {
+            return null;
+        }
+        int first = value.indexOf('|');
+        int second = first >= 0 ? value.indexOf('|', first + 1) : -1;
+        int third = second >= 0 ? value.indexOf('|', second + 1) : -1;
+        int fourth = third >= 0 ? value.indexOf('|', third + 1) : -1;
+        if (fourth < 0) {
+            return null;
+        }
+        try {
+            Url.RedirectType redirectType = Url.RedirectType.fromStatus(Integer.parseInt(value, third + 1, fourth, 10));
+            if (redirectType == null) {
+                return null;
+            }
+            ResolvedUrl resolved = new ResolvedUrl();
+            resolved.id = Long.parseLong(value, 0, first, 10);
+            resolved.shortCode = shortCode;
+            resolved.active = value.charAt(first + 1) == '1';
+            long expires = Long.parseLong(value, second + 1, third, 10);
+            resolved.setExpiresAt(expires != 0
+                    ? LocalDateTime.ofEpochSecond(Math.floorDiv(expires, 1000L),
+                    (int) Math.floorMod(expires, 1000L) * 1_000_000, ZoneOffset.UTC)
+                    : null);
+            resolved.redirectType = redirectType;
+            resolved.location = fourth + 1 < value.length() ? value.substring(fourth + 1) : null;
+            return resolved;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Absolute http(s) URL in its ASCII form, or null when it could never be sent as a Location header.
+    // Links stored without a scheme, before creates added one, get https:// like UrlFingerprint assumes.
+    public static String toLocation(String originalUrl) {
+        if (originalUrl == null) {
+            return null;
+        }
+        String candidate = originalUrl.trim();
+        if (!candidate.contains("://")) {
+            candidate = "https://" + candidate;
+        }
+        try {
+            URI uri = URI.create(candidate);
+            String scheme = uri.getScheme();
+            if (uri.getHost() == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+                return null;
+            }
+            return uri.toASCIIString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getShortCode() { return shortCode; }
+    public void setShortCode(String shortCode) { this.shortCode = shortCode; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public Url.RedirectType getRedirectType() { return redirectType; }
+    public void setRedirectType(Url.RedirectType redirectType) { this.redirectType = Url.RedirectType.orDefault(redirectType); }
+
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+        this.expiresHeader = expiresHeaderOf(expiresAt);
+    }
+
+    public String getExpiresHeader() { return expiresHeader; }
+
+    // HTTP-date of the expiry, formatted once per entry rather than per response
+    private static String expiresHeaderOf(LocalDateTime expiresAt) {
+        return expiresAt != null
+                ? DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        expiresAt.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC))
+                : null;
+    }
+}
@@ -16,6 +16,7 @@ public class UrlResponse {
     private Boolean isActive;
     private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
+    private Url.RedirectType redirectType;
 
     // Constructors
     public UrlResponse() {}
@@ -31,6 +32,23 @@ public class UrlResponse {
         this.isActive = url.getIsActive();
         this.createdAt = url.getCreatedAt();
         this.expiresAt = url.getExpiresAt();
+        this.redirectType = Url.RedirectType.orDefault(url.getRedirectType());
+    }
+
+    // Used by JPQL constructor projections; shortUrl is filled in by the service
+    public UrlResponse(Long id, String shortCode, String originalUrl, String title, String description,
+                       Long clickCount, Boolean isActive, LocalDateTime createdAt, LocalDateTime expiresAt,
+                       Url.RedirectType redirectType) {
+        this.id = id;
+        this.shortCode = shortCode;
+        this.originalUrl = originalUrl;
+        this.title = title;
+        this.description = description;
+        this.clickCount = clickCount;
+        this.isActive = isActive;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.redirectType = Url.RedirectType.orDefault(redirectType);
     }
 
     // Getters and Setters
@@ -63,4 +81,7 @@ public class UrlResponse {
 
     public LocalDateTime getExpiresAt() { return expiresAt; }
     public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
-}
\ No newline at end of file
+
+    public Url.RedirectType getRedirectType() { return redirectType; }
+    public void setRedirectType(Url.RedirectType redirectType) { this.redirectType = redirectType; }
+}
@@ -3,6 +3,8 @@ package UrlShortener.exception;
 
 public class ValidationException extends RuntimeException {
 
+    private static final long serialVersionUID = 1L;
+
     public ValidationException(String message) {
         super(message);
     }
@@ -0,0 +1,54 @@
+package UrlShortener.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+// Bot hits are only counted, per link, day and kind of bot; they never become click_events rows
+@Entity
+@Table(name = "bot_click_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_bot_click_rollups_url_day_category",
+                columnNames = {"url_id", "rollup_date", "category"})
+})
+public class BotClickRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "url_id", nullable = false)
+    private Long urlId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Category category;
+
+    @Column(nullable = false)
+    private Long clicks = 0L;
+
+    // Constructors
+    public BotClickRollup() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUrlId() { return urlId; }
+    public void setUrlId(Long urlId) { this.urlId = urlId; }
+
+    public LocalDate getRollupDate() { return rollupDate; }
+    public void setRollupDate(LocalDate rollupDate) { this.rollupDate = rollupDate; }
+
+    public Category getCategory() { return category; }
+    public void setCategory(Category category) { this.category = category; }
+
+    public Long getClicks() { return clicks; }
+    public void setClicks(Long clicks) { this.clicks = clicks; }
+
+    public enum Category {
+        CRAWLER, LINK_PREVIEW, MONITOR, AUTOMATION, HIGH_RATE
+    }
+}
@@ -8,38 +8,42 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "click_events")
+@Table(name = "click_events", indexes = {
+        @Index(name = "idx_click_events_url_clicked_at", columnList = "url_id, clicked_at")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class ClickEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(name = "ip_address")
     private String ipAddress;
 
-    @Column(name = "user_agent", length = 1000)
-    private String userAgent;
+    // Dimension columns hold ids into dimension_values (see DimensionDictionaryService)
+    @Column(name = "user_agent_id")
+    private Integer userAgentId;
 
-    @Column(length = 500)
-    private String referrer;
+    // Interned registrable domain of the Referer header; null for direct traffic
+    @Column(name = "referrer_domain_id")
+    private Integer referrerDomainId;
 
-    @Column(length = 100)
-    private String country;
+    @Column(name = "country_id")
+    private Integer countryId;
 
-    @Column(length = 100)
-    private String city;
+    @Column(name = "city_id")
+    private Integer cityId;
 
     @Column(name = "device_type")
     @Enumerated(EnumType.STRING)
     private DeviceType deviceType;
 
-    @Column(length = 100)
-    private String browser;
+    @Column(name = "browser_id")
+    private Integer browserId;
 
-    @Column(name = "operating_system", length = 100)
-    private String operatingSystem;
+    @Column(name = "operating_system_id")
+    private Integer operatingSystemId;
 
     @CreatedDate
     @Column(name = "clicked_at")
@@ -53,10 +57,10 @@ public class ClickEvent {
     // Constructors
     public ClickEvent() {}
 
-    public ClickEvent(String ipAddress, String userAgent, String referrer, Url url) {
+    public ClickEvent(String ipAddress, Integer userAgentId, Integer referrerDomainId, Url url) {
         this.ipAddress = ipAddress;
-        this.userAgent = userAgent;
-        this.referrer = referrer;
+        this.userAgentId = userAgentId;
+        this.referrerDomainId = referrerDomainId;
         this.url = url;
     }
 
@@ -67,26 +71,26 @@ public class ClickEvent {
     public String getIpAddress() { return ipAddress; }
     public void setIpAddress(String ipAddress) { this.ipAddress = ipAddress; }
 
-    public String getUserAgent() { return userAgent; }
-    public void setUserAgent(String userAgent) { this.userAgent = userAgent; }
+    public Integer getUserAgentId() { return userAgentId; }
+    public void setUserAgentId(Integer userAgentId) { this.userAgentId = userAgentId; }
 
-    public String getReferrer() { return referrer; }
-    public void setReferrer(String referrer) { this.referrer = referrer; }
+    public Integer getReferrerDomainId() { return referrerDomainId; }
+    public void setReferrerDomainId(Integer referrerDomainId) { this.referrerDomainId = referrerDomainId; }
 
-    public String getCountry() { return country; }
-    public void setCountry(String country) { this.country = country; }
+    public Integer getCountryId() { return countryId; }
+    public void setCountryId(Integer countryId) { this.countryId = countryId; }
 
-    public String getCity() { return city; }
-    public void setCity(String city) { this.city = city; }
+    public Integer getCityId() { return cityId; }
+    public void setCityId(Integer cityId) { this.cityId = cityId; }
 
     public DeviceType getDeviceType() { return deviceType; }
     public void setDeviceType(DeviceType deviceType) { this.deviceType = deviceType; }
 
-    public String getBrowser() { return browser; }
-    public void setBrowser(String browser) { this.browser = browser; }
+    public Integer getBrowserId() { return browserId; }
+    public void setBrowserId(Integer browserId) { this.browserId = browserId; }
 
-    public String getOperatingSystem() { return operatingSystem; }
-    public void setOperatingSystem(String operatingSystem) { this.operatingSystem = operatingSystem; }
+    public Integer getOperatingSystemId() { return operatingSystemId; }
+    public void setOperatingSystemId(Integer operatingSystemId) { this.operatingSystemId = operatingSystemId; }
 
     public LocalDateTime getClickedAt() { return clickedAt; }
     public void setClickedAt(LocalDateTime clickedAt) { this.clickedAt = clickedAt; }
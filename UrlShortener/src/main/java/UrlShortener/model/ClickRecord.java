@@ -0,0 +1,165 @@
+package UrlShortener.model;
+
+import UrlShortener.utils.IpAddress;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+// Fixed-layout binary form of an enriched click, for buffering and shipping clicks without holding
+// ClickEvent entities and their strings. Every record is BYTES long, so a batch is one flat buffer and
+// record i starts at i * BYTES. Layout (big-endian):
+//
+//    0 long id             24 byte  ip length (0, 4 or 16)     46 int referrer domain id
+//    8 long url id         25 byte[16] anonymized ip           50 int country id
+//   16 long clicked at     41 byte  device type (0 = none)     54 int city id
+//                          42 int   user agent id              58 int browser id
+//                                                              62 int operating system id
+//
+// Dictionary ids start at 1, so 0 stands for "none" (and for direct traffic in the referrer column).
+// Instances are mutable so a reader can reuse one while walking a buffer.
+public final class ClickRecord {
+
+    public static final int BYTES = 66;
+
+    private static final int MAX_IP_BYTES = 16;
+    private static final ClickEvent.DeviceType[] DEVICE_TYPES = ClickEvent.DeviceType.values();
+
+    private long id;
+    private long urlId;
+    private long clickedAtMillis;
+    private final byte[] ip = new byte[MAX_IP_BYTES];
+    private int ipLength;
+    private ClickEvent.DeviceType deviceType;
+    private int userAgentId;
+    private int referrerDomainId;
+    private int countryId;
+    private int cityId;
+    private int browserId;
+    private int operatingSystemId;
+
+    // Constructors
+    public ClickRecord() {}
+
+    public ClickRecord(long id, long urlId, long clickedAtMillis) {
+        this.id = id;
+        this.urlId = urlId;
+        this.clickedAtMillis = clickedAtMillis;
+    }
+
+    // Writes the record at an absolute offset; the buffer's position is left alone
+    public void writeTo(ByteBuffer buffer, int offset) {
+        buffer.putLong(offset, id);
+        buffer.putLong(offset + 8, urlId);
+        buffer.putLong(offset + 16, clickedAtMillis);
+        buffer.put(offset + 24, (byte) ipLength);
+        buffer.put(offset + 25, ip, 0, MAX_IP_BYTES);
+        buffer.put(offset + 41, (byte) (deviceType != null ? deviceType.ordinal() + 1 : 0));
+        buffer.putInt(offset + 42, userAgentId);
+        buffer.putInt(offset + 46, referrerDomainId);
+        buffer.putInt(offset + 50, countryId);
+        buffer.putInt(offset + 54, cityId);
+        buffer.putInt(offset + 58, browserId);
+        buffer.putInt(offset + 62, operatingSystemId);
+    }
+
+    // Overwrites this instance with the record at the offset; nothing is allocated
+    public ClickRecord readFrom(ByteBuffer buffer, int offset) {
+        id = buffer.getLong(offset);
+        urlId = buffer.getLong(offset + 8);
+        clickedAtMillis = buffer.getLong(offset + 16);
+        ipLength = buffer.get(offset + 24);
+        buffer.get(offset + 25, ip, 0, MAX_IP_BYTES);
+        int device = buffer.get(offset + 41);
+        deviceType = device > 0 && device <= DEVICE_TYPES.length ? DEVICE_TYPES[device - 1] : null;
+        userAgentId = buffer.getInt(offset + 42);
+        referrerDomainId = buffer.getInt(offset + 46);
+        countryId = buffer.getInt(offset + 50);
+        cityId = buffer.getInt(offset + 54);
+        browserId = buffer.getInt(offset + 58);
+        operatingSystemId = buffer.getInt(offset + 62);
+        return this;
+    }
+
+    // Reads only the url id, for callers that route or filter records without decoding them
+    public static long urlIdAt(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 8);
+    }
+
+    // Stores the /24 (IPv4) or /48 (IPv6) network of the address; unparseable values are stored as "no address"
+    public void setIpAddress(String ipAddress) {
+        IpAddress address = new IpAddress();
+        if (address.parse(ipAddress)) {
+            setIp(address);
+        } else {
+            Arrays.fill(ip, (byte) 0);
+            ipLength = 0;
+        }
+    }
+
+    // Truncates the given address in place and stores it
+    public void setIp(IpAddress address) {
+        address.truncate();
+        Arrays.fill(ip, (byte) 0);
+        ipLength = address.toBytes(ip, 0);
+    }
+
+    // Loads the stored address into the given holder; false when there is none
+    public boolean getIp(IpAddress address) {
+        if (ipLength == 0) {
+            return false;
+        }
+        address.fromBytes(ip, 0, ipLength);
+        return true;
+    }
+
+    public String getIpAddress() {
+        IpAddress address = new IpAddress();
+        return getIp(address) ? address.toString() : null;
+    }
+
+    public LocalDateTime getClickedAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(clickedAtMillis), ZoneId.systemDefault());
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public long getUrlId() { return urlId; }
+    public void setUrlId(long urlId) { this.urlId = urlId; }
+
+    public long getClickedAtMillis() { return clickedAtMillis; }
+    public void setClickedAtMillis(long clickedAtMillis) { this.clickedAtMillis = clickedAtMillis; }
+
+    public ClickEvent.DeviceType getDeviceType() { return deviceType; }
+    public void setDeviceType(ClickEvent.DeviceType deviceType) { this.deviceType = deviceType; }
+
+    public Integer getUserAgentId() { return idOrNull(userAgentId); }
+    public void setUserAgentId(Integer userAgentId) { this.userAgentId = idOrZero(userAgentId); }
+
+    public Integer getReferrerDomainId() { return idOrNull(referrerDomainId); }
+    public void setReferrerDomainId(Integer referrerDomainId) { this.referrerDomainId = idOrZero(referrerDomainId); }
+
+    public Integer getCountryId() { return idOrNull(countryId); }
+    public void setCountryId(Integer countryId) { this.countryId = idOrZero(countryId); }
+
+    public Integer getCityId() { return idOrNull(cityId); }
+    public void setCityId(Integer cityId) { this.cityId = idOrZero(cityId); }
+
+    public Integer getBrowserId() { return idOrNull(browserId); }
+    public void setBrowserId(Integer browserId) { this.browserId = idOrZero(browserId); }
+
+    public Integer getOperatingSystemId() { return idOrNull(operatingSystemId); }
+    public void setOperatingSystemId(Integer operatingSystemId) { this.operatingSystemId = idOrZero(operatingSystemId); }
+
+    private static Integer idOrNull(int id) {
+        return id != 0 ? id : null;
+    }
+
+    private static int idOrZero(Integer id) {
+        return id != null ? id : 0;
+    }
+}
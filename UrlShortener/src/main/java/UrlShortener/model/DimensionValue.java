@@ -0,0 +1,51 @@
+package UrlShortener.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "dimension_values", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_dimension_values_dimension_hash", columnNames = {"dimension", "value_hash"})
+})
+public class DimensionValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Dimension dimension;
+
+    @Column(nullable = false, length = 1000)
+    private String label;
+
+    // MD5 of the label; user agents are too long for a unique index on the label itself
+    @Column(name = "value_hash", nullable = false, length = 32)
+    private String valueHash;
+
+    // Constructors
+    public DimensionValue() {}
+
+    public DimensionValue(Dimension dimension, String label, String valueHash) {
+        this.dimension = dimension;
+        this.label = label;
+        this.valueHash = valueHash;
+    }
+
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public Dimension getDimension() { return dimension; }
+    public void setDimension(Dimension dimension) { this.dimension = dimension; }
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+
+    public String getValueHash() { return valueHash; }
+    public void setValueHash(String valueHash) { this.valueHash = valueHash; }
+
+    public enum Dimension {
+        BROWSER, OPERATING_SYSTEM, COUNTRY, CITY, USER_AGENT
+    }
+}
@@ -0,0 +1,41 @@
+package UrlShortener.model;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "referrer_domains")
+public class ReferrerDomain {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String domain;
+
+    @Column(name = "source_type", length = 20)
+    @Enumerated(EnumType.STRING)
+    private SourceType sourceType;
+
+    // Constructors
+    public ReferrerDomain() {}
+
+    public ReferrerDomain(String domain, SourceType sourceType) {
+        this.domain = domain;
+        this.sourceType = sourceType;
+    }
+
+    // Getters and Setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getDomain() { return domain; }
+    public void setDomain(String domain) { this.domain = domain; }
+
+    public SourceType getSourceType() { return sourceType; }
+    public void setSourceType(SourceType sourceType) { this.sourceType = sourceType; }
+
+    public enum SourceType {
+        DIRECT, SEARCH, SOCIAL, EMAIL, OTHER
+    }
+}
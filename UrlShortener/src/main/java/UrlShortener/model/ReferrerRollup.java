@@ -0,0 +1,49 @@
+package UrlShortener.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "referrer_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_referrer_rollups_url_day_domain",
+                columnNames = {"url_id", "rollup_date", "referrer_domain_id"})
+})
+public class ReferrerRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "url_id", nullable = false)
+    private Long urlId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    // 0 marks direct traffic (no Referer header)
+    @Column(name = "referrer_domain_id", nullable = false)
+    private Integer referrerDomainId;
+
+    @Column(nullable = false)
+    private Long clicks = 0L;
+
+    // Constructors
+    public ReferrerRollup() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUrlId() { return urlId; }
+    public void setUrlId(Long urlId) { this.urlId = urlId; }
+
+    public LocalDate getRollupDate() { return rollupDate; }
+    public void setRollupDate(LocalDate rollupDate) { this.rollupDate = rollupDate; }
+
+    public Integer getReferrerDomainId() { return referrerDomainId; }
+    public void setReferrerDomainId(Integer referrerDomainId) { this.referrerDomainId = referrerDomainId; }
+
+    public Long getClicks() { return clicks; }
+    public void setClicks(Long clicks) { this.clicks = clicks; }
+}
@@ -0,0 +1,16 @@
+package UrlShortener.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Assigns ids in the application (see SnowflakeIds) so Hibernate can batch inserts,
+// which it cannot do for IDENTITY columns that must be read back row by row
+@IdGeneratorType(SnowflakeIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface SnowflakeId {
+}
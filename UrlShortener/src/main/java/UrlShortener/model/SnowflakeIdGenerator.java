@@ -0,0 +1,15 @@
+package UrlShortener.model;
+
+import UrlShortener.utils.SnowflakeIds;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return SnowflakeIds.nextId();
+    }
+}
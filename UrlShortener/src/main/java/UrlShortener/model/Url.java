@@ -13,12 +13,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "urls")
+@Table(name = "urls", indexes = {
+        @Index(name = "idx_urls_user_url_hash", columnList = "user_id, url_hash")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Url {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(name = "short_code", unique = true, nullable = false)
@@ -30,6 +32,10 @@ public class Url {
     @NotBlank
     private String originalUrl;
 
+    // UrlFingerprint of originalUrl; lets duplicate creates be found through a narrow index
+    @Column(name = "url_hash", columnDefinition = "BINARY(16)")
+    private byte[] urlHash;
+
     @Column(length = 500)
     private String title;
 
@@ -45,6 +51,11 @@ public class Url {
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
 
+    // Permanent types let browsers and CDNs cache the redirect, so cached hits are not counted
+    @Enumerated(EnumType.STRING)
+    @Column(name = "redirect_type", length = 32)
+    private RedirectType redirectType = RedirectType.FOUND;
+
     @CreatedDate
     @Column(name = "created_at")
     private LocalDateTime createdAt;
@@ -81,6 +92,9 @@ public class Url {
     public String getOriginalUrl() { return originalUrl; }
     public void setOriginalUrl(String originalUrl) { this.originalUrl = originalUrl; }
 
+    public byte[] getUrlHash() { return urlHash; }
+    public void setUrlHash(byte[] urlHash) { this.urlHash = urlHash; }
+
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
@@ -96,6 +110,9 @@ public class Url {
     public LocalDateTime getExpiresAt() { return expiresAt; }
     public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
 
+    public RedirectType getRedirectType() { return redirectType; }
+    public void setRedirectType(RedirectType redirectType) { this.redirectType = redirectType; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -116,4 +133,34 @@ public class Url {
     public boolean isExpired() {
         return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
     }
+
+    public enum RedirectType {
+        MOVED_PERMANENTLY(301), FOUND(302), TEMPORARY_REDIRECT(307), PERMANENT_REDIRECT(308);
+
+        private final int status;
+
+        RedirectType(int status) {
+            this.status = status;
+        }
+
+        public int getStatus() { return status; }
+
+        public boolean isPermanent() {
+            return this == MOVED_PERMANENTLY || this == PERMANENT_REDIRECT;
+        }
+
+        // Rows created before the column existed have no type
+        public static RedirectType orDefault(RedirectType type) {
+            return type != null ? type : FOUND;
+        }
+
+        public static RedirectType fromStatus(int status) {
+            for (RedirectType type : values()) {
+                if (type.status == status) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
 }
\ No newline at end of file
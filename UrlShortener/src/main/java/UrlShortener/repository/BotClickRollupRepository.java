@@ -0,0 +1,19 @@
+package UrlShortener.repository;
+
+import UrlShortener.model.BotClickRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BotClickRollupRepository extends JpaRepository<BotClickRollup, Long> {
+
+    @Query("SELECT r.category, SUM(r.clicks) FROM BotClickRollup r " +
+            "WHERE r.urlId = :urlId AND r.rollupDate >= :since " +
+            "GROUP BY r.category ORDER BY SUM(r.clicks) DESC")
+    List<Object[]> getClicksByCategory(@Param("urlId") Long urlId, @Param("since") LocalDate since);
+}
@@ -2,6 +2,7 @@ package UrlShortener.repository;
 
 import UrlShortener.model.ClickEvent;
 import UrlShortener.model.Url;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,30 +11,44 @@ import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Aggregates filter on the url_id column directly, so callers only need the id, not a loaded Url.
+// :since is ClickArchiveService.liveFrom(): older clicks are answered from the archive, not this table.
 @Repository
 public interface ClickEventRepository extends JpaRepository<ClickEvent, Long> {
 
     List<ClickEvent> findByUrlOrderByClickedAtDesc(Url url);
 
-    @Query("SELECT COUNT(c) FROM ClickEvent c WHERE c.url = :url")
-    long countByUrl(@Param("url") Url url);
-
-    @Query("SELECT COUNT(c) FROM ClickEvent c WHERE c.url = :url AND c.clickedAt >= :startDate")
-    long countByUrlAndClickedAtAfter(@Param("url") Url url, @Param("startDate") LocalDateTime startDate);
-
-    @Query("SELECT c.country, COUNT(c) FROM ClickEvent c WHERE c.url = :url AND c.country IS NOT NULL " +
-            "GROUP BY c.country ORDER BY COUNT(c) DESC")
-    List<Object[]> getClicksByCountry(@Param("url") Url url);
-
-    @Query("SELECT DATE(c.clickedAt), COUNT(c) FROM ClickEvent c WHERE c.url = :url AND " +
+    @Query("SELECT COUNT(c) FROM ClickEvent c WHERE c.url.id = :urlId")
+    long countByUrlId(@Param("urlId") Long urlId);
+
+    // Total, last day, last week, last month and requested period in one pass instead of five COUNT queries
+    @Query("SELECT COUNT(c), " +
+            "SUM(CASE WHEN c.clickedAt >= :dayStart THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.clickedAt >= :weekStart THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.clickedAt >= :monthStart THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN c.clickedAt >= :periodStart THEN 1 ELSE 0 END) " +
+            "FROM ClickEvent c WHERE c.url.id = :urlId AND c.clickedAt >= :since")
+    List<Object[]> getClickCountSummary(@Param("urlId") Long urlId,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("dayStart") LocalDateTime dayStart,
+                                        @Param("weekStart") LocalDateTime weekStart,
+                                        @Param("monthStart") LocalDateTime monthStart,
+                                        @Param("periodStart") LocalDateTime periodStart);
+
+    // Dimension breakdowns group on dictionary ids; labels are resolved only for the returned top-N
+    @Query("SELECT c.countryId, COUNT(c) FROM ClickEvent c WHERE c.url.id = :urlId AND c.clickedAt >= :since " +
+            "AND c.countryId IS NOT NULL GROUP BY c.countryId ORDER BY COUNT(c) DESC")
+    List<Object[]> getClicksByCountry(@Param("urlId") Long urlId, @Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT DATE(c.clickedAt), COUNT(c) FROM ClickEvent c WHERE c.url.id = :urlId AND " +
             "c.clickedAt >= :startDate GROUP BY DATE(c.clickedAt) ORDER BY DATE(c.clickedAt)")
-    List<Object[]> getDailyClickStats(@Param("url") Url url, @Param("startDate") LocalDateTime startDate);
+    List<Object[]> getDailyClickStats(@Param("urlId") Long urlId, @Param("startDate") LocalDateTime startDate);
 
-    @Query("SELECT c.browser, COUNT(c) FROM ClickEvent c WHERE c.url = :url AND c.browser IS NOT NULL " +
-            "GROUP BY c.browser ORDER BY COUNT(c) DESC")
-    List<Object[]> getClicksByBrowser(@Param("url") Url url);
+    @Query("SELECT c.browserId, COUNT(c) FROM ClickEvent c WHERE c.url.id = :urlId AND c.clickedAt >= :since " +
+            "AND c.browserId IS NOT NULL GROUP BY c.browserId ORDER BY COUNT(c) DESC")
+    List<Object[]> getClicksByBrowser(@Param("urlId") Long urlId, @Param("since") LocalDateTime since, Pageable pageable);
 
-    @Query("SELECT c.deviceType, COUNT(c) FROM ClickEvent c WHERE c.url = :url AND c.deviceType IS NOT NULL " +
-            "GROUP BY c.deviceType ORDER BY COUNT(c) DESC")
-    List<Object[]> getClicksByDeviceType(@Param("url") Url url);
-}
\ No newline at end of file
+    @Query("SELECT c.deviceType, COUNT(c) FROM ClickEvent c WHERE c.url.id = :urlId AND c.clickedAt >= :since " +
+            "AND c.deviceType IS NOT NULL GROUP BY c.deviceType ORDER BY COUNT(c) DESC")
+    List<Object[]> getClicksByDeviceType(@Param("urlId") Long urlId, @Param("since") LocalDateTime since);
+}
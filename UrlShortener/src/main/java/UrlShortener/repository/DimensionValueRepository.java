@@ -0,0 +1,13 @@
+package UrlShortener.repository;
+
+import UrlShortener.model.DimensionValue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DimensionValueRepository extends JpaRepository<DimensionValue, Integer> {
+
+    Optional<DimensionValue> findByDimensionAndValueHash(DimensionValue.Dimension dimension, String valueHash);
+}
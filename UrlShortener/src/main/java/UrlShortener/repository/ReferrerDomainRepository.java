@@ -0,0 +1,13 @@
+package UrlShortener.repository;
+
+import UrlShortener.model.ReferrerDomain;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReferrerDomainRepository extends JpaRepository<ReferrerDomain, Integer> {
+
+    Optional<ReferrerDomain> findByDomain(String domain);
+}
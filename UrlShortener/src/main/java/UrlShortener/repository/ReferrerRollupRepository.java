@@ -0,0 +1,19 @@
+package UrlShortener.repository;
+
+import UrlShortener.model.ReferrerRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ReferrerRollupRepository extends JpaRepository<ReferrerRollup, Long> {
+
+    @Query("SELECT r.referrerDomainId, SUM(r.clicks) FROM ReferrerRollup r " +
+            "WHERE r.urlId = :urlId AND r.rollupDate >= :since " +
+            "GROUP BY r.referrerDomainId ORDER BY SUM(r.clicks) DESC")
+    List<Object[]> getClicksByReferrerDomain(@Param("urlId") Long urlId, @Param("since") LocalDate since);
+}
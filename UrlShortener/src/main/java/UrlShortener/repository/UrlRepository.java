@@ -1,14 +1,19 @@
 package UrlShortener.repository;
 
+import UrlShortener.dto.response.ResolvedUrl;
+import UrlShortener.dto.response.UrlResponse;
 import UrlShortener.model.Url;
 import UrlShortener.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,14 +24,56 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
 
     boolean existsByShortCode(String shortCode);
 
-    Page<Url> findByUserAndIsActiveOrderByCreatedAtDesc(User user, Boolean isActive, Pageable pageable);
-    @Query("SELECT u FROM Url u WHERE u.user = :user AND u.isActive = true AND " +
+    // Links a create may hand back instead of minting a new one: same user, URL and redirect type, still live
+    @Query("SELECT u FROM Url u WHERE u.user = :user AND u.urlHash = :urlHash AND u.isActive = true " +
+            "AND u.redirectType = :redirectType AND (u.expiresAt IS NULL OR u.expiresAt > :now) ORDER BY u.createdAt ASC")
+    List<Url> findReusable(@Param("user") User user, @Param("urlHash") byte[] urlHash,
+                           @Param("redirectType") Url.RedirectType redirectType, @Param("now") LocalDateTime now);
+
+    @Query("SELECT u.id FROM Url u WHERE u.shortCode = :shortCode")
+    Optional<Long> findIdByShortCode(@Param("shortCode") String shortCode);
+
+    // Redirect projections: only what ShortCodeResolver caches
+    @Query("SELECT new UrlShortener.dto.response.ResolvedUrl(u.id, u.shortCode, u.originalUrl, u.isActive, u.expiresAt, u.redirectType) " +
+            "FROM Url u WHERE u.shortCode = :shortCode")
+    Optional<ResolvedUrl> findResolvedByShortCode(@Param("shortCode") String shortCode);
+
+    @Query("SELECT new UrlShortener.dto.response.ResolvedUrl(u.id, u.shortCode, u.originalUrl, u.isActive, u.expiresAt, u.redirectType) " +
+            "FROM Url u WHERE u.shortCode IN :shortCodes")
+    List<ResolvedUrl> findResolvedByShortCodes(@Param("shortCodes") Collection<String> shortCodes);
+
+    @Query("SELECT u.shortCode FROM Url u WHERE u.isActive = true ORDER BY u.clickCount DESC")
+    List<String> findTopShortCodes(Pageable pageable);
+
+    // Listing projections: read straight into UrlResponse without managing Url entities
+    @Query(value = "SELECT new UrlShortener.dto.response.UrlResponse(u.id, u.shortCode, u.originalUrl, u.title, " +
+            "u.description, u.clickCount, u.isActive, u.createdAt, u.expiresAt, u.redirectType) " +
+            "FROM Url u WHERE u.user = :user AND u.isActive = true ORDER BY u.createdAt DESC",
+            countQuery = "SELECT COUNT(u) FROM Url u WHERE u.user = :user AND u.isActive = true")
+    Page<UrlResponse> findActiveUrlSummaries(@Param("user") User user, Pageable pageable);
+
+    @Query(value = "SELECT new UrlShortener.dto.response.UrlResponse(u.id, u.shortCode, u.originalUrl, u.title, " +
+            "u.description, u.clickCount, u.isActive, u.createdAt, u.expiresAt, u.redirectType) " +
+            "FROM Url u WHERE u.user = :user AND u.isActive = true AND " +
             "(LOWER(u.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(u.originalUrl) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Url> findByUserAndSearchTerm(@Param("user") User user, @Param("search") String search, Pageable pageable);
+            "LOWER(u.originalUrl) LIKE LOWER(CONCAT('%', :search, '%')))",
+            countQuery = "SELECT COUNT(u) FROM Url u WHERE u.user = :user AND u.isActive = true AND " +
+                    "(LOWER(u.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+                    "LOWER(u.originalUrl) LIKE LOWER(CONCAT('%', :search, '%')))")
+    Page<UrlResponse> searchActiveUrlSummaries(@Param("user") User user, @Param("search") String search, Pageable pageable);
+
+    @Query("SELECT new UrlShortener.dto.response.UrlResponse(u.id, u.shortCode, u.originalUrl, u.title, " +
+            "u.description, u.clickCount, u.isActive, u.createdAt, u.expiresAt, u.redirectType) " +
+            "FROM Url u WHERE u.user = :user AND u.isActive = true ORDER BY u.clickCount DESC")
+    List<UrlResponse> findTopUrlSummaries(@Param("user") User user, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Url u SET u.isActive = false WHERE u.id = :id")
+    int deactivate(@Param("id") Long id);
 
-    @Query("SELECT u FROM Url u WHERE u.user = :user AND u.isActive = true ORDER BY u.clickCount DESC")
-    List<Url> findTopUrlsByUser(@Param("user") User user, Pageable pageable);
+    // (id, shortCode) of every link of the user, inactive ones included, in id order
+    @Query("SELECT u.id, u.shortCode FROM Url u WHERE u.user = :user ORDER BY u.id")
+    List<Object[]> findLinkIdsByUser(@Param("user") User user);
 
     @Query("SELECT SUM(u.clickCount) FROM Url u WHERE u.user = :user AND u.isActive = true")
     Long getTotalClicksByUser(@Param("user") User user);
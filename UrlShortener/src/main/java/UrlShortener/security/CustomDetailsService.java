@@ -6,31 +6,51 @@ import UrlShortener.model.User;
 import UrlShortener.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-import java.util.ArrayList;
 
 @Service
 public class CustomDetailsService implements UserDetailsService {
 
+    public static final String TIER_AUTHORITY_PREFIX = "TIER_";
+    public static final String ADMIN_ROLE = "ADMIN";
+
     @Autowired
     private UserRepository userRepository;
 
+    private final Set<String> adminEmails;
+
+    // Accounts allowed on the operational endpoints (persistence statistics and their reset)
+    public CustomDetailsService(@Value("${app.security.admin-emails:}") String adminEmails) {
+        this.adminEmails = Arrays.stream(adminEmails.split(","))
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toSet());
+    }
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
+        String tier = TIER_AUTHORITY_PREFIX + user.getSubscriptionTier();
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getEmail())
                 .password(user.getPassword())
-                .authorities(new ArrayList<>())
+                .authorities(adminEmails.contains(user.getEmail().toLowerCase(Locale.ROOT))
+                        ? new String[]{tier, "ROLE_" + ADMIN_ROLE}
+                        : new String[]{tier})
                 .accountExpired(false)
                 .accountLocked(!user.getIsActive())
                 .credentialsExpired(false)
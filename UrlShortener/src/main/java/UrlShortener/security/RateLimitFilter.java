@@ -0,0 +1,93 @@
+package UrlShortener.security;
+
+import UrlShortener.model.User;
+import UrlShortener.service.RateLimitService;
+import UrlShortener.utils.ClientIpResolver;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Not a bean on purpose: it must only run inside the security chain, after the JWT filter
+// has populated the authentication, never as a standalone servlet filter.
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+    private final ClientIpResolver clientIpResolver;
+
+    public RateLimitFilter(RateLimitService rateLimitService, ClientIpResolver clientIpResolver) {
+        this.rateLimitService = rateLimitService;
+        this.clientIpResolver = clientIpResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!rateLimitService.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        long retryAfter = RateLimitService.ALLOWED;
+
+        if ("GET".equals(method) && isShortCodePath(path)) {
+            retryAfter = rateLimitService.checkRedirect(clientIpResolver.getClientIpAddress(request), path.substring(1));
+        } else if ("POST".equals(method) && (path.equals("/api/urls") || path.equals("/api/urls/"))) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String email = authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+            retryAfter = rateLimitService.checkCreate(clientIpResolver.getClientIpAddress(request), email,
+                    subscriptionTier(authentication));
+        }
+
+        if (retryAfter != RateLimitService.ALLOWED) {
+            response.setStatus(429);
+            response.setHeader("Retry-After", Long.toString(retryAfter));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"success\":false,\"error\":\"Too many requests\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // Mirrors the redirect mapping: a single 6-8 character alphanumeric path segment
+    static boolean isShortCodePath(String path) {
+        int length = path.length() - 1;
+        if (length < 6 || length > 8 || path.charAt(0) != '/') {
+            return false;
+        }
+        for (int i = 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private User.SubscriptionTier subscriptionTier(Authentication authentication) {
+        if (authentication == null) {
+            return null;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(CustomDetailsService.TIER_AUTHORITY_PREFIX)) {
+                try {
+                    return User.SubscriptionTier.valueOf(name.substring(CustomDetailsService.TIER_AUTHORITY_PREFIX.length()));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+package UrlShortener.security;
+
+import UrlShortener.config.Workload;
+import UrlShortener.service.WorkloadBulkheads;
+import UrlShortener.utils.Bulkhead;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Tags each request with its workload class and admits it through that class's bulkhead.
+// Requests that find their bulkhead full get an immediate 503 instead of queuing for a connection.
+public class WorkloadBulkheadFilter extends OncePerRequestFilter {
+
+    private final WorkloadBulkheads workloadBulkheads;
+
+    public WorkloadBulkheadFilter(WorkloadBulkheads workloadBulkheads) {
+        this.workloadBulkheads = workloadBulkheads;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        Workload workload;
+        if (RateLimitFilter.isShortCodePath(path)) {
+            workload = Workload.REDIRECT;
+        } else if (path.startsWith("/api/analytics")) {
+            workload = Workload.ANALYTICS;
+        } else if (path.startsWith("/api/")) {
+            workload = Workload.OLTP;
+        } else {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Bulkhead bulkhead = workloadBulkheads.get(workload);
+        if (!bulkhead.tryEnter()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"success\":false,\"error\":\"Service busy, please retry\"}");
+            return;
+        }
+
+        Workload previous = workload.enter();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Workload.restore(previous);
+            bulkhead.exit();
+        }
+    }
+}
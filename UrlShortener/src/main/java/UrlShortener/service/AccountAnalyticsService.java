@@ -0,0 +1,401 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.dto.response.AccountAnalyticsResponse;
+import UrlShortener.dto.response.AnalyticsResponse;
+import UrlShortener.model.ClickEvent;
+import UrlShortener.model.User;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.utils.ClickArchiveFile;
+import UrlShortener.utils.ClickArchiveFile.Column;
+import UrlShortener.utils.IntLongMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Analytics across all links of one account. The links (sorted by id) are split into partitions on a
+// bounded fork-join pool; each partition runs one grouped query for its links, adds archived clicks when
+// the period reaches back past ClickArchiveService.liveFrom(), and counts into its own primitive-keyed maps.
+// Finished partitions queue their partial results, which are merged once all are done or the time budget
+// runs out. In the second case the report covers the partitions that made it and says so.
+@Service
+public class AccountAnalyticsService {
+
+    private static final int TOP_N = 10;
+    private static final ClickEvent.DeviceType[] DEVICE_TYPES = ClickEvent.DeviceType.values();
+    private static final Set<Column> ARCHIVE_COLUMNS =
+            EnumSet.of(Column.CLICKED_AT, Column.COUNTRY_ID, Column.BROWSER_ID, Column.DEVICE_TYPE);
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private DimensionDictionaryService dimensionDictionaryService;
+
+    @Autowired
+    private ClickArchiveService clickArchiveService;
+
+    @Value("${app.account-analytics.partition-size:200}")
+    private int partitionSize;
+
+    @Value("${app.account-analytics.budget-ms:5000}")
+    private long budgetMs;
+
+    private final ForkJoinPool pool;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Counter reports;
+    private final Counter partialReports;
+    private final Counter failedPartitions;
+
+    // Parallelism should stay below the analytics connection pool, which the partitions draw from. Workers
+    // blocked in invokeAll would normally be compensated with extra threads; maximumPoolSize = parallelism
+    // and a saturate predicate that accepts running short keep the pool, and its connections, at parallelism.
+    public AccountAnalyticsService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.account-analytics.parallelism:4}") int parallelism) {
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("account-analytics-" + thread.getPoolIndex());
+            return thread;
+        }, null, false, 0, parallelism, 1, forkJoinPool -> true, 60, TimeUnit.SECONDS);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Read-only, so the partitions are routed to the analytics pool and its replica
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+
+        this.reports = Counter.builder("analytics.account.reports").register(meterRegistry);
+        this.partialReports = Counter.builder("analytics.account.partial_reports").register(meterRegistry);
+        this.failedPartitions = Counter.builder("analytics.account.failed_partitions").register(meterRegistry);
+    }
+
+    public AccountAnalyticsResponse getAccountAnalytics(User user, int days) {
+        long started = System.nanoTime();
+        Report report = new Report(started + TimeUnit.MILLISECONDS.toNanos(budgetMs));
+
+        List<Object[]> links = readOnly.execute(status -> urlRepository.findLinkIdsByUser(user));
+        report.urlIds = new long[links.size()];
+        String[] shortCodes = new String[links.size()];
+        for (int i = 0; i < links.size(); i++) {
+            report.urlIds[i] = ((Number) links.get(i)[0]).longValue();
+            shortCodes[i] = (String) links.get(i)[1];
+        }
+        report.start = LocalDateTime.now().minusDays(days);
+        report.liveFrom = clickArchiveService.liveFrom();
+        reports.increment();
+
+        if (report.urlIds.length > 0) {
+            ForkJoinTask<Void> task = pool.submit(new PartitionTask(report, 0, report.urlIds.length));
+            try {
+                task.get(Math.max(0, report.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                partialReports.increment();
+            } catch (ExecutionException e) {
+                System.err.println("Account analytics failed for user " + user.getId() + ": " + e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // Partitions not yet started are skipped; ones still running finish, but are not waited for
+                report.cancelled = true;
+            }
+        }
+
+        AccountAnalyticsResponse response = new AccountAnalyticsResponse(days, report.urlIds.length);
+        Totals totals = new Totals(report.urlIds.length);
+        for (Partial partial; (partial = report.completed.poll()) != null; ) {
+            totals.add(partial);
+        }
+        buildResponse(response, totals, shortCodes);
+        response.setLinksCovered(totals.linksCovered);
+        response.setComplete(totals.linksCovered == report.urlIds.length);
+        response.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void buildResponse(AccountAnalyticsResponse response, Totals totals, String[] shortCodes) {
+        long total = totals.clicks;
+        response.setTotalClicks(total);
+
+        List<AnalyticsResponse.DailyClickData> dailyClicks = new ArrayList<>();
+        for (int day : totals.days.sortedKeys()) {
+            dailyClicks.add(new AnalyticsResponse.DailyClickData(LocalDate.ofEpochDay(day), totals.days.get(day)));
+        }
+        response.setDailyClicks(dailyClicks);
+
+        // Labels only for the ids that made the top N
+        int[] countryIds = totals.countries.topKeys(TOP_N);
+        int[] browserIds = totals.browsers.topKeys(TOP_N);
+        List<Integer> labelIds = new ArrayList<>(countryIds.length + browserIds.length);
+        Arrays.stream(countryIds).forEach(labelIds::add);
+        Arrays.stream(browserIds).forEach(labelIds::add);
+        Map<Integer, String> labels = dimensionDictionaryService.labelsOf(labelIds);
+
+        List<AnalyticsResponse.CountryClickData> topCountries = new ArrayList<>();
+        for (int id : countryIds) {
+            long clicks = totals.countries.get(id);
+            topCountries.add(new AnalyticsResponse.CountryClickData(labels.get(id), clicks, percentage(clicks, total)));
+        }
+        response.setTopCountries(topCountries);
+
+        List<AnalyticsResponse.BrowserClickData> browserStats = new ArrayList<>();
+        for (int id : browserIds) {
+            long clicks = totals.browsers.get(id);
+            browserStats.add(new AnalyticsResponse.BrowserClickData(labels.get(id), clicks, percentage(clicks, total)));
+        }
+        response.setBrowserStats(browserStats);
+
+        IntLongMap devices = new IntLongMap(DEVICE_TYPES.length);
+        for (int ordinal = 0; ordinal < DEVICE_TYPES.length; ordinal++) {
+            if (totals.devices[ordinal] > 0) {
+                devices.add(ordinal, totals.devices[ordinal]);
+            }
+        }
+        List<AnalyticsResponse.DeviceClickData> deviceStats = new ArrayList<>();
+        for (int ordinal : devices.topKeys(DEVICE_TYPES.length)) {
+            long clicks = devices.get(ordinal);
+            deviceStats.add(new AnalyticsResponse.DeviceClickData(DEVICE_TYPES[ordinal].name(), clicks, percentage(clicks, total)));
+        }
+        response.setDeviceStats(deviceStats);
+
+        IntLongMap linkClicks = new IntLongMap();
+        for (int link = 0; link < totals.linkClicks.length; link++) {
+            if (totals.linkClicks[link] > 0) {
+                linkClicks.add(link, totals.linkClicks[link]);
+            }
+        }
+        List<AccountAnalyticsResponse.LinkClickData> topLinks = new ArrayList<>();
+        for (int link : linkClicks.topKeys(TOP_N)) {
+            long clicks = totals.linkClicks[link];
+            topLinks.add(new AccountAnalyticsResponse.LinkClickData(shortCodes[link], clicks, percentage(clicks, total)));
+        }
+        response.setTopLinks(topLinks);
+    }
+
+    // Counts of links [from, to) grouped by link, day and dimensions in one statement
+    private Partial aggregate(Report report, int from, int to) throws IOException {
+        Partial partial = new Partial(from, to);
+        LocalDateTime liveStart = report.start.isAfter(report.liveFrom) ? report.start : report.liveFrom;
+
+        Workload previous = Workload.ANALYTICS.enter();
+        try {
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(
+                    connection -> prepareLiveQuery(connection, report, from, to, liveStart),
+                    (ResultSet rs) -> {
+                        int link = Arrays.binarySearch(report.urlIds, from, to, rs.getLong(1));
+                        String deviceType = rs.getString(5);
+                        int device = deviceType != null ? ClickEvent.DeviceType.valueOf(deviceType).ordinal() + 1 : 0;
+                        partial.add(link, (int) rs.getDate(2).toLocalDate().toEpochDay(), rs.getInt(3), rs.getInt(4),
+                                device, rs.getLong(6));
+                    }));
+
+            if (report.start.isBefore(report.liveFrom)) {
+                long startMillis = report.start.atZone(zone).toInstant().toEpochMilli();
+                for (int link = from; link < to && !report.cancelled; link++) {
+                    int current = link;
+                    clickArchiveService.scan(report.urlIds[link], report.start, report.liveFrom, ARCHIVE_COLUMNS,
+                            (rows, first, last) -> partial.addArchived(current, rows, first, last, startMillis, zone));
+                }
+            }
+        } finally {
+            Workload.restore(previous);
+        }
+        return partial;
+    }
+
+    private PreparedStatement prepareLiveQuery(Connection connection, Report report, int from, int to,
+                                               LocalDateTime liveStart) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT url_id, DATE(clicked_at), country_id, browser_id, device_type, "
+                + "COUNT(*) FROM click_events WHERE url_id IN (");
+        for (int i = from; i < to; i++) {
+            sql.append(i > from ? ",?" : "?");
+        }
+        sql.append(") AND clicked_at >= ? GROUP BY url_id, DATE(clicked_at), country_id, browser_id, device_type");
+
+        PreparedStatement statement = connection.prepareStatement(sql.toString());
+        int index = 1;
+        for (int i = from; i < to; i++) {
+            statement.setLong(index++, report.urlIds[i]);
+        }
+        statement.setTimestamp(index, Timestamp.valueOf(liveStart));
+        // A partition still running when the budget ends would only be thrown away
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(report.deadline - System.nanoTime());
+        statement.setQueryTimeout((int) Math.max(1, (remainingMs + 999) / 1000));
+        return statement;
+    }
+
+    private static double percentage(long clicks, long total) {
+        return total > 0 ? (clicks * 100.0) / total : 0.0;
+    }
+
+    // Splits the link range in halves down to partitionSize links, then aggregates one partition
+    private final class PartitionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized
+        private final transient Report report;
+        private final int from;
+        private final int to;
+
+        private PartitionTask(Report report, int from, int to) {
+            this.report = report;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (report.cancelled || System.nanoTime() - report.deadline >= 0) {
+                return;
+            }
+            if (to - from > partitionSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new PartitionTask(report, from, mid), new PartitionTask(report, mid, to));
+                return;
+            }
+            try {
+                Partial partial = aggregate(report, from, to);
+                if (!report.cancelled) {
+                    report.completed.add(partial);
+                }
+            } catch (Exception e) {
+                // The report goes out without these links and says it is incomplete
+                failedPartitions.increment();
+                System.err.println("Account analytics partition failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Report {
+        private final long deadline;
+        private long[] urlIds;
+        private LocalDateTime start;
+        private LocalDateTime liveFrom;
+        private final Queue<Partial> completed = new ConcurrentLinkedQueue<>();
+        private volatile boolean cancelled;
+
+        private Report(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    // Counts of one partition; linkClicks is indexed from the partition's first link
+    private static final class Partial {
+        private final int from;
+        private final long[] linkClicks;
+        private long clicks;
+        private final IntLongMap days = new IntLongMap();
+        private final IntLongMap countries = new IntLongMap();
+        private final IntLongMap browsers = new IntLongMap();
+        private final long[] devices = new long[DEVICE_TYPES.length];
+
+        private Partial(int from, int to) {
+            this.from = from;
+            this.linkClicks = new long[to - from];
+        }
+
+        // Dimension ids and device (ordinal + 1) use 0 for none
+        private void add(int link, int epochDay, int countryId, int browserId, int device, long count) {
+            linkClicks[link - from] += count;
+            clicks += count;
+            days.add(epochDay, count);
+            if (countryId != 0) {
+                countries.add(countryId, count);
+            }
+            if (browserId != 0) {
+                browsers.add(browserId, count);
+            }
+            if (device > 0 && device <= devices.length) {
+                devices[device - 1] += count;
+            }
+        }
+
+        private void addArchived(int link, ClickArchiveFile.RowGroup rows, int first, int last, long startMillis, ZoneId zone) {
+            long[] clickedAt = rows.getLongs(Column.CLICKED_AT);
+            int[] countryIds = rows.getInts(Column.COUNTRY_ID);
+            int[] browserIds = rows.getInts(Column.BROWSER_ID);
+            int[] deviceTypes = rows.getInts(Column.DEVICE_TYPE);
+
+            // A link's rows are in time order, so the day only moves forward
+            int day = 0;
+            long dayEnd = Long.MIN_VALUE;
+            for (int i = first; i < last; i++) {
+                long millis = clickedAt[i];
+                if (millis < startMillis) {
+                    continue;
+                }
+                if (millis >= dayEnd) {
+                    LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+                    day = (int) date.toEpochDay();
+                    dayEnd = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                }
+                add(link, day, countryIds[i], browserIds[i], deviceTypes[i], 1);
+            }
+        }
+    }
+
+    private static final class Totals {
+        private final long[] linkClicks;
+        private int linksCovered;
+        private long clicks;
+        private final IntLongMap days = new IntLongMap();
+        private final IntLongMap countries = new IntLongMap();
+        private final IntLongMap browsers = new IntLongMap();
+        private final long[] devices = new long[DEVICE_TYPES.length];
+
+        private Totals(int links) {
+            this.linkClicks = new long[links];
+        }
+
+        private void add(Partial partial) {
+            System.arraycopy(partial.linkClicks, 0, linkClicks, partial.from, partial.linkClicks.length);
+            linksCovered += partial.linkClicks.length;
+            clicks += partial.clicks;
+            days.addAll(partial.days);
+            countries.addAll(partial.countries);
+            browsers.addAll(partial.browsers);
+            for (int i = 0; i < devices.length; i++) {
+                devices[i] += partial.devices[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package UrlShortener.service;
+
+import UrlShortener.dto.response.AnalyticsResponse;
+import UrlShortener.dto.response.ResolvedUrl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Two-level cache (local map, then Redis) for per-link analytics responses. Entries are never invalidated
+// explicitly: the cache key, which doubles as the ETag, contains the link's change counter for today, so
+// every write from the click pipeline moves the link to a new key. Counters live in one Redis hash per day
+// and are bumped once per written batch. The key also carries a time bucket, because rolling windows
+// ("this week") change as time passes: links with clicks today use the short live TTL, idle links the
+// long one.
+@Service
+public class AnalyticsCacheService {
+
+    private static final String CHANGES_KEY_PREFIX = "analytics:changes:";
+    private static final String RESPONSE_KEY_PREFIX = "analytics:response:";
+
+    @Autowired
+    private ShortCodeResolver shortCodeResolver;
+
+    @Autowired
+    private RedisBatchService redisBatchService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${app.analytics-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.analytics-cache.live-ttl-seconds:30}")
+    private long liveTtlSeconds;
+
+    @Value("${app.analytics-cache.idle-ttl-seconds:600}")
+    private long idleTtlSeconds;
+
+    @Value("${app.analytics-cache.local-max-entries:10000}")
+    private int localMaxEntries;
+
+    private final Map<String, LocalEntry> local = new ConcurrentHashMap<>();
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter notModified;
+
+    public AnalyticsCacheService(MeterRegistry meterRegistry) {
+        this.localHits = Counter.builder("analytics.cache.requests").tag("result", "local_hit").register(meterRegistry);
+        this.redisHits = Counter.builder("analytics.cache.requests").tag("result", "redis_hit").register(meterRegistry);
+        this.misses = Counter.builder("analytics.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.notModified = Counter.builder("analytics.cache.requests").tag("result", "not_modified").register(meterRegistry);
+    }
+
+    // Called by every writer of click data; applied after the surrounding transaction commits
+    public void recordChanges(Collection<Long> urlIds) {
+        if (!enabled || urlIds.isEmpty()) {
+            return;
+        }
+        Map<String, Long> deltas = new HashMap<>();
+        for (Long urlId : urlIds) {
+            deltas.put(urlId.toString(), 1L);
+        }
+        Runnable bump = () -> {
+            try {
+                redisBatchService.incrementHashFields(changesKey(LocalDate.now()), deltas, Duration.ofDays(2));
+            } catch (Exception e) {
+                // Cached responses for these links stay current until their TTL runs out
+                System.err.println("Failed to record analytics changes: " + e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    // Null when the cache is disabled or the tag cannot be built; callers then compute uncached
+    public CacheTag tag(String shortCode, int days) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            ResolvedUrl url = shortCodeResolver.resolve(shortCode);
+            LocalDate today = LocalDate.now();
+            Object changes = stringRedisTemplate.opsForHash().get(changesKey(today), url.getId().toString());
+            long version = changes != null ? Long.parseLong(changes.toString()) : 0;
+
+            long ttlSeconds = version > 0 ? liveTtlSeconds : idleTtlSeconds;
+            long bucket = System.currentTimeMillis() / (ttlSeconds * 1000);
+            String value = url.getId() + "-" + days + "-" + today.toEpochDay() + "-" + version + "-" + bucket;
+            return new CacheTag(value, Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Weak comparison, as for any If-None-Match; "*" matches too
+    public boolean isNotModified(CacheTag tag, String ifNoneMatch) {
+        if (tag == null || ifNoneMatch == null) {
+            return false;
+        }
+        boolean matches = ifNoneMatch.trim().equals("*") || ifNoneMatch.contains("\"" + tag.value + "\"");
+        if (matches) {
+            notModified.increment();
+        }
+        return matches;
+    }
+
+    public AnalyticsResponse get(CacheTag tag, Supplier<AnalyticsResponse> loader) {
+        if (tag == null) {
+            return loader.get();
+        }
+
+        long now = System.currentTimeMillis();
+        LocalEntry cached = local.get(tag.value);
+        if (cached != null && cached.expiresAt > now) {
+            localHits.increment();
+            return cached.response;
+        }
+
+        String redisKey = RESPONSE_KEY_PREFIX + tag.value;
+        try {
+            Object shared = redisTemplate.opsForValue().get(redisKey);
+            if (shared instanceof AnalyticsResponse) {
+                redisHits.increment();
+                putLocal(tag, (AnalyticsResponse) shared, now);
+                return (AnalyticsResponse) shared;
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to read cached analytics: " + e.getMessage());
+        }
+
+        misses.increment();
+        AnalyticsResponse response = loader.get();
+        putLocal(tag, response, now);
+        try {
+            redisTemplate.opsForValue().set(redisKey, response, tag.ttl);
+        } catch (Exception e) {
+            System.err.println("Failed to cache analytics: " + e.getMessage());
+        }
+        return response;
+    }
+
+    private void putLocal(CacheTag tag, AnalyticsResponse response, long now) {
+        if (local.size() >= localMaxEntries) {
+            local.values().removeIf(entry -> entry.expiresAt <= now);
+            if (local.size() >= localMaxEntries) {
+                // Superseded keys are never read again, so dropping everything only costs a few recomputes
+                local.clear();
+            }
+        }
+        local.put(tag.value, new LocalEntry(response, now + tag.ttl.toMillis()));
+    }
+
+    private static String changesKey(LocalDate day) {
+        return CHANGES_KEY_PREFIX + day;
+    }
+
+    public static final class CacheTag {
+        private final String value;
+        private final Duration ttl;
+
+        private CacheTag(String value, Duration ttl) {
+            this.value = value;
+            this.ttl = ttl;
+        }
+
+        public String getETag() { return "W/\"" + value + "\""; }
+    }
+
+    private static final class LocalEntry {
+        private final AnalyticsResponse response;
+        private final long expiresAt;
+
+        private LocalEntry(AnalyticsResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
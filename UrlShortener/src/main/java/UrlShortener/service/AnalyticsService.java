@@ -1,60 +1,138 @@
 package UrlShortener.service;
 
+import UrlShortener.config.Workload;
 import UrlShortener.dto.response.AnalyticsResponse;
+import UrlShortener.model.BotClickRollup;
 import UrlShortener.model.ClickEvent;
+import UrlShortener.model.ClickRecord;
+import UrlShortener.model.DimensionValue.Dimension;
+import UrlShortener.model.ReferrerDomain;
 import UrlShortener.model.Url;
 import UrlShortener.model.User;
+import UrlShortener.repository.BotClickRollupRepository;
 import UrlShortener.repository.ClickEventRepository;
 import UrlShortener.repository.UrlRepository;
+import UrlShortener.utils.Bulkhead;
+import UrlShortener.utils.IntLongMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class AnalyticsService {
 
+    private static final Pageable TOP_N = PageRequest.of(0, 10);
+
     @Autowired
     private ClickEventRepository clickEventRepository;
 
     @Autowired
     private UrlRepository urlRepository;
+
+    @Autowired
+    private ReferrerService referrerService;
+
+    @Autowired
+    private DimensionDictionaryService dimensionDictionaryService;
+
+    @Autowired
+    private BotClickRollupRepository botClickRollupRepository;
+
+    @Autowired
+    private BotClickCounter botClickCounter;
+
+    @Autowired
+    private WorkloadBulkheads workloadBulkheads;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Autowired
+    private LiveAnalyticsService liveAnalyticsService;
+
+    @Autowired
+    private ClickArchiveService clickArchiveService;
+
+    @Value("${app.bulkhead.ingest.direct-insert-max-wait-ms:250}")
+    private long directInsertMaxWaitMs;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter droppedClicks;
+
+    public AnalyticsService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.droppedClicks = Counter.builder("clicks.dropped").register(meterRegistry);
+    }
+
+    // Read-only: Hibernate switches the session to FlushMode.MANUAL and keeps no dirty-checking snapshots
+    @Transactional(readOnly = true)
     public AnalyticsResponse getUrlAnalytics(String shortCode, int days) {
-        Url url = urlRepository.findByShortCode(shortCode)
+        Long urlId = urlRepository.findIdByShortCode(shortCode)
                 .orElseThrow(() -> new RuntimeException("URL not found: " + shortCode));
 
         AnalyticsResponse response = new AnalyticsResponse(shortCode);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startDate = now.minusDays(days);
 
         try {
+            // Clicks before liveFrom have moved to the archive; both sides are queried and merged
+            LocalDateTime liveFrom = clickArchiveService.liveFrom();
+            ClickArchiveService.Summary archived = clickArchiveService.summarize(urlId, new LocalDateTime[]{
+                    now.minusDays(1), now.minusDays(7), now.minusDays(30), startDate}, startDate);
+
             // Basic metrics
-            response.setTotalClicks(clickEventRepository.countByUrl(url));
-            response.setClicksToday(getClicksSince(url, LocalDateTime.now().minusDays(1)));
-            response.setClicksThisWeek(getClicksSince(url, LocalDateTime.now().minusDays(7)));
-            response.setClicksThisMonth(getClicksSince(url, LocalDateTime.now().minusDays(30)));
-
-            // Daily clicks for the specified period
-            LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-            List<Object[]> dailyData = clickEventRepository.getDailyClickStats(url, startDate);
-            List<AnalyticsResponse.DailyClickData> dailyClicks = dailyData.stream()
+            Object[] counts = clickEventRepository.getClickCountSummary(urlId, liveFrom, now.minusDays(1),
+                    now.minusDays(7), now.minusDays(30), startDate).get(0);
+            response.setTotalClicks(countAt(counts, 0) + archived.getTotal());
+            response.setClicksToday(countAt(counts, 1) + archived.getSince(0));
+            response.setClicksThisWeek(countAt(counts, 2) + archived.getSince(1));
+            response.setClicksThisMonth(countAt(counts, 3) + archived.getSince(2));
+            long periodClicks = countAt(counts, 4) + archived.getSince(3);
+
+            // Daily clicks for the specified period; archived days all come before the live ones
+            List<AnalyticsResponse.DailyClickData> dailyClicks = new ArrayList<>();
+            IntLongMap archivedDaily = archived.getDaily();
+            for (int day : archivedDaily.sortedKeys()) {
+                dailyClicks.add(new AnalyticsResponse.DailyClickData(LocalDate.ofEpochDay(day), archivedDaily.get(day)));
+            }
+            List<Object[]> dailyData = clickEventRepository.getDailyClickStats(urlId,
+                    startDate.isAfter(liveFrom) ? startDate : liveFrom);
+            dailyData.stream()
                     .map(data -> new AnalyticsResponse.DailyClickData(
                             ((java.sql.Date) data[0]).toLocalDate(),
                             ((Number) data[1]).longValue()))
-                    .collect(Collectors.toList());
+                    .forEach(dailyClicks::add);
             response.setDailyClicks(dailyClicks);
 
+            // The live top-N alone could miss a value that only ranks with its archived clicks added
+            Pageable breakdownPage = archived.isEmpty() ? TOP_N : Pageable.unpaged();
+
             // Geographic distribution
-            List<Object[]> countryData = clickEventRepository.getClicksByCountry(url);
+            List<Object[]> countryData = mergeCounts(clickEventRepository.getClicksByCountry(urlId, liveFrom, breakdownPage),
+                    archived.getCountries(), TOP_N.getPageSize());
+            Map<Integer, String> countryLabels = dimensionDictionaryService.labelsOf(dimensionIds(countryData));
             long totalClicks = response.getTotalClicks();
             List<AnalyticsResponse.CountryClickData> countryClicks = countryData.stream()
-                    .limit(10)
                     .map(data -> {
-                        String country = (String) data[0];
+                        String country = countryLabels.get(((Number) data[0]).intValue());
                         Long clicks = ((Number) data[1]).longValue();
                         Double percentage = totalClicks > 0 ? (clicks * 100.0) / totalClicks : 0.0;
                         return new AnalyticsResponse.CountryClickData(country, clicks, percentage);
@@ -63,11 +141,12 @@ public class AnalyticsService {
             response.setTopCountries(countryClicks);
 
             // Browser statistics
-            List<Object[]> browserData = clickEventRepository.getClicksByBrowser(url);
+            List<Object[]> browserData = mergeCounts(clickEventRepository.getClicksByBrowser(urlId, liveFrom, breakdownPage),
+                    archived.getBrowsers(), TOP_N.getPageSize());
+            Map<Integer, String> browserLabels = dimensionDictionaryService.labelsOf(dimensionIds(browserData));
             List<AnalyticsResponse.BrowserClickData> browserStats = browserData.stream()
-                    .limit(10)
                     .map(data -> {
-                        String browser = (String) data[0];
+                        String browser = browserLabels.get(((Number) data[0]).intValue());
                         Long clicks = ((Number) data[1]).longValue();
                         Double percentage = totalClicks > 0 ? (clicks * 100.0) / totalClicks : 0.0;
                         return new AnalyticsResponse.BrowserClickData(browser, clicks, percentage);
@@ -76,7 +155,8 @@ public class AnalyticsService {
             response.setBrowserStats(browserStats);
 
             // Device statistics
-            List<Object[]> deviceData = clickEventRepository.getClicksByDeviceType(url);
+            List<Object[]> deviceData = mergeCounts(clickEventRepository.getClicksByDeviceType(urlId, liveFrom),
+                    archived.getDevices(), Integer.MAX_VALUE);
             List<AnalyticsResponse.DeviceClickData> deviceStats = deviceData.stream()
                     .map(data -> {
                         String deviceType = data[0].toString();
@@ -87,6 +167,12 @@ public class AnalyticsService {
                     .collect(Collectors.toList());
             response.setDeviceStats(deviceStats);
 
+            // Referrer statistics, served from the daily rollups
+            applyReferrerStats(response, urlId, LocalDate.now().minusDays(days));
+
+            // Human vs bot traffic for the period; bot hits only exist as rollup counters
+            applyBotStats(response, urlId, periodClicks, startDate.toLocalDate());
+
         } catch (Exception e) {
             System.err.println("Error getting analytics for " + shortCode + ": " + e.getMessage());
             // Return response with basic data even if detailed analytics fail
@@ -95,6 +181,7 @@ public class AnalyticsService {
         return response;
     }
 
+    @Transactional(readOnly = true)
     public AnalyticsResponse getUserDashboard(User user) {
         Long totalClicks = urlRepository.getTotalClicksByUser(user);
         long totalUrls = urlRepository.countActiveUrlsByUser(user);
@@ -105,35 +192,173 @@ public class AnalyticsService {
         return dashboard;
     }
 
-    @Async
-    public void recordClickEvent(Url url, String ipAddress, String userAgent, String referrer) {
+    // Last resort when neither the click stream nor the journal took the click. Waits a little for an ingest
+    // slot instead of shedding at once; false (and counted) when the click could not be stored.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean recordClickEvent(Long urlId, String shortCode, String ipAddress, String userAgent, String referrer) {
+        Bulkhead bulkhead = workloadBulkheads.get(Workload.INGEST);
+        if (!bulkhead.tryEnter(directInsertMaxWaitMs)) {
+            droppedClicks.increment();
+            System.err.println("Ingest bulkhead full, dropping click event for: " + shortCode);
+            return false;
+        }
+
+        Workload previous = Workload.INGEST.enter();
         try {
-            ClickEvent clickEvent = new ClickEvent();
-            clickEvent.setUrl(url);
-            clickEvent.setIpAddress(anonymizeIp(ipAddress));
-            clickEvent.setUserAgent(userAgent);
-            clickEvent.setReferrer(referrer);
+            // The transaction, its commit and the after-commit work (cache versions, live deltas) all run
+            // inside the bulkhead and on the ingest pool
+            transactionTemplate.executeWithoutResult(status -> {
+                ClickRecord record = buildClickRecord(0L, urlId, System.currentTimeMillis(), ipAddress, userAgent);
+                record.setReferrerDomainId(referrerService.recordReferrer(urlId, referrer));
 
-            enrichClickEvent(clickEvent, ipAddress, userAgent);
-            clickEventRepository.save(clickEvent);
+                // Only the foreign key is written; the reference is never loaded
+                Url url = urlRepository.getReferenceById(urlId);
+                ClickEvent clickEvent = new ClickEvent(record.getIpAddress(), record.getUserAgentId(), record.getReferrerDomainId(), url);
+                clickEvent.setCountryId(record.getCountryId());
+                clickEvent.setCityId(record.getCityId());
+                clickEvent.setDeviceType(record.getDeviceType());
+                clickEvent.setBrowserId(record.getBrowserId());
+                clickEvent.setOperatingSystemId(record.getOperatingSystemId());
+                clickEventRepository.save(clickEvent);
+                analyticsCacheService.recordChanges(List.of(urlId));
+                liveAnalyticsService.recordClick(record);
+            });
 
-            System.out.println("Click event recorded for: " + url.getShortCode());
+            System.out.println("Click event recorded for: " + shortCode);
+            return true;
         } catch (Exception e) {
+            droppedClicks.increment();
             System.err.println("Failed to record click event: " + e.getMessage());
+            return false;
+        } finally {
+            Workload.restore(previous);
+            bulkhead.exit();
+        }
+    }
+
+    // Anonymized IP and dimension ids of one click; the referrer is left to the caller
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ClickRecord buildClickRecord(long id, long urlId, long clickedAtMillis, String ipAddress, String userAgent) {
+        ClickRecord record = new ClickRecord(id, urlId, clickedAtMillis);
+        record.setIpAddress(ipAddress);
+        record.setUserAgentId(dimensionDictionaryService.idOf(Dimension.USER_AGENT, userAgent));
+        enrichClickRecord(record, userAgent);
+        return record;
+    }
+
+    private void applyBotStats(AnalyticsResponse response, Long urlId, long humanClicks, LocalDate since) {
+        Map<BotClickRollup.Category, Long> clicksByCategory = botClickCounter.pendingClicks(urlId, since);
+        for (Object[] data : botClickRollupRepository.getClicksByCategory(urlId, since)) {
+            clicksByCategory.merge((BotClickRollup.Category) data[0], ((Number) data[1]).longValue(), Long::sum);
+        }
+
+        long botClicks = 0;
+        for (Long clicks : clicksByCategory.values()) {
+            botClicks += clicks;
+        }
+        long total = humanClicks + botClicks;
+        response.setHumanClicks(humanClicks);
+        response.setBotClicks(botClicks);
+
+        List<AnalyticsResponse.BotClickData> botStats = clicksByCategory.entrySet().stream()
+                .map(entry -> {
+                    Long clicks = entry.getValue();
+                    Double percentage = total > 0 ? (clicks * 100.0) / total : 0.0;
+                    return new AnalyticsResponse.BotClickData(entry.getKey().name(), clicks, percentage);
+                })
+                .sorted((a, b) -> Long.compare(b.getClicks(), a.getClicks()))
+                .collect(Collectors.toList());
+        response.setBotStats(botStats);
+    }
+
+    private void applyReferrerStats(AnalyticsResponse response, Long urlId, LocalDate since) {
+        List<Object[]> referrerData = referrerService.getClicksByReferrerDomain(urlId, since);
+
+        long referrerTotal = 0;
+        for (Object[] data : referrerData) {
+            referrerTotal += ((Number) data[1]).longValue();
+        }
+        long total = referrerTotal;
+
+        Map<ReferrerDomain.SourceType, Long> clicksBySource = new EnumMap<>(ReferrerDomain.SourceType.class);
+        List<AnalyticsResponse.ReferrerClickData> topReferrers = new ArrayList<>();
+        for (Object[] data : referrerData) {
+            ReferrerDomain domain = referrerService.resolveDomain(((Number) data[0]).intValue());
+            long clicks = ((Number) data[1]).longValue();
+            clicksBySource.merge(domain.getSourceType(), clicks, Long::sum);
+
+            if (topReferrers.size() < 10) {
+                Double percentage = total > 0 ? (clicks * 100.0) / total : 0.0;
+                topReferrers.add(new AnalyticsResponse.ReferrerClickData(
+                        domain.getDomain(), domain.getSourceType().name(), clicks, percentage));
+            }
+        }
+        response.setTopReferrers(topReferrers);
+
+        List<AnalyticsResponse.ReferrerSourceData> referrerSources = clicksBySource.entrySet().stream()
+                .map(entry -> {
+                    Long clicks = entry.getValue();
+                    Double percentage = total > 0 ? (clicks * 100.0) / total : 0.0;
+                    return new AnalyticsResponse.ReferrerSourceData(entry.getKey().name(), clicks, percentage);
+                })
+                .sorted((a, b) -> Long.compare(b.getClicks(), a.getClicks()))
+                .collect(Collectors.toList());
+        response.setReferrerSources(referrerSources);
+    }
+
+    private List<Integer> dimensionIds(List<Object[]> rows) {
+        List<Integer> ids = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            ids.add(((Number) row[0]).intValue());
+        }
+        return ids;
+    }
+
+    // Adds archived counts to live (key, count) rows and re-ranks them; live rows pass through untouched
+    // when nothing is archived for the link. For dictionary ids the merge and top-N pick stay primitive.
+    private List<Object[]> mergeCounts(List<Object[]> live, IntLongMap archived, int limit) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        IntLongMap merged = new IntLongMap(archived.size() + live.size());
+        merged.addAll(archived);
+        for (Object[] row : live) {
+            merged.add(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        }
+        List<Object[]> result = new ArrayList<>(Math.min(limit, merged.size()));
+        for (int id : merged.topKeys(limit)) {
+            result.add(new Object[]{id, merged.get(id)});
+        }
+        return result;
+    }
+
+    private List<Object[]> mergeCounts(List<Object[]> live, Map<?, Long> archived, int limit) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Map<Object, Long> merged = new HashMap<>(archived);
+        for (Object[] row : live) {
+            merged.merge(row[0], ((Number) row[1]).longValue(), Long::sum);
         }
+        return merged.entrySet().stream()
+                .sorted(Map.Entry.<Object, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .collect(Collectors.toList());
     }
 
-    private long getClicksSince(Url url, LocalDateTime since) {
-        return clickEventRepository.countByUrlAndClickedAtAfter(url, since);
+    // SUM over an empty set comes back as null
+    private long countAt(Object[] counts, int index) {
+        return counts[index] != null ? ((Number) counts[index]).longValue() : 0L;
     }
 
-    private void enrichClickEvent(ClickEvent clickEvent, String ipAddress, String userAgent) {
-        clickEvent.setCountry("Unknown");
-        clickEvent.setCity("Unknown");
-        parseUserAgent(clickEvent, userAgent);
+    private void enrichClickRecord(ClickRecord record, String userAgent) {
+        record.setCountryId(dimensionDictionaryService.idOf(Dimension.COUNTRY, "Unknown"));
+        record.setCityId(dimensionDictionaryService.idOf(Dimension.CITY, "Unknown"));
+        parseUserAgent(record, userAgent);
     }
 
-    private void parseUserAgent(ClickEvent clickEvent, String userAgent) {
+    private void parseUserAgent(ClickRecord record, String userAgent) {
         if (userAgent == null || userAgent.isEmpty()) {
             return;
         }
@@ -141,55 +366,46 @@ public class AnalyticsService {
         userAgent = userAgent.toLowerCase();
 
         // Simple browser detection
+        String browser;
         if (userAgent.contains("chrome")) {
-            clickEvent.setBrowser("Chrome");
+            browser = "Chrome";
         } else if (userAgent.contains("firefox")) {
-            clickEvent.setBrowser("Firefox");
+            browser = "Firefox";
         } else if (userAgent.contains("safari") && !userAgent.contains("chrome")) {
-            clickEvent.setBrowser("Safari");
+            browser = "Safari";
         } else if (userAgent.contains("edge")) {
-            clickEvent.setBrowser("Edge");
+            browser = "Edge";
         } else {
-            clickEvent.setBrowser("Other");
+            browser = "Other";
         }
+        record.setBrowserId(dimensionDictionaryService.idOf(Dimension.BROWSER, browser));
 
         // Simple OS detection
+        String operatingSystem;
         if (userAgent.contains("windows")) {
-            clickEvent.setOperatingSystem("Windows");
+            operatingSystem = "Windows";
         } else if (userAgent.contains("mac")) {
-            clickEvent.setOperatingSystem("macOS");
+            operatingSystem = "macOS";
         } else if (userAgent.contains("linux")) {
-            clickEvent.setOperatingSystem("Linux");
+            operatingSystem = "Linux";
         } else if (userAgent.contains("android")) {
-            clickEvent.setOperatingSystem("Android");
+            operatingSystem = "Android";
         } else if (userAgent.contains("iphone") || userAgent.contains("ipad")) {
-            clickEvent.setOperatingSystem("iOS");
+            operatingSystem = "iOS";
         } else {
-            clickEvent.setOperatingSystem("Other");
+            operatingSystem = "Other";
         }
+        record.setOperatingSystemId(dimensionDictionaryService.idOf(Dimension.OPERATING_SYSTEM, operatingSystem));
 
         // Simple device type detection
         if (userAgent.contains("mobile") || userAgent.contains("android") || userAgent.contains("iphone")) {
-            clickEvent.setDeviceType(ClickEvent.DeviceType.MOBILE);
+            record.setDeviceType(ClickEvent.DeviceType.MOBILE);
         } else if (userAgent.contains("tablet") || userAgent.contains("ipad")) {
-            clickEvent.setDeviceType(ClickEvent.DeviceType.TABLET);
+            record.setDeviceType(ClickEvent.DeviceType.TABLET);
         } else if (userAgent.contains("bot") || userAgent.contains("crawler") || userAgent.contains("spider")) {
-            clickEvent.setDeviceType(ClickEvent.DeviceType.BOT);
+            record.setDeviceType(ClickEvent.DeviceType.BOT);
         } else {
-            clickEvent.setDeviceType(ClickEvent.DeviceType.DESKTOP);
-        }
-    }
-
-    private String anonymizeIp(String ipAddress) {
-        if (ipAddress == null || ipAddress.isEmpty()) {
-            return ipAddress;
-        }
-
-        String[] parts = ipAddress.split("\\.");
-        if (parts.length == 4) {
-            return parts[0] + "." + parts[1] + "." + parts[2] + ".0";
+            record.setDeviceType(ClickEvent.DeviceType.DESKTOP);
         }
-
-        return ipAddress;
     }
 }
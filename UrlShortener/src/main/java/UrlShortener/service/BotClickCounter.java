@@ -0,0 +1,157 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.model.BotClickRollup.Category;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counter-only path for bot hits: increments stay in memory and are flushed to the rollup table in batches
+@Service
+public class BotClickCounter {
+
+    @Autowired
+    private RollupWriter rollupWriter;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Key, PendingClicks> pending = new ConcurrentHashMap<>();
+
+    private final Map<Category, Counter> botClicks = new EnumMap<>(Category.class);
+
+    public BotClickCounter(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Category category : Category.values()) {
+            botClicks.put(category, Counter.builder("clicks.bot")
+                    .tag("category", category.name()).register(meterRegistry));
+        }
+    }
+
+    public void record(Long urlId, Category category) {
+        Key key = new Key(urlId, LocalDate.now(), category);
+        long clicks = 1;
+        while (clicks > 0) {
+            PendingClicks entry = pending.computeIfAbsent(key, k -> new PendingClicks());
+            entry.clicks.add(clicks);
+            // Same hand-off as ClickCounterBuffer: an add that may have hit an entry being dropped is moved
+            clicks = entry.retired ? entry.clicks.sumThenReset() : 0;
+        }
+        botClicks.get(category).increment();
+    }
+
+    // Counts not yet flushed, so analytics stay accurate between flushes
+    public Map<Category, Long> pendingClicks(Long urlId, LocalDate since) {
+        Map<Category, Long> result = new EnumMap<>(Category.class);
+        for (Map.Entry<Key, PendingClicks> entry : pending.entrySet()) {
+            Key key = entry.getKey();
+            if (key.urlId.equals(urlId) && !key.date.isBefore(since)) {
+                result.merge(key.category, entry.getValue().clicks.sum(), Long::sum);
+            }
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.bots.flush-interval-ms:10000}")
+    public void flush() {
+        Workload previous = Workload.INGEST.enter();
+        try {
+            flushPending();
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+
+    private void flushPending() {
+        Set<Long> flushed = new HashSet<>();
+        try {
+            flushPendingInto(flushed);
+        } finally {
+            analyticsCacheService.recordChanges(flushed);
+        }
+    }
+
+    private void flushPendingInto(Set<Long> flushed) {
+        for (Map.Entry<Key, PendingClicks> entry : pending.entrySet()) {
+            Key key = entry.getKey();
+            LongAdder adder = entry.getValue().clicks;
+            long clicks = adder.sumThenReset();
+            if (clicks == 0) {
+                // Idle since the last flush: dropped only if still zero once retired (see record)
+                pending.computeIfPresent(key, (k, current) -> current.retireIfIdle() ? null : current);
+                continue;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> rollupWriter.addBotClicks(
+                        key.urlId, key.date, key.category.name(), clicks));
+                flushed.add(key.urlId);
+            } catch (Exception e) {
+                adder.add(clicks);
+                System.err.println("Failed to flush bot clicks: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static final class PendingClicks {
+        private final LongAdder clicks = new LongAdder();
+        private volatile boolean retired;
+
+        // Retiring first means an increment either shows up in the sum or sees the flag afterwards
+        private boolean retireIfIdle() {
+            retired = true;
+            if (clicks.sum() == 0) {
+                return true;
+            }
+            retired = false;
+            return false;
+        }
+    }
+
+    private static final class Key {
+        private final Long urlId;
+        private final LocalDate date;
+        private final Category category;
+
+        private Key(Long urlId, LocalDate date, Category category) {
+            this.urlId = urlId;
+            this.date = date;
+            this.category = category;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return urlId.equals(other.urlId) && date.equals(other.date) && category == other.category;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(urlId, date, category);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.repository.UrlRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fills the near cache and Redis with the hottest short codes before the node takes traffic.
+// Runners finish before Spring Boot publishes ReadinessState.ACCEPTING_TRAFFIC, so the readiness
+// probe stays down until warm-up completes or its time budget runs out.
+@Service
+public class CacheWarmupService implements ApplicationRunner {
+
+    @Autowired
+    private ShortCodeResolver shortCodeResolver;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${app.cache-warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache-warmup.top-k:50000}")
+    private int topK;
+
+    // Days of clicks:daily:* hashes summed to rank links; click_count fills the rest
+    @Value("${app.cache-warmup.ranking-days:3}")
+    private int rankingDays;
+
+    @Value("${app.cache-warmup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cache-warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.cache-warmup.budget-ms:20000}")
+    private long budgetMs;
+
+    private volatile boolean finished;
+    private volatile boolean timedOut;
+    private volatile int warmed;
+    private volatile long durationMs;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        try {
+            warm(deadline);
+        } catch (Exception e) {
+            // A cold cache is slower, not broken; never keep the node out of rotation over it
+            System.err.println("Cache warm-up failed: " + e.getMessage());
+        } finally {
+            durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            finished = true;
+            System.out.println("Cache warm-up " + (timedOut ? "stopped at budget" : "finished") + ": "
+                    + warmed + " short codes in " + durationMs + " ms");
+        }
+    }
+
+    private void warm(long deadline) throws InterruptedException {
+        List<String> shortCodes = rankShortCodes();
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger loaded = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "cache-warmup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Hottest first, so a budget cut drops the coldest batches
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < shortCodes.size(); from += batchSize) {
+                List<String> batch = shortCodes.subList(from, Math.min(from + batchSize, shortCodes.size()));
+                futures.add(executor.submit(() -> {
+                    Workload previous = Workload.REDIRECT.enter();
+                    try {
+                        loaded.addAndGet(shortCodeResolver.warm(batch));
+                    } finally {
+                        Workload.restore(previous);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                long remaining = deadline - System.nanoTime();
+                try {
+                    if (remaining <= 0) {
+                        throw new TimeoutException();
+                    }
+                    future.get(remaining, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    timedOut = true;
+                    break;
+                } catch (ExecutionException e) {
+                    System.err.println("Cache warm-up batch failed: " + e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            warmed = loaded.get();
+        }
+    }
+
+    private List<String> rankShortCodes() {
+        Map<String, Long> recentClicks = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        for (int day = 0; day < rankingDays; day++) {
+            try {
+                Map<Object, Object> clicks = stringRedisTemplate.opsForHash()
+                        .entries(ClickCounterBuffer.dailyClicksKey(today.minusDays(day)));
+                for (Map.Entry<Object, Object> entry : clicks.entrySet()) {
+                    recentClicks.merge((String) entry.getKey(), Long.parseLong((String) entry.getValue()), Long::sum);
+                }
+            } catch (Exception e) {
+                System.err.println("Could not read daily clicks for warm-up: " + e.getMessage());
+                break;
+            }
+        }
+
+        Set<String> ranked = new LinkedHashSet<>();
+        recentClicks.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(topK)
+                .forEach(entry -> ranked.add(entry.getKey()));
+
+        if (ranked.size() < topK) {
+            Workload previous = Workload.REDIRECT.enter();
+            try {
+                for (String shortCode : urlRepository.findTopShortCodes(PageRequest.of(0, topK))) {
+                    if (ranked.size() >= topK) {
+                        break;
+                    }
+                    ranked.add(shortCode);
+                }
+            } finally {
+                Workload.restore(previous);
+            }
+        }
+        return new ArrayList<>(ranked);
+    }
+
+    public boolean isFinished() { return finished; }
+    public boolean isTimedOut() { return timedOut; }
+    public int getWarmed() { return warmed; }
+    public long getDurationMs() { return durationMs; }
+}
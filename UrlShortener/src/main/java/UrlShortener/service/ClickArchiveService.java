@@ -0,0 +1,424 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.model.ClickEvent;
+import UrlShortener.model.ClickRecord;
+import UrlShortener.utils.ClickArchiveFile;
+import UrlShortener.utils.ClickArchiveFile.Column;
+import UrlShortener.utils.IntLongMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Moves closed months of click_events into columnar files (clicks-YYYY-MM.col, see ClickArchiveFile) and
+// answers per-link aggregates over them. Months are archived oldest first, so the archive always covers
+// everything before liveFrom(), the first day after the newest archived month. Analytics query the table
+// from liveFrom() on and the archive before it, so no click is counted twice or missed while rows are
+// still being deleted.
+//
+// Rows are only deleted on the run after the one that archived them, once every node has had time to pick
+// the new file up and move its own boundary. A "clicks-YYYY-MM.purged" marker records that the month's
+// rows are gone. Nodes that serve analytics need the archive directory too (a shared volume), but only
+// one of them should run the archiver.
+@Service
+public class ClickArchiveService {
+
+    private static final String FILE_PREFIX = "clicks-";
+    private static final String FILE_SUFFIX = ".col";
+    private static final String PURGED_SUFFIX = ".purged";
+
+    // Lower bound for live queries when nothing is archived
+    private static final LocalDateTime NO_ARCHIVE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Set<Column> SUMMARY_COLUMNS =
+            EnumSet.of(Column.CLICKED_AT, Column.COUNTRY_ID, Column.BROWSER_ID, Column.DEVICE_TYPE);
+    private static final ClickEvent.DeviceType[] DEVICE_TYPES = ClickEvent.DeviceType.values();
+
+    private static final String SELECT_MONTH = "SELECT id, url_id, clicked_at, ip_address, user_agent_id, "
+            + "referrer_domain_id, country_id, city_id, device_type, browser_id, operating_system_id "
+            + "FROM click_events WHERE clicked_at >= ? AND clicked_at < ? ORDER BY url_id, clicked_at";
+    private static final String SELECT_OLDEST = "SELECT MIN(clicked_at) FROM click_events";
+    // Per link, so the delete walks the (url_id, clicked_at) index instead of the whole table
+    private static final String DELETE_MONTH_OF_URL =
+            "DELETE FROM click_events WHERE url_id = ? AND clicked_at >= ? AND clicked_at < ? LIMIT ?";
+
+    @Value("${app.click-archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.click-archive.archiver-enabled:false}")
+    private boolean archiverEnabled;
+
+    @Value("${app.click-archive.dir:./data/click-archive}")
+    private String dir;
+
+    // Months kept in click_events besides the current one; at least one, so late clicks still land there
+    @Value("${app.click-archive.keep-months:3}")
+    private int keepMonths;
+
+    @Value("${app.click-archive.max-months-per-run:3}")
+    private int maxMonthsPerRun;
+
+    @Value("${app.click-archive.row-group-size:65536}")
+    private int rowGroupSize;
+
+    @Value("${app.click-archive.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    // Archived months are purged on a later run, no sooner than this after their file appeared
+    @Value("${app.click-archive.purge-delay-ms:600000}")
+    private long purgeDelayMs;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Replaced as a whole on refresh; readers take one snapshot per query
+    private volatile NavigableMap<YearMonth, ClickArchiveFile> files = Collections.emptyNavigableMap();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter archivedRows;
+    private final Counter purgedRows;
+    private final Counter scanFailures;
+
+    public ClickArchiveService(DataSource dataSource, MeterRegistry meterRegistry,
+                               @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.meterRegistry = meterRegistry;
+
+        this.archivedRows = Counter.builder("clicks.archive.archived_rows").register(meterRegistry);
+        this.purgedRows = Counter.builder("clicks.archive.purged_rows").register(meterRegistry);
+        this.scanFailures = Counter.builder("clicks.archive.scan_failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("clicks.archive.months", this, service -> service.files.size()).register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(Path.of(dir));
+        } catch (IOException e) {
+            System.err.println("Failed to create click archive directory " + dir + ": " + e.getMessage());
+        }
+        refresh();
+        if (!files.isEmpty()) {
+            System.out.println("Click archive covers " + files.firstKey() + " to " + files.lastKey());
+        }
+    }
+
+    // Picks up months archived by another node sharing the directory
+    @Scheduled(fixedDelayString = "${app.click-archive.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        NavigableMap<YearMonth, ClickArchiveFile> current = files;
+        NavigableMap<YearMonth, ClickArchiveFile> next = new TreeMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(Path.of(dir), FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path path : entries) {
+                YearMonth month = monthOf(path);
+                if (month == null) {
+                    continue;
+                }
+                ClickArchiveFile file = current.get(month);
+                if (file == null) {
+                    try {
+                        file = ClickArchiveFile.open(path);
+                    } catch (IOException e) {
+                        System.err.println("Skipping unreadable click archive " + path + ": " + e.getMessage());
+                        continue;
+                    }
+                }
+                next.put(month, file);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list click archive: " + e.getMessage());
+            return;
+        }
+        files = Collections.unmodifiableNavigableMap(next);
+    }
+
+    // Live queries cover clicked_at >= liveFrom(); everything before it is answered by the archive
+    public LocalDateTime liveFrom() {
+        NavigableMap<YearMonth, ClickArchiveFile> snapshot = files;
+        return snapshot.isEmpty() ? NO_ARCHIVE : snapshot.lastKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    // Archived clicks of one link: all-time total and breakdowns, counts at or after each threshold, and
+    // daily counts from dailySince. A month that cannot be read is logged and left out.
+    public Summary summarize(long urlId, LocalDateTime[] thresholds, LocalDateTime dailySince) {
+        Summary summary = new Summary(thresholds.length);
+        if (!enabled) {
+            return summary;
+        }
+        long[] thresholdMillis = new long[thresholds.length];
+        for (int i = 0; i < thresholds.length; i++) {
+            thresholdMillis[i] = millisOf(thresholds[i]);
+        }
+        long dailySinceMillis = millisOf(dailySince);
+
+        for (ClickArchiveFile file : files.values()) {
+            try {
+                file.scan(urlId, Long.MIN_VALUE, Long.MAX_VALUE, SUMMARY_COLUMNS,
+                        (rows, from, to) -> summary.add(rows, from, to, thresholdMillis, dailySinceMillis, zone));
+            } catch (IOException e) {
+                scanFailures.increment();
+                System.err.println("Failed to scan click archive " + file.getPath() + ": " + e.getMessage());
+            }
+        }
+        return summary;
+    }
+
+    // Scans the months that may hold the link's clicks in [from, to), from the first archived month when from
+    // is null; the visitor filters rows by CLICKED_AT
+    public void scan(long urlId, LocalDateTime from, LocalDateTime to, Set<Column> columns,
+                     ClickArchiveFile.RowGroupVisitor visitor) throws IOException {
+        NavigableMap<YearMonth, ClickArchiveFile> snapshot = files;
+        if (!enabled || snapshot.isEmpty()) {
+            return;
+        }
+        long fromMillis = from != null ? millisOf(from) : Long.MIN_VALUE;
+        long toMillis = millisOf(to);
+        YearMonth first = from != null ? YearMonth.from(from) : snapshot.firstKey();
+        if (first.isAfter(YearMonth.from(to))) {
+            return;
+        }
+        for (ClickArchiveFile file : snapshot.subMap(first, true, YearMonth.from(to), true).values()) {
+            file.scan(urlId, fromMillis, toMillis, columns, visitor);
+        }
+    }
+
+    @Scheduled(cron = "${app.click-archive.cron:0 30 3 * * *}")
+    public synchronized void archive() {
+        if (!enabled || !archiverEnabled) {
+            return;
+        }
+        Workload previous = Workload.INGEST.enter();
+        try {
+            purgeArchivedMonths();
+
+            YearMonth cutoff = YearMonth.now().minusMonths(Math.max(1, keepMonths));
+            YearMonth month = nextMonthToArchive();
+            for (int i = 0; month != null && month.isBefore(cutoff) && i < maxMonthsPerRun; i++) {
+                archiveMonth(month);
+                month = month.plusMonths(1);
+            }
+        } catch (Exception e) {
+            System.err.println("Click archiving failed: " + e.getMessage());
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ClickArchiveFile file : files.values()) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Closing a read-only channel has nothing to lose
+            }
+        }
+    }
+
+    private YearMonth nextMonthToArchive() {
+        if (!files.isEmpty()) {
+            return files.lastKey().plusMonths(1);
+        }
+        // Only until the first month is archived; afterwards the files say where to continue
+        Timestamp oldest = jdbcTemplate.queryForObject(SELECT_OLDEST, Timestamp.class);
+        return oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : null;
+    }
+
+    // Streams the month in (url id, clicked at) order into a temp file, checks it and moves it into place
+    private void archiveMonth(YearMonth month) throws IOException {
+        Path target = pathOf(month, FILE_SUFFIX);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Timestamp start = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp end = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        long rows;
+        try (ClickArchiveFile.Writer writer = ClickArchiveFile.create(temp, rowGroupSize)) {
+            ClickRecord record = new ClickRecord();
+            jdbcTemplate.query(SELECT_MONTH, rs -> {
+                record.setId(rs.getLong(1));
+                record.setUrlId(rs.getLong(2));
+                record.setClickedAtMillis(millisOf(rs.getTimestamp(3).toLocalDateTime()));
+                // Rows from before anonymization are truncated to their /24 or /48 on the way in
+                record.setIpAddress(rs.getString(4));
+                record.setUserAgentId(rs.getObject(5, Integer.class));
+                record.setReferrerDomainId(rs.getObject(6, Integer.class));
+                record.setCountryId(rs.getObject(7, Integer.class));
+                record.setCityId(rs.getObject(8, Integer.class));
+                String deviceType = rs.getString(9);
+                record.setDeviceType(deviceType != null ? ClickEvent.DeviceType.valueOf(deviceType) : null);
+                record.setBrowserId(rs.getObject(10, Integer.class));
+                record.setOperatingSystemId(rs.getObject(11, Integer.class));
+                try {
+                    writer.add(record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, start, end);
+            writer.finish();
+            rows = writer.getRowCount();
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try (ClickArchiveFile check = ClickArchiveFile.open(temp)) {
+            if (check.getRowCount() != rows) {
+                Files.deleteIfExists(temp);
+                throw new IOException("Archive of " + month + " holds " + check.getRowCount() + " rows, expected " + rows);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        archivedRows.increment(rows);
+        System.out.println("Archived " + rows + " clicks of " + month + " (" + Files.size(target) + " bytes)");
+        refresh();
+    }
+
+    private void purgeArchivedMonths() throws IOException {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<YearMonth, ClickArchiveFile> entry : files.entrySet()) {
+            YearMonth month = entry.getKey();
+            Path marker = pathOf(month, PURGED_SUFFIX);
+            if (Files.exists(marker)
+                    || now - Files.getLastModifiedTime(entry.getValue().getPath()).toMillis() < purgeDelayMs) {
+                continue;
+            }
+
+            Timestamp start = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+            Timestamp end = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+            long deleted = 0;
+            for (long urlId : entry.getValue().distinctUrlIds()) {
+                int batch;
+                do {
+                    batch = jdbcTemplate.update(DELETE_MONTH_OF_URL, urlId, start, end, deleteBatchSize);
+                    deleted += batch;
+                } while (batch >= deleteBatchSize);
+            }
+            Files.createFile(marker);
+            purgedRows.increment(deleted);
+            System.out.println("Purged " + deleted + " archived clicks of " + month + " from click_events");
+        }
+    }
+
+    private Path pathOf(YearMonth month, String suffix) {
+        return Path.of(dir).resolve(FILE_PREFIX + month + suffix);
+    }
+
+    private static YearMonth monthOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return YearMonth.parse(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private long millisOf(LocalDateTime dateTime) {
+        return dateTime.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    // Aggregates of one link over the archive; breakdown keys are dictionary ids as in click_events
+    public static final class Summary {
+        private long total;
+        private final long[] since;
+        private final IntLongMap daily = new IntLongMap();
+        private final IntLongMap countries = new IntLongMap();
+        private final IntLongMap browsers = new IntLongMap();
+        private final Map<ClickEvent.DeviceType, Long> devices = new EnumMap<>(ClickEvent.DeviceType.class);
+
+        private Summary(int thresholds) {
+            this.since = new long[thresholds];
+        }
+
+        private void add(ClickArchiveFile.RowGroup rows, int from, int to, long[] thresholds, long dailySince, ZoneId zone) {
+            long[] clickedAt = rows.getLongs(Column.CLICKED_AT);
+            int[] countryIds = rows.getInts(Column.COUNTRY_ID);
+            int[] browserIds = rows.getInts(Column.BROWSER_ID);
+            int[] deviceTypes = rows.getInts(Column.DEVICE_TYPE);
+
+            // Rows of a link are in time order, so the current day only moves forward
+            int day = 0;
+            long dayEnd = Long.MIN_VALUE;
+            long dayClicks = 0;
+            for (int i = from; i < to; i++) {
+                long millis = clickedAt[i];
+                total++;
+                for (int t = 0; t < thresholds.length; t++) {
+                    if (millis >= thresholds[t]) {
+                        since[t]++;
+                    }
+                }
+                if (millis >= dailySince) {
+                    if (millis >= dayEnd) {
+                        if (dayClicks > 0) {
+                            daily.add(day, dayClicks);
+                        }
+                        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+                        day = (int) date.toEpochDay();
+                        dayEnd = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                        dayClicks = 0;
+                    }
+                    dayClicks++;
+                }
+                if (countryIds[i] != 0) {
+                    countries.add(countryIds[i], 1);
+                }
+                if (browserIds[i] != 0) {
+                    browsers.add(browserIds[i], 1);
+                }
+                if (deviceTypes[i] > 0 && deviceTypes[i] <= DEVICE_TYPES.length) {
+                    devices.merge(DEVICE_TYPES[deviceTypes[i] - 1], 1L, Long::sum);
+                }
+            }
+            if (dayClicks > 0) {
+                daily.add(day, dayClicks);
+            }
+        }
+
+        public boolean isEmpty() { return total == 0; }
+        public long getTotal() { return total; }
+        public long getSince(int threshold) { return since[threshold]; }
+        // Keyed by epoch day
+        public IntLongMap getDaily() { return daily; }
+        public IntLongMap getCountries() { return countries; }
+        public IntLongMap getBrowsers() { return browsers; }
+        public Map<ClickEvent.DeviceType, Long> getDevices() { return devices; }
+    }
+}
@@ -0,0 +1,195 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.model.ClickRecord;
+import UrlShortener.utils.LongIntMap;
+import UrlShortener.utils.LongLongMap;
+import UrlShortener.utils.SnowflakeIds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Writes batches of raw clicks to click_events and the referrer rollups in one transaction. Shared by the
+// journal replayer and the click stream consumer. Rows keep the id assigned when the click was taken, so
+// clicks delivered twice are stored once, and only the clicks that were new are added to the rollups, the
+// analytics cache and the live counts.
+@Service
+public class ClickBatchWriter {
+
+    // Multi-row statements rather than a JDBC batch: a batch rewritten by the MySQL driver reports no
+    // per-row counts, while one statement reports how many of its rows were inserted
+    private static final String INSERT_CLICKS = "INSERT IGNORE INTO click_events (id, url_id, ip_address, user_agent_id, "
+            + "referrer_domain_id, country_id, city_id, device_type, browser_id, operating_system_id, clicked_at) "
+            + "VALUES ";
+    private static final String CLICK_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_STORED = "SELECT id FROM click_events WHERE id IN (";
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private ReferrerService referrerService;
+
+    @Autowired
+    private AnalyticsCacheService analyticsCacheService;
+
+    @Autowired
+    private LiveAnalyticsService liveAnalyticsService;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ClickBatchWriter(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void write(List<ClickJournal.Entry> batch) {
+        Workload previous = Workload.INGEST.enter();
+        try {
+            List<ClickJournal.Entry> entries = withoutStored(batch);
+            if (entries.isEmpty()) {
+                return;
+            }
+            int count = entries.size();
+            // One flat buffer of fixed-size records instead of an entity and its strings per click
+            ByteBuffer records = ByteBuffer.allocate(entries.size() * ClickRecord.BYTES);
+            // Referrer counts per day, keyed by the link's number in this batch and the domain id packed
+            // into one long; a batch rarely spans more than one or two days
+            LongIntMap linkIndexes = new LongIntMap();
+            long[] linkIds = new long[entries.size()];
+            Map<LocalDate, LongLongMap> referrerClicks = new HashMap<>();
+            LocalDate rollupDay = null;
+            LongLongMap rollup = null;
+            for (int i = 0; i < entries.size(); i++) {
+                ClickJournal.Entry entry = entries.get(i);
+                long id = entry.getId() != 0 ? entry.getId() : assignId();
+                ClickRecord record = analyticsService.buildClickRecord(id, entry.getUrlId(),
+                        entry.getClickedAtMillis(), entry.getIpAddress(), entry.getUserAgent());
+                int domainId = referrerService.domainIdOf(entry.getReferrer());
+                record.setReferrerDomainId(domainId);
+                record.writeTo(records, i * ClickRecord.BYTES);
+
+                int link = linkIndexes.indexOf(record.getUrlId());
+                linkIds[link] = record.getUrlId();
+                LocalDate day = record.getClickedAt().toLocalDate();
+                if (!day.equals(rollupDay)) {
+                    rollupDay = day;
+                    rollup = referrerClicks.computeIfAbsent(day, d -> new LongLongMap());
+                }
+                rollup.add(((long) link << 32) | (domainId & 0xFFFFFFFFL), 1);
+            }
+            List<Long> urlIds = new ArrayList<>(linkIndexes.size());
+            for (int link = 0; link < linkIndexes.size(); link++) {
+                urlIds.add(linkIds[link]);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                int inserted = insert(records, count);
+                if (inserted != count) {
+                    // Another delivery of some of these clicks committed after they were looked up. Rolled
+                    // back and retried, the lookup then leaves those clicks out of the rollups
+                    throw new ConcurrencyFailureException("Only " + inserted + " of " + count
+                            + " clicks were not already stored");
+                }
+                referrerClicks.forEach((day, clicks) -> clicks.forEach((key, clickCount) ->
+                        referrerService.addClicks(linkIds[(int) (key >>> 32)], day, (int) key, clickCount)));
+                analyticsCacheService.recordChanges(urlIds);
+                liveAnalyticsService.recordClicks(records, count);
+            });
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+
+    // Redelivered clicks: a stream message reclaimed after its batch committed, or a journal batch retried
+    // after some of its halves committed
+    private List<ClickJournal.Entry> withoutStored(List<ClickJournal.Entry> entries) {
+        LongIntMap stored = new LongIntMap();
+        for (int from = 0; from < entries.size(); from += ROWS_PER_STATEMENT) {
+            int to = Math.min(from + ROWS_PER_STATEMENT, entries.size());
+            StringBuilder sql = new StringBuilder(SELECT_STORED);
+            Object[] ids = new Object[to - from];
+            for (int i = from; i < to; i++) {
+                sql.append(i > from ? ",?" : "?");
+                ids[i - from] = entries.get(i).getId();
+            }
+            sql.append(')');
+            jdbcTemplate.query(sql.toString(), rs -> {
+                stored.indexOf(rs.getLong(1));
+            }, ids);
+        }
+        if (stored.size() == 0) {
+            return entries;
+        }
+        List<ClickJournal.Entry> fresh = new ArrayList<>(entries.size() - stored.size());
+        for (ClickJournal.Entry entry : entries) {
+            if (entry.getId() == 0 || !stored.containsKey(entry.getId())) {
+                fresh.add(entry);
+            }
+        }
+        return fresh;
+    }
+
+    // Clicks journaled while this node held no id lease. Their dedup is weaker: a batch replayed again after
+    // part of it committed stores that part a second time, under new ids
+    private static long assignId() {
+        long id = SnowflakeIds.tryNextId();
+        if (id == 0) {
+            throw new TransientDataAccessResourceException("No node id lease to assign ids to journaled clicks");
+        }
+        return id;
+    }
+
+    // Returns how many of the records were inserted; INSERT IGNORE skips the ids already stored
+    private int insert(ByteBuffer records, int count) {
+        int inserted = 0;
+        ClickRecord record = new ClickRecord();
+        for (int from = 0; from < count; from += ROWS_PER_STATEMENT) {
+            int to = Math.min(from + ROWS_PER_STATEMENT, count);
+            StringBuilder sql = new StringBuilder(INSERT_CLICKS);
+            for (int i = from; i < to; i++) {
+                sql.append(i > from ? "," : "").append(CLICK_ROW);
+            }
+            int first = from;
+            inserted += jdbcTemplate.update(sql.toString(), ps -> {
+                for (int i = first; i < to; i++) {
+                    record.readFrom(records, i * ClickRecord.BYTES);
+                    bind(ps, (i - first) * 11, record);
+                }
+            });
+        }
+        return inserted;
+    }
+
+    // Binds a record read straight from the buffer through one reused ClickRecord
+    private static void bind(PreparedStatement ps, int base, ClickRecord record) throws SQLException {
+        ps.setLong(base + 1, record.getId());
+        ps.setLong(base + 2, record.getUrlId());
+        ps.setString(base + 3, record.getIpAddress());
+        ps.setObject(base + 4, record.getUserAgentId());
+        ps.setObject(base + 5, record.getReferrerDomainId());
+        ps.setObject(base + 6, record.getCountryId());
+        ps.setObject(base + 7, record.getCityId());
+        ps.setString(base + 8, record.getDeviceType() != null ? record.getDeviceType().name() : null);
+        ps.setObject(base + 9, record.getBrowserId());
+        ps.setObject(base + 10, record.getOperatingSystemId());
+        ps.setTimestamp(base + 11, Timestamp.valueOf(record.getClickedAt()));
+    }
+}
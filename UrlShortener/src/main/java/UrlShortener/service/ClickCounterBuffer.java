@@ -0,0 +1,207 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Replaces the per-click "load, increment, save, evict cache" of click_count. The redirect path only
+// bumps an in-memory adder; a flusher applies the accumulated deltas as one JDBC batch UPDATE and one
+// Redis script call for the per-day click hash. Flushes run on a timer and early when too many links are pending.
+@Service
+public class ClickCounterBuffer {
+
+    public static final String DAILY_CLICKS_KEY_PREFIX = "clicks:daily:";
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    @Autowired
+    private RedisBatchService redisBatchService;
+
+    @Value("${app.click-counter.max-pending:1000}")
+    private int maxPending;
+
+    @Value("${app.click-counter.daily-retention-days:8}")
+    private int dailyRetentionDays;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, PendingClicks> pending = new ConcurrentHashMap<>();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "click-counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    private final Counter clicksRecorded;
+    private final Counter rowsUpdated;
+
+    public ClickCounterBuffer(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.clicksRecorded = Counter.builder("clicks.counter.recorded").register(meterRegistry);
+        this.rowsUpdated = Counter.builder("clicks.counter.rows_updated").register(meterRegistry);
+        Gauge.builder("clicks.counter.pending_links", pending, Map::size).register(meterRegistry);
+    }
+
+    public void increment(Long urlId, String shortCode) {
+        long clicks = 1;
+        while (clicks > 0) {
+            PendingClicks entry = pending.computeIfAbsent(urlId, k -> new PendingClicks(shortCode));
+            entry.clicks.add(clicks);
+            // The flusher retires an entry before checking it for zero. If the add may have landed on an entry
+            // being dropped, take the clicks back out and add them again to whatever entry is current.
+            clicks = entry.retired ? entry.clicks.sumThenReset() : 0;
+        }
+        clicksRecorded.increment();
+
+        if (pending.size() >= maxPending && flushQueued.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    // Hash of shortCode -> clicks for one day, used to rank links for cache warm-up
+    public static String dailyClicksKey(LocalDate day) {
+        return DAILY_CLICKS_KEY_PREFIX + day.format(DAY);
+    }
+
+    // Clicks recorded on this node but not yet written to click_count
+    public long pendingClicks(Long urlId) {
+        PendingClicks clicks = pending.get(urlId);
+        return clicks != null ? clicks.clicks.sum() : 0L;
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-counter.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        flushQueued.set(false);
+
+        // Deltas and ids stay primitive through to the batch statement
+        int capacity = pending.size() + 16;
+        long[] urlIds = new long[capacity];
+        long[] deltas = new long[capacity];
+        List<PendingClicks> flushed = new ArrayList<>(capacity);
+        Map<String, Long> dailyDeltas = new HashMap<>();
+        int count = 0;
+        for (Map.Entry<Long, PendingClicks> entry : pending.entrySet()) {
+            PendingClicks clicks = entry.getValue();
+            long delta = clicks.clicks.sumThenReset();
+            if (delta == 0) {
+                // Idle since the last flush: dropped only if still zero once retired, and an increment that
+                // raced the check moves its clicks to a new entry (see increment)
+                pending.computeIfPresent(entry.getKey(), (id, current) -> current.retireIfIdle() ? null : current);
+                continue;
+            }
+            if (count == urlIds.length) {
+                urlIds = Arrays.copyOf(urlIds, count * 2);
+                deltas = Arrays.copyOf(deltas, count * 2);
+            }
+            urlIds[count] = entry.getKey();
+            deltas[count] = delta;
+            flushed.add(clicks);
+            count++;
+            dailyDeltas.merge(clicks.shortCode, delta, Long::sum);
+        }
+        if (count == 0) {
+            return;
+        }
+
+        Workload previous = Workload.INGEST.enter();
+        try {
+            jdbcTemplate.batchUpdate("UPDATE urls SET click_count = click_count + ? WHERE id = ?",
+                    new CountUpdates(urlIds, deltas, count));
+            rowsUpdated.increment(count);
+        } catch (Exception e) {
+            // Put the deltas back so the next flush retries them
+            for (int i = 0; i < count; i++) {
+                PendingClicks clicks = flushed.get(i);
+                pending.computeIfAbsent(urlIds[i], k -> clicks).clicks.add(deltas[i]);
+            }
+            System.err.println("Failed to flush click counts: " + e.getMessage());
+            return;
+        } finally {
+            Workload.restore(previous);
+        }
+
+        try {
+            redisBatchService.incrementHashFields(dailyClicksKey(LocalDate.now()),
+                    dailyDeltas, Duration.ofDays(dailyRetentionDays));
+        } catch (Exception e) {
+            // The daily hash only feeds cache warm-up ranking; click_count is already durable
+            System.err.println("Failed to update daily click hash: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private static final class CountUpdates implements BatchPreparedStatementSetter {
+        private final long[] urlIds;
+        private final long[] deltas;
+        private final int size;
+
+        private CountUpdates(long[] urlIds, long[] deltas, int size) {
+            this.urlIds = urlIds;
+            this.deltas = deltas;
+            this.size = size;
+        }
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            ps.setLong(1, deltas[i]);
+            ps.setLong(2, urlIds[i]);
+        }
+
+        @Override
+        public int getBatchSize() {
+            return size;
+        }
+    }
+
+    private static final class PendingClicks {
+        private final String shortCode;
+        private final LongAdder clicks = new LongAdder();
+        private volatile boolean retired;
+
+        private PendingClicks(String shortCode) {
+            this.shortCode = shortCode;
+        }
+
+        // Retiring first means an increment either shows up in the sum or sees the flag afterwards
+        private boolean retireIfIdle() {
+            retired = true;
+            if (clicks.sum() == 0) {
+                return true;
+            }
+            retired = false;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package UrlShortener.service;
+
+import UrlShortener.exception.ResourceNotFoundException;
+import UrlShortener.exception.ValidationException;
+import UrlShortener.model.ClickEvent;
+import UrlShortener.model.Url;
+import UrlShortener.model.User;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.utils.ClickArchiveFile.Column;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+// Clicks before ClickArchiveService.liveFrom() may already be purged from click_events, so that part of
+// the range is read from the archive files and the rest from the table, oldest first either way.
+@Service
+public class ClickExportService {
+
+    private static final String[] COLUMNS = {
+            "clicked_at", "ip_address", "country", "city", "device_type",
+            "browser", "operating_system", "referrer_domain", "user_agent"
+    };
+
+    private static final Set<Column> ARCHIVE_COLUMNS = EnumSet.of(Column.CLICKED_AT, Column.IP_ADDRESS,
+            Column.COUNTRY_ID, Column.CITY_ID, Column.DEVICE_TYPE, Column.BROWSER_ID, Column.OPERATING_SYSTEM_ID,
+            Column.REFERRER_DOMAIN_ID, Column.USER_AGENT_ID);
+    private static final ClickEvent.DeviceType[] DEVICE_TYPES = ClickEvent.DeviceType.values();
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private ClickArchiveService clickArchiveService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // Rows are read through a forward-only cursor; the driver only honours the
+    // fetch size when useCursorFetch=true is set on the connection URL.
+    public ClickExportService(DataSource dataSource,
+                              @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    public Url findExportableUrl(String shortCode, User user) {
+        Url url = urlRepository.findByShortCode(shortCode)
+                .orElseThrow(() -> new ResourceNotFoundException("URL not found: " + shortCode));
+
+        if (url.getUser() == null || !url.getUser().getId().equals(user.getId())) {
+            throw new ValidationException("You don't have permission to export this URL");
+        }
+
+        return url;
+    }
+
+    // Read-only so the scan is served by the replica pool when one is configured
+    @Transactional(readOnly = true)
+    public void export(Long urlId, Format format, LocalDateTime from, LocalDateTime to,
+                       boolean gzip, OutputStream outputStream) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 16384);
+
+        try {
+            if (format == Format.CSV) {
+                writeCsv(urlId, from, to, writer);
+            } else {
+                writeNdjson(urlId, from, to, writer);
+            }
+        } catch (UncheckedIOException e) {
+            // Client went away mid-stream; surface the original IO failure
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+    }
+
+    private void writeCsv(Long urlId, LocalDateTime from, LocalDateTime to, Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+
+        streamRows(urlId, from, to, row -> {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCsvValue(writer, row[i]);
+            }
+            writer.write('\n');
+        });
+    }
+
+    private void writeNdjson(Long urlId, LocalDateTime from, LocalDateTime to, Writer writer) throws IOException {
+        JsonGenerator generator = jsonFactory.createGenerator(writer);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        streamRows(urlId, from, to, row -> {
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                generator.writeStringField(COLUMNS[i], row[i]);
+            }
+            generator.writeEndObject();
+        });
+
+        generator.flush();
+        writer.write('\n');
+    }
+
+    // Hands every click in [from, to) to the sink in COLUMNS order; the row array is reused between calls
+    private void streamRows(Long urlId, LocalDateTime from, LocalDateTime to, RowSink sink) throws IOException {
+        String[] row = new String[COLUMNS.length];
+        LocalDateTime liveFrom = clickArchiveService.liveFrom();
+        if (from == null || from.isBefore(liveFrom)) {
+            streamArchivedRows(urlId, from, to != null && to.isBefore(liveFrom) ? to : liveFrom, row, sink);
+        }
+        if (to == null || to.isAfter(liveFrom)) {
+            streamLiveRows(urlId, from != null && from.isAfter(liveFrom) ? from : liveFrom, to, row, sink);
+        }
+    }
+
+    private void streamArchivedRows(Long urlId, LocalDateTime from, LocalDateTime to, String[] row, RowSink sink)
+            throws IOException {
+        long fromMillis = from != null ? from.atZone(zone).toInstant().toEpochMilli() : Long.MIN_VALUE;
+        long toMillis = to.atZone(zone).toInstant().toEpochMilli();
+        Labels labels = new Labels();
+        clickArchiveService.scan(urlId, from, to, ARCHIVE_COLUMNS, (rows, first, last) -> {
+            long[] clickedAt = rows.getLongs(Column.CLICKED_AT);
+            String[] ipAddresses = rows.getStrings(Column.IP_ADDRESS);
+            int[] countryIds = rows.getInts(Column.COUNTRY_ID);
+            int[] cityIds = rows.getInts(Column.CITY_ID);
+            int[] deviceTypes = rows.getInts(Column.DEVICE_TYPE);
+            int[] browserIds = rows.getInts(Column.BROWSER_ID);
+            int[] operatingSystemIds = rows.getInts(Column.OPERATING_SYSTEM_ID);
+            int[] referrerDomainIds = rows.getInts(Column.REFERRER_DOMAIN_ID);
+            int[] userAgentIds = rows.getInts(Column.USER_AGENT_ID);
+            for (int i = first; i < last; i++) {
+                if (clickedAt[i] < fromMillis || clickedAt[i] >= toMillis) {
+                    continue;
+                }
+                row[0] = LocalDateTime.ofInstant(Instant.ofEpochMilli(clickedAt[i]), zone).toString();
+                row[1] = ipAddresses[i];
+                row[2] = labels.dimension(countryIds[i]);
+                row[3] = labels.dimension(cityIds[i]);
+                row[4] = deviceTypes[i] > 0 && deviceTypes[i] <= DEVICE_TYPES.length
+                        ? DEVICE_TYPES[deviceTypes[i] - 1].name() : null;
+                row[5] = labels.dimension(browserIds[i]);
+                row[6] = labels.dimension(operatingSystemIds[i]);
+                row[7] = labels.referrerDomain(referrerDomainIds[i]);
+                row[8] = labels.dimension(userAgentIds[i]);
+                sink.accept(row);
+            }
+        });
+    }
+
+    private void streamLiveRows(Long urlId, LocalDateTime from, LocalDateTime to, String[] row, RowSink sink) {
+        StringBuilder sql = new StringBuilder("SELECT c.clicked_at, c.ip_address, co.label, ci.label, c.device_type, " +
+                "br.label, os.label, rd.domain, ua.label FROM click_events c " +
+                "LEFT JOIN dimension_values co ON co.id = c.country_id " +
+                "LEFT JOIN dimension_values ci ON ci.id = c.city_id " +
+                "LEFT JOIN dimension_values br ON br.id = c.browser_id " +
+                "LEFT JOIN dimension_values os ON os.id = c.operating_system_id " +
+                "LEFT JOIN dimension_values ua ON ua.id = c.user_agent_id " +
+                "LEFT JOIN referrer_domains rd ON rd.id = c.referrer_domain_id WHERE c.url_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(urlId);
+
+        if (from != null) {
+            sql.append(" AND c.clicked_at >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND c.clicked_at < ?");
+            params.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY c.clicked_at");
+
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Timestamp clickedAt = rs.getTimestamp(1);
+            row[0] = clickedAt != null ? clickedAt.toLocalDateTime().toString() : null;
+            for (int i = 1; i < COLUMNS.length; i++) {
+                row[i] = rs.getString(i + 1);
+            }
+            try {
+                sink.accept(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, params.toArray());
+    }
+
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        boolean needsQuoting = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuoting = true;
+                break;
+            }
+        }
+
+        if (!needsQuoting) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private interface RowSink {
+        void accept(String[] row) throws IOException;
+    }
+
+    // Archived rows hold dictionary ids; labels are looked up once per id and export
+    private final class Labels {
+        private final Map<Integer, String> dimensions = new HashMap<>();
+        private final Map<Integer, String> referrerDomains = new HashMap<>();
+
+        private String dimension(int id) {
+            return id == 0 ? null : dimensions.computeIfAbsent(id,
+                    key -> first(jdbcTemplate.queryForList("SELECT label FROM dimension_values WHERE id = ?", String.class, key)));
+        }
+
+        private String referrerDomain(int id) {
+            return id == 0 ? null : referrerDomains.computeIfAbsent(id,
+                    key -> first(jdbcTemplate.queryForList("SELECT domain FROM referrer_domains WHERE id = ?", String.class, key)));
+        }
+
+        private String first(List<String> values) {
+            return values.isEmpty() ? null : values.get(0);
+        }
+    }
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format fromParameter(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new ValidationException("Unsupported export format: " + value);
+        }
+    }
+}
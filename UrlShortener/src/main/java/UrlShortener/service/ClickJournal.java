@@ -0,0 +1,408 @@
+package UrlShortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only, memory-mapped journal of human clicks. The redirect thread copies one small binary record
+// into the mapped segment and returns; ClickJournalReplayer ships records to MySQL later, so a slow or
+// unavailable database never blocks a redirect and never loses a click.
+//
+// Segments are fixed-size files named by sequence number. Record layout:
+//   int length | int crc32c(payload) | payload (length bytes)
+// The length is written last, so a record is visible only once it is complete, and the zero-filled
+// tail of a segment reads as "end of data".
+@Service
+public class ClickJournal {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_IP_BYTES = 64;
+    private static final int MAX_USER_AGENT_BYTES = 512;
+    private static final int MAX_REFERRER_BYTES = 1024;
+    private static final byte[] NULL_BYTES = new byte[0];
+
+    @Value("${app.click-journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.click-journal.dir:./data/click-journal}")
+    private String dir;
+
+    @Value("${app.click-journal.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    private Path directory;
+
+    // Guarded by this
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private int position;
+
+    private volatile long activeSequence;
+    private volatile int committed;
+
+    private final CRC32C crc = new CRC32C();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter appended;
+    private final Counter appendFailures;
+    private final Counter corruptRecords;
+
+    public ClickJournal(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.appended = Counter.builder("clicks.journal.appended").register(meterRegistry);
+        this.appendFailures = Counter.builder("clicks.journal.append_failures").register(meterRegistry);
+        this.corruptRecords = Counter.builder("clicks.journal.corrupt_records").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Gauge.builder("clicks.journal.segments", this, journal -> journal.segmentCount()).register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        directory = Path.of(dir);
+        Files.createDirectories(directory);
+
+        List<Long> sequences = listSegments();
+        long sequence = sequences.isEmpty() ? 1L : sequences.get(sequences.size() - 1);
+        synchronized (this) {
+            mapActive(sequence);
+            // Resume after the last complete record the previous process wrote
+            position = endOfRecords(active, segmentBytes);
+            committed = position;
+        }
+        System.out.println("Click journal opened at segment " + sequence + ", offset " + position);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.force();
+            activeChannel.close();
+            active = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // False when the record could not be written; the caller then falls back to a direct insert. id is 0 for
+    // a click taken while this node held no id lease; ClickBatchWriter assigns one when it is replayed.
+    public boolean append(long id, long urlId, long clickedAtMillis, String ipAddress, String userAgent, String referrer) {
+        byte[] payload = encode(id, urlId, clickedAtMillis, ipAddress, userAgent, referrer);
+
+        synchronized (this) {
+            if (active == null) {
+                appendFailures.increment();
+                return false;
+            }
+            try {
+                if (position + HEADER_BYTES + payload.length > segmentBytes) {
+                    rotate();
+                }
+            } catch (IOException e) {
+                appendFailures.increment();
+                System.err.println("Click journal rotation failed: " + e.getMessage());
+                return false;
+            }
+
+            crc.reset();
+            crc.update(payload);
+            active.put(position + HEADER_BYTES, payload);
+            active.putInt(position + 4, (int) crc.getValue());
+            active.putInt(position, payload.length);
+
+            position += HEADER_BYTES + payload.length;
+            committed = position;
+        }
+        appended.increment();
+        return true;
+    }
+
+    // Payload of one raw click, also used as the body of click stream messages:
+    //   long id | long url id | long clicked at | short-prefixed UTF-8 ip, user agent, referrer (-1 = null)
+    // Not a ClickRecord: that is the enriched form holding dictionary ids, and interning the user agent and
+    // referrer can insert into dimension_values and referrer_domains, which the redirect thread must not wait
+    // on. ClickBatchWriter turns entries into ClickRecords when they are shipped.
+    public static byte[] encode(long id, long urlId, long clickedAtMillis, String ipAddress, String userAgent, String referrer) {
+        byte[] ip = truncatedUtf8(ipAddress, MAX_IP_BYTES);
+        byte[] agent = truncatedUtf8(userAgent, MAX_USER_AGENT_BYTES);
+        byte[] ref = truncatedUtf8(referrer, MAX_REFERRER_BYTES);
+
+        ByteBuffer payload = ByteBuffer.allocate(24 + 6 + ip.length + agent.length + ref.length);
+        payload.putLong(id).putLong(urlId).putLong(clickedAtMillis);
+        putBytes(payload, ip);
+        putBytes(payload, agent);
+        putBytes(payload, ref);
+        return payload.array();
+    }
+
+    // A payload with its record header, as stored in a segment
+    public static byte[] frame(byte[] payload) {
+        CRC32C check = new CRC32C();
+        check.update(payload);
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length).putInt((int) check.getValue()).put(payload).array();
+    }
+
+    // Reads a payload written by encode() from the buffer's position to its limit
+    public static Entry decode(ByteBuffer payload) {
+        Entry entry = new Entry();
+        entry.id = payload.getLong();
+        entry.urlId = payload.getLong();
+        entry.clickedAtMillis = payload.getLong();
+        entry.ipAddress = getString(payload);
+        entry.userAgent = getString(payload);
+        entry.referrer = getString(payload);
+        return entry;
+    }
+
+    // Up to maxRecords complete records from the given position onwards
+    public Batch read(long segment, int offset, int maxRecords) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        while (entries.size() < maxRecords) {
+            long current = activeSequence;
+            if (segment > current) {
+                break;
+            }
+
+            ByteBuffer buffer;
+            int limit;
+            if (segment == current) {
+                synchronized (this) {
+                    if (segment != activeSequence) {
+                        continue;
+                    }
+                    buffer = active.duplicate();
+                    limit = committed;
+                }
+            } else {
+                Path file = segmentPath(segment);
+                if (!Files.exists(file)) {
+                    segment++;
+                    offset = 0;
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                limit = buffer.capacity();
+            }
+
+            boolean sealed = segment != current;
+            while (entries.size() < maxRecords && offset + HEADER_BYTES <= limit) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + HEADER_BYTES + length > limit) {
+                    break;
+                }
+                Entry entry = decode(buffer, offset, length);
+                if (entry == null) {
+                    // Torn or damaged record: nothing after it in this segment can be trusted
+                    corruptRecords.increment();
+                    offset = limit;
+                    break;
+                }
+                entries.add(entry);
+                offset += HEADER_BYTES + length;
+            }
+
+            if (entries.size() >= maxRecords || !sealed) {
+                break;
+            }
+            // Finished a sealed segment; carry on with the next one
+            segment++;
+            offset = 0;
+        }
+        return new Batch(entries, segment, offset);
+    }
+
+    // Segments wholly before the replayer's checkpoint are no longer needed
+    public void deleteSegmentsBefore(long sequence) {
+        try {
+            for (long segment : listSegments()) {
+                if (segment < sequence && segment != activeSequence) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to delete replayed journal segments: " + e.getMessage());
+        }
+    }
+
+    // Bytes appended but not yet replayed, as seen from the given checkpoint
+    public long backlogBytes(long segment, int offset) {
+        long current = activeSequence;
+        if (segment > current) {
+            return 0;
+        }
+        return (current - segment) * (long) segmentBytes + committed - offset;
+    }
+
+    // Page-cache writes survive a process crash on their own; this makes them survive a host crash too
+    @Scheduled(fixedDelayString = "${app.click-journal.sync-interval-ms:1000}")
+    public void sync() {
+        MappedByteBuffer current;
+        synchronized (this) {
+            current = active;
+        }
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    private void rotate() throws IOException {
+        active.force();
+        activeChannel.close();
+        mapActive(activeSequence + 1);
+        position = 0;
+        committed = 0;
+    }
+
+    private void mapActive(long sequence) throws IOException {
+        activeChannel = FileChannel.open(segmentPath(sequence),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        activeSequence = sequence;
+    }
+
+    private int endOfRecords(ByteBuffer buffer, int limit) {
+        int offset = 0;
+        while (offset + HEADER_BYTES <= limit) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > limit || decode(buffer, offset, length) == null) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private Entry decode(ByteBuffer buffer, int offset, int length) {
+        int start = offset + HEADER_BYTES;
+        CRC32C check = new CRC32C();
+        check.update(buffer.duplicate().position(start).limit(start + length));
+        if ((int) check.getValue() != buffer.getInt(offset + 4)) {
+            return null;
+        }
+        return decode(buffer.duplicate().position(start).limit(start + length));
+    }
+
+    private int segmentCount() {
+        try {
+            return directory != null ? listSegments().size() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> sequences = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            sequences.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            // Not one of ours
+                        }
+                    });
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%020d", sequence) + SEGMENT_SUFFIX);
+    }
+
+    // Null is stored as length -1 so it survives the round trip
+    private static void putBytes(ByteBuffer buffer, byte[] value) {
+        if (value == NULL_BYTES) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] truncatedUtf8(String value, int maxBytes) {
+        if (value == null) {
+            return NULL_BYTES;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return bytes;
+        }
+        // Cut at a character boundary, never inside a multi-byte sequence
+        int end = maxBytes;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        byte[] truncated = new byte[end];
+        System.arraycopy(bytes, 0, truncated, 0, end);
+        return truncated;
+    }
+
+    public static final class Batch {
+        private final List<Entry> entries;
+        private final long nextSegment;
+        private final int nextOffset;
+
+        private Batch(List<Entry> entries, long nextSegment, int nextOffset) {
+            this.entries = entries;
+            this.nextSegment = nextSegment;
+            this.nextOffset = nextOffset;
+        }
+
+        public List<Entry> getEntries() { return entries; }
+        public long getNextSegment() { return nextSegment; }
+        public int getNextOffset() { return nextOffset; }
+    }
+
+    public static final class Entry {
+        private long id;
+        private long urlId;
+        private long clickedAtMillis;
+        private String ipAddress;
+        private String userAgent;
+        private String referrer;
+
+        public long getId() { return id; }
+        public long getUrlId() { return urlId; }
+        public long getClickedAtMillis() { return clickedAtMillis; }
+        public String getIpAddress() { return ipAddress; }
+        public String getUserAgent() { return userAgent; }
+        public String getReferrer() { return referrer; }
+    }
+}
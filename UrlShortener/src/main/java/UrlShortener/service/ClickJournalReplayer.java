@@ -0,0 +1,237 @@
+package UrlShortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Ships the click journal to MySQL in batches through ClickBatchWriter. The checkpoint (segment, offset)
+// only moves after a batch has committed; a batch replayed after a crash is skipped by id.
+//
+// A batch that keeps failing at the same checkpoint is written in halves, down to single records. Records
+// that still fail for a non-transient reason go to dead-letter/<segment>-<offset>.seg, in the journal's
+// record layout, and replay moves past them. A database outage never dead-letters anything: a transient
+// failure stops the run with the checkpoint unchanged.
+@Service
+public class ClickJournalReplayer {
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_DIR = "dead-letter";
+
+    @Autowired
+    private ClickJournal clickJournal;
+
+    @Autowired
+    private ClickBatchWriter clickBatchWriter;
+
+    @Value("${app.click-journal.dir:./data/click-journal}")
+    private String dir;
+
+    @Value("${app.click-journal.replay-batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.click-journal.replay-max-batches:20}")
+    private int maxBatchesPerRun;
+
+    // Failed attempts at one checkpoint before the batch is split to find the records that fail
+    @Value("${app.click-journal.replay-max-attempts:5}")
+    private int maxAttempts;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter replayed;
+    private final Counter failedBatches;
+    private final Counter deadLettered;
+
+    private Path checkpointPath;
+    private volatile long segment = 1;
+    private volatile int offset;
+
+    // Consecutive failures of the batch starting at the current checkpoint
+    private int failedAttempts;
+
+    public ClickJournalReplayer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.replayed = Counter.builder("clicks.journal.replayed").register(meterRegistry);
+        this.failedBatches = Counter.builder("clicks.journal.replay_failures").register(meterRegistry);
+        this.deadLettered = Counter.builder("clicks.journal.dead_lettered").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void loadCheckpoint() {
+        Gauge.builder("clicks.journal.backlog_bytes", this, replayer -> replayer.backlogBytes()).register(meterRegistry);
+        if (!clickJournal.isEnabled()) {
+            return;
+        }
+        checkpointPath = Path.of(dir).resolve(CHECKPOINT_FILE);
+        try {
+            if (Files.exists(checkpointPath)) {
+                String[] parts = Files.readString(checkpointPath, StandardCharsets.UTF_8).trim().split(" ");
+                segment = Long.parseLong(parts[0]);
+                offset = Integer.parseInt(parts[1]);
+            }
+            System.out.println("Click journal replay resumes at segment " + segment + ", offset " + offset);
+        } catch (IOException | RuntimeException e) {
+            // Replaying from the oldest segment is safe: already shipped rows are ignored by id
+            System.err.println("Unreadable click journal checkpoint, replaying from the start: " + e.getMessage());
+            segment = 0;
+            offset = 0;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-journal.replay-interval-ms:500}")
+    public synchronized void replay() {
+        if (!clickJournal.isEnabled()) {
+            return;
+        }
+        for (int round = 0; round < maxBatchesPerRun; round++) {
+            ClickJournal.Batch batch;
+            try {
+                batch = clickJournal.read(segment, offset, batchSize);
+            } catch (IOException e) {
+                System.err.println("Failed to read click journal: " + e.getMessage());
+                return;
+            }
+
+            if (!batch.getEntries().isEmpty()) {
+                int stored = batch.getEntries().size();
+                try {
+                    clickBatchWriter.write(batch.getEntries());
+                } catch (Exception e) {
+                    failedBatches.increment();
+                    System.err.println("Failed to replay " + batch.getEntries().size() + " journaled clicks: " + e.getMessage());
+                    // The checkpoint stays put; the same records are retried on the next run
+                    if (isTransient(e) || ++failedAttempts < maxAttempts) {
+                        return;
+                    }
+                    int deadLetters = replayIsolatingFailures(batch);
+                    if (deadLetters < 0) {
+                        return;
+                    }
+                    stored -= deadLetters;
+                }
+                failedAttempts = 0;
+                replayed.increment(stored);
+            }
+
+            boolean moved = batch.getNextSegment() != segment || batch.getNextOffset() != offset;
+            if (moved) {
+                saveCheckpoint(batch.getNextSegment(), batch.getNextOffset());
+                clickJournal.deleteSegmentsBefore(segment);
+            }
+            if (batch.getEntries().size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Writes the batch in halves down to single records and dead-letters the records that fail on their
+    // own; returns how many. -1, with nothing dead-lettered, when a failure looks transient or the dead
+    // letters cannot be written. The halves that did commit are looked up by id when the batch is retried,
+    // so neither their rows nor their rollups are written again.
+    private int replayIsolatingFailures(ClickJournal.Batch batch) {
+        List<ClickJournal.Entry> failing = new ArrayList<>();
+        if (!writeIsolating(batch.getEntries(), failing)) {
+            return -1;
+        }
+        if (failing.isEmpty()) {
+            return 0;
+        }
+        try {
+            writeDeadLetters(failing);
+        } catch (IOException e) {
+            System.err.println("Failed to dead-letter journaled clicks: " + e.getMessage());
+            return -1;
+        }
+        deadLettered.increment(failing.size());
+        System.err.println("Dead-lettered " + failing.size() + " journaled clicks at segment " + segment
+                + ", offset " + offset);
+        return failing.size();
+    }
+
+    private boolean writeIsolating(List<ClickJournal.Entry> entries, List<ClickJournal.Entry> failing) {
+        try {
+            clickBatchWriter.write(entries);
+            return true;
+        } catch (Exception e) {
+            if (isTransient(e)) {
+                return false;
+            }
+            if (entries.size() == 1) {
+                failing.add(entries.get(0));
+                return true;
+            }
+            int middle = entries.size() / 2;
+            return writeIsolating(entries.subList(0, middle), failing)
+                    && writeIsolating(entries.subList(middle, entries.size()), failing);
+        }
+    }
+
+    private void writeDeadLetters(List<ClickJournal.Entry> entries) throws IOException {
+        Path deadLetterDir = Path.of(dir).resolve(DEAD_LETTER_DIR);
+        Files.createDirectories(deadLetterDir);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ClickJournal.Entry entry : entries) {
+            out.write(ClickJournal.frame(ClickJournal.encode(entry.getId(), entry.getUrlId(), entry.getClickedAtMillis(),
+                    entry.getIpAddress(), entry.getUserAgent(), entry.getReferrer())));
+        }
+        Path file = deadLetterDir.resolve(segment + "-" + offset + ".seg");
+        // Named by checkpoint, so a retry after a crash rewrites the same file
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(out.toByteArray()));
+            channel.force(true);
+        }
+    }
+
+    // Lost connections, timeouts and lock conflicts; those records are fine and must be retried
+    static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException || cause instanceof TransactionException
+                    || cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Written to a temp file and moved into place, so a crash leaves either the old or the new checkpoint
+    private void saveCheckpoint(long nextSegment, int nextOffset) {
+        segment = nextSegment;
+        offset = nextOffset;
+        try {
+            Path temp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temp, nextSegment + " " + nextOffset, StandardCharsets.UTF_8);
+            Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Progress is kept in memory; after a restart the last batches are replayed and ignored by id
+            System.err.println("Failed to save click journal checkpoint: " + e.getMessage());
+        }
+    }
+
+    private long backlogBytes() {
+        return clickJournal.isEnabled() ? clickJournal.backlogBytes(segment, offset) : 0;
+    }
+}
@@ -0,0 +1,310 @@
+package UrlShortener.service;
+
+import UrlShortener.utils.ClickStream;
+import UrlShortener.utils.InMemoryClickStream;
+import UrlShortener.utils.RedisClickStream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Optional multi-node click ingestion. Producer nodes XADD each click (the same compact payload as the
+// click journal) to one Redis Stream; consumer nodes read it through a consumer group, write batches with
+// ClickBatchWriter and XACK them afterwards. A batch that fails stays pending and is reclaimed once idle,
+// by this consumer or any other, and retried one message at a time when the whole batch fails again, so
+// only a message that keeps failing on its own is moved to the dead-letter stream.
+@Service
+public class ClickStreamService {
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ClickBatchWriter clickBatchWriter;
+
+    @Value("${app.click-stream.producer-enabled:false}")
+    private boolean producerEnabled;
+
+    @Value("${app.click-stream.consumer-enabled:false}")
+    private boolean consumerEnabled;
+
+    // "redis", or "memory" for the in-process stand-in
+    @Value("${app.click-stream.backend:redis}")
+    private String backend;
+
+    @Value("${app.click-stream.key:clicks:stream}")
+    private String key;
+
+    @Value("${app.click-stream.group:click-ingest}")
+    private String group;
+
+    // Must be stable per node so a restarted consumer finds its own pending messages
+    @Value("${app.click-stream.consumer-name:}")
+    private String consumerName;
+
+    @Value("${app.click-stream.max-length:1000000}")
+    private long maxLength;
+
+    @Value("${app.click-stream.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.click-stream.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    @Value("${app.click-stream.claim-idle-ms:60000}")
+    private long claimIdleMs;
+
+    @Value("${app.click-stream.max-deliveries:5}")
+    private int maxDeliveries;
+
+    // Longest a redirect waits for XADD before the click goes to the local journal instead
+    @Value("${app.click-stream.publish-timeout-ms:50}")
+    private long publishTimeoutMs;
+
+    // After a failed or slow XADD, clicks go straight to the journal for this long
+    @Value("${app.click-stream.publish-backoff-ms:1000}")
+    private long publishBackoffMs;
+
+    private ClickStream stream;
+    private volatile boolean groupReady;
+    private volatile long publishSuspendedUntil;
+
+    private final ThreadPoolExecutor publishExecutor;
+
+    private final Counter published;
+    private final Counter publishFailures;
+    private final Counter consumed;
+    private final Counter reclaimed;
+    private final Counter deadLettered;
+    private final Counter failedBatches;
+    private final AtomicLong streamLength = new AtomicLong();
+    private final AtomicLong pendingMessages = new AtomicLong();
+
+    public ClickStreamService(MeterRegistry meterRegistry,
+                              @Value("${app.click-stream.publish-threads:4}") int publishThreads) {
+        // A full queue rejects the click, which then goes to the journal
+        this.publishExecutor = new ThreadPoolExecutor(publishThreads, publishThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), r -> {
+                    Thread thread = new Thread(r, "click-stream-publish");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.published = Counter.builder("clicks.stream.published").register(meterRegistry);
+        this.publishFailures = Counter.builder("clicks.stream.publish_failures").register(meterRegistry);
+        this.consumed = Counter.builder("clicks.stream.consumed").register(meterRegistry);
+        this.reclaimed = Counter.builder("clicks.stream.reclaimed").register(meterRegistry);
+        this.deadLettered = Counter.builder("clicks.stream.dead_lettered").register(meterRegistry);
+        this.failedBatches = Counter.builder("clicks.stream.batch_failures").register(meterRegistry);
+        Gauge.builder("clicks.stream.length", streamLength, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("clicks.stream.pending", pendingMessages, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        stream = "memory".equalsIgnoreCase(backend)
+                ? new InMemoryClickStream(maxLength)
+                : new RedisClickStream(stringRedisTemplate, key, maxLength);
+        if (consumerName.isBlank()) {
+            String host = System.getenv("HOSTNAME");
+            consumerName = (host != null && !host.isBlank() ? host : "node") + "-" + ProcessHandle.current().pid();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publishExecutor.shutdownNow();
+    }
+
+    public boolean isPublishing() {
+        return producerEnabled && System.currentTimeMillis() >= publishSuspendedUntil;
+    }
+
+    // False when the stream could not be written in time; the caller then falls back to the local journal.
+    // An XADD that lands after the timeout delivers the click twice; the batch writer stores and counts it
+    // once, by its id.
+    public boolean publish(long id, long urlId, long clickedAtMillis, String ipAddress, String userAgent, String referrer) {
+        byte[] payload = ClickJournal.encode(id, urlId, clickedAtMillis, ipAddress, userAgent, referrer);
+        Future<String> added = null;
+        try {
+            added = publishExecutor.submit(() -> stream.add(payload));
+            added.get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+            published.increment();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            publishFailures.increment();
+            return false;
+        } catch (Exception e) {
+            if (added != null) {
+                added.cancel(false);
+            }
+            publishFailures.increment();
+            publishSuspendedUntil = System.currentTimeMillis() + publishBackoffMs;
+            System.err.println("Failed to publish click to stream: "
+                    + (e instanceof TimeoutException ? "no reply within " + publishTimeoutMs + " ms" : e.getMessage()));
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-stream.poll-interval-ms:200}")
+    public void consume() {
+        if (!consumerEnabled || !ensureGroup()) {
+            return;
+        }
+        for (int round = 0; round < maxBatchesPerPoll; round++) {
+            List<ClickStream.Message> messages;
+            try {
+                messages = stream.readNew(group, consumerName, batchSize);
+            } catch (Exception e) {
+                System.err.println("Failed to read click stream: " + e.getMessage());
+                return;
+            }
+            if (messages.isEmpty() || !process(messages)) {
+                return;
+            }
+            consumed.increment(messages.size());
+            if (messages.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Picks up messages whose consumer died or failed before acknowledging them
+    @Scheduled(fixedDelayString = "${app.click-stream.claim-interval-ms:30000}")
+    public void reclaim() {
+        if (!consumerEnabled || !ensureGroup()) {
+            return;
+        }
+        try {
+            List<ClickStream.Message> claimed = stream.claimIdle(group, consumerName, Duration.ofMillis(claimIdleMs), batchSize);
+            if (claimed.isEmpty()) {
+                return;
+            }
+            try {
+                write(claimed);
+                reclaimed.increment(claimed.size());
+                return;
+            } catch (Exception e) {
+                failedBatches.increment();
+                System.err.println("Failed to ingest " + claimed.size() + " reclaimed clicks: " + e.getMessage());
+                if (ClickJournalReplayer.isTransient(e)) {
+                    return;
+                }
+            }
+            // One message at a time, so the rest of the batch is not held back by the one that fails
+            for (ClickStream.Message message : claimed) {
+                try {
+                    write(List.of(message));
+                    reclaimed.increment();
+                } catch (Exception e) {
+                    if (ClickJournalReplayer.isTransient(e)) {
+                        System.err.println("Stopped retrying reclaimed clicks: " + e.getMessage());
+                        return;
+                    }
+                    if (message.getDeliveries() >= maxDeliveries) {
+                        deadLetter(message);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to reclaim pending clicks: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.click-stream.metrics-interval-ms:10000}")
+    public void sampleBacklog() {
+        if (!producerEnabled && !consumerEnabled) {
+            return;
+        }
+        try {
+            streamLength.set(stream.length());
+            if (groupReady) {
+                pendingMessages.set(stream.pending(group));
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to sample click stream backlog: " + e.getMessage());
+        }
+    }
+
+    // Writes and acknowledges the batch; on failure nothing is acknowledged and the batch is reclaimed later
+    private boolean process(List<ClickStream.Message> messages) {
+        try {
+            write(messages);
+            return true;
+        } catch (Exception e) {
+            failedBatches.increment();
+            System.err.println("Failed to ingest " + messages.size() + " clicks from stream: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void write(List<ClickStream.Message> messages) {
+        List<ClickJournal.Entry> entries = new ArrayList<>(messages.size());
+        List<String> ids = new ArrayList<>(messages.size());
+        for (ClickStream.Message message : messages) {
+            ClickJournal.Entry entry = decode(message);
+            if (entry == null) {
+                deadLetter(message);
+                continue;
+            }
+            entries.add(entry);
+            ids.add(message.getId());
+        }
+
+        if (!entries.isEmpty()) {
+            clickBatchWriter.write(entries);
+        }
+        stream.ack(group, ids);
+    }
+
+    private ClickJournal.Entry decode(ClickStream.Message message) {
+        if (message.getPayload() == null) {
+            return null;
+        }
+        try {
+            return ClickJournal.decode(ByteBuffer.wrap(message.getPayload()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void deadLetter(ClickStream.Message message) {
+        stream.deadLetter(message);
+        stream.ack(group, List.of(message.getId()));
+        deadLettered.increment();
+        System.err.println("Moved click stream message " + message.getId() + " to dead letters after "
+                + message.getDeliveries() + " deliveries");
+    }
+
+    private boolean ensureGroup() {
+        if (groupReady) {
+            return true;
+        }
+        try {
+            stream.createGroup(group);
+            groupReady = true;
+            System.out.println("Click stream consumer " + consumerName + " joined group " + group);
+        } catch (Exception e) {
+            System.err.println("Cannot create click stream group " + group + ": " + e.getMessage());
+        }
+        return groupReady;
+    }
+}
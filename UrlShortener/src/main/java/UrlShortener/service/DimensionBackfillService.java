@@ -0,0 +1,89 @@
+package UrlShortener.service;
+
+import UrlShortener.model.DimensionValue.Dimension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One-off migration of the legacy string columns of click_events into dictionary ids.
+// Once it has run everywhere the old columns can be dropped by hand.
+@Service
+public class DimensionBackfillService {
+
+    private static final String[][] COLUMNS = {
+            {"country", "country_id", Dimension.COUNTRY.name()},
+            {"city", "city_id", Dimension.CITY.name()},
+            {"browser", "browser_id", Dimension.BROWSER.name()},
+            {"operating_system", "operating_system_id", Dimension.OPERATING_SYSTEM.name()},
+            {"user_agent", "user_agent_id", Dimension.USER_AGENT.name()}
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DimensionDictionaryService dimensionDictionaryService;
+
+    @Value("${app.dimensions.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.dimensions.backfill-batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    public void backfill() {
+        for (String[] column : COLUMNS) {
+            String legacyColumn = column[0];
+            String idColumn = column[1];
+            Dimension dimension = Dimension.valueOf(column[2]);
+
+            try {
+                long rows = backfill(legacyColumn, idColumn, dimension);
+                System.out.println("Backfilled " + rows + " " + dimension + " values into " + idColumn);
+            } catch (DataAccessException e) {
+                // Legacy column already dropped or never existed
+                System.err.println("Skipping backfill of " + legacyColumn + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Keyset pages over the primary key: each page reads and updates a bounded id range by id,
+    // instead of one UPDATE per label that scans the unindexed legacy column
+    private long backfill(String legacyColumn, String idColumn, Dimension dimension) {
+        String select = "SELECT id, " + legacyColumn + " FROM click_events WHERE id > ? AND " + idColumn
+                + " IS NULL AND " + legacyColumn + " IS NOT NULL ORDER BY id LIMIT ?";
+        String update = "UPDATE click_events SET " + idColumn + " = ? WHERE id = ?";
+
+        long lastId = Long.MIN_VALUE;
+        long rows = 0;
+        while (true) {
+            List<Object[]> page = new ArrayList<>(batchSize);
+            jdbcTemplate.query(select, rs -> {
+                page.add(new Object[]{rs.getString(2), rs.getLong(1)});
+            }, lastId, batchSize);
+            if (page.isEmpty()) {
+                return rows;
+            }
+            // Labels are interned once the page is read, not while its result set is open
+            for (Object[] row : page) {
+                row[0] = dimensionDictionaryService.idOf(dimension, (String) row[0]);
+            }
+            jdbcTemplate.batchUpdate(update, page);
+            rows += page.size();
+            lastId = (Long) page.get(page.size() - 1)[1];
+        }
+    }
+}
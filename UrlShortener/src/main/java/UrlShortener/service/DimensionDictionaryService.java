@@ -0,0 +1,135 @@
+package UrlShortener.service;
+
+import UrlShortener.model.DimensionValue;
+import UrlShortener.model.DimensionValue.Dimension;
+import UrlShortener.repository.DimensionValueRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class DimensionDictionaryService {
+
+    private static final int MAX_LABEL_LENGTH = 1000;
+
+    @Autowired
+    private DimensionValueRepository dimensionValueRepository;
+
+    private final TransactionTemplate newTransaction;
+
+    private final int maxCachedValues;
+
+    private final Map<Dimension, Map<String, Integer>> idsByLabel = new EnumMap<>(Dimension.class);
+    private final Map<Integer, String> labelsById = new ConcurrentHashMap<>();
+
+    public DimensionDictionaryService(PlatformTransactionManager transactionManager,
+                                      @Value("${app.dimensions.max-cached-values:200000}") int maxCachedValues) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCachedValues = maxCachedValues;
+
+        for (Dimension dimension : Dimension.values()) {
+            idsByLabel.put(dimension, new ConcurrentHashMap<>());
+        }
+    }
+
+    // Returns the compact id for a dimension label, interning it on first sight
+    public Integer idOf(Dimension dimension, String label) {
+        if (label == null || label.isEmpty()) {
+            return null;
+        }
+        if (label.length() > MAX_LABEL_LENGTH) {
+            label = label.substring(0, MAX_LABEL_LENGTH);
+        }
+
+        Integer cached = idsByLabel.get(dimension).get(label);
+        if (cached != null) {
+            return cached;
+        }
+
+        String hash = hash(label);
+        String value = label;
+        DimensionValue dimensionValue = dimensionValueRepository.findByDimensionAndValueHash(dimension, hash)
+                .orElseGet(() -> insert(dimension, value, hash));
+        cache(dimensionValue);
+        return dimensionValue.getId();
+    }
+
+    public String labelOf(Integer id) {
+        if (id == null) {
+            return null;
+        }
+        return labelsOf(List.of(id)).get(id);
+    }
+
+    // Resolves labels for a small set of ids (typically the final top-N of a group-by)
+    public Map<Integer, String> labelsOf(Collection<Integer> ids) {
+        Map<Integer, String> labels = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+
+        for (Integer id : ids) {
+            if (id == null) {
+                continue;
+            }
+            String label = labelsById.get(id);
+            if (label != null) {
+                labels.put(id, label);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (DimensionValue dimensionValue : dimensionValueRepository.findAllById(missing)) {
+                labels.put(dimensionValue.getId(), dimensionValue.getLabel());
+                cache(dimensionValue);
+            }
+        }
+
+        return labels;
+    }
+
+    private DimensionValue insert(Dimension dimension, String label, String hash) {
+        try {
+            return newTransaction.execute(status ->
+                    dimensionValueRepository.saveAndFlush(new DimensionValue(dimension, label, hash)));
+        } catch (DataIntegrityViolationException e) {
+            // Another writer interned the same label concurrently
+            return dimensionValueRepository.findByDimensionAndValueHash(dimension, hash)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private void cache(DimensionValue dimensionValue) {
+        if (labelsById.size() >= maxCachedValues) {
+            return;
+        }
+        idsByLabel.get(dimensionValue.getDimension()).put(dimensionValue.getLabel(), dimensionValue.getId());
+        labelsById.put(dimensionValue.getId(), dimensionValue.getLabel());
+    }
+
+    private String hash(String label) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            return HexFormat.of().formatHex(digest.digest(label.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.model.Url;
+import UrlShortener.model.User;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.utils.BloomFilter;
+import UrlShortener.utils.UrlFingerprint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+// "Reuse existing" support for createShortUrl. A Bloom filter of (user, url_hash) pairs answers
+// "certainly never shortened by this user" in memory, so only possible duplicates cost an index lookup.
+// Pairs created on other nodes arrive over Redis pub/sub, like new short codes do. The filter is rebuilt
+// periodically: pairs of deleted links never leave it otherwise, and it is sized for the table at build time.
+@Service
+public class DuplicateUrlService {
+
+    private static final String CREATED_CHANNEL = "url-hashes:created";
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${app.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.dedup.min-capacity:100000}")
+    private long minCapacity;
+
+    @Value("${app.dedup.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter skippedLookups;
+    private final Counter lookups;
+    private final Counter reused;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+
+    public DuplicateUrlService(DataSource dataSource, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.skippedLookups = Counter.builder("urls.dedup.checks").tag("result", "certainly_new").register(meterRegistry);
+        this.lookups = Counter.builder("urls.dedup.checks").tag("result", "looked_up").register(meterRegistry);
+        this.reused = Counter.builder("urls.dedup.reused").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> add(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CREATED_CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        backfill();
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.dedup.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.dedup.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    // A live link of this user to the same normalized URL with the same expiry and redirect type, if there
+    // is one; a link that differs in either would not behave like the one being requested
+    public Optional<Url> findExisting(User user, byte[] urlHash, LocalDateTime expiresAt, Url.RedirectType redirectType) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(key(user.getId(), urlHash))) {
+            skippedLookups.increment();
+            return Optional.empty();
+        }
+        lookups.increment();
+        Optional<Url> existing = urlRepository.findReusable(user, urlHash, redirectType, LocalDateTime.now()).stream()
+                .filter(url -> Objects.equals(url.getExpiresAt(), expiresAt))
+                .findFirst();
+        if (existing.isPresent()) {
+            reused.increment();
+        }
+        return existing;
+    }
+
+    public void register(Long userId, byte[] urlHash) {
+        String key = key(userId, urlHash);
+        add(key);
+        try {
+            stringRedisTemplate.convertAndSend(CREATED_CHANNEL, key);
+        } catch (Exception e) {
+            // Other nodes may create one duplicate until their next rebuild
+            System.err.println("Failed to broadcast url hash: " + e.getMessage());
+        }
+    }
+
+    public synchronized void rebuild() {
+        Workload previous = Workload.INGEST.enter();
+        try {
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM urls WHERE url_hash IS NOT NULL", Long.class);
+            BloomFilter next = BloomFilter.create(Math.max((count != null ? count : 0) * 2, minCapacity), falsePositiveRate);
+            // Pairs registered while the scan runs go into the new filter too
+            building = next;
+            jdbcTemplate.query("SELECT user_id, url_hash FROM urls WHERE url_hash IS NOT NULL AND user_id IS NOT NULL",
+                    rs -> { next.put(key(rs.getLong(1), rs.getBytes(2))); });
+            filter = next;
+            building = null;
+            System.out.println("URL dedup filter built with " + count + " hashes");
+        } catch (Exception e) {
+            building = null;
+            // Without a filter every reuse request falls through to the index lookup
+            System.err.println("Failed to build URL dedup filter: " + e.getMessage());
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+
+    // Rows created before url_hash existed get one, a batch at a time
+    public void backfill() {
+        Workload previous = Workload.INGEST.enter();
+        try {
+            long total = 0;
+            while (true) {
+                List<Object[]> updates = new ArrayList<>();
+                jdbcTemplate.query("SELECT id, original_url FROM urls WHERE url_hash IS NULL LIMIT " + backfillBatchSize,
+                        rs -> { updates.add(new Object[]{UrlFingerprint.of(rs.getString(2)), rs.getLong(1)}); });
+                if (updates.isEmpty()) {
+                    break;
+                }
+                jdbcTemplate.batchUpdate("UPDATE urls SET url_hash = ? WHERE id = ?", updates);
+                total += updates.size();
+            }
+            if (total > 0) {
+                System.out.println("Backfilled url_hash for " + total + " URLs");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to backfill url_hash: " + e.getMessage());
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+
+    private void add(String key) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        BloomFilter pending = building;
+        if (pending != null) {
+            pending.put(key);
+        }
+    }
+
+    private static String key(Long userId, byte[] urlHash) {
+        return userId + ":" + HEX.formatHex(urlHash);
+    }
+}
@@ -0,0 +1,414 @@
+package UrlShortener.service;
+
+import UrlShortener.dto.response.LiveAnalyticsDelta;
+import UrlShortener.model.ClickEvent;
+import UrlShortener.model.ClickRecord;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.utils.IntLongMap;
+import UrlShortener.utils.LongIntMap;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Pushes per-link click increments to dashboards over Server-Sent Events. Both ends coalesce per tick:
+// nodes that write clicks add them up per link and publish one message per watched link and tick to the
+// Redis channel analytics:live:<urlId>; nodes with viewers hold one subscription per link, however many
+// viewers it has, and send each viewer the merged delta once per tick. Dashboard load therefore grows
+// with the number of links being watched and the tick rate, not with viewers times poll rate.
+//
+// Links nobody watches are never published: viewing nodes keep analytics:live:watch:<urlId> alive while
+// they hold a channel, and writers check those keys with one MGET per tick.
+@Service
+public class LiveAnalyticsService {
+
+    private static final String CHANNEL_PREFIX = "analytics:live:";
+    private static final String WATCH_KEY_PREFIX = "analytics:live:watch:";
+    private static final Duration WATCH_TTL = Duration.ofSeconds(30);
+    private static final long WATCH_REFRESH_MILLIS = WATCH_TTL.toMillis() / 3;
+    private static final ClickEvent.DeviceType[] DEVICE_TYPES = ClickEvent.DeviceType.values();
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisBatchService redisBatchService;
+
+    @Autowired
+    private DimensionDictionaryService dimensionDictionaryService;
+
+    @Value("${app.live-analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.live-analytics.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${app.live-analytics.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.live-analytics.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Clicks committed on this node and not yet published, by url id
+    private final Map<Long, PendingDelta> outbound = new ConcurrentHashMap<>();
+
+    // Links with viewers on this node
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    // Sends happen off the scheduler thread so a slow client cannot hold up other scheduled jobs; while a
+    // fan-out is still running, the next tick is skipped and its deltas are merged into the one after
+    private final ThreadPoolExecutor fanoutExecutor;
+
+    private final Counter published;
+    private final Counter delivered;
+    private final Counter rejected;
+
+    private volatile long lastWatchRefresh;
+    private volatile long lastHeartbeat;
+
+    public LiveAnalyticsService(MeterRegistry meterRegistry) {
+        this.fanoutExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), r -> {
+                    Thread thread = new Thread(r, "live-analytics-fanout");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+
+        this.published = Counter.builder("analytics.live.published").register(meterRegistry);
+        this.delivered = Counter.builder("analytics.live.delivered").register(meterRegistry);
+        this.rejected = Counter.builder("analytics.live.rejected").register(meterRegistry);
+        Gauge.builder("analytics.live.subscribers", subscribers, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("analytics.live.channels", channels, Map::size).register(meterRegistry);
+    }
+
+    // Null when live analytics are disabled or this node is at its subscriber limit
+    public SseEmitter subscribe(String shortCode) {
+        if (!enabled) {
+            return null;
+        }
+        Long urlId = urlRepository.findIdByShortCode(shortCode)
+                .orElseThrow(() -> new RuntimeException("URL not found: " + shortCode));
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Channel channel = channels.compute(urlId, (id, existing) -> {
+            Channel joined = existing != null ? existing : open(id);
+            joined.viewers.add(emitter);
+            return joined;
+        });
+        emitter.onCompletion(() -> leave(channel, emitter));
+        emitter.onTimeout(() -> leave(channel, emitter));
+        emitter.onError(e -> leave(channel, emitter));
+
+        try {
+            emitter.send(SseEmitter.event().comment("subscribed"));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    // Records written by ClickBatchWriter; published after the surrounding transaction commits
+    public void recordClicks(ByteBuffer records, int count) {
+        if (!enabled || count == 0) {
+            return;
+        }
+        // Links of the batch are numbered so the per-record lookup needs no boxed key
+        LongIntMap linkIndexes = new LongIntMap();
+        List<Long> urlIds = new ArrayList<>();
+        List<PendingDelta> deltas = new ArrayList<>();
+        ClickRecord record = new ClickRecord();
+        for (int i = 0; i < count; i++) {
+            record.readFrom(records, i * ClickRecord.BYTES);
+            int link = linkIndexes.indexOf(record.getUrlId());
+            if (link == deltas.size()) {
+                urlIds.add(record.getUrlId());
+                deltas.add(new PendingDelta());
+            }
+            deltas.get(link).add(record);
+        }
+
+        // merge() runs under the map's bin lock, so a delta drained by the tick is never added to afterwards
+        Runnable enqueue = () -> {
+            for (int link = 0; link < deltas.size(); link++) {
+                outbound.merge(urlIds.get(link), deltas.get(link), PendingDelta::addAll);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    public void recordClick(ClickRecord record) {
+        ByteBuffer buffer = ByteBuffer.allocate(ClickRecord.BYTES);
+        record.writeTo(buffer, 0);
+        recordClicks(buffer, 1);
+    }
+
+    @Scheduled(fixedDelayString = "${app.live-analytics.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        publishOutbound();
+        if (!channels.isEmpty()) {
+            refreshWatches();
+            fanoutExecutor.execute(this::fanOut);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanoutExecutor.shutdownNow();
+        for (Channel channel : channels.values()) {
+            for (SseEmitter emitter : channel.viewers) {
+                emitter.complete();
+            }
+        }
+    }
+
+    private void publishOutbound() {
+        if (outbound.isEmpty()) {
+            return;
+        }
+        List<Long> urlIds = new ArrayList<>(outbound.keySet());
+        List<String> watchKeys = new ArrayList<>(urlIds.size());
+        for (Long urlId : urlIds) {
+            watchKeys.add(WATCH_KEY_PREFIX + urlId);
+        }
+
+        try {
+            List<String> watched = redisBatchService.multiGetStrings(watchKeys);
+            for (int i = 0; i < urlIds.size(); i++) {
+                Long urlId = urlIds.get(i);
+                PendingDelta delta = outbound.remove(urlId);
+                if (delta == null || watched.get(i) == null) {
+                    // Nobody is watching; a dashboard opened later starts from a fresh snapshot anyway
+                    continue;
+                }
+                String message = objectMapper.writeValueAsString(delta.toMessage(urlId, dimensionDictionaryService));
+                stringRedisTemplate.convertAndSend(CHANNEL_PREFIX + urlId, message);
+                published.increment();
+            }
+        } catch (Exception e) {
+            // Deltas are advisory; viewers catch up on their next snapshot
+            outbound.clear();
+            System.err.println("Failed to publish live analytics: " + e.getMessage());
+        }
+    }
+
+    private void refreshWatches() {
+        long now = System.currentTimeMillis();
+        if (now - lastWatchRefresh < WATCH_REFRESH_MILLIS) {
+            return;
+        }
+        lastWatchRefresh = now;
+        Map<String, String> watches = new HashMap<>();
+        for (Long urlId : channels.keySet()) {
+            watches.put(WATCH_KEY_PREFIX + urlId, "1");
+        }
+        try {
+            redisBatchService.setAllStrings(watches, WATCH_TTL);
+        } catch (Exception e) {
+            System.err.println("Failed to refresh live analytics watches: " + e.getMessage());
+        }
+    }
+
+    private void fanOut() {
+        long now = System.currentTimeMillis();
+        boolean heartbeat = now - lastHeartbeat >= heartbeatMs;
+        if (heartbeat) {
+            lastHeartbeat = now;
+        }
+
+        for (Channel channel : channels.values()) {
+            LiveAnalyticsDelta delta = channel.drain();
+            if (delta != null) {
+                String json;
+                try {
+                    // Serialized once per link, however many viewers it has
+                    json = objectMapper.writeValueAsString(delta);
+                } catch (IOException e) {
+                    continue;
+                }
+                for (SseEmitter emitter : channel.viewers) {
+                    if (send(channel, emitter, SseEmitter.event().name("delta").data(json))) {
+                        delivered.increment();
+                    }
+                }
+            } else if (heartbeat) {
+                // Keeps idle connections from being closed by proxies
+                for (SseEmitter emitter : channel.viewers) {
+                    send(channel, emitter, SseEmitter.event().comment("keep-alive"));
+                }
+            }
+        }
+    }
+
+    private boolean send(Channel channel, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the servlet container may not report it until the next write
+            leave(channel, emitter);
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    // Runs inside channels.compute, so opening and closing a link's subscription never interleave
+    private Channel open(Long urlId) {
+        Channel channel = new Channel(urlId);
+        redisMessageListenerContainer.addMessageListener(channel, channel.topic);
+        try {
+            stringRedisTemplate.opsForValue().set(WATCH_KEY_PREFIX + urlId, "1", WATCH_TTL);
+        } catch (Exception e) {
+            System.err.println("Failed to register live analytics watch: " + e.getMessage());
+        }
+        return channel;
+    }
+
+    private void leave(Channel channel, SseEmitter emitter) {
+        if (!channel.viewers.remove(emitter)) {
+            return;
+        }
+        subscribers.decrementAndGet();
+        channels.computeIfPresent(channel.urlId, (id, current) -> {
+            if (current != channel || !current.viewers.isEmpty()) {
+                return current;
+            }
+            // The watch key is left to expire; other nodes may still be watching the link
+            redisMessageListenerContainer.removeMessageListener(current, current.topic);
+            return null;
+        });
+    }
+
+    // One link's Redis subscription and the viewers sharing it on this node
+    private final class Channel implements MessageListener {
+        private final Long urlId;
+        private final ChannelTopic topic;
+        private final List<SseEmitter> viewers = new CopyOnWriteArrayList<>();
+        private LiveAnalyticsDelta inbound;
+
+        private Channel(Long urlId) {
+            this.urlId = urlId;
+            this.topic = new ChannelTopic(CHANNEL_PREFIX + urlId);
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            try {
+                LiveAnalyticsDelta delta = objectMapper.readValue(
+                        new String(message.getBody(), StandardCharsets.UTF_8), LiveAnalyticsDelta.class);
+                synchronized (this) {
+                    inbound = inbound == null ? delta : inbound.merge(delta);
+                }
+            } catch (IOException e) {
+                System.err.println("Ignoring malformed live analytics message: " + e.getMessage());
+            }
+        }
+
+        private synchronized LiveAnalyticsDelta drain() {
+            LiveAnalyticsDelta delta = inbound;
+            inbound = null;
+            return delta;
+        }
+    }
+
+    // Increments for one link in dictionary-id form; labels are resolved once per publish
+    private static final class PendingDelta {
+        private long clicks;
+        private final IntLongMap countries = new IntLongMap();
+        private final long[] devices = new long[DEVICE_TYPES.length];
+
+        private void add(ClickRecord record) {
+            clicks++;
+            Integer countryId = record.getCountryId();
+            if (countryId != null) {
+                countries.add(countryId, 1);
+            }
+            if (record.getDeviceType() != null) {
+                devices[record.getDeviceType().ordinal()]++;
+            }
+        }
+
+        private PendingDelta addAll(PendingDelta other) {
+            clicks += other.clicks;
+            countries.addAll(other.countries);
+            for (int i = 0; i < devices.length; i++) {
+                devices[i] += other.devices[i];
+            }
+            return this;
+        }
+
+        private LiveAnalyticsDelta toMessage(Long urlId, DimensionDictionaryService dictionary) {
+            LiveAnalyticsDelta message = new LiveAnalyticsDelta(urlId);
+            message.setClicks(clicks);
+            List<Integer> countryIds = new ArrayList<>(countries.size());
+            countries.forEach((countryId, count) -> countryIds.add(countryId));
+            Map<Integer, String> labels = dictionary.labelsOf(countryIds);
+            countries.forEach((countryId, count) -> {
+                String label = labels.get(countryId);
+                if (label != null) {
+                    message.getCountries().merge(label, count, Long::sum);
+                }
+            });
+            for (int i = 0; i < devices.length; i++) {
+                if (devices[i] > 0) {
+                    message.getDevices().put(DEVICE_TYPES[i].name(), devices[i]);
+                }
+            }
+            return message;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package UrlShortener.service;
+
+import UrlShortener.model.User;
+import UrlShortener.utils.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Token-bucket limits for the redirect and create endpoints. Local buckets are always checked
+// first; in distributed mode requests that pass locally are also checked against a cluster-wide
+// bucket kept in Redis.
+@Service
+public class RateLimitService {
+
+    public static final long ALLOWED = 0;
+
+    // GCRA in Lua so the read-modify-write happens atomically on the Redis server
+    private static final DefaultRedisScript<Long> GCRA_SCRIPT = new DefaultRedisScript<>(
+            "local interval = tonumber(ARGV[1]) " +
+            "local tolerance = tonumber(ARGV[2]) " +
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) " +
+            "local tat = tonumber(redis.call('GET', KEYS[1])) or now " +
+            "if tat < now then tat = now end " +
+            "local nextTat = tat + interval " +
+            "if nextTat - now > tolerance then " +
+            "  return math.ceil((nextTat - tolerance - now) / 1000000) " +
+            "end " +
+            "redis.call('SET', KEYS[1], string.format('%d', nextTat), 'PX', math.ceil((nextTat - now) / 1000) + 1000) " +
+            "return 0",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.mode:local}")
+    private String mode;
+
+    @Value("${app.rate-limit.redirect.ip-per-second:20}")
+    private double redirectIpPerSecond;
+
+    @Value("${app.rate-limit.redirect.ip-burst:40}")
+    private int redirectIpBurst;
+
+    @Value("${app.rate-limit.redirect.link-per-second:500}")
+    private double redirectLinkPerSecond;
+
+    @Value("${app.rate-limit.redirect.link-burst:1000}")
+    private int redirectLinkBurst;
+
+    @Value("${app.rate-limit.create.ip-per-minute:30}")
+    private int createIpPerMinute;
+
+    @Value("${app.rate-limit.create.free-per-minute:10}")
+    private int createFreePerMinute;
+
+    @Value("${app.rate-limit.create.premium-per-minute:100}")
+    private int createPremiumPerMinute;
+
+    @Value("${app.rate-limit.create.enterprise-per-minute:1000}")
+    private int createEnterprisePerMinute;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Counter rejectedRedirects;
+    private final Counter rejectedCreates;
+    private final Counter redisFailures;
+
+    public RateLimitService(MeterRegistry meterRegistry) {
+        this.rejectedRedirects = Counter.builder("ratelimit.rejected").tag("endpoint", "redirect").register(meterRegistry);
+        this.rejectedCreates = Counter.builder("ratelimit.rejected").tag("endpoint", "create").register(meterRegistry);
+        this.redisFailures = Counter.builder("ratelimit.redis.failures").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns ALLOWED or the number of seconds the client should wait
+    public long checkRedirect(String clientIp, String shortCode) {
+        long wait = acquire("rl:redirect:ip:" + clientIp, redirectIpPerSecond, redirectIpBurst);
+        if (wait == ALLOWED) {
+            wait = acquire("rl:redirect:link:" + shortCode, redirectLinkPerSecond, redirectLinkBurst);
+        }
+        if (wait != ALLOWED) {
+            rejectedRedirects.increment();
+        }
+        return wait;
+    }
+
+    public long checkCreate(String clientIp, String userEmail, User.SubscriptionTier tier) {
+        long wait = acquire("rl:create:ip:" + clientIp, createIpPerMinute / 60.0, createIpPerMinute);
+        if (wait == ALLOWED && userEmail != null) {
+            int perMinute = createPerMinute(tier);
+            wait = acquire("rl:create:user:" + tier + ":" + userEmail, perMinute / 60.0, perMinute);
+        }
+        if (wait != ALLOWED) {
+            rejectedCreates.increment();
+        }
+        return wait;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleBuckets() {
+        buckets.values().removeIf(TokenBucket::isIdle);
+    }
+
+    private long acquire(String key, double permitsPerSecond, int burst) {
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst));
+        if (!bucket.tryAcquire()) {
+            return bucket.retryAfterSeconds();
+        }
+
+        if ("distributed".equalsIgnoreCase(mode)) {
+            return acquireDistributed(key, bucket);
+        }
+        return ALLOWED;
+    }
+
+    private long acquireDistributed(String key, TokenBucket bucket) {
+        try {
+            Long wait = stringRedisTemplate.execute(GCRA_SCRIPT, List.of(key),
+                    Long.toString(bucket.getEmissionIntervalNanos() / 1000),
+                    Long.toString(bucket.getToleranceNanos() / 1000));
+            return wait != null && wait > 0 ? wait : ALLOWED;
+        } catch (Exception e) {
+            // Fail open on the cluster-wide check; the local bucket already passed
+            redisFailures.increment();
+            return ALLOWED;
+        }
+    }
+
+    private int createPerMinute(User.SubscriptionTier tier) {
+        if (tier == null) {
+            return createFreePerMinute;
+        }
+        switch (tier) {
+            case PREMIUM:
+                return createPremiumPerMinute;
+            case ENTERPRISE:
+                return createEnterprisePerMinute;
+            default:
+                return createFreePerMinute;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package UrlShortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Multi-key Redis access: MGET, pipelined writes and Lua scripts, so N keys cost one round-trip
+// (or one per pipeline flush batch) instead of N. Every call records how many round-trips it saved.
+@Service
+public class RedisBatchService {
+
+    // HINCRBY for every field/delta pair, then refresh the hash TTL, in one atomic call
+    private static final DefaultRedisScript<Long> HASH_INCREMENT_WITH_EXPIRE = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+            "return (#ARGV - 1) / 2",
+            Long.class);
+
+    private static final int MAX_FIELDS_PER_SCRIPT = 500;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${app.redis.pipeline-flush-batch:64}")
+    private int pipelineFlushBatch;
+
+    private final Counter roundTripsSaved;
+    private final AtomicLong savedTotal = new AtomicLong();
+    private final AtomicLong savedPerSecond = new AtomicLong();
+    private long savedAtLastSample;
+
+    public RedisBatchService(MeterRegistry meterRegistry) {
+        this.roundTripsSaved = Counter.builder("redis.roundtrips.saved").register(meterRegistry);
+        Gauge.builder("redis.roundtrips.saved.per_second", savedPerSecond, AtomicLong::get).register(meterRegistry);
+    }
+
+    public List<String> multiGetStrings(List<String> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        recordSaved(keys.size(), 1);
+        return values != null ? values : Collections.nCopies(keys.size(), null);
+    }
+
+    // Pipelined SET ... PX; the connection factory flushes the pipeline every pipelineFlushBatch commands
+    public void setAllStrings(Map<String, String> values, Duration ttl) {
+        setAllStrings(values, key -> ttl);
+    }
+
+    // Per-key TTLs, so callers can jitter expiry across a batch
+    public void setAllStrings(Map<String, String> values, Function<String, Duration> ttlForKey) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                connection.stringCommands().set(entry.getKey().getBytes(StandardCharsets.UTF_8),
+                        entry.getValue().getBytes(StandardCharsets.UTF_8), Expiration.from(ttlForKey.apply(entry.getKey())),
+                        RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+        recordSaved(values.size(), (values.size() + pipelineFlushBatch - 1) / pipelineFlushBatch);
+    }
+
+    public void incrementHashFields(String key, Map<String, Long> deltas, Duration ttl) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(MAX_FIELDS_PER_SCRIPT * 2 + 1);
+        int calls = 0;
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            if (args.isEmpty()) {
+                args.add(Long.toString(ttl.toMillis()));
+            }
+            args.add(entry.getKey());
+            args.add(Long.toString(entry.getValue()));
+            if (args.size() > MAX_FIELDS_PER_SCRIPT * 2) {
+                stringRedisTemplate.execute(HASH_INCREMENT_WITH_EXPIRE, List.of(key), args.toArray());
+                args.clear();
+                calls++;
+            }
+        }
+        if (!args.isEmpty()) {
+            stringRedisTemplate.execute(HASH_INCREMENT_WITH_EXPIRE, List.of(key), args.toArray());
+            calls++;
+        }
+        // One HINCRBY per field plus one PEXPIRE per call, collapsed into the script calls
+        recordSaved(deltas.size() + calls, calls);
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void sampleRate() {
+        long total = savedTotal.get();
+        savedPerSecond.set(total - savedAtLastSample);
+        savedAtLastSample = total;
+    }
+
+    private void recordSaved(int commands, int roundTrips) {
+        int saved = commands - roundTrips;
+        if (saved > 0) {
+            roundTripsSaved.increment(saved);
+            savedTotal.addAndGet(saved);
+        }
+    }
+}
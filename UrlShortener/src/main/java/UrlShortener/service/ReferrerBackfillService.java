@@ -0,0 +1,108 @@
+package UrlShortener.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// One-off migration for clicks recorded before referrers were interned: fills referrer_domain_id from
+// the legacy referrer column, then builds referrer_rollups for past days of links that have no rollup
+// rows for that day. A day that was only partly rolled up when rollups went live keeps its partial
+// counts. Only clicks still in click_events are counted, not archived months.
+@Service
+public class ReferrerBackfillService {
+
+    private static final String SELECT_LEGACY = "SELECT id, referrer FROM click_events "
+            + "WHERE id > ? AND referrer_domain_id IS NULL AND referrer IS NOT NULL ORDER BY id LIMIT ?";
+    private static final String SET_DOMAIN = "UPDATE click_events SET referrer_domain_id = ? WHERE id = ?";
+    private static final String SELECT_URL_IDS = "SELECT id FROM urls WHERE id > ? ORDER BY id LIMIT ?";
+    // Walks the (url_id, clicked_at) index of one link; the unique key of referrer_rollups answers NOT EXISTS
+    private static final String ROLLUP_URL = "INSERT INTO referrer_rollups "
+            + "(url_id, rollup_date, referrer_domain_id, clicks) "
+            + "SELECT e.url_id, DATE(e.clicked_at), COALESCE(e.referrer_domain_id, 0), COUNT(*) "
+            + "FROM click_events e WHERE e.url_id = ? AND e.clicked_at < ? AND NOT EXISTS ("
+            + "SELECT 1 FROM referrer_rollups r WHERE r.url_id = e.url_id AND r.rollup_date = DATE(e.clicked_at)) "
+            + "GROUP BY e.url_id, DATE(e.clicked_at), COALESCE(e.referrer_domain_id, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReferrerService referrerService;
+
+    @Value("${app.referrer.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.referrer.backfill-batch-size:1000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    public void backfill() {
+        internLegacyReferrers();
+        rollUpPastDays();
+    }
+
+    // Keyset pages over the primary key, so each page reads a bounded id range instead of the whole table
+    private void internLegacyReferrers() {
+        long lastId = Long.MIN_VALUE;
+        long updated = 0;
+        try {
+            while (true) {
+                List<Object[]> page = new ArrayList<>(batchSize);
+                jdbcTemplate.query(SELECT_LEGACY, rs -> {
+                    page.add(new Object[]{rs.getLong(1), rs.getString(2)});
+                }, lastId, batchSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> updates = new ArrayList<>(page.size());
+                for (Object[] row : page) {
+                    int domainId = referrerService.domainIdOf((String) row[1]);
+                    if (domainId != ReferrerService.DIRECT_DOMAIN_ID) {
+                        updates.add(new Object[]{domainId, row[0]});
+                    }
+                }
+                jdbcTemplate.batchUpdate(SET_DOMAIN, updates);
+                updated += updates.size();
+                lastId = (Long) page.get(page.size() - 1)[0];
+            }
+            System.out.println("Backfilled referrer_domain_id of " + updated + " clicks");
+        } catch (DataAccessException e) {
+            // Legacy column already dropped or never existed
+            System.err.println("Skipping backfill of referrer: " + e.getMessage());
+        }
+    }
+
+    // Today is left alone: its rollups are being written live
+    private void rollUpPastDays() {
+        Date today = Date.valueOf(LocalDate.now());
+        long lastUrlId = Long.MIN_VALUE;
+        long rows = 0;
+        while (true) {
+            List<Long> urlIds = jdbcTemplate.queryForList(SELECT_URL_IDS, Long.class, lastUrlId, batchSize);
+            if (urlIds.isEmpty()) {
+                break;
+            }
+            for (Long urlId : urlIds) {
+                rows += jdbcTemplate.update(ROLLUP_URL, urlId, today);
+            }
+            lastUrlId = urlIds.get(urlIds.size() - 1);
+        }
+        System.out.println("Backfilled " + rows + " referrer_rollups rows");
+    }
+}
@@ -0,0 +1,126 @@
+package UrlShortener.service;
+
+import UrlShortener.model.ReferrerDomain;
+import UrlShortener.repository.ReferrerDomainRepository;
+import UrlShortener.repository.ReferrerRollupRepository;
+import UrlShortener.utils.ReferrerParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ReferrerService {
+
+    public static final int DIRECT_DOMAIN_ID = 0;
+
+    private static final ReferrerDomain DIRECT_DOMAIN =
+            new ReferrerDomain("(direct)", ReferrerDomain.SourceType.DIRECT);
+
+    @Autowired
+    private ReferrerParser referrerParser;
+
+    @Autowired
+    private ReferrerDomainRepository referrerDomainRepository;
+
+    @Autowired
+    private ReferrerRollupRepository referrerRollupRepository;
+
+    @Autowired
+    private RollupWriter rollupWriter;
+
+    private final TransactionTemplate newTransaction;
+
+    private final int maxCachedDomains;
+
+    private final Map<String, Integer> idsByDomain = new ConcurrentHashMap<>();
+    private final Map<Integer, ReferrerDomain> domainsById = new ConcurrentHashMap<>();
+
+    public ReferrerService(PlatformTransactionManager transactionManager,
+                           @Value("${app.referrer.max-cached-domains:100000}") int maxCachedDomains) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCachedDomains = maxCachedDomains;
+    }
+
+    // Normalizes the referrer, interns its domain and bumps the daily rollup; returns null for direct traffic
+    public Integer recordReferrer(Long urlId, String referrer) {
+        int domainId = domainIdOf(referrer);
+
+        rollupWriter.addReferrerClicks(urlId, LocalDate.now(), domainId, 1);
+
+        return domainId == DIRECT_DOMAIN_ID ? null : domainId;
+    }
+
+    // Interns the referrer's domain without counting a click; DIRECT_DOMAIN_ID for direct traffic
+    public int domainIdOf(String referrer) {
+        ReferrerParser.ParsedReferrer parsed = referrerParser.parse(referrer);
+        return parsed.isDirect() ? DIRECT_DOMAIN_ID : internDomain(parsed);
+    }
+
+    // For callers that aggregate clicks before writing the rollup, such as the journal replayer
+    public void addClicks(Long urlId, LocalDate day, int domainId, long clicks) {
+        rollupWriter.addReferrerClicks(urlId, day, domainId, clicks);
+    }
+
+    public List<Object[]> getClicksByReferrerDomain(Long urlId, LocalDate since) {
+        return referrerRollupRepository.getClicksByReferrerDomain(urlId, since);
+    }
+
+    public ReferrerDomain resolveDomain(int domainId) {
+        if (domainId == DIRECT_DOMAIN_ID) {
+            return DIRECT_DOMAIN;
+        }
+
+        ReferrerDomain cached = domainsById.get(domainId);
+        if (cached != null) {
+            return cached;
+        }
+
+        ReferrerDomain domain = referrerDomainRepository.findById(domainId)
+                .orElseGet(() -> new ReferrerDomain("(unknown)", ReferrerDomain.SourceType.OTHER));
+        if (domain.getId() != null) {
+            cache(domain);
+        }
+        return domain;
+    }
+
+    private int internDomain(ReferrerParser.ParsedReferrer parsed) {
+        Integer cached = idsByDomain.get(parsed.getDomain());
+        if (cached != null) {
+            return cached;
+        }
+
+        ReferrerDomain domain = referrerDomainRepository.findByDomain(parsed.getDomain())
+                .orElseGet(() -> insertDomain(parsed));
+        cache(domain);
+        return domain.getId();
+    }
+
+    private ReferrerDomain insertDomain(ReferrerParser.ParsedReferrer parsed) {
+        try {
+            return newTransaction.execute(status -> referrerDomainRepository.saveAndFlush(
+                    new ReferrerDomain(parsed.getDomain(), parsed.getSourceType())));
+        } catch (DataIntegrityViolationException e) {
+            // Another writer interned the same domain concurrently
+            return referrerDomainRepository.findByDomain(parsed.getDomain())
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private void cache(ReferrerDomain domain) {
+        if (idsByDomain.size() >= maxCachedDomains) {
+            return;
+        }
+        idsByDomain.put(domain.getDomain(), domain.getId());
+        domainsById.put(domain.getId(), domain);
+    }
+}
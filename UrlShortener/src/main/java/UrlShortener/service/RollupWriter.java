@@ -0,0 +1,63 @@
+package UrlShortener.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+// Adds clicks to the daily rollup tables, creating a row on its first click. MySQL takes
+// INSERT ... ON DUPLICATE KEY UPDATE; databases without it (H2 for the local profile) take a standard
+// MERGE on the same unique key. Runs in the caller's transaction, if any.
+@Component
+public class RollupWriter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean merge;
+    private final String referrerUpsert;
+    private final String botUpsert;
+
+    public RollupWriter(DataSource dataSource,
+                        @Value("${app.datasource.upsert-syntax:on-duplicate-key}") String upsertSyntax) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.merge = switch (upsertSyntax) {
+            case "on-duplicate-key" -> false;
+            case "merge" -> true;
+            default -> throw new IllegalArgumentException("Unknown app.datasource.upsert-syntax '" + upsertSyntax
+                    + "', expected on-duplicate-key or merge");
+        };
+        this.referrerUpsert = upsert("referrer_rollups", "referrer_domain_id", merge);
+        this.botUpsert = upsert("bot_click_rollups", "category", merge);
+    }
+
+    public void addReferrerClicks(long urlId, LocalDate day, int domainId, long clicks) {
+        update(referrerUpsert, urlId, day, domainId, clicks);
+    }
+
+    public void addBotClicks(long urlId, LocalDate day, String category, long clicks) {
+        update(botUpsert, urlId, day, category, clicks);
+    }
+
+    private void update(String sql, long urlId, LocalDate day, Object dimension, long clicks) {
+        if (merge) {
+            jdbcTemplate.update(sql, urlId, day, dimension, clicks);
+        } else {
+            jdbcTemplate.update(sql, urlId, day, dimension, clicks, clicks);
+        }
+    }
+
+    private static String upsert(String table, String dimensionColumn, boolean merge) {
+        String columns = "url_id, rollup_date, " + dimensionColumn + ", clicks";
+        if (!merge) {
+            return "INSERT INTO " + table + " (" + columns + ") VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE clicks = clicks + ?";
+        }
+        return "MERGE INTO " + table + " t USING (VALUES (?, ?, ?, ?)) s (" + columns + ") "
+                + "ON t.url_id = s.url_id AND t.rollup_date = s.rollup_date AND t." + dimensionColumn
+                + " = s." + dimensionColumn + " "
+                + "WHEN MATCHED THEN UPDATE SET clicks = t.clicks + s.clicks "
+                + "WHEN NOT MATCHED THEN INSERT (" + columns + ") "
+                + "VALUES (s.url_id, s.rollup_date, s." + dimensionColumn + ", s.clicks)";
+    }
+}
@@ -0,0 +1,171 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory Bloom filter of every issued short code, so probes for unknown codes
+// can be answered without touching the cache or the database.
+@Service
+public class ShortCodeFilterService {
+
+    private static final String CREATED_CHANNEL = "short-codes:created";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${app.short-code-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.short-code-filter.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${app.short-code-filter.min-capacity:100000}")
+    private long minCapacity;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Counter definiteMisses;
+    private final Counter possibleHits;
+    private final Counter falsePositives;
+    private final AtomicLong entries = new AtomicLong();
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+
+    public ShortCodeFilterService(DataSource dataSource, MeterRegistry meterRegistry,
+                                  @Value("${app.short-code-filter.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+
+        this.definiteMisses = Counter.builder("shortcode.filter.checks")
+                .tag("result", "definite_miss").register(meterRegistry);
+        this.possibleHits = Counter.builder("shortcode.filter.checks")
+                .tag("result", "possible_hit").register(meterRegistry);
+        this.falsePositives = Counter.builder("shortcode.filter.false_positives").register(meterRegistry);
+        Gauge.builder("shortcode.filter.entries", entries, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        // Codes minted on other nodes reach this node's filter through Redis pub/sub
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> add(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CREATED_CHANNEL));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.short-code-filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${app.short-code-filter.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // False only when the code was certainly never issued; true until the first build completes
+    public boolean mightExist(String shortCode) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return true;
+        }
+
+        if (current.mightContain(shortCode)) {
+            possibleHits.increment();
+            return true;
+        }
+
+        definiteMisses.increment();
+        return false;
+    }
+
+    public void recordFalsePositive() {
+        if (filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    public void register(String shortCode) {
+        add(shortCode);
+        try {
+            stringRedisTemplate.convertAndSend(CREATED_CHANNEL, shortCode);
+        } catch (Exception e) {
+            // Other nodes pick the code up on their next rebuild
+            System.err.println("Failed to broadcast short code " + shortCode + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void rebuild() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        // Full-table scan; keep it off the pools that serve requests
+        Workload previous = Workload.INGEST.enter();
+        try {
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM urls", Long.class);
+            long rows = count != null ? count : 0;
+            BloomFilter next = BloomFilter.create(Math.max(rows * 2, minCapacity), falsePositiveRate);
+
+            building = next;
+            AtomicLong loaded = new AtomicLong();
+            jdbcTemplate.query("SELECT short_code FROM urls", rs -> {
+                next.put(rs.getString(1));
+                loaded.incrementAndGet();
+            });
+
+            filter = next;
+            building = null;
+
+            // Catch codes whose transactions committed while the scan was running
+            jdbcTemplate.query("SELECT short_code FROM urls WHERE created_at >= ?",
+                    rs -> { next.put(rs.getString(1)); },
+                    Timestamp.valueOf(startedAt.minusMinutes(1)));
+
+            entries.set(loaded.get());
+            System.out.println("Short code filter rebuilt with " + loaded.get() + " codes");
+        } catch (Exception e) {
+            building = null;
+            System.err.println("Failed to rebuild short code filter: " + e.getMessage());
+        } finally {
+            Workload.restore(previous);
+        }
+    }
+
+    private void add(String shortCode) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(shortCode);
+            entries.incrementAndGet();
+        }
+        BloomFilter pending = building;
+        if (pending != null) {
+            pending.put(shortCode);
+        }
+    }
+}
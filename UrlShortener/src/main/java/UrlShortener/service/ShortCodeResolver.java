@@ -0,0 +1,378 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.dto.response.ResolvedUrl;
+import UrlShortener.exception.ResourceNotFoundException;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.utils.JitteredTtl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Redirect lookups: a per-node near cache in front of Redis in front of MySQL. Only the compact
+// ResolvedUrl is cached, not the Url entity, so the near cache can hold the whole hot set.
+// Misses are single-flight: concurrent requests for one code share a single load. Entries past
+// their refresh point are served stale while one background load replaces them, and every TTL
+// is jittered so a batch of entries written together does not expire together.
+@Service
+public class ShortCodeResolver {
+
+    public static final String KEY_PREFIX = "resolve:";
+
+    private static final String EVICTED_CHANNEL = "short-codes:evicted";
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisBatchService redisBatchService;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${app.resolver.near-cache.max-size:100000}")
+    private int nearCacheMaxSize;
+
+    @Value("${app.resolver.near-cache.ttl-seconds:60}")
+    private long nearCacheTtlSeconds;
+
+    @Value("${app.resolver.redis-ttl-seconds:3600}")
+    private long redisTtlSeconds;
+
+    @Value("${app.resolver.ttl-jitter:0.1}")
+    private double ttlJitter;
+
+    // Fraction of an entry's TTL after which it is refreshed in the background
+    @Value("${app.resolver.refresh-ahead:0.8}")
+    private double refreshAhead;
+
+    // How long a coalesced request waits on another request's load before loading itself
+    @Value("${app.resolver.load-timeout-ms:2000}")
+    private long loadTimeoutMs;
+
+    private final Map<String, NearEntry> nearCache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<ResolvedUrl>> loads = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor refreshExecutor;
+
+    private final Counter nearHits;
+    private final Counter redisHits;
+    private final Counter databaseLoads;
+    private final Counter coalesced;
+    private final Counter refreshes;
+    private final Counter staleServed;
+
+    public ShortCodeResolver(MeterRegistry meterRegistry,
+                             @Value("${app.resolver.refresh-threads:2}") int refreshThreads) {
+        // A full queue drops the refresh; the stale entry keeps serving until its hard expiry
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), r -> {
+                    Thread thread = new Thread(r, "resolver-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.nearHits = Counter.builder("resolver.lookups").tag("source", "near").register(meterRegistry);
+        this.redisHits = Counter.builder("resolver.lookups").tag("source", "redis").register(meterRegistry);
+        this.databaseLoads = Counter.builder("resolver.lookups").tag("source", "database").register(meterRegistry);
+        this.coalesced = Counter.builder("resolver.loads.coalesced").register(meterRegistry);
+        this.refreshes = Counter.builder("resolver.refreshes").register(meterRegistry);
+        this.staleServed = Counter.builder("resolver.stale_served").register(meterRegistry);
+        Gauge.builder("resolver.near_cache.size", nearCache, Map::size).register(meterRegistry);
+        Gauge.builder("resolver.loads.in_flight", loads, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        // Deactivations on other nodes drop the entry from this node's near cache too
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> nearCache.remove(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(EVICTED_CHANNEL));
+    }
+
+    public ResolvedUrl resolve(String shortCode) {
+        long now = System.nanoTime();
+        NearEntry entry = nearCache.get(shortCode);
+        if (entry != null && entry.expiresAt - now > 0) {
+            nearHits.increment();
+            if (entry.refreshAt - now <= 0) {
+                refreshAsync(shortCode, entry.value);
+            }
+            return entry.value;
+        }
+
+        CompletableFuture<ResolvedUrl> load = new CompletableFuture<>();
+        CompletableFuture<ResolvedUrl> inFlight = loads.putIfAbsent(shortCode, load);
+        if (inFlight != null) {
+            coalesced.increment();
+            return await(shortCode, inFlight);
+        }
+        return runLoad(shortCode, load);
+    }
+
+    // Loads a batch into both tiers: one MGET, one IN query for the misses, one pipelined write back
+    public int warm(List<String> shortCodes) {
+        List<String> keys = new ArrayList<>(shortCodes.size());
+        for (String shortCode : shortCodes) {
+            keys.add(KEY_PREFIX + shortCode);
+        }
+
+        // Copies already due for refresh are still good enough to start with
+        List<String> cached = redisBatchService.multiGetStrings(keys);
+        List<String> missing = new ArrayList<>();
+        int warmed = 0;
+        for (int i = 0; i < shortCodes.size(); i++) {
+            CachedUrl copy = CachedUrl.decode(shortCodes.get(i), cached.get(i));
+            if (copy != null) {
+                putNear(copy.value);
+                warmed++;
+            } else {
+                missing.add(shortCodes.get(i));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<String, String> writes = new HashMap<>();
+            Map<String, Duration> ttls = new HashMap<>();
+            for (ResolvedUrl resolved : urlRepository.findResolvedByShortCodes(missing)) {
+                String key = KEY_PREFIX + resolved.getShortCode();
+                long ttlMillis = JitteredTtl.millis(TimeUnit.SECONDS.toMillis(redisTtlSeconds), ttlJitter);
+                writes.put(key, CachedUrl.encode(resolved, refreshAfter(ttlMillis)));
+                ttls.put(key, Duration.ofMillis(ttlMillis));
+                putNear(resolved);
+                warmed++;
+            }
+            redisBatchService.setAllStrings(writes, ttls::get);
+        }
+        return warmed;
+    }
+
+    // Inside a transaction the evict runs after commit; evicting earlier lets a concurrent miss reload and
+    // re-cache the row as it was before the change, for the full TTL
+    public void evict(String shortCode) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(shortCode);
+                }
+            });
+        } else {
+            evictNow(shortCode);
+        }
+    }
+
+    private void evictNow(String shortCode) {
+        nearCache.remove(shortCode);
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + shortCode);
+            stringRedisTemplate.convertAndSend(EVICTED_CHANNEL, shortCode);
+        } catch (Exception e) {
+            // Other nodes' near caches still expire the entry within the near-cache TTL
+            System.err.println("Failed to evict short code " + shortCode + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelay = 30000)
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        nearCache.values().removeIf(entry -> entry.expiresAt - now <= 0);
+    }
+
+    private ResolvedUrl runLoad(String shortCode, CompletableFuture<ResolvedUrl> load) {
+        try {
+            ResolvedUrl resolved = load(shortCode);
+            load.complete(resolved);
+            return resolved;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(shortCode, load);
+        }
+    }
+
+    private ResolvedUrl await(String shortCode, CompletableFuture<ResolvedUrl> inFlight) {
+        try {
+            return inFlight.get(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // The leading load is stuck; don't pile more requests up behind it
+            return load(shortCode);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while resolving " + shortCode, e);
+        }
+    }
+
+    private void refreshAsync(String shortCode, ResolvedUrl stale) {
+        CompletableFuture<ResolvedUrl> load = new CompletableFuture<>();
+        if (loads.putIfAbsent(shortCode, load) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                Workload previous = Workload.REDIRECT.enter();
+                try {
+                    runLoad(shortCode, load);
+                    refreshes.increment();
+                } catch (ResourceNotFoundException e) {
+                    nearCache.remove(shortCode);
+                } catch (Exception e) {
+                    System.err.println("Background refresh failed for " + shortCode + ": " + e.getMessage());
+                } finally {
+                    Workload.restore(previous);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Anyone who joined this load in the meantime gets the value the near cache already had
+            loads.remove(shortCode, load);
+            load.complete(stale);
+        }
+    }
+
+    // Redis first; the database only when Redis has no copy or its copy is due for refresh
+    private ResolvedUrl load(String shortCode) {
+        CachedUrl copy = null;
+        try {
+            copy = CachedUrl.decode(shortCode, stringRedisTemplate.opsForValue().get(KEY_PREFIX + shortCode));
+        } catch (Exception e) {
+            // Redis down: serve from the database rather than fail the redirect
+            System.err.println("Redis lookup failed for " + shortCode + ": " + e.getMessage());
+        }
+        if (copy != null && copy.refreshAfter > System.currentTimeMillis()) {
+            redisHits.increment();
+            putNear(copy.value);
+            return copy.value;
+        }
+
+        Optional<ResolvedUrl> loaded;
+        try {
+            loaded = urlRepository.findResolvedByShortCode(shortCode);
+        } catch (RuntimeException e) {
+            if (copy == null) {
+                throw e;
+            }
+            // Stale-if-error: an hour-old target beats a failed redirect
+            staleServed.increment();
+            putNear(copy.value);
+            return copy.value;
+        }
+        ResolvedUrl resolved = loaded.orElseThrow(() -> new ResourceNotFoundException("URL not found: " + shortCode));
+        databaseLoads.increment();
+
+        long ttlMillis = JitteredTtl.millis(TimeUnit.SECONDS.toMillis(redisTtlSeconds), ttlJitter);
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + shortCode,
+                    CachedUrl.encode(resolved, refreshAfter(ttlMillis)), Duration.ofMillis(ttlMillis));
+        } catch (Exception e) {
+            System.err.println("Redis write failed for " + shortCode + ": " + e.getMessage());
+        }
+        putNear(resolved);
+        return resolved;
+    }
+
+    private long refreshAfter(long ttlMillis) {
+        return System.currentTimeMillis() + (long) (ttlMillis * refreshAhead);
+    }
+
+    private void putNear(ResolvedUrl resolved) {
+        if (nearCache.size() >= nearCacheMaxSize) {
+            purgeExpired();
+        }
+        if (nearCache.size() >= nearCacheMaxSize) {
+            // Still full: drop an arbitrary tenth rather than track recency on every hit
+            Iterator<String> iterator = nearCache.keySet().iterator();
+            for (int i = Math.max(1, nearCacheMaxSize / 10); i > 0 && iterator.hasNext(); i--) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        long now = System.nanoTime();
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(
+                JitteredTtl.millis(TimeUnit.SECONDS.toMillis(nearCacheTtlSeconds), ttlJitter));
+        nearCache.put(resolved.getShortCode(),
+                new NearEntry(resolved, now + (long) (ttlNanos * refreshAhead), now + ttlNanos));
+    }
+
+    private static final class NearEntry {
+        private final ResolvedUrl value;
+        private final long refreshAt;
+        private final long expiresAt;
+
+        private NearEntry(ResolvedUrl value, long refreshAt, long expiresAt) {
+            this.value = value;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Redis value: "refreshAfterEpochMillis|" followed by ResolvedUrl.encode()
+    private static final class CachedUrl {
+        private final ResolvedUrl value;
+        private final long refreshAfter;
+
+        private CachedUrl(ResolvedUrl value, long refreshAfter) {
+            this.value = value;
+            this.refreshAfter = refreshAfter;
+        }
+
+        private static String encode(ResolvedUrl resolved, long refreshAfter) {
+            return refreshAfter + "|" + resolved.encode();
+        }
+
+        private static CachedUrl decode(String shortCode, String value) {
+            int separator = value != null ? value.indexOf('|') : -1;
+            if (separator <= 0) {
+                return null;
+            }
+            try {
+                long refreshAfter = Long.parseLong(value, 0, separator, 10);
+                ResolvedUrl resolved = ResolvedUrl.decode(shortCode, value.substring(separator + 1));
+                return resolved != null ? new CachedUrl(resolved, refreshAfter) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
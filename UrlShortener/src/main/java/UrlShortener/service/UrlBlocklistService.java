@@ -0,0 +1,160 @@
+package UrlShortener.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Blocked domains and URL fragments, checked on every create. Domains are a hash set matched on each
+// label boundary of the host, so "evil.com" also blocks "a.b.evil.com" at a cost of one lookup per label.
+// The optional file is polled and swapped in atomically when it changes; requests never see a half-loaded list.
+@Service
+public class UrlBlocklistService {
+
+    // File lines starting with this are substrings matched anywhere in the lower-cased URL
+    private static final String CONTAINS_PREFIX = "contains:";
+
+    @Value("${app.blocklist.domains:}")
+    private String configuredDomains;
+
+    // One entry per line, '#' starts a comment
+    @Value("${app.blocklist.file:}")
+    private String file;
+
+    private volatile Snapshot snapshot = new Snapshot(new HashSet<>(), new String[0]);
+    private volatile long loadedModified = -1;
+
+    private final AtomicInteger entries = new AtomicInteger();
+
+    public UrlBlocklistService(MeterRegistry meterRegistry) {
+        Gauge.builder("url.blocklist.entries", entries, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    public boolean isBlocked(String host, String url) {
+        Snapshot current = snapshot;
+        if (host != null && !current.domains.isEmpty()) {
+            if (current.domains.contains(host)) {
+                return true;
+            }
+            for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+                if (current.domains.contains(host.substring(dot + 1))) {
+                    return true;
+                }
+            }
+        }
+
+        if (url != null && current.fragments.length > 0) {
+            String lower = url.toLowerCase(Locale.ROOT);
+            for (String fragment : current.fragments) {
+                if (lower.contains(fragment)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${app.blocklist.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        if (file.isBlank()) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(Path.of(file)).toMillis() != loadedModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot check blocklist file " + file + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void reload() {
+        Snapshot configured = configuredOnly();
+        Set<String> domains = new HashSet<>(configured.domains);
+        List<String> fragments = new ArrayList<>(List.of(configured.fragments));
+
+        long modified = loadedModified;
+        if (!file.isBlank()) {
+            try {
+                Path path = Path.of(file);
+                modified = Files.getLastModifiedTime(path).toMillis();
+                for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                    int comment = line.indexOf('#');
+                    addEntry(comment >= 0 ? line.substring(0, comment) : line, domains, fragments);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to load blocklist file " + file + ": " + e.getMessage());
+                if (loadedModified >= 0) {
+                    // Keep serving the previous list rather than silently unblocking the file's entries
+                    return;
+                }
+                // Nothing loaded yet: serve the configured entries now, the poller retries the file
+                // since loadedModified stays unset
+                install(configured, -1);
+                return;
+            }
+        }
+
+        install(new Snapshot(domains, fragments.toArray(new String[0])), modified);
+    }
+
+    private Snapshot configuredOnly() {
+        Set<String> domains = new HashSet<>();
+        List<String> fragments = new ArrayList<>();
+        for (String domain : configuredDomains.split(",")) {
+            addEntry(domain, domains, fragments);
+        }
+        return new Snapshot(domains, fragments.toArray(new String[0]));
+    }
+
+    private void install(Snapshot loaded, long modified) {
+        snapshot = loaded;
+        loadedModified = modified;
+        entries.set(loaded.domains.size() + loaded.fragments.length);
+        System.out.println("Loaded URL blocklist: " + loaded.domains.size() + " domains, "
+                + loaded.fragments.length + " patterns");
+    }
+
+    private void addEntry(String raw, Set<String> domains, List<String> fragments) {
+        String entry = raw.trim().toLowerCase(Locale.ROOT);
+        if (entry.isEmpty()) {
+            return;
+        }
+        if (entry.startsWith(CONTAINS_PREFIX)) {
+            String fragment = entry.substring(CONTAINS_PREFIX.length()).trim();
+            if (!fragment.isEmpty()) {
+                fragments.add(fragment);
+            }
+        } else {
+            domains.add(entry.startsWith("*.") ? entry.substring(2) : entry);
+        }
+    }
+
+    private static final class Snapshot {
+        private final Set<String> domains;
+        private final String[] fragments;
+
+        private Snapshot(Set<String> domains, String[] fragments) {
+            this.domains = domains;
+            this.fragments = fragments;
+        }
+    }
+}
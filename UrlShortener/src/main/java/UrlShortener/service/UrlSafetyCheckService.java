@@ -0,0 +1,223 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.utils.DnsHostResolver;
+import UrlShortener.utils.HostNotFoundException;
+import UrlShortener.utils.HostResolver;
+import UrlShortener.utils.StaticHostResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Deep checks that are too slow for the create call: resolve the target host and deactivate the link
+// if it does not resolve or points into a private network. Runs on a small bounded pool after the
+// create transaction commits; when the queue is full the check is skipped, never the create.
+// A lookup failure is retried with growing delays: only a host answered as NXDOMAIN on every one of
+// not-found-attempts tries is deactivated, and one that merely keeps timing out is left active.
+@Service
+public class UrlSafetyCheckService {
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private UrlBlocklistService urlBlocklistService;
+
+    @Autowired
+    private ShortCodeResolver shortCodeResolver;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Value("${app.url-safety.enabled:true}")
+    private boolean enabled;
+
+    // "dns" for the JVM resolver, "static" for the in-process stand-in below
+    @Value("${app.url-safety.resolver:dns}")
+    private String resolverType;
+
+    @Value("${app.url-safety.static-hosts:}")
+    private String staticHosts;
+
+    @Value("${app.url-safety.static-fallback:}")
+    private String staticFallback;
+
+    // NXDOMAIN answers needed before a link is deactivated; new domains can take a while to propagate
+    @Value("${app.url-safety.not-found-attempts:3}")
+    private int notFoundAttempts;
+
+    // Lookups in total, including ones that failed without an answer
+    @Value("${app.url-safety.max-attempts:6}")
+    private int maxAttempts;
+
+    // Delay before the first retry, doubled for each further one
+    @Value("${app.url-safety.retry-delay-ms:60000}")
+    private long retryDelayMs;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    // Retries are held in memory only; a check still waiting for one is dropped on restart
+    private final ScheduledThreadPoolExecutor retryScheduler;
+
+    private final Counter passed;
+    private final Counter deactivated;
+    private final Counter failed;
+    private final Counter skipped;
+    private final Counter retried;
+
+    private HostResolver hostResolver;
+
+    public UrlSafetyCheckService(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                 @Value("${app.url-safety.threads:2}") int threads,
+                                 @Value("${app.url-safety.queue-size:1000}") int queueSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread thread = new Thread(r, "url-safety-check");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.retryScheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "url-safety-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.passed = Counter.builder("url.safety.checks").tag("result", "passed").register(meterRegistry);
+        this.deactivated = Counter.builder("url.safety.checks").tag("result", "deactivated").register(meterRegistry);
+        this.failed = Counter.builder("url.safety.checks").tag("result", "error").register(meterRegistry);
+        this.skipped = Counter.builder("url.safety.checks").tag("result", "skipped").register(meterRegistry);
+        this.retried = Counter.builder("url.safety.checks").tag("result", "retried").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() throws UnknownHostException {
+        hostResolver = "static".equalsIgnoreCase(resolverType)
+                ? new StaticHostResolver(staticHosts, staticFallback)
+                : new DnsHostResolver();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // Queues the check for after the surrounding transaction commits, so it always sees the saved row
+    public void scheduleCheck(Long urlId, String shortCode, String host, String originalUrl) {
+        if (!enabled || host == null) {
+            return;
+        }
+        Runnable submit = () -> submit(urlId, shortCode, host, originalUrl, 1, 0);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    private void submit(Long urlId, String shortCode, String host, String originalUrl, int attempt, int notFound) {
+        try {
+            executor.execute(() -> check(urlId, shortCode, host, originalUrl, attempt, notFound));
+        } catch (RejectedExecutionException e) {
+            skipped.increment();
+        }
+    }
+
+    private void check(Long urlId, String shortCode, String host, String originalUrl, int attempt, int notFound) {
+        try {
+            String reason = findProblem(host, originalUrl);
+            if (reason == null) {
+                passed.increment();
+                return;
+            }
+            deactivate(urlId, shortCode, reason);
+            deactivated.increment();
+        } catch (UnknownHostException e) {
+            int notFoundSoFar = e instanceof HostNotFoundException ? notFound + 1 : notFound;
+            if (notFoundSoFar >= notFoundAttempts) {
+                deactivate(urlId, shortCode, "host does not resolve");
+                deactivated.increment();
+            } else if (attempt < maxAttempts) {
+                retry(urlId, shortCode, host, originalUrl, attempt, notFoundSoFar);
+            } else {
+                failed.increment();
+                System.err.println("URL safety check gave up on " + shortCode + " after " + attempt
+                        + " lookups of " + host + "; the link stays active");
+            }
+        } catch (Exception e) {
+            failed.increment();
+            System.err.println("URL safety check failed for " + shortCode + ": " + e.getMessage());
+        }
+    }
+
+    private void retry(Long urlId, String shortCode, String host, String originalUrl, int attempt, int notFound) {
+        long delay = retryDelayMs << Math.min(attempt - 1, 16);
+        try {
+            retryScheduler.schedule(() -> submit(urlId, shortCode, host, originalUrl, attempt + 1, notFound),
+                    delay, TimeUnit.MILLISECONDS);
+            retried.increment();
+        } catch (RejectedExecutionException e) {
+            skipped.increment();
+        }
+    }
+
+    // Null when the URL looks fine, otherwise why it is being deactivated. A host that does not resolve
+    // is reported by the exception, and decided on by the caller across attempts.
+    private String findProblem(String host, String originalUrl) throws UnknownHostException {
+        // The blocklist may have been reloaded since the create call
+        if (urlBlocklistService.isBlocked(host, originalUrl)) {
+            return "blocked";
+        }
+
+        String name = host.startsWith("[") ? host.substring(1, host.length() - 1) : host;
+        InetAddress[] addresses = hostResolver.resolve(name);
+        for (InetAddress address : addresses) {
+            if (address.isLoopbackAddress() || address.isSiteLocalAddress() || address.isLinkLocalAddress()
+                    || address.isAnyLocalAddress() || address.isMulticastAddress()) {
+                return "host resolves to non-public address " + address.getHostAddress();
+            }
+        }
+        return null;
+    }
+
+    private void deactivate(Long urlId, String shortCode, String reason) {
+        Workload previous = Workload.OLTP.enter();
+        try {
+            transactionTemplate.executeWithoutResult(status -> urlRepository.deactivate(urlId));
+        } finally {
+            Workload.restore(previous);
+        }
+
+        Cache urls = cacheManager.getCache("urls");
+        if (urls != null) {
+            urls.evict(shortCode);
+        }
+        shortCodeResolver.evict(shortCode);
+        System.out.println("Deactivated " + shortCode + " after safety check: " + reason);
+    }
+}
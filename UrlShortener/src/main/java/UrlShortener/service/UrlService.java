@@ -8,6 +8,7 @@ import UrlShortener.model.Url;
 import UrlShortener.model.User;
 import UrlShortener.repository.UrlRepository;
 import UrlShortener.utils.ShortCodeGenerator;
+import UrlShortener.utils.UrlFingerprint;
 import UrlShortener.utils.UrlValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,7 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service
 @Transactional
@@ -35,12 +36,49 @@ public class UrlService {
     @Autowired
     private UrlValidator urlValidator;
 
+    @Autowired
+    private ShortCodeFilterService shortCodeFilterService;
+
+    @Autowired
+    private ShortCodeResolver shortCodeResolver;
+
+    @Autowired
+    private UrlBlocklistService urlBlocklistService;
+
+    @Autowired
+    private UrlSafetyCheckService urlSafetyCheckService;
+
+    @Autowired
+    private DuplicateUrlService duplicateUrlService;
+
     @Value("${app.base-url}")
     private String baseUrl;
 
+    @Value("${app.dedup.reuse-by-default:false}")
+    private boolean reuseByDefault;
+
+    @Value("${app.redirect.default-type:FOUND}")
+    private Url.RedirectType defaultRedirectType;
+
     public UrlResponse createShortUrl(CreateUrlRequest request, User user) {
-        if (!urlValidator.isValid(request.getOriginalUrl())) {
-            throw new ValidationException("Invalid URL format or blocked URL");
+        String host = urlValidator.extractHost(request.getOriginalUrl());
+        if (host == null) {
+            throw new ValidationException("Invalid URL format");
+        }
+        String originalUrl = urlValidator.withScheme(request.getOriginalUrl());
+        if (urlBlocklistService.isBlocked(host, originalUrl)) {
+            throw new ValidationException("This URL is blocked");
+        }
+
+        // Idempotent create: hand back the user's existing link instead of minting a duplicate
+        byte[] urlHash = UrlFingerprint.of(originalUrl);
+        Url.RedirectType redirectType = request.getRedirectType() != null ? request.getRedirectType() : defaultRedirectType;
+        boolean reuse = request.getReuseExisting() != null ? request.getReuseExisting() : reuseByDefault;
+        if (reuse) {
+            Optional<Url> existing = duplicateUrlService.findExisting(user, urlHash, request.getExpiresAt(), redirectType);
+            if (existing.isPresent()) {
+                return new UrlResponse(existing.get(), baseUrl);
+            }
         }
 
         checkSubscriptionLimits(user);
@@ -48,26 +86,31 @@ public class UrlService {
 
         Url url = new Url();
         url.setShortCode(shortCode);
-        url.setOriginalUrl(request.getOriginalUrl());
+        url.setOriginalUrl(originalUrl);
+        url.setUrlHash(urlHash);
         url.setTitle(request.getTitle());
         url.setDescription(request.getDescription());
         url.setExpiresAt(request.getExpiresAt());
+        url.setRedirectType(redirectType);
         url.setUser(user);
         url.setIsActive(true);
         url.setClickCount(0L);
 
         Url savedUrl = urlRepository.save(url);
+        shortCodeFilterService.register(shortCode);
+        duplicateUrlService.register(user.getId(), urlHash);
+        urlSafetyCheckService.scheduleCheck(savedUrl.getId(), shortCode, host, savedUrl.getOriginalUrl());
         return new UrlResponse(savedUrl, baseUrl);
     }
 
+    @Transactional(readOnly = true)
     public Page<UrlResponse> getUserUrls(User user, Pageable pageable) {
-        Page<Url> urls = urlRepository.findByUserAndIsActiveOrderByCreatedAtDesc(user, true, pageable);
-        return urls.map(url -> new UrlResponse(url, baseUrl));
+        return urlRepository.findActiveUrlSummaries(user, pageable).map(this::withShortUrl);
     }
 
+    @Transactional(readOnly = true)
     public Page<UrlResponse> searchUserUrls(User user, String searchTerm, Pageable pageable) {
-        Page<Url> urls = urlRepository.findByUserAndSearchTerm(user, searchTerm, pageable);
-        return urls.map(url -> new UrlResponse(url, baseUrl));
+        return urlRepository.searchActiveUrlSummaries(user, searchTerm, pageable).map(this::withShortUrl);
     }
 
     @CacheEvict(value = "urls", key = "#shortCode")
@@ -80,25 +123,48 @@ public class UrlService {
 
         url.setIsActive(false);
         urlRepository.save(url);
+        shortCodeResolver.evict(shortCode);
+    }
+
+    @CacheEvict(value = "urls", key = "#shortCode")
+    public UrlResponse updateRedirectType(String shortCode, Url.RedirectType redirectType, User user) {
+        if (redirectType == null) {
+            throw new ValidationException("Redirect type is required");
+        }
+        Url url = urlRepository.findByShortCode(shortCode)
+                .orElseThrow(() -> new ResourceNotFoundException("URL not found: " + shortCode));
+
+        if (!url.getUser().getId().equals(user.getId())) {
+            throw new ValidationException("You don't have permission to update this URL");
+        }
+
+        url.setRedirectType(redirectType);
+        Url savedUrl = urlRepository.save(url);
+        shortCodeResolver.evict(shortCode);
+        return new UrlResponse(savedUrl, baseUrl);
     }
 
+    @Transactional(readOnly = true)
     public List<UrlResponse> getTopUrls(User user, int limit) {
-        List<Url> topUrls = urlRepository.findTopUrlsByUser(user, Pageable.ofSize(limit));
-        return topUrls.stream()
-                .map(url -> new UrlResponse(url, baseUrl))
-                .collect(Collectors.toList());
+        List<UrlResponse> topUrls = urlRepository.findTopUrlSummaries(user, Pageable.ofSize(limit));
+        topUrls.forEach(this::withShortUrl);
+        return topUrls;
     }
 
+    @Transactional(readOnly = true)
     public Long getTotalClicksByUser(User user) {
         Long totalClicks = urlRepository.getTotalClicksByUser(user);
         return totalClicks != null ? totalClicks : 0L;
     }
 
+    @Transactional(readOnly = true)
     public long getUrlCountByUser(User user) {
         return urlRepository.countActiveUrlsByUser(user);
     }
 
-    @Cacheable(value = "urls", key = "#shortCode")
+    @Transactional(readOnly = true)
+    // sync: concurrent misses on one node wait for a single load instead of each querying
+    @Cacheable(value = "urls", key = "#shortCode", sync = true)
     public Url findByShortCode(String shortCode) {
         Url url = urlRepository.findByShortCode(shortCode)
                 .orElseThrow(() -> new ResourceNotFoundException("URL not found: " + shortCode));
@@ -111,11 +177,9 @@ public class UrlService {
         return url;
     }
 
-    @Transactional
-    @CacheEvict(value = "urls", key = "#url.shortCode")
-    public void incrementClickCount(Url url) {
-        url.incrementClickCount();
-        urlRepository.save(url);
+    private UrlResponse withShortUrl(UrlResponse response) {
+        response.setShortUrl(baseUrl + "/" + response.getShortCode());
+        return response;
     }
 
     private String generateUniqueShortCode() {
@@ -6,11 +6,11 @@ import UrlShortener.exception.ResourceNotFoundException;
 import UrlShortener.exception.ValidationException;
 import UrlShortener.model.User;
 import UrlShortener.repository.UserRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 import java.util.Optional;
@@ -79,10 +79,12 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
 
+    @Transactional(readOnly = true)
     public long getTotalUsers() {
         return userRepository.count();
     }
 
+    @Transactional(readOnly = true)
     public long getActiveUsers() {
         return userRepository.countActiveUsers();
     }
@@ -0,0 +1,50 @@
+package UrlShortener.service;
+
+import UrlShortener.config.Workload;
+import UrlShortener.utils.Bulkhead;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// One concurrency bulkhead per workload class, sized a little above its connection pool so
+// callers served from cache are not turned away, but a backlog never forms behind the pool.
+@Service
+public class WorkloadBulkheads {
+
+    private final Map<Workload, Bulkhead> bulkheads = new EnumMap<>(Workload.class);
+
+    public WorkloadBulkheads(MeterRegistry meterRegistry,
+                             @Value("${app.bulkhead.redirect.max-concurrent:150}") int redirectLimit,
+                             @Value("${app.bulkhead.redirect.max-wait-ms:0}") long redirectWait,
+                             @Value("${app.bulkhead.oltp.max-concurrent:40}") int oltpLimit,
+                             @Value("${app.bulkhead.oltp.max-wait-ms:50}") long oltpWait,
+                             @Value("${app.bulkhead.ingest.max-concurrent:32}") int ingestLimit,
+                             @Value("${app.bulkhead.ingest.max-wait-ms:0}") long ingestWait,
+                             @Value("${app.bulkhead.analytics.max-concurrent:8}") int analyticsLimit,
+                             @Value("${app.bulkhead.analytics.max-wait-ms:0}") long analyticsWait) {
+        bulkheads.put(Workload.REDIRECT, new Bulkhead(redirectLimit, redirectWait));
+        bulkheads.put(Workload.OLTP, new Bulkhead(oltpLimit, oltpWait));
+        bulkheads.put(Workload.INGEST, new Bulkhead(ingestLimit, ingestWait));
+        bulkheads.put(Workload.ANALYTICS, new Bulkhead(analyticsLimit, analyticsWait));
+
+        for (Map.Entry<Workload, Bulkhead> entry : bulkheads.entrySet()) {
+            String workload = entry.getKey().name().toLowerCase();
+            Bulkhead bulkhead = entry.getValue();
+            Gauge.builder("workload.bulkhead.active", bulkhead, Bulkhead::getActive)
+                    .tag("workload", workload).register(meterRegistry);
+            Gauge.builder("workload.bulkhead.saturation", bulkhead, b -> (double) b.getActive() / b.getLimit())
+                    .tag("workload", workload).register(meterRegistry);
+            FunctionCounter.builder("workload.bulkhead.rejected", bulkhead, Bulkhead::getRejected)
+                    .tag("workload", workload).register(meterRegistry);
+        }
+    }
+
+    public Bulkhead get(Workload workload) {
+        return bulkheads.get(workload);
+    }
+}
@@ -0,0 +1,89 @@
+package UrlShortener.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free Bloom filter; concurrent puts and reads are safe, false negatives are impossible.
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        int words = (int) Math.max(1, (bitCount + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = hashCount;
+    }
+
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        m = Math.min(m, (long) Integer.MAX_VALUE << 6);
+        int k = Math.max(1, (int) Math.round((double) m / n * ln2));
+        return new BloomFilter(m, k);
+    }
+
+    public void put(CharSequence value) {
+        long hash = hash(value);
+        put(hash, mix(hash ^ 0x9E3779B97F4A7C15L));
+    }
+
+    public boolean mightContain(CharSequence value) {
+        long hash = hash(value);
+        return mightContain(hash, mix(hash ^ 0x9E3779B97F4A7C15L));
+    }
+
+    public long getBitCount() { return bitCount; }
+    public int getHashCount() { return hashCount; }
+
+    // Kirsch-Mitzenmacher double hashing: index_i = h1 + i * h2
+    private void put(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            setBit((combined & Long.MAX_VALUE) % bitCount);
+            combined += h2;
+        }
+    }
+
+    private boolean mightContain(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    // FNV-1a over UTF-16 code units, finished with a 64-bit avalanche mix
+    private static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,140 @@
+package UrlShortener.utils;
+
+import UrlShortener.model.BotClickRollup.Category;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Decides on the redirect thread whether a hit came from a person or from software.
+// Checks run cheapest first: User-Agent signatures, known crawler IP ranges, then a per-IP click rate.
+@Component
+public class BotClassifier {
+
+    // Matched as lowercase substrings; the first match wins, so specific tokens come before generic ones
+    private static final String[][] SIGNATURES = {
+            {"slackbot", "LINK_PREVIEW"}, {"slack-imgproxy", "LINK_PREVIEW"},
+            {"twitterbot", "LINK_PREVIEW"}, {"facebookexternalhit", "LINK_PREVIEW"},
+            {"facebookcatalog", "LINK_PREVIEW"}, {"linkedinbot", "LINK_PREVIEW"},
+            {"discordbot", "LINK_PREVIEW"}, {"telegrambot", "LINK_PREVIEW"},
+            {"whatsapp", "LINK_PREVIEW"}, {"skypeuripreview", "LINK_PREVIEW"},
+            {"embedly", "LINK_PREVIEW"}, {"pinterestbot", "LINK_PREVIEW"},
+            {"redditbot", "LINK_PREVIEW"}, {"iframely", "LINK_PREVIEW"},
+            {"mastodon", "LINK_PREVIEW"}, {"bluesky", "LINK_PREVIEW"},
+            {"googlebot", "CRAWLER"}, {"bingbot", "CRAWLER"}, {"yandexbot", "CRAWLER"},
+            {"baiduspider", "CRAWLER"}, {"duckduckbot", "CRAWLER"}, {"applebot", "CRAWLER"},
+            {"ahrefsbot", "CRAWLER"}, {"semrushbot", "CRAWLER"}, {"mj12bot", "CRAWLER"},
+            {"petalbot", "CRAWLER"}, {"gptbot", "CRAWLER"}, {"ccbot", "CRAWLER"},
+            {"uptimerobot", "MONITOR"}, {"pingdom", "MONITOR"}, {"statuscake", "MONITOR"},
+            {"site24x7", "MONITOR"}, {"datadog", "MONITOR"}, {"newrelic", "MONITOR"},
+            {"curl/", "AUTOMATION"}, {"wget/", "AUTOMATION"}, {"python-requests", "AUTOMATION"},
+            {"python-urllib", "AUTOMATION"}, {"aiohttp", "AUTOMATION"}, {"httpx", "AUTOMATION"},
+            {"go-http-client", "AUTOMATION"}, {"java/", "AUTOMATION"}, {"java-http-client", "AUTOMATION"},
+            {"okhttp", "AUTOMATION"}, {"apache-httpclient", "AUTOMATION"}, {"axios/", "AUTOMATION"},
+            {"node-fetch", "AUTOMATION"}, {"libwww-perl", "AUTOMATION"}, {"headlesschrome", "AUTOMATION"},
+            {"phantomjs", "AUTOMATION"},
+            {"bot", "CRAWLER"}, {"crawler", "CRAWLER"}, {"spider", "CRAWLER"}, {"preview", "LINK_PREVIEW"}
+    };
+
+    @Value("${app.bots.enabled:true}")
+    private boolean enabled;
+
+    // Comma-separated IPv4 or IPv6 CIDR blocks of known crawler and preview-fetcher networks
+    @Value("${app.bots.ip-ranges:}")
+    private String ipRanges;
+
+    @Value("${app.bots.extra-signatures:}")
+    private String extraSignatures;
+
+    @Value("${app.bots.max-clicks-per-minute:120}")
+    private int maxClicksPerMinute;
+
+    private String[] signatureTokens;
+    private Category[] signatureCategories;
+    private IpRange[] crawlerRanges = new IpRange[0];
+
+    private final Map<String, TokenBucket> clickRates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        List<String> tokens = new ArrayList<>();
+        List<Category> categories = new ArrayList<>();
+        for (String extra : extraSignatures.split(",")) {
+            if (!extra.isBlank()) {
+                tokens.add(extra.trim().toLowerCase(Locale.ROOT));
+                categories.add(Category.CRAWLER);
+            }
+        }
+        for (String[] signature : SIGNATURES) {
+            tokens.add(signature[0]);
+            categories.add(Category.valueOf(signature[1]));
+        }
+        signatureTokens = tokens.toArray(new String[0]);
+        signatureCategories = categories.toArray(new Category[0]);
+
+        List<IpRange> ranges = new ArrayList<>();
+        for (String cidr : ipRanges.split(",")) {
+            if (cidr.isBlank()) {
+                continue;
+            }
+            IpRange range = IpRange.parse(cidr);
+            if (range == null) {
+                System.err.println("Ignoring invalid bot IP range: " + cidr);
+            } else {
+                ranges.add(range);
+            }
+        }
+        crawlerRanges = ranges.toArray(new IpRange[0]);
+    }
+
+    // Returns null for human traffic, otherwise the kind of bot
+    public Category classify(String ipAddress, String userAgent) {
+        if (!enabled) {
+            return null;
+        }
+
+        if (userAgent == null || userAgent.isBlank()) {
+            return Category.AUTOMATION;
+        }
+
+        String agent = userAgent.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < signatureTokens.length; i++) {
+            if (agent.contains(signatureTokens[i])) {
+                return signatureCategories[i];
+            }
+        }
+
+        if (crawlerRanges.length > 0) {
+            IpAddress address = new IpAddress();
+            if (address.parse(ipAddress)) {
+                for (IpRange range : crawlerRanges) {
+                    if (range.contains(address)) {
+                        return Category.CRAWLER;
+                    }
+                }
+            }
+        }
+
+        // People do not follow hundreds of short links a minute from one address
+        if (ipAddress != null && maxClicksPerMinute > 0) {
+            TokenBucket rate = clickRates.computeIfAbsent(ipAddress,
+                    k -> new TokenBucket(maxClicksPerMinute / 60.0, maxClicksPerMinute));
+            if (!rate.tryAcquire()) {
+                return Category.HIGH_RATE;
+            }
+        }
+
+        return null;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleRates() {
+        clickRates.values().removeIf(TokenBucket::isIdle);
+    }
+}
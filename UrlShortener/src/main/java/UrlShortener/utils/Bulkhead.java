@@ -0,0 +1,52 @@
+package UrlShortener.utils;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Caps concurrent work of one kind; callers that cannot get a slot within maxWaitMillis are turned away
+public class Bulkhead {
+
+    private final int limit;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(int limit, long maxWaitMillis) {
+        this.limit = limit;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(limit);
+    }
+
+    public boolean tryEnter() {
+        return tryEnter(maxWaitMillis);
+    }
+
+    // For callers that would rather wait longer than the bulkhead's default than give up the work
+    public boolean tryEnter(long maxWaitMillis) {
+        boolean acquired;
+        if (maxWaitMillis <= 0) {
+            acquired = permits.tryAcquire();
+        } else {
+            try {
+                acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+        }
+
+        if (!acquired) {
+            rejected.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    public int getLimit() { return limit; }
+    public int getActive() { return limit - permits.availablePermits(); }
+    public long getRejected() { return rejected.get(); }
+}
@@ -0,0 +1,435 @@
+package UrlShortener.utils;
+
+import UrlShortener.model.ClickRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+
+// Column-oriented file of archived click events, sorted by (url id, clicked at). Rows are cut into row
+// groups; every column of a group is encoded on its own (see ColumnCodec) and deflated, so a scan only
+// reads and inflates the columns it asks for. Layout:
+//
+//   [int magic][int version]
+//   column chunks, group by group, in Column order
+//   footer: [int groups][long rows][file stats]
+//           per group: [int rows][stats] then per column [long offset][int length][int raw length]
+//   [long footer offset][int magic]
+//
+// Stats are min/max url id and min/max clicked-at millis. Because rows are sorted by url id, a link's
+// clicks sit in one or two groups and the stats skip the rest without reading them.
+public final class ClickArchiveFile implements Closeable {
+
+    private static final int MAGIC = 0x434C4B41;
+    private static final int VERSION = 1;
+    private static final int TRAILER_BYTES = 12;
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long rowCount;
+    private final Stats stats;
+    private final GroupMeta[] groups;
+
+    private ClickArchiveFile(Path path, FileChannel channel, long rowCount, Stats stats, GroupMeta[] groups) {
+        this.path = path;
+        this.channel = channel;
+        this.rowCount = rowCount;
+        this.stats = stats;
+        this.groups = groups;
+    }
+
+    // Reads the footer only; column data is read on demand by scan()
+    public static ClickArchiveFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer head = readFully(channel, 0, 8);
+            if (head.getInt() != MAGIC || head.getInt() != VERSION) {
+                throw new IOException("Not a click archive: " + path);
+            }
+            ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC || footerOffset < 8 || footerOffset > size - TRAILER_BYTES) {
+                throw new IOException("Truncated click archive: " + path);
+            }
+
+            ByteBuffer footer = readFully(channel, footerOffset, (int) (size - TRAILER_BYTES - footerOffset));
+            int groupCount = footer.getInt();
+            long rowCount = footer.getLong();
+            Stats stats = Stats.read(footer);
+            GroupMeta[] groups = new GroupMeta[groupCount];
+            for (int g = 0; g < groupCount; g++) {
+                int rows = footer.getInt();
+                Stats groupStats = Stats.read(footer);
+                long[] offsets = new long[COLUMNS.length];
+                int[] lengths = new int[COLUMNS.length];
+                int[] rawLengths = new int[COLUMNS.length];
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    offsets[c] = footer.getLong();
+                    lengths[c] = footer.getInt();
+                    rawLengths[c] = footer.getInt();
+                }
+                groups[g] = new GroupMeta(rows, groupStats, offsets, lengths, rawLengths);
+            }
+            return new ClickArchiveFile(path, channel, rowCount, stats, groups);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Corrupt click archive: " + path, e);
+        }
+    }
+
+    public static Writer create(Path path, int rowGroupSize) throws IOException {
+        return new Writer(path, rowGroupSize);
+    }
+
+    // File-level pruning: false when no row of the link can fall in [fromMillis, toMillis)
+    public boolean mayContain(long urlId, long fromMillis, long toMillis) {
+        return rowCount > 0 && stats.overlaps(urlId, fromMillis, toMillis);
+    }
+
+    // Hands the visitor every row group that may hold rows of the link in [fromMillis, toMillis), with the
+    // link's rows at [from, to). Only the requested columns are decoded (URL_ID always is); rows outside
+    // the time range are not filtered out, the visitor checks CLICKED_AT itself when it matters.
+    public void scan(long urlId, long fromMillis, long toMillis, Set<Column> columns, RowGroupVisitor visitor)
+            throws IOException {
+        if (!mayContain(urlId, fromMillis, toMillis)) {
+            return;
+        }
+        for (GroupMeta group : groups) {
+            if (!group.stats.overlaps(urlId, fromMillis, toMillis)) {
+                continue;
+            }
+            RowGroup rows = new RowGroup(group.rows);
+            decode(group, Column.URL_ID, rows);
+            long[] urlIds = rows.getLongs(Column.URL_ID);
+            int from = lowerBound(urlIds, group.rows, urlId);
+            int to = lowerBound(urlIds, group.rows, urlId + 1);
+            if (from == to) {
+                continue;
+            }
+            for (Column column : columns) {
+                if (column != Column.URL_ID) {
+                    decode(group, column, rows);
+                }
+            }
+            visitor.visit(rows, from, to);
+        }
+    }
+
+    // Every url id in the file, ascending, read from the URL_ID column alone
+    public long[] distinctUrlIds() throws IOException {
+        long[] distinct = new long[64];
+        int count = 0;
+        for (GroupMeta group : groups) {
+            RowGroup rows = new RowGroup(group.rows);
+            decode(group, Column.URL_ID, rows);
+            long[] urlIds = rows.getLongs(Column.URL_ID);
+            for (int i = 0; i < group.rows; i++) {
+                if (count > 0 && distinct[count - 1] == urlIds[i]) {
+                    continue;
+                }
+                if (count == distinct.length) {
+                    distinct = Arrays.copyOf(distinct, count * 2);
+                }
+                distinct[count++] = urlIds[i];
+            }
+        }
+        return Arrays.copyOf(distinct, count);
+    }
+
+    public Path getPath() { return path; }
+    public long getRowCount() { return rowCount; }
+    public int getRowGroupCount() { return groups.length; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void decode(GroupMeta group, Column column, RowGroup rows) throws IOException {
+        int c = column.ordinal();
+        ByteBuffer compressed = readFully(channel, group.offsets[c], group.lengths[c]);
+        ByteBuffer raw = ColumnCodec.inflate(compressed, group.rawLengths[c]);
+        switch (column.encoding) {
+            case RUNS -> ColumnCodec.decodeRuns(raw, rows.longColumn(column), group.rows);
+            case DELTAS -> ColumnCodec.decodeDeltas(raw, rows.longColumn(column), group.rows);
+            case INT_DICTIONARY -> ColumnCodec.decodeDictionary(raw, rows.intColumn(column), group.rows);
+            case STRING_DICTIONARY -> ColumnCodec.decodeDictionary(raw, rows.stringColumn(column), group.rows);
+        }
+    }
+
+    // Positional reads leave the channel's position alone, so concurrent scans can share one channel
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of click archive");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int lowerBound(long[] sorted, int count, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public enum Column {
+        ID(Encoding.DELTAS),
+        URL_ID(Encoding.RUNS),
+        CLICKED_AT(Encoding.DELTAS),
+        IP_ADDRESS(Encoding.STRING_DICTIONARY),
+        USER_AGENT_ID(Encoding.INT_DICTIONARY),
+        REFERRER_DOMAIN_ID(Encoding.INT_DICTIONARY),
+        COUNTRY_ID(Encoding.INT_DICTIONARY),
+        CITY_ID(Encoding.INT_DICTIONARY),
+        // ClickEvent.DeviceType ordinal + 1, 0 for none
+        DEVICE_TYPE(Encoding.INT_DICTIONARY),
+        BROWSER_ID(Encoding.INT_DICTIONARY),
+        OPERATING_SYSTEM_ID(Encoding.INT_DICTIONARY);
+
+        private final Encoding encoding;
+
+        Column(Encoding encoding) {
+            this.encoding = encoding;
+        }
+    }
+
+    private enum Encoding { RUNS, DELTAS, INT_DICTIONARY, STRING_DICTIONARY }
+
+    public interface RowGroupVisitor {
+        void visit(RowGroup rows, int from, int to) throws IOException;
+    }
+
+    // Decoded columns of one row group; columns that were not requested are null. Dimension ids use 0 for none.
+    public static final class RowGroup {
+        private final int size;
+        private final long[][] longs = new long[COLUMNS.length][];
+        private final int[][] ints = new int[COLUMNS.length][];
+        private final String[][] strings = new String[COLUMNS.length][];
+
+        private RowGroup(int size) {
+            this.size = size;
+        }
+
+        public int size() { return size; }
+        public long[] getLongs(Column column) { return longs[column.ordinal()]; }
+        public int[] getInts(Column column) { return ints[column.ordinal()]; }
+        public String[] getStrings(Column column) { return strings[column.ordinal()]; }
+
+        private long[] longColumn(Column column) {
+            return longs[column.ordinal()] = new long[size];
+        }
+
+        private int[] intColumn(Column column) {
+            return ints[column.ordinal()] = new int[size];
+        }
+
+        private String[] stringColumn(Column column) {
+            return strings[column.ordinal()] = new String[size];
+        }
+    }
+
+    // Rows must be added in (url id, clicked at) order; finish() writes the footer and syncs the file
+    public static final class Writer implements Closeable {
+        private final FileOutputStream file;
+        private final DataOutputStream out;
+        private final int rowGroupSize;
+
+        private final long[] ids;
+        private final long[] urlIds;
+        private final long[] clickedAt;
+        private final String[] ipAddresses;
+        private final int[][] dimensions = new int[COLUMNS.length][];
+        private int buffered;
+
+        private long offset;
+        private long rowCount;
+        private final Stats stats = new Stats();
+        private GroupMeta[] groups = new GroupMeta[16];
+        private int groupCount;
+
+        private Writer(Path path, int rowGroupSize) throws IOException {
+            this.file = new FileOutputStream(path.toFile());
+            this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+            this.rowGroupSize = rowGroupSize;
+            this.ids = new long[rowGroupSize];
+            this.urlIds = new long[rowGroupSize];
+            this.clickedAt = new long[rowGroupSize];
+            this.ipAddresses = new String[rowGroupSize];
+            for (Column column : COLUMNS) {
+                if (column.encoding == Encoding.INT_DICTIONARY) {
+                    dimensions[column.ordinal()] = new int[rowGroupSize];
+                }
+            }
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            offset = 8;
+        }
+
+        public void add(ClickRecord record) throws IOException {
+            int row = buffered;
+            if (record.getUrlId() < stats.maxUrlId) {
+                throw new IllegalArgumentException("Rows must be added in url id order");
+            }
+
+            ids[row] = record.getId();
+            urlIds[row] = record.getUrlId();
+            clickedAt[row] = record.getClickedAtMillis();
+            ipAddresses[row] = record.getIpAddress();
+            dimensions[Column.USER_AGENT_ID.ordinal()][row] = idOrZero(record.getUserAgentId());
+            dimensions[Column.REFERRER_DOMAIN_ID.ordinal()][row] = idOrZero(record.getReferrerDomainId());
+            dimensions[Column.COUNTRY_ID.ordinal()][row] = idOrZero(record.getCountryId());
+            dimensions[Column.CITY_ID.ordinal()][row] = idOrZero(record.getCityId());
+            dimensions[Column.DEVICE_TYPE.ordinal()][row] = record.getDeviceType() != null ? record.getDeviceType().ordinal() + 1 : 0;
+            dimensions[Column.BROWSER_ID.ordinal()][row] = idOrZero(record.getBrowserId());
+            dimensions[Column.OPERATING_SYSTEM_ID.ordinal()][row] = idOrZero(record.getOperatingSystemId());
+            stats.add(record.getUrlId(), record.getClickedAtMillis());
+            rowCount++;
+
+            if (++buffered == rowGroupSize) {
+                flushGroup();
+            }
+        }
+
+        public long getRowCount() { return rowCount; }
+
+        public void finish() throws IOException {
+            flushGroup();
+            long footerOffset = offset;
+            out.writeInt(groupCount);
+            out.writeLong(rowCount);
+            stats.write(out);
+            for (int g = 0; g < groupCount; g++) {
+                GroupMeta group = groups[g];
+                out.writeInt(group.rows);
+                group.stats.write(out);
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    out.writeLong(group.offsets[c]);
+                    out.writeInt(group.lengths[c]);
+                    out.writeInt(group.rawLengths[c]);
+                }
+            }
+            out.writeLong(footerOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+            file.getFD().sync();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void flushGroup() throws IOException {
+            if (buffered == 0) {
+                return;
+            }
+            Stats groupStats = new Stats();
+            for (int i = 0; i < buffered; i++) {
+                groupStats.add(urlIds[i], clickedAt[i]);
+            }
+
+            long[] offsets = new long[COLUMNS.length];
+            int[] lengths = new int[COLUMNS.length];
+            int[] rawLengths = new int[COLUMNS.length];
+            for (Column column : COLUMNS) {
+                byte[] raw = switch (column) {
+                    case ID -> ColumnCodec.encodeDeltas(ids, buffered);
+                    case URL_ID -> ColumnCodec.encodeRuns(urlIds, buffered);
+                    case CLICKED_AT -> ColumnCodec.encodeDeltas(clickedAt, buffered);
+                    case IP_ADDRESS -> ColumnCodec.encodeDictionary(ipAddresses, buffered);
+                    default -> ColumnCodec.encodeDictionary(dimensions[column.ordinal()], buffered);
+                };
+                byte[] compressed = ColumnCodec.deflate(raw);
+                int c = column.ordinal();
+                offsets[c] = offset;
+                lengths[c] = compressed.length;
+                rawLengths[c] = raw.length;
+                out.write(compressed);
+                offset += compressed.length;
+            }
+
+            if (groupCount == groups.length) {
+                groups = Arrays.copyOf(groups, groupCount * 2);
+            }
+            groups[groupCount++] = new GroupMeta(buffered, groupStats, offsets, lengths, rawLengths);
+            Arrays.fill(ipAddresses, 0, buffered, null);
+            buffered = 0;
+        }
+
+        private static int idOrZero(Integer id) {
+            return id != null ? id : 0;
+        }
+    }
+
+    private static final class GroupMeta {
+        private final int rows;
+        private final Stats stats;
+        private final long[] offsets;
+        private final int[] lengths;
+        private final int[] rawLengths;
+
+        private GroupMeta(int rows, Stats stats, long[] offsets, int[] lengths, int[] rawLengths) {
+            this.rows = rows;
+            this.stats = stats;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.rawLengths = rawLengths;
+        }
+    }
+
+    private static final class Stats {
+        private long minUrlId = Long.MAX_VALUE;
+        private long maxUrlId = Long.MIN_VALUE;
+        private long minClickedAt = Long.MAX_VALUE;
+        private long maxClickedAt = Long.MIN_VALUE;
+
+        private void add(long urlId, long clickedAtMillis) {
+            minUrlId = Math.min(minUrlId, urlId);
+            maxUrlId = Math.max(maxUrlId, urlId);
+            minClickedAt = Math.min(minClickedAt, clickedAtMillis);
+            maxClickedAt = Math.max(maxClickedAt, clickedAtMillis);
+        }
+
+        private boolean overlaps(long urlId, long fromMillis, long toMillis) {
+            return urlId >= minUrlId && urlId <= maxUrlId && maxClickedAt >= fromMillis && minClickedAt < toMillis;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeLong(minUrlId);
+            out.writeLong(maxUrlId);
+            out.writeLong(minClickedAt);
+            out.writeLong(maxClickedAt);
+        }
+
+        private static Stats read(ByteBuffer in) {
+            Stats stats = new Stats();
+            stats.minUrlId = in.getLong();
+            stats.maxUrlId = in.getLong();
+            stats.minClickedAt = in.getLong();
+            stats.maxClickedAt = in.getLong();
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package UrlShortener.utils;
+
+import java.time.Duration;
+import java.util.List;
+
+// Append-only click log shared by all nodes, read through a consumer group with explicit acknowledgement.
+// Redis Streams in production; InMemoryClickStream stands in for it locally and in tests.
+public interface ClickStream {
+
+    // Creates the group (and the stream) if missing; a new group starts from the oldest message
+    void createGroup(String group);
+
+    // Returns the id the stream assigned to the message
+    String add(byte[] payload);
+
+    // Up to count messages never delivered to any consumer of the group
+    List<Message> readNew(String group, String consumer, int count);
+
+    // Takes over up to count messages that were delivered but not acknowledged for at least minIdle
+    List<Message> claimIdle(String group, String consumer, Duration minIdle, int count);
+
+    void ack(String group, List<String> ids);
+
+    // Parks a message that keeps failing so it no longer blocks the group
+    void deadLetter(Message message);
+
+    long length();
+
+    long pending(String group);
+
+    final class Message {
+        private final String id;
+        private final byte[] payload;
+        private final long deliveries;
+
+        public Message(String id, byte[] payload, long deliveries) {
+            this.id = id;
+            this.payload = payload;
+            this.deliveries = deliveries;
+        }
+
+        public String getId() { return id; }
+        public byte[] getPayload() { return payload; }
+        public long getDeliveries() { return deliveries; }
+    }
+}
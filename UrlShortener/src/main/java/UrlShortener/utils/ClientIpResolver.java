@@ -0,0 +1,131 @@
+package UrlShortener.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Client address of a request. Forwarding headers are only believed when the peer is a trusted proxy, and
+// are then walked right to left, skipping further trusted proxies: the first untrusted hop is the client.
+// A client cannot spoof its address by sending its own X-Forwarded-For, because the proxy appends to it.
+@Component
+public class ClientIpResolver {
+
+    // Loopback and private networks: load balancers and ingress controllers usually live there
+    @Value("${app.client-ip.trusted-proxies:127.0.0.0/8,::1/128,10.0.0.0/8,172.16.0.0/12,192.168.0.0/16,fc00::/7}")
+    private String trustedProxies;
+
+    private IpRange[] trusted = new IpRange[0];
+
+    @PostConstruct
+    public void init() {
+        List<IpRange> ranges = new ArrayList<>();
+        for (String cidr : trustedProxies.split(",")) {
+            if (cidr.isBlank()) {
+                continue;
+            }
+            IpRange range = IpRange.parse(cidr);
+            if (range == null) {
+                System.err.println("Ignoring invalid trusted proxy range: " + cidr);
+            } else {
+                ranges.add(range);
+            }
+        }
+        trusted = ranges.toArray(new IpRange[0]);
+    }
+
+    // Get the real client IP address
+    public String getClientIpAddress(HttpServletRequest request) {
+        IpAddress address = new IpAddress();
+        return resolve(request, address) ? address.toString() : request.getRemoteAddr();
+    }
+
+    // Fills address with the client's address; false only when not even the peer address parses
+    public boolean resolve(HttpServletRequest request, IpAddress address) {
+        if (!address.parse(request.getRemoteAddr())) {
+            return false;
+        }
+        if (!isTrusted(address)) {
+            return true;
+        }
+
+        String forwarded = request.getHeader("Forwarded");
+        if (forwarded != null && nearestUntrustedHop(forwarded, true, address)) {
+            return true;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && nearestUntrustedHop(forwardedFor, false, address)) {
+            return true;
+        }
+        String realIp = request.getHeader("X-Real-IP");
+        if (realIp != null) {
+            address.parse(realIp);
+        }
+        return true;
+    }
+
+    public boolean isTrusted(IpAddress address) {
+        for (IpRange range : trusted) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Walks the comma-separated hops from the right. Stops at the first untrusted hop, or at a hop that
+    // does not parse (the chain cannot be followed past it); address then holds the last good hop.
+    private boolean nearestUntrustedHop(String header, boolean forwardedSyntax, IpAddress address) {
+        IpAddress hop = new IpAddress();
+        boolean found = false;
+        int end = header.length();
+        while (end > 0) {
+            int start = header.lastIndexOf(',', end - 1) + 1;
+            boolean parsed = forwardedSyntax
+                    ? parseForwardedElement(header, start, end, hop)
+                    : hop.parse(header, start, end);
+            if (!parsed) {
+                break;
+            }
+            address.copyFrom(hop);
+            found = true;
+            if (!isTrusted(hop)) {
+                break;
+            }
+            end = start - 1;
+        }
+        return found;
+    }
+
+    // RFC 7239 element such as: for="[2001:db8::17]:4711";proto=https;by=203.0.113.43
+    private boolean parseForwardedElement(String header, int start, int end, IpAddress hop) {
+        int pairStart = start;
+        while (pairStart < end) {
+            int pairEnd = header.indexOf(';', pairStart);
+            if (pairEnd < 0 || pairEnd > end) {
+                pairEnd = end;
+            }
+            int nameStart = pairStart;
+            while (nameStart < pairEnd && header.charAt(nameStart) == ' ') {
+                nameStart++;
+            }
+            if (header.regionMatches(true, nameStart, "for=", 0, 4)) {
+                int valueStart = nameStart + 4;
+                int valueEnd = pairEnd;
+                while (valueEnd > valueStart && header.charAt(valueEnd - 1) == ' ') {
+                    valueEnd--;
+                }
+                if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+                    valueStart++;
+                    valueEnd--;
+                }
+                return hop.parse(header, valueStart, valueEnd);
+            }
+            pairStart = pairEnd + 1;
+        }
+        return false;
+    }
+}
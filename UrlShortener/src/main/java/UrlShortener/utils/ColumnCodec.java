@@ -0,0 +1,303 @@
+package UrlShortener.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Encodings for one column of a row group. Integers are written as varints, signed ones zigzagged first:
+//   runs        sorted or clustered longs: [run count] then per run [delta from previous run value][length]
+//   deltas      slowly changing longs: [delta from previous value] per row
+//   dictionary  low-cardinality ints or strings: [size][distinct values] then runs of dictionary indexes
+// The encoded bytes are deflated as a whole, which also squeezes whatever regularity is left.
+public final class ColumnCodec {
+
+    private ColumnCodec() {}
+
+    public static byte[] encodeRuns(long[] values, int count) {
+        Sink out = new Sink(64);
+        int runs = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                runs++;
+            }
+        }
+        out.writeVarLong(runs);
+
+        long previous = 0;
+        int i = 0;
+        while (i < count) {
+            int end = i + 1;
+            while (end < count && values[end] == values[i]) {
+                end++;
+            }
+            out.writeZigZag(values[i] - previous);
+            out.writeVarLong(end - i);
+            previous = values[i];
+            i = end;
+        }
+        return out.toByteArray();
+    }
+
+    public static void decodeRuns(ByteBuffer in, long[] out, int count) throws IOException {
+        long runs = readVarLong(in);
+        long value = 0;
+        int position = 0;
+        for (long run = 0; run < runs; run++) {
+            value += readZigZag(in);
+            int end = runEnd(position, readVarLong(in), count);
+            Arrays.fill(out, position, end, value);
+            position = end;
+        }
+        expectFilled(position, count);
+    }
+
+    public static byte[] encodeDeltas(long[] values, int count) {
+        Sink out = new Sink(count * 2 + 16);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            out.writeZigZag(values[i] - previous);
+            previous = values[i];
+        }
+        return out.toByteArray();
+    }
+
+    public static void decodeDeltas(ByteBuffer in, long[] out, int count) throws IOException {
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value += readZigZag(in);
+            out[i] = value;
+        }
+    }
+
+    public static byte[] encodeDictionary(int[] values, int count) {
+        // Holds index + 1, so the 0 of an absent value means new
+        IntLongMap indexes = new IntLongMap();
+        int[] dictionary = new int[16];
+        int[] coded = new int[count];
+        for (int i = 0; i < count; i++) {
+            int index = (int) indexes.get(values[i]) - 1;
+            if (index < 0) {
+                index = indexes.size();
+                indexes.add(values[i], index + 1);
+                if (index == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, index * 2);
+                }
+                dictionary[index] = values[i];
+            }
+            coded[i] = index;
+        }
+
+        Sink out = new Sink(indexes.size() * 3 + 16);
+        out.writeVarLong(indexes.size());
+        for (int i = 0; i < indexes.size(); i++) {
+            out.writeZigZag(dictionary[i]);
+        }
+        writeIndexRuns(out, coded, count);
+        return out.toByteArray();
+    }
+
+    public static void decodeDictionary(ByteBuffer in, int[] out, int count) throws IOException {
+        int[] dictionary = new int[checkedSize(readVarLong(in), in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = (int) readZigZag(in);
+        }
+        int position = 0;
+        while (position < count) {
+            int index = (int) readVarLong(in);
+            if (index < 0 || index >= dictionary.length) {
+                throw new IOException("Corrupt column: dictionary index " + index);
+            }
+            int end = runEnd(position, readVarLong(in), count);
+            Arrays.fill(out, position, end, dictionary[index]);
+            position = end;
+        }
+    }
+
+    // Index 0 stands for null; distinct strings follow from index 1
+    public static byte[] encodeDictionary(String[] values, int count) {
+        StringDictionary indexes = new StringDictionary();
+        Sink entries = new Sink(256);
+        int[] coded = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            int known = indexes.size();
+            int index = indexes.intern(values[i]) + 1;
+            if (index > known) {
+                byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+                entries.writeVarLong(bytes.length);
+                entries.write(bytes);
+            }
+            coded[i] = index;
+        }
+
+        Sink out = new Sink(entries.length + 16);
+        out.writeVarLong(indexes.size());
+        out.write(entries.toByteArray());
+        writeIndexRuns(out, coded, count);
+        return out.toByteArray();
+    }
+
+    public static void decodeDictionary(ByteBuffer in, String[] out, int count) throws IOException {
+        String[] dictionary = new String[checkedSize(readVarLong(in), in) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            int length = checkedSize(readVarLong(in), in);
+            dictionary[i] = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        int position = 0;
+        while (position < count) {
+            int index = (int) readVarLong(in);
+            if (index < 0 || index >= dictionary.length) {
+                throw new IOException("Corrupt column: dictionary index " + index);
+            }
+            int end = runEnd(position, readVarLong(in), count);
+            Arrays.fill(out, position, end, dictionary[index]);
+            position = end;
+        }
+    }
+
+    public static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            Sink out = new Sink(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(chunk);
+                out.write(chunk, written);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Returns a heap buffer positioned at 0, as the decoders expect
+    public static ByteBuffer inflate(ByteBuffer compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int filled = 0;
+            while (filled < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, filled, rawLength - filled);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                filled += read;
+            }
+            if (filled != rawLength) {
+                throw new IOException("Corrupt column: expected " + rawLength + " bytes, inflated " + filled);
+            }
+            return ByteBuffer.wrap(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeIndexRuns(Sink out, int[] coded, int count) {
+        int i = 0;
+        while (i < count) {
+            int end = i + 1;
+            while (end < count && coded[end] == coded[i]) {
+                end++;
+            }
+            out.writeVarLong(coded[i]);
+            out.writeVarLong(end - i);
+            i = end;
+        }
+    }
+
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Corrupt column: truncated varint");
+            }
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Corrupt column: varint too long");
+    }
+
+    private static long readZigZag(ByteBuffer in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int runEnd(int position, long length, int count) throws IOException {
+        if (length <= 0 || length > count - position) {
+            throw new IOException("Corrupt column: run of " + length + " at row " + position + " of " + count);
+        }
+        return position + (int) length;
+    }
+
+    private static void expectFilled(int position, int count) throws IOException {
+        if (position != count) {
+            throw new IOException("Corrupt column: " + position + " of " + count + " rows decoded");
+        }
+    }
+
+    // A size read from the data can never exceed the bytes left, since every entry takes at least one
+    private static int checkedSize(long size, ByteBuffer in) throws IOException {
+        if (size < 0 || size > in.remaining()) {
+            throw new IOException("Corrupt column: size " + size);
+        }
+        return (int) size;
+    }
+
+    // Growable byte array without ByteArrayOutputStream's per-call locking
+    private static final class Sink {
+        private byte[] bytes;
+        private int length;
+
+        private Sink(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void write(byte[] source) {
+            write(source, source.length);
+        }
+
+        private void write(byte[] source, int count) {
+            ensure(count);
+            System.arraycopy(source, 0, bytes, length, count);
+            length += count;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+}
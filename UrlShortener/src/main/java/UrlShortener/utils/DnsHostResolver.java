@@ -0,0 +1,52 @@
+package UrlShortener.utils;
+
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Hashtable;
+
+// The JVM resolver; honours networkaddress.cache.ttl and the OS resolver's own timeouts. The JVM reports
+// NXDOMAIN, SERVFAIL and timeouts alike, so a failed lookup is repeated through JNDI DNS, which reports
+// NXDOMAIN as NameNotFoundException, to tell a name that does not exist from a resolver that is failing.
+public class DnsHostResolver implements HostResolver {
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        try {
+            return InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            if (isNxDomain(host)) {
+                throw new HostNotFoundException(host);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isNxDomain(String host) {
+        Hashtable<String, String> env = new Hashtable<>();
+        env.put(DirContext.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
+        env.put("com.sun.jndi.dns.timeout.initial", "2000");
+        env.put("com.sun.jndi.dns.timeout.retries", "2");
+        DirContext context = null;
+        try {
+            context = new InitialDirContext(env);
+            context.getAttributes(host, new String[]{"A", "AAAA"});
+            return false;
+        } catch (NameNotFoundException e) {
+            return true;
+        } catch (NamingException e) {
+            return false;
+        } finally {
+            if (context != null) {
+                try {
+                    context.close();
+                } catch (NamingException e) {
+                    // Nothing held open
+                }
+            }
+        }
+    }
+}
@@ -15,13 +15,22 @@ public class GeoLocationService {
     private static final String GEO_API_URL = "http://ip-api.com/json/";
 
     public LocationInfo getLocationInfo(String ipAddress) {
+        IpAddress address = new IpAddress();
+        if (!address.parse(ipAddress)) {
+            return new LocationInfo("Unknown", "Unknown");
+        }
+        return getLocationInfo(address);
+    }
+
+    // Takes the packed form, so an already anonymized (truncated) address can be looked up as is
+    public LocationInfo getLocationInfo(IpAddress address) {
         try {
             // Skip for local/private IPs
-            if (isPrivateIp(ipAddress)) {
+            if (address.isPrivate()) {
                 return new LocationInfo("Unknown", "Unknown");
             }
 
-            String url = GEO_API_URL + ipAddress;
+            String url = GEO_API_URL + address;
             String response = restTemplate.getForObject(url, String.class);
 
             JsonNode json = objectMapper.readTree(response);
@@ -41,14 +50,6 @@ public class GeoLocationService {
         return new LocationInfo("Unknown", "Unknown");
     }
 
-    private boolean isPrivateIp(String ip) {
-        return ip.startsWith("192.168.") ||
-                ip.startsWith("10.") ||
-                ip.startsWith("172.") ||
-                ip.equals("127.0.0.1") ||
-                ip.equals("localhost");
-    }
-
     public static class LocationInfo {
         private final String country;
         private final String city;
@@ -0,0 +1,14 @@
+package UrlShortener.utils;
+
+import java.net.UnknownHostException;
+
+// The name was answered authoritatively as not existing (NXDOMAIN), as opposed to a lookup that timed
+// out or failed on the server side, which stays a plain UnknownHostException
+public class HostNotFoundException extends UnknownHostException {
+
+    private static final long serialVersionUID = 1L;
+
+    public HostNotFoundException(String host) {
+        super(host);
+    }
+}
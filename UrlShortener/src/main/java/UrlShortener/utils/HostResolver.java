@@ -0,0 +1,10 @@
+package UrlShortener.utils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+// Name resolution used by the post-create URL safety check; swappable so it can run without real DNS
+public interface HostResolver {
+
+    InetAddress[] resolve(String host) throws UnknownHostException;
+}
@@ -0,0 +1,141 @@
+package UrlShortener.utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Single-process stand-in for Redis Streams with the same group semantics: each message goes to one
+// consumer, stays pending until acknowledged and can be claimed by another consumer once idle.
+// Used by the local profile and wherever a real Redis is not available.
+public class InMemoryClickStream implements ClickStream {
+
+    private final long maxLength;
+
+    private final TreeMap<Long, byte[]> messages = new TreeMap<>();
+    private final Map<String, Group> groups = new HashMap<>();
+    private final List<Message> deadLetters = new ArrayList<>();
+    private long nextSequence = 1;
+
+    public InMemoryClickStream(long maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public synchronized void createGroup(String group) {
+        groups.putIfAbsent(group, new Group());
+    }
+
+    @Override
+    public synchronized String add(byte[] payload) {
+        long sequence = nextSequence++;
+        messages.put(sequence, payload);
+        while (messages.size() > maxLength) {
+            messages.pollFirstEntry();
+        }
+        return idOf(sequence);
+    }
+
+    @Override
+    public synchronized List<Message> readNew(String group, String consumer, int count) {
+        Group state = group(group);
+        List<Message> read = new ArrayList<>();
+        for (Map.Entry<Long, byte[]> message : messages.tailMap(state.lastDelivered, false).entrySet()) {
+            if (read.size() >= count) {
+                break;
+            }
+            state.lastDelivered = message.getKey();
+            state.pending.put(message.getKey(), new Delivery(consumer));
+            read.add(new Message(idOf(message.getKey()), message.getValue(), 1));
+        }
+        return read;
+    }
+
+    @Override
+    public synchronized List<Message> claimIdle(String group, String consumer, Duration minIdle, int count) {
+        Group state = group(group);
+        long now = System.nanoTime();
+        List<Message> claimed = new ArrayList<>();
+        Iterator<Map.Entry<Long, Delivery>> pending = state.pending.entrySet().iterator();
+        while (pending.hasNext() && claimed.size() < count) {
+            Map.Entry<Long, Delivery> entry = pending.next();
+            Delivery delivery = entry.getValue();
+            if (now - delivery.deliveredAtNanos < minIdle.toNanos()) {
+                continue;
+            }
+            byte[] payload = messages.get(entry.getKey());
+            if (payload == null) {
+                // Trimmed away while pending; nothing left to deliver
+                pending.remove();
+                continue;
+            }
+            delivery.consumer = consumer;
+            delivery.deliveredAtNanos = now;
+            delivery.deliveries++;
+            claimed.add(new Message(idOf(entry.getKey()), payload, delivery.deliveries));
+        }
+        return claimed;
+    }
+
+    @Override
+    public synchronized void ack(String group, List<String> ids) {
+        Group state = group(group);
+        for (String id : ids) {
+            state.pending.remove(sequenceOf(id));
+        }
+    }
+
+    @Override
+    public synchronized void deadLetter(Message message) {
+        deadLetters.add(message);
+    }
+
+    @Override
+    public synchronized long length() {
+        return messages.size();
+    }
+
+    @Override
+    public synchronized long pending(String group) {
+        return group(group).pending.size();
+    }
+
+    public synchronized List<Message> getDeadLetters() {
+        return new ArrayList<>(deadLetters);
+    }
+
+    private Group group(String group) {
+        Group state = groups.get(group);
+        if (state == null) {
+            throw new IllegalStateException("No such consumer group: " + group);
+        }
+        return state;
+    }
+
+    private static String idOf(long sequence) {
+        return sequence + "-0";
+    }
+
+    private static long sequenceOf(String id) {
+        return Long.parseLong(id.substring(0, id.indexOf('-')));
+    }
+
+    private static final class Group {
+        private long lastDelivered;
+        private final Map<Long, Delivery> pending = new LinkedHashMap<>();
+    }
+
+    private static final class Delivery {
+        private String consumer;
+        private long deliveredAtNanos = System.nanoTime();
+        private long deliveries = 1;
+
+        private Delivery(String consumer) {
+            this.consumer = consumer;
+        }
+    }
+}
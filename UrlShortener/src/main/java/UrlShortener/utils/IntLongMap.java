@@ -0,0 +1,169 @@
+package UrlShortener.utils;
+
+import java.util.Arrays;
+
+// int -> long map with open addressing and linear probing, for counters keyed by dictionary ids or epoch
+// days. Keys and values sit in two flat arrays: no Entry objects and no boxing on add or get. Key 0 is
+// the empty-slot marker in the table, so its value is kept aside. Not thread-safe; give each task its
+// own map and merge them with addAll.
+public final class IntLongMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public IntLongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntLongMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public long get(int key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : 0;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    // Adds delta to the key's value; an absent key counts as 0
+    public void add(int key, long delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue += delta;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public void addAll(IntLongMap other) {
+        other.forEach(this::add);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void forEach(Visitor visitor) {
+        if (hasZeroKey) {
+            visitor.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                visitor.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    // Keys in ascending order
+    public int[] sortedKeys() {
+        int[] result = new int[size];
+        int count = 0;
+        if (hasZeroKey) {
+            result[count++] = 0;
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                result[count++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    // The keys of the `limit` largest values, largest first; meant for small limits such as a top 10
+    public int[] topKeys(int limit) {
+        int n = Math.min(limit, size);
+        int[] topKeys = new int[n];
+        long[] topValues = new long[n];
+        if (n == 0) {
+            return topKeys;
+        }
+        int[] count = new int[1];
+        forEach((key, value) -> {
+            int position = count[0] < n ? count[0]++ : n;
+            if (position == n && value <= topValues[n - 1]) {
+                return;
+            }
+            if (position == n) {
+                position = n - 1;
+            }
+            while (position > 0 && topValues[position - 1] < value) {
+                topKeys[position] = topKeys[position - 1];
+                topValues[position] = topValues[position - 1];
+                position--;
+            }
+            topKeys[position] = key;
+            topValues[position] = value;
+        });
+        return topKeys;
+    }
+
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        // Load factor 0.75, counting the zero key against the table as well
+        resizeAt = capacity - (capacity >>> 2);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / 0.75);
+        return (int) Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    public interface Visitor {
+        void accept(int key, long value);
+    }
+}
@@ -0,0 +1,357 @@
+package UrlShortener.utils;
+
+// An IPv4 or IPv6 address as two longs, parsed straight from a character range without regex, splitting
+// or substrings. IPv4 is held in its IPv4-mapped form (::ffff:a.b.c.d), so ranges and hashing treat both
+// families alike. Instances are mutable and meant to be reused; parse() leaves the old value untouched
+// when the input is not an address.
+public final class IpAddress {
+
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFFL << 32;
+
+    private long high;
+    private long low;
+
+    public boolean parse(String text) {
+        return text != null && parse(text, 0, text.length());
+    }
+
+    // Accepts "a.b.c.d", "a.b.c.d:port", IPv6 with an optional zone, and "[ipv6]" or "[ipv6]:port"
+    public boolean parse(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start >= end) {
+            return false;
+        }
+
+        if (text.charAt(start) == '[') {
+            for (int i = start + 1; i < end; i++) {
+                if (text.charAt(i) == ']') {
+                    return parseIpv6(text, start + 1, i);
+                }
+            }
+            return false;
+        }
+
+        int colons = 0;
+        int firstColon = -1;
+        boolean dots = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ':') {
+                if (colons++ == 0) {
+                    firstColon = i;
+                }
+            } else if (c == '.' && colons == 0) {
+                dots = true;
+            }
+        }
+        if (colons == 0) {
+            return setIpv4(parseIpv4(text, start, end));
+        }
+        if (colons == 1 && dots) {
+            // IPv4 with a port
+            return setIpv4(parseIpv4(text, start, firstColon));
+        }
+        return parseIpv6(text, start, end);
+    }
+
+    public boolean isIpv4() {
+        return high == 0 && (low & 0xFFFFFFFF00000000L) == IPV4_MAPPED_PREFIX;
+    }
+
+    // Keeps the network part only: /24 for IPv4, /48 for IPv6
+    public void truncate() {
+        if (isIpv4()) {
+            low &= ~0xFFL;
+        } else {
+            high &= 0xFFFFFFFFFFFF0000L;
+            low = 0;
+        }
+    }
+
+    // Loopback, unspecified, RFC 1918, link-local and unique-local addresses
+    public boolean isPrivate() {
+        if (isIpv4()) {
+            int a = (int) (low >>> 24) & 0xFF;
+            int b = (int) (low >>> 16) & 0xFF;
+            return a == 0 || a == 10 || a == 127 || (a == 172 && b >= 16 && b <= 31)
+                    || (a == 192 && b == 168) || (a == 169 && b == 254);
+        }
+        if (high == 0 && (low == 0 || low == 1)) {
+            return true;
+        }
+        int first = (int) (high >>> 48);
+        return (first & 0xFE00) == 0xFC00 || (first & 0xFFC0) == 0xFE80;
+    }
+
+    // Network byte order into out[offset..]; returns 4 or 16
+    public int toBytes(byte[] out, int offset) {
+        if (isIpv4()) {
+            for (int i = 0; i < 4; i++) {
+                out[offset + i] = (byte) (low >>> (24 - 8 * i));
+            }
+            return 4;
+        }
+        for (int i = 0; i < 8; i++) {
+            out[offset + i] = (byte) (high >>> (56 - 8 * i));
+            out[offset + 8 + i] = (byte) (low >>> (56 - 8 * i));
+        }
+        return 16;
+    }
+
+    // Inverse of toBytes; length must be 4 or 16
+    public void fromBytes(byte[] bytes, int offset, int length) {
+        if (length == 4) {
+            long value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (bytes[offset + i] & 0xFF);
+            }
+            high = 0;
+            low = IPV4_MAPPED_PREFIX | value;
+            return;
+        }
+        long h = 0;
+        long l = 0;
+        for (int i = 0; i < 8; i++) {
+            h = (h << 8) | (bytes[offset + i] & 0xFF);
+            l = (l << 8) | (bytes[offset + 8 + i] & 0xFF);
+        }
+        high = h;
+        low = l;
+    }
+
+    public void copyFrom(IpAddress other) {
+        high = other.high;
+        low = other.low;
+    }
+
+    public long getHigh() { return high; }
+    public long getLow() { return low; }
+
+    // Dotted quad, or RFC 5952 text (lower case, longest zero run compressed)
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(39);
+        if (isIpv4()) {
+            out.append((low >>> 24) & 0xFF).append('.').append((low >>> 16) & 0xFF).append('.')
+                    .append((low >>> 8) & 0xFF).append('.').append(low & 0xFF);
+            return out.toString();
+        }
+
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            if (group(i) != 0) {
+                i++;
+                continue;
+            }
+            int runStart = i;
+            while (i < 8 && group(i) == 0) {
+                i++;
+            }
+            if (i - runStart > bestLength) {
+                bestStart = runStart;
+                bestLength = i - runStart;
+            }
+        }
+
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                out.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (out.length() > 0 && out.charAt(out.length() - 1) != ':') {
+                out.append(':');
+            }
+            out.append(Integer.toHexString(group(i)));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IpAddress)) return false;
+        IpAddress other = (IpAddress) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high * 31 + low);
+    }
+
+    private int group(int index) {
+        long half = index < 4 ? high : low;
+        return (int) (half >>> (48 - 16 * (index & 3))) & 0xFFFF;
+    }
+
+    private boolean setIpv4(long value) {
+        if (value < 0) {
+            return false;
+        }
+        high = 0;
+        low = IPV4_MAPPED_PREFIX | value;
+        return true;
+    }
+
+    // Unsigned 32-bit value of a dotted quad, or -1
+    static long parseIpv4(CharSequence text, int start, int end) {
+        long result = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && digits > 0 && dots < 3) {
+                result = (result << 8) | octet;
+                octet = 0;
+                digits = 0;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || digits == 0) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    // Groups before "::" accumulate in head, groups after it in tail; head is then shifted into place
+    private boolean parseIpv6(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '%') {
+                end = i;
+                break;
+            }
+        }
+        if (start >= end) {
+            return false;
+        }
+
+        long headHigh = 0;
+        long headLow = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = start;
+        if (text.charAt(i) == ':') {
+            if (end - i < 2 || text.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i += 2;
+        }
+
+        while (i < end) {
+            int groupStart = i;
+            int value = 0;
+            int digits = 0;
+            while (i < end) {
+                int digit = Character.digit(text.charAt(i), 16);
+                if (digit < 0) {
+                    break;
+                }
+                value = (value << 4) | digit;
+                if (++digits > 4) {
+                    return false;
+                }
+                i++;
+            }
+
+            if (i < end && text.charAt(i) == '.') {
+                // Embedded IPv4 in the last 32 bits
+                long ipv4 = parseIpv4(text, groupStart, end);
+                if (ipv4 < 0) {
+                    return false;
+                }
+                for (int half = 1; half >= 0; half--) {
+                    int group = (int) (ipv4 >>> (16 * half)) & 0xFFFF;
+                    if (compressed) {
+                        tailHigh = (tailHigh << 16) | (tailLow >>> 48);
+                        tailLow = (tailLow << 16) | group;
+                        tailGroups++;
+                    } else {
+                        headHigh = (headHigh << 16) | (headLow >>> 48);
+                        headLow = (headLow << 16) | group;
+                        headGroups++;
+                    }
+                }
+                i = end;
+                break;
+            }
+            if (digits == 0) {
+                return false;
+            }
+
+            if (compressed) {
+                tailHigh = (tailHigh << 16) | (tailLow >>> 48);
+                tailLow = (tailLow << 16) | value;
+                tailGroups++;
+            } else {
+                headHigh = (headHigh << 16) | (headLow >>> 48);
+                headLow = (headLow << 16) | value;
+                headGroups++;
+            }
+            if (headGroups + tailGroups > 8) {
+                return false;
+            }
+
+            if (i == end) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < end && text.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            } else if (i == end) {
+                return false;
+            }
+        }
+
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups > 7 : groups != 8) {
+            return false;
+        }
+
+        int shift = 16 * (8 - headGroups);
+        long shiftedHigh;
+        long shiftedLow;
+        if (shift == 0) {
+            shiftedHigh = headHigh;
+            shiftedLow = headLow;
+        } else if (shift >= 128) {
+            shiftedHigh = 0;
+            shiftedLow = 0;
+        } else if (shift >= 64) {
+            shiftedHigh = headLow << (shift - 64);
+            shiftedLow = 0;
+        } else {
+            shiftedHigh = (headHigh << shift) | (headLow >>> (64 - shift));
+            shiftedLow = headLow << shift;
+        }
+        high = shiftedHigh | tailHigh;
+        low = shiftedLow | tailLow;
+        return true;
+    }
+}
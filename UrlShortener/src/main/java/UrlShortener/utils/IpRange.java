@@ -0,0 +1,56 @@
+package UrlShortener.utils;
+
+// A CIDR block ("10.0.0.0/8", "2001:db8::/32") matched against an IpAddress with two masks and compares.
+// IPv4 blocks are stored as the matching IPv4-mapped block, so an IPv6 client never matches one.
+public final class IpRange {
+
+    private final long network;
+    private final long networkLow;
+    private final long mask;
+    private final long maskLow;
+
+    private IpRange(long network, long networkLow, long mask, long maskLow) {
+        this.network = network;
+        this.networkLow = networkLow;
+        this.mask = mask;
+        this.maskLow = maskLow;
+    }
+
+    // Null when the text is not a valid address or prefix length; a bare address is a single-host block
+    public static IpRange parse(String cidr) {
+        String text = cidr.trim();
+        int slash = text.indexOf('/');
+        IpAddress address = new IpAddress();
+        if (!address.parse(text, 0, slash >= 0 ? slash : text.length())) {
+            return null;
+        }
+
+        int maxPrefix = address.isIpv4() ? 32 : 128;
+        int prefix = maxPrefix;
+        if (slash >= 0) {
+            prefix = 0;
+            if (slash + 1 == text.length() || text.length() - slash > 4) {
+                return null;
+            }
+            for (int i = slash + 1; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                prefix = prefix * 10 + (c - '0');
+            }
+            if (prefix > maxPrefix) {
+                return null;
+            }
+        }
+
+        int bits = address.isIpv4() ? 96 + prefix : prefix;
+        long mask = bits >= 64 ? -1L : bits == 0 ? 0 : -1L << (64 - bits);
+        long maskLow = bits <= 64 ? 0 : bits == 128 ? -1L : -1L << (128 - bits);
+        return new IpRange(address.getHigh() & mask, address.getLow() & maskLow, mask, maskLow);
+    }
+
+    public boolean contains(IpAddress address) {
+        return (address.getHigh() & mask) == network && (address.getLow() & maskLow) == networkLow;
+    }
+}
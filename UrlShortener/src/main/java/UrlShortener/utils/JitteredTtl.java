@@ -0,0 +1,24 @@
+package UrlShortener.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Spreads expiry times so entries written together (warm-up, a burst of new links) do not all
+// expire in the same second and send one synchronized wave of misses to the database.
+public final class JitteredTtl {
+
+    private JitteredTtl() {}
+
+    // base ± base * jitter, uniformly; jitter is a fraction such as 0.1
+    public static long millis(long baseMillis, double jitter) {
+        if (jitter <= 0 || baseMillis <= 0) {
+            return baseMillis;
+        }
+        double factor = 1.0 - jitter + 2.0 * jitter * ThreadLocalRandom.current().nextDouble();
+        return Math.max(1L, (long) (baseMillis * factor));
+    }
+
+    public static Duration of(Duration base, double jitter) {
+        return Duration.ofMillis(millis(base.toMillis(), jitter));
+    }
+}
@@ -0,0 +1,139 @@
+package UrlShortener.utils;
+
+// long -> int map in the layout of IntLongMap, mainly for numbering the distinct url ids of a batch so
+// per-link state can live in arrays. Absent keys read as the caller's default. Not thread-safe.
+public final class LongIntMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int getOrDefault(long key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    // The key's number, giving a new key the next one (size() before the call)
+    public int indexOf(long key) {
+        int index = getOrDefault(key, -1);
+        if (index < 0) {
+            index = size;
+            put(key, index);
+        }
+        return index;
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void forEach(Visitor visitor) {
+        if (hasZeroKey) {
+            visitor.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                visitor.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity - (capacity >>> 2);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / 0.75);
+        return (int) Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    public interface Visitor {
+        void accept(long key, int value);
+    }
+}
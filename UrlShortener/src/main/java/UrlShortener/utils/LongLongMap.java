@@ -0,0 +1,120 @@
+package UrlShortener.utils;
+
+// long -> long counterpart of IntLongMap, for counters keyed by url ids or by keys packed into a long.
+// Same layout: open addressing with linear probing over flat arrays, key 0 kept aside. Not thread-safe.
+public final class LongLongMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongLongMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public long get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : 0;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    // Adds delta to the key's value; an absent key counts as 0
+    public void add(long key, long delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue += delta;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public void addAll(LongLongMap other) {
+        other.forEach(this::add);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void forEach(Visitor visitor) {
+        if (hasZeroKey) {
+            visitor.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                visitor.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity - (capacity >>> 2);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / 0.75);
+        return (int) Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    public interface Visitor {
+        void accept(long key, long value);
+    }
+}
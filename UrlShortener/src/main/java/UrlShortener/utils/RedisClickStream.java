@@ -0,0 +1,166 @@
+package UrlShortener.utils;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Redis Streams backend. Payloads are stored as raw bytes in a single field through the binary
+// connection API, so they go over the wire exactly as encoded. XADD trims the stream approximately to
+// maxLength, which bounds Redis memory if consumers fall far behind.
+public class RedisClickStream implements ClickStream {
+
+    private static final byte[] PAYLOAD_FIELD = "c".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ID_FIELD = "id".getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final byte[] key;
+    private final byte[] deadLetterKey;
+    private final long maxLength;
+
+    public RedisClickStream(StringRedisTemplate stringRedisTemplate, String key, long maxLength) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.key = key.getBytes(StandardCharsets.UTF_8);
+        this.deadLetterKey = (key + ":dead").getBytes(StandardCharsets.UTF_8);
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void createGroup(String group) {
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(key, group, ReadOffset.from("0-0"), true));
+        } catch (RuntimeException e) {
+            if (!isBusyGroup(e)) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public String add(byte[] payload) {
+        ByteRecord record = StreamRecords.rawBytes(Collections.singletonMap(PAYLOAD_FIELD, payload)).withStreamKey(key);
+        RecordId id = stringRedisTemplate.execute((RedisCallback<RecordId>) connection ->
+                connection.streamCommands().xAdd(record, XAddOptions.maxlen(maxLength).approximateTrimming(true)));
+        return id != null ? id.getValue() : null;
+    }
+
+    @Override
+    public List<Message> readNew(String group, String consumer, int count) {
+        // xReadGroup takes StreamOffset<byte[]>... and is not @SafeVarargs; a single offset is safe
+        @SuppressWarnings("unchecked")
+        List<ByteRecord> records = stringRedisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xReadGroup(Consumer.from(group, consumer),
+                        StreamReadOptions.empty().count(count), StreamOffset.create(key, ReadOffset.lastConsumed())));
+        return toMessages(records, Collections.emptyMap());
+    }
+
+    @Override
+    public List<Message> claimIdle(String group, String consumer, Duration minIdle, int count) {
+        PendingMessages pending = stringRedisTemplate.execute((RedisCallback<PendingMessages>) connection ->
+                connection.streamCommands().xPending(key, group, Range.unbounded(), (long) count));
+        if (pending == null || pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<RecordId> idle = new ArrayList<>();
+        Map<String, Long> deliveries = new HashMap<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0) {
+                idle.add(message.getId());
+                deliveries.put(message.getIdAsString(), message.getTotalDeliveryCount() + 1);
+            }
+        }
+        if (idle.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // XCLAIM re-checks the idle time, so a message another consumer just claimed is left alone
+        List<ByteRecord> claimed = stringRedisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xClaim(key, group, consumer,
+                        XClaimOptions.minIdle(minIdle).ids(idle.toArray(new RecordId[0]))));
+        return toMessages(claimed, deliveries);
+    }
+
+    @Override
+    public void ack(String group, List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        RecordId[] recordIds = ids.stream().map(RecordId::of).toArray(RecordId[]::new);
+        stringRedisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.streamCommands().xAck(key, group, recordIds));
+    }
+
+    @Override
+    public void deadLetter(Message message) {
+        Map<byte[], byte[]> fields = new HashMap<>();
+        fields.put(ID_FIELD, message.getId().getBytes(StandardCharsets.UTF_8));
+        fields.put(PAYLOAD_FIELD, message.getPayload());
+        ByteRecord record = StreamRecords.rawBytes(fields).withStreamKey(deadLetterKey);
+        stringRedisTemplate.execute((RedisCallback<RecordId>) connection ->
+                connection.streamCommands().xAdd(record, XAddOptions.maxlen(maxLength).approximateTrimming(true)));
+    }
+
+    @Override
+    public long length() {
+        Long length = stringRedisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.streamCommands().xLen(key));
+        return length != null ? length : 0;
+    }
+
+    @Override
+    public long pending(String group) {
+        PendingMessagesSummary summary = stringRedisTemplate.execute((RedisCallback<PendingMessagesSummary>) connection ->
+                connection.streamCommands().xPending(key, group));
+        return summary != null ? summary.getTotalPendingMessages() : 0;
+    }
+
+    private List<Message> toMessages(List<ByteRecord> records, Map<String, Long> deliveries) {
+        if (records == null || records.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Message> messages = new ArrayList<>(records.size());
+        for (ByteRecord record : records) {
+            // byte[] keys have identity equality, so the field is found by content
+            byte[] payload = null;
+            for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+                if (Arrays.equals(field.getKey(), PAYLOAD_FIELD)) {
+                    payload = field.getValue();
+                }
+            }
+            String id = record.getId().getValue();
+            messages.add(new Message(id, payload, deliveries.getOrDefault(id, 1L)));
+        }
+        return messages;
+    }
+
+    private static boolean isBusyGroup(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("BUSYGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,175 @@
+package UrlShortener.utils;
+
+import UrlShortener.model.ReferrerDomain.SourceType;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+
+@Component
+public class ReferrerParser {
+
+    private static final int MAX_DOMAIN_LENGTH = 253;
+
+    // Second-level public suffixes that need three labels to form a registrable domain
+    private static final Set<String> MULTI_PART_SUFFIXES = Set.of(
+            "co.uk", "org.uk", "ac.uk", "gov.uk", "me.uk",
+            "com.au", "net.au", "org.au", "co.nz", "co.za",
+            "co.jp", "ne.jp", "or.jp", "co.kr", "co.in", "net.in", "org.in",
+            "com.br", "com.mx", "com.ar", "com.tr", "com.cn", "com.hk", "com.tw",
+            "com.sg", "com.my", "co.id", "co.th", "com.vn", "com.ph", "com.pk"
+    );
+
+    private static final Set<String> SOCIAL_DOMAINS = Set.of(
+            "facebook.com", "fb.com", "fb.me", "messenger.com", "instagram.com",
+            "twitter.com", "x.com", "t.co", "linkedin.com", "lnkd.in",
+            "reddit.com", "redd.it", "pinterest.com", "pin.it", "tiktok.com",
+            "youtube.com", "youtu.be", "tumblr.com", "whatsapp.com", "t.me",
+            "telegram.org", "discord.com", "snapchat.com", "threads.net",
+            "quora.com", "slack.com", "vk.com", "weibo.com", "bsky.app"
+    );
+
+    // Matched against the first label so country variants (google.co.uk, yandex.ru) are covered
+    private static final Set<String> SEARCH_ENGINES = Set.of(
+            "google", "bing", "yahoo", "duckduckgo", "baidu", "yandex",
+            "ecosia", "naver", "ask", "startpage", "qwant", "seznam"
+    );
+
+    public ParsedReferrer parse(String referrer) {
+        String host = extractHost(referrer);
+        if (host == null) {
+            return ParsedReferrer.DIRECT;
+        }
+
+        String domain = registrableDomain(host);
+        return new ParsedReferrer(domain, classify(host, domain));
+    }
+
+    private String extractHost(String referrer) {
+        if (referrer == null) {
+            return null;
+        }
+
+        int length = referrer.length();
+        int start = 0;
+        while (start < length && referrer.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start == length) {
+            return null;
+        }
+
+        int schemeEnd = referrer.indexOf("://", start);
+        if (schemeEnd >= 0) {
+            start = schemeEnd + 3;
+        } else if (referrer.startsWith("//", start)) {
+            start += 2;
+        }
+
+        int end = start;
+        while (end < length) {
+            char c = referrer.charAt(end);
+            if (c == '/' || c == '?' || c == '#' || c <= ' ') {
+                break;
+            }
+            end++;
+        }
+
+        // Drop userinfo
+        int at = referrer.lastIndexOf('@', end - 1);
+        if (at >= start) {
+            start = at + 1;
+        }
+
+        // Drop port, leaving bracketed IPv6 literals intact
+        if (start < end && referrer.charAt(start) == '[') {
+            int close = referrer.indexOf(']', start);
+            end = close > start && close < end ? close + 1 : end;
+        } else {
+            int colon = referrer.indexOf(':', start);
+            if (colon >= 0 && colon < end) {
+                end = colon;
+            }
+        }
+
+        while (end > start && referrer.charAt(end - 1) == '.') {
+            end--;
+        }
+
+        if (end <= start || end - start > MAX_DOMAIN_LENGTH) {
+            return null;
+        }
+
+        return referrer.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private String registrableDomain(String host) {
+        if (isIpLiteral(host)) {
+            return host;
+        }
+
+        int last = host.lastIndexOf('.');
+        if (last <= 0) {
+            return host;
+        }
+        int secondLast = host.lastIndexOf('.', last - 1);
+        if (secondLast < 0) {
+            return host;
+        }
+
+        String suffix = host.substring(secondLast + 1);
+        if (MULTI_PART_SUFFIXES.contains(suffix)) {
+            int thirdLast = host.lastIndexOf('.', secondLast - 1);
+            return thirdLast < 0 ? host : host.substring(thirdLast + 1);
+        }
+
+        return suffix;
+    }
+
+    private SourceType classify(String host, String domain) {
+        if (host.startsWith("mail.") || host.startsWith("webmail.") || domain.equals("outlook.com")) {
+            return SourceType.EMAIL;
+        }
+        if (SOCIAL_DOMAINS.contains(domain)) {
+            return SourceType.SOCIAL;
+        }
+
+        int firstDot = domain.indexOf('.');
+        String firstLabel = firstDot > 0 ? domain.substring(0, firstDot) : domain;
+        if (SEARCH_ENGINES.contains(firstLabel)) {
+            return SourceType.SEARCH;
+        }
+
+        return SourceType.OTHER;
+    }
+
+    private boolean isIpLiteral(String host) {
+        if (host.charAt(0) == '[') {
+            return true;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class ParsedReferrer {
+        public static final ParsedReferrer DIRECT = new ParsedReferrer(null, SourceType.DIRECT);
+
+        private final String domain;
+        private final SourceType sourceType;
+
+        public ParsedReferrer(String domain, SourceType sourceType) {
+            this.domain = domain;
+            this.sourceType = sourceType;
+        }
+
+        public String getDomain() { return domain; }
+        public SourceType getSourceType() { return sourceType; }
+
+        public boolean isDirect() { return domain == null; }
+    }
+}
@@ -0,0 +1,76 @@
+package UrlShortener.utils;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Time-ordered 53-bit ids: 41 bits of milliseconds since 2025-01-01, 4 bits of node id and an 8-bit
+// per-millisecond sequence. 53 bits keeps ids exact as JavaScript numbers, and every id minted after the
+// epoch is far above the AUTO_INCREMENT values already in the tables, so old and new rows coexist.
+public final class SnowflakeIds {
+
+    public static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    public static final int NODE_BITS = 4;
+    public static final int SEQUENCE_BITS = 8;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static volatile long nodeBits;
+
+    // Wall-clock millis after which the node id may belong to another instance; -1 until a node id is set
+    private static volatile long nodeIdValidUntil = -1;
+
+    // (milliseconds since epoch << SEQUENCE_BITS) | sequence, advanced with a single CAS.
+    // When a millisecond's sequence runs out, or the clock steps back, the counter simply
+    // carries into the next millisecond, so ids stay unique and increasing on this node.
+    private static final AtomicLong state = new AtomicLong();
+
+    private SnowflakeIds() {}
+
+    public static void setNodeId(int nodeId) {
+        setNodeId(nodeId, Long.MAX_VALUE);
+    }
+
+    // A node id held under a lease that runs until validUntilMillis
+    public static void setNodeId(int nodeId, long validUntilMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        nodeBits = (long) nodeId << SEQUENCE_BITS;
+        nodeIdValidUntil = validUntilMillis;
+    }
+
+    public static void revokeNodeId() {
+        nodeIdValidUntil = -1;
+    }
+
+    public static long nextId() {
+        long id = tryNextId();
+        if (id == 0) {
+            throw new IllegalStateException(nodeIdValidUntil < 0 ? "No node id set" : "Node id lease expired");
+        }
+        return id;
+    }
+
+    // 0 instead of an exception while no node id is held, e.g. once the lease ran out with Redis unreachable
+    public static long tryNextId() {
+        long wallClock = System.currentTimeMillis();
+        if (wallClock >= nodeIdValidUntil) {
+            return 0;
+        }
+        long now = wallClock - EPOCH_MILLIS;
+        while (true) {
+            long current = state.get();
+            long next = (current >>> SEQUENCE_BITS) < now ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public static long timestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
@@ -0,0 +1,36 @@
+package UrlShortener.utils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Local stand-in for DNS: a fixed "host=address" table. Hosts not in the table resolve to the fallback
+// address, or do not exist when there is none. Never touches the network.
+public class StaticHostResolver implements HostResolver {
+
+    private final Map<String, InetAddress> table = new HashMap<>();
+    private final InetAddress fallback;
+
+    // entries: comma-separated "host=ip"; fallback: an IP literal or blank
+    public StaticHostResolver(String entries, String fallback) throws UnknownHostException {
+        for (String entry : entries.split(",")) {
+            int equals = entry.indexOf('=');
+            if (equals > 0) {
+                table.put(entry.substring(0, equals).trim().toLowerCase(Locale.ROOT),
+                        InetAddress.getByName(entry.substring(equals + 1).trim()));
+            }
+        }
+        this.fallback = fallback == null || fallback.isBlank() ? null : InetAddress.getByName(fallback.trim());
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress address = table.getOrDefault(host.toLowerCase(Locale.ROOT), fallback);
+        if (address == null) {
+            throw new HostNotFoundException(host);
+        }
+        return new InetAddress[]{address};
+    }
+}
@@ -0,0 +1,105 @@
+package UrlShortener.utils;
+
+import java.util.Arrays;
+
+// Interns strings to dense ids 0, 1, 2, ... in first-seen order. The hash table holds only int ids and
+// compares against the id's string, using String's cached hash code, so a lookup of a known string
+// allocates nothing. Not thread-safe.
+public final class StringDictionary {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] slots;
+    private int[] hashes;
+    private String[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    public StringDictionary() {
+        this(MIN_CAPACITY);
+    }
+
+    public StringDictionary(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        allocate(capacity);
+        values = new String[Math.max(MIN_CAPACITY, expectedSize)];
+        hashes = new int[values.length];
+    }
+
+    // The string's id, assigning the next one to a string not seen before
+    public int intern(String value) {
+        int hash = value.hashCode();
+        int slot = slot(hash);
+        int id;
+        while ((id = slots[slot]) != 0) {
+            if (hashes[id - 1] == hash && values[id - 1].equals(value)) {
+                return id - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size << 1);
+            hashes = Arrays.copyOf(hashes, size << 1);
+        }
+        values[size] = value;
+        hashes[size] = hash;
+        // Slots hold id + 1 so that 0 marks an empty slot
+        slots[slot] = ++size;
+        if (size >= resizeAt) {
+            rehash(slots.length << 1);
+        }
+        return size - 1;
+    }
+
+    // The string's id, or -1 when it has not been interned
+    public int idOf(String value) {
+        int hash = value.hashCode();
+        int slot = slot(hash);
+        int id;
+        while ((id = slots[slot]) != 0) {
+            if (hashes[id - 1] == hash && values[id - 1].equals(value)) {
+                return id - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public String valueOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No string with id " + id);
+        }
+        return values[id];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    private int slot(int hash) {
+        int spread = hash * 0x9E3779B9;
+        return (spread ^ (spread >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        allocate(capacity);
+        for (int id = 0; id < size; id++) {
+            int slot = slot(hashes[id]);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity - (capacity >>> 2);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / 0.75);
+        return (int) Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+}
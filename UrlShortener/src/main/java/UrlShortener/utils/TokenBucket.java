@@ -0,0 +1,46 @@
+package UrlShortener.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free token bucket in its GCRA form: the whole state is one "theoretical arrival time",
+// so acquiring a permit is a single CAS on the hot path.
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.emissionIntervalNanos = Math.max(1L, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime() - toleranceNanos);
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = (arrival - now > 0 ? arrival : now) + emissionIntervalNanos;
+            if (next - now > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    // Seconds until the next permit frees up, rounded up
+    public long retryAfterSeconds() {
+        long wait = theoreticalArrival.get() + emissionIntervalNanos - toleranceNanos - System.nanoTime();
+        return Math.max(1L, (wait + 999_999_999L) / 1_000_000_000L);
+    }
+
+    // A bucket that has refilled completely carries no state worth keeping
+    public boolean isIdle() {
+        return theoreticalArrival.get() - System.nanoTime() <= 0;
+    }
+
+    public long getEmissionIntervalNanos() { return emissionIntervalNanos; }
+    public long getToleranceNanos() { return toleranceNanos; }
+}
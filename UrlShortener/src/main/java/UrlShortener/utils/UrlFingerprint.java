@@ -0,0 +1,63 @@
+package UrlShortener.utils;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+// Fixed-width 128-bit fingerprint of a normalized URL, stored in urls.url_hash so duplicates can be
+// found through a (user_id, url_hash) index instead of comparing 2048-character strings.
+// MD5 is used as a fast, well-distributed hash here, not for any security property.
+public final class UrlFingerprint {
+
+    public static final int LENGTH = 16;
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    });
+
+    private UrlFingerprint() {}
+
+    public static byte[] of(String url) {
+        MessageDigest digest = MD5.get();
+        digest.reset();
+        return digest.digest(normalize(url).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Scheme and host lower-cased, default port and fragment dropped, empty path as "/", https assumed
+    // when the scheme is missing. Path and query are kept as written: they are case-sensitive.
+    public static String normalize(String url) {
+        String candidate = url.trim();
+        if (!candidate.regionMatches(true, 0, "http://", 0, 7) && !candidate.regionMatches(true, 0, "https://", 0, 8)) {
+            candidate = "https://" + candidate;
+        }
+        try {
+            URI uri = URI.create(candidate);
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : "";
+            int port = uri.getPort();
+            boolean defaultPort = port == -1 || ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+            StringBuilder normalized = new StringBuilder(candidate.length());
+            normalized.append(scheme).append("://").append(host);
+            if (!defaultPort) {
+                normalized.append(':').append(port);
+            }
+            normalized.append(path);
+            if (uri.getRawQuery() != null) {
+                normalized.append('?').append(uri.getRawQuery());
+            }
+            return normalized.toString();
+        } catch (IllegalArgumentException e) {
+            // Not parseable as a URI; fall back to the trimmed text without its fragment
+            int fragment = candidate.indexOf('#');
+            return fragment >= 0 ? candidate.substring(0, fragment) : candidate;
+        }
+    }
+}
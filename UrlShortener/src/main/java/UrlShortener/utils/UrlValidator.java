@@ -1,33 +1,201 @@
 package UrlShortener.utils;
 
 import org.springframework.stereotype.Component;
-import java.net.URL;
-import java.util.regex.Pattern;
 
+import java.util.Locale;
+
+// Single left-to-right pass over the URL; no regex, so the cost is linear in the input whatever it contains.
+// Accepts http(s) URLs (scheme optional, as before) whose host is a dotted domain with an alphabetic or
+// punycode TLD, or a bracketed IPv6 literal. User info ("user@host") is rejected because it is mostly
+// used to disguise the real host.
 @Component
 public class UrlValidator {
 
-    private static final Pattern URL_PATTERN = Pattern.compile(
-            "^(https?://)?([-\\w\\.]+)+(\\.([a-zA-Z]{2,}))+(/.*)?$"
-    );
+    public static final int MAX_URL_LENGTH = 2048;
+
+    private static final int MAX_HOST_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
 
     public boolean isValid(String url) {
-        if (url == null || url.trim().isEmpty()) {
+        return extractHost(url) != null;
+    }
+
+    // The trimmed URL with "https://" in front when it was given without a scheme, so what is stored is
+    // always an absolute URL that can go into a Location header as is
+    public String withScheme(String url) {
+        String candidate = url.trim();
+        return schemeEnd(candidate) == 0 ? "https://" + candidate : candidate;
+    }
+
+    // Lower-cased host of a valid URL, or null when the URL is not valid
+    public String extractHost(String url) {
+        if (url == null) {
+            return null;
+        }
+        String candidate = url.trim();
+        if (candidate.isEmpty() || candidate.length() > MAX_URL_LENGTH) {
+            return null;
+        }
+
+        int authorityStart = schemeEnd(candidate);
+        if (authorityStart < 0) {
+            return null;
+        }
+
+        int authorityEnd = candidate.length();
+        for (int i = authorityStart; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                authorityEnd = i;
+                break;
+            }
+        }
+
+        String host = parseAuthority(candidate, authorityStart, authorityEnd);
+        if (host == null) {
+            return null;
+        }
+
+        // Path, query and fragment: anything printable, nothing that could split a header or a log line
+        for (int i = authorityEnd; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (c <= ' ' || c == 0x7f) {
+                return null;
+            }
+        }
+        return host;
+    }
+
+    // Index just past "http://" or "https://", 0 when there is no scheme, -1 for any other scheme
+    private int schemeEnd(String url) {
+        if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            return 7;
+        }
+        if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            return 8;
+        }
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == ':' && url.startsWith("//", i + 1)) {
+                return -1;
+            }
+            if (c == '/' || c == '.' || c == '?' || c == '#') {
+                break;
+            }
+        }
+        return 0;
+    }
+
+    private String parseAuthority(String url, int start, int end) {
+        if (start >= end) {
+            return null;
+        }
+
+        int hostEnd = end;
+        if (url.charAt(start) == '[') {
+            int close = url.indexOf(']', start);
+            if (close < 0 || close >= end || !isIpv6Literal(url, start + 1, close)) {
+                return null;
+            }
+            hostEnd = close + 1;
+        } else {
+            for (int i = start; i < end; i++) {
+                char c = url.charAt(i);
+                if (c == ':') {
+                    hostEnd = i;
+                    break;
+                }
+                if (c == '@') {
+                    return null;
+                }
+            }
+            if (!isDomain(url, start, hostEnd)) {
+                return null;
+            }
+        }
+
+        if (hostEnd < end && !isPort(url, hostEnd, end)) {
+            return null;
+        }
+        return url.substring(start, hostEnd).toLowerCase(Locale.ROOT);
+    }
+
+    // ":" followed by 1-5 digits, at most 65535
+    private boolean isPort(String url, int start, int end) {
+        if (url.charAt(start) != ':' || end - start < 2 || end - start > 6) {
             return false;
         }
+        int port = 0;
+        for (int i = start + 1; i < end; i++) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            port = port * 10 + (c - '0');
+        }
+        return port > 0 && port <= 65535;
+    }
 
-        try {
-            // Add protocol if missing
-            if (!url.startsWith("http://") && !url.startsWith("https://")) {
-                url = "https://" + url;
+    private boolean isDomain(String url, int start, int end) {
+        int length = end - start;
+        if (length < 4 || length > MAX_HOST_LENGTH) {
+            return false;
+        }
+
+        int labels = 0;
+        int labelStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && url.charAt(i) != '.') {
+                char c = url.charAt(i);
+                if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_')) {
+                    return false;
+                }
+                continue;
+            }
+            int labelLength = i - labelStart;
+            if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                    || url.charAt(labelStart) == '-' || url.charAt(i - 1) == '-') {
+                return false;
             }
+            labels++;
+            if (i == end) {
+                return labels >= 2 && isTopLevelDomain(url, labelStart, end);
+            }
+            labelStart = i + 1;
+        }
+        return false;
+    }
 
-            // Validate URL format
-            new URL(url);
-            return URL_PATTERN.matcher(url).matches();
+    // At least two letters, or an internationalised TLD in its "xn--" form
+    private boolean isTopLevelDomain(String url, int start, int end) {
+        if (end - start > 4 && url.regionMatches(true, start, "xn--", 0, 4)) {
+            return true;
+        }
+        if (end - start < 2) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        } catch (Exception e) {
+    private boolean isIpv6Literal(String url, int start, int end) {
+        if (end - start < 2 || end - start > 45) {
             return false;
         }
+        int colons = 0;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                colons++;
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F') || c == '.')) {
+                return false;
+            }
+        }
+        return colons >= 2;
     }
-}
\ No newline at end of file
+}
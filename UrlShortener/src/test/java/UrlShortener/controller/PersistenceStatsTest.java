@@ -0,0 +1,113 @@
+package UrlShortener.controller;
+
+import UrlShortener.config.EndpointQueryStats;
+import UrlShortener.model.Url;
+import UrlShortener.model.User;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.repository.UserRepository;
+import UrlShortener.security.JwtUtil;
+import UrlShortener.utils.UrlFingerprint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"local", "test"})
+class PersistenceStatsTest {
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EndpointQueryStats endpointQueryStats;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.findByEmail("owner@example.com").orElseGet(() -> saveUser("owner@example.com"));
+        userRepository.findByEmail("admin@example.com").orElseGet(() -> saveUser("admin@example.com"));
+        if (urlRepository.findByShortCode("stats01").isEmpty()) {
+            Url url = new Url();
+            url.setShortCode("stats01");
+            url.setOriginalUrl("https://example.com/stats");
+            url.setUrlHash(UrlFingerprint.of("https://example.com/stats"));
+            url.setUser(owner);
+            urlRepository.save(url);
+        }
+    }
+
+    @Test
+    void statsRequireAdmin() throws Exception {
+        mockMvc.perform(get("/api/debug/persistence-stats")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/debug/persistence-stats").header("Authorization", bearer("owner@example.com")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/debug/persistence-stats/reset").header("Authorization", bearer("owner@example.com")))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/api/debug/persistence-stats").header("Authorization", bearer("admin@example.com")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/debug/persistence-stats/reset").header("Authorization", bearer("admin@example.com")))
+                .andExpect(status().isOk());
+    }
+
+    // Hibernate statements per request as tallied by QueryTrackingStatementInspector, including the controller's
+    // user lookup. The JWT filter's own lookup runs before the interceptor and counts as background.
+    @Test
+    void statementsPerRequest() throws Exception {
+        String token = bearer("owner@example.com");
+        // First requests also load dictionaries and query plans
+        requestAll(token);
+        endpointQueryStats.reset();
+        for (int i = 0; i < 3; i++) {
+            requestAll(token);
+        }
+
+        Map<String, Map<String, Object>> stats = endpointQueryStats.snapshot();
+        assertEquals(2.0, stats.get("GET /api/urls").get("statementsPerRequest"));
+        assertEquals(2.0, stats.get("GET /api/urls/top").get("statementsPerRequest"));
+        assertEquals(8.0, stats.get("GET /api/analytics/{shortCode}").get("statementsPerRequest"));
+        assertEquals(0L, stats.get("GET /api/analytics/{shortCode}").get("writes"));
+    }
+
+    private void requestAll(String token) throws Exception {
+        mockMvc.perform(get("/api/urls").header("Authorization", token)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/urls/top").header("Authorization", token)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/analytics/stats01").header("Authorization", token)).andExpect(status().isOk());
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Ue3Nz3N6vKrYb2Fv9sD8eW");
+        return userRepository.save(user);
+    }
+
+    private String bearer(String email) {
+        return "Bearer " + jwtUtil.generateToken(email);
+    }
+}
@@ -0,0 +1,55 @@
+package UrlShortener.dto.response;
+
+import UrlShortener.model.Url;
+import UrlShortener.utils.UrlValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResolvedUrlTest {
+
+    private final UrlValidator urlValidator = new UrlValidator();
+
+    @Test
+    void schemeLessUrlsAcceptedByTheValidatorGetALocation() {
+        String url = "example.com/path?q=1";
+        assertNotNull(urlValidator.extractHost(url));
+        assertEquals("https://example.com/path?q=1", urlValidator.withScheme(url));
+        assertEquals("https://example.com/path?q=1", ResolvedUrl.toLocation(url));
+    }
+
+    @Test
+    void withSchemeKeepsExplicitSchemes() {
+        assertEquals("http://example.com", urlValidator.withScheme("  http://example.com "));
+        assertEquals("HTTPS://example.com", urlValidator.withScheme("HTTPS://example.com"));
+    }
+
+    @Test
+    void toLocationEncodesAndRejects() {
+        assertEquals("https://example.com/%C3%A4", ResolvedUrl.toLocation("https://example.com/ä"));
+        assertNull(ResolvedUrl.toLocation("ftp://example.com/file"));
+        assertNull(ResolvedUrl.toLocation("https://exa mple.com"));
+        assertNull(ResolvedUrl.toLocation(null));
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        LocalDateTime expiresAt = LocalDateTime.of(2030, 1, 2, 3, 4, 5);
+        ResolvedUrl url = new ResolvedUrl(42L, "abc123", "https://example.com/a?b=c", true, expiresAt,
+                Url.RedirectType.PERMANENT_REDIRECT);
+
+        ResolvedUrl decoded = ResolvedUrl.decode("abc123", url.encode());
+
+        assertNotNull(decoded);
+        assertEquals(42L, decoded.getId());
+        assertEquals("https://example.com/a?b=c", decoded.getLocation());
+        assertEquals(expiresAt, decoded.getExpiresAt());
+        assertEquals(url.getExpiresHeader(), decoded.getExpiresHeader());
+        assertEquals(Url.RedirectType.PERMANENT_REDIRECT, decoded.getRedirectType());
+        assertNull(ResolvedUrl.decode("abc123", "not-an-entry"));
+    }
+}
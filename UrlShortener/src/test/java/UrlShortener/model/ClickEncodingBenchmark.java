@@ -0,0 +1,143 @@
+package UrlShortener.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// One batch of clicks (the replayer's default batch size) held as flat ClickRecords, as ClickEvent entities
+// and as Jackson JSON of those entities. Not run by the build; after mvn test-compile:
+//   java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+//       org.openjdk.jmh.Main ClickEncodingBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClickEncodingBenchmark {
+
+    private static final int CLICKS = 1000;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ClickRecord[] clicks;
+    private ByteBuffer records;
+    private List<ClickEvent> events;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ClickEvent.DeviceType[] deviceTypes = ClickEvent.DeviceType.values();
+        clicks = new ClickRecord[CLICKS];
+        for (int i = 0; i < CLICKS; i++) {
+            ClickRecord click = new ClickRecord(9_000_000L + i, random.nextLong(1, 500),
+                    1_760_000_000_000L + i * 37L);
+            click.setIpAddress(i % 4 == 0 ? "2001:db8:" + Integer.toHexString(i) + "::"
+                    : "198.51." + (i & 0xFF) + ".0");
+            click.setDeviceType(deviceTypes[i % deviceTypes.length]);
+            click.setUserAgentId(random.nextInt(1, 2000));
+            click.setReferrerDomainId(i % 3 == 0 ? null : random.nextInt(1, 300));
+            click.setCountryId(random.nextInt(1, 200));
+            click.setCityId(random.nextInt(1, 5000));
+            click.setBrowserId(random.nextInt(1, 40));
+            click.setOperatingSystemId(random.nextInt(1, 20));
+            clicks[i] = click;
+        }
+        records = encodeRecords();
+        events = encodeEntities();
+        json = encodeJson();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeRecords() {
+        ByteBuffer buffer = ByteBuffer.allocate(CLICKS * ClickRecord.BYTES);
+        for (int i = 0; i < CLICKS; i++) {
+            clicks[i].writeTo(buffer, i * ClickRecord.BYTES);
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    public void decodeRecords(Blackhole blackhole) {
+        ClickRecord record = new ClickRecord();
+        for (int i = 0; i < CLICKS; i++) {
+            record.readFrom(records, i * ClickRecord.BYTES);
+            consume(blackhole, record.getId(), record.getUrlId(), record.getIpAddress(), record.getCountryId(),
+                    record.getDeviceType());
+        }
+    }
+
+    // What the direct insert builds per click: the entity, its Url reference and a LocalDateTime
+    @Benchmark
+    public List<ClickEvent> encodeEntities() {
+        List<ClickEvent> batch = new ArrayList<>(CLICKS);
+        for (ClickRecord click : clicks) {
+            Url url = new Url();
+            url.setId(click.getUrlId());
+            ClickEvent event = new ClickEvent(click.getIpAddress(), click.getUserAgentId(),
+                    click.getReferrerDomainId(), url);
+            event.setId(click.getId());
+            event.setCountryId(click.getCountryId());
+            event.setCityId(click.getCityId());
+            event.setDeviceType(click.getDeviceType());
+            event.setBrowserId(click.getBrowserId());
+            event.setOperatingSystemId(click.getOperatingSystemId());
+            event.setClickedAt(click.getClickedAt());
+            batch.add(event);
+        }
+        return batch;
+    }
+
+    // Entities have no wire form of their own; this only reads back the fields the batch writer binds
+    @Benchmark
+    public void decodeEntities(Blackhole blackhole) {
+        for (ClickEvent event : events) {
+            consume(blackhole, event.getId(), event.getUrl().getId(), event.getIpAddress(), event.getCountryId(),
+                    event.getDeviceType());
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return mapper.writeValueAsBytes(events);
+    }
+
+    // The Url is a @JsonBackReference and is not written, so the url id does not survive JSON
+    @Benchmark
+    public void decodeJson(Blackhole blackhole) throws IOException {
+        for (ClickEvent event : mapper.readValue(json, ClickEvent[].class)) {
+            consume(blackhole, event.getId(), 0L, event.getIpAddress(), event.getCountryId(),
+                    event.getDeviceType());
+        }
+    }
+
+    private static void consume(Blackhole blackhole, long id, long urlId, String ipAddress, Integer countryId,
+                                ClickEvent.DeviceType deviceType) {
+        blackhole.consume(id);
+        blackhole.consume(urlId);
+        blackhole.consume(ipAddress);
+        blackhole.consume(countryId);
+        blackhole.consume(deviceType);
+    }
+}
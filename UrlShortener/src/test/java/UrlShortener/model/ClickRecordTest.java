@@ -0,0 +1,110 @@
+package UrlShortener.model;
+
+import UrlShortener.utils.IpAddress;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClickRecordTest {
+
+    @Test
+    void roundTripsEveryField() {
+        ClickRecord record = new ClickRecord(Long.MAX_VALUE, 42L, 1_760_000_000_123L);
+        record.setIpAddress("203.0.113.77");
+        record.setDeviceType(ClickEvent.DeviceType.values()[ClickEvent.DeviceType.values().length - 1]);
+        record.setUserAgentId(1);
+        record.setReferrerDomainId(2);
+        record.setCountryId(3);
+        record.setCityId(4);
+        record.setBrowserId(5);
+        record.setOperatingSystemId(Integer.MAX_VALUE);
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 * ClickRecord.BYTES);
+        record.writeTo(buffer, ClickRecord.BYTES);
+        ClickRecord read = new ClickRecord().readFrom(buffer, ClickRecord.BYTES);
+
+        assertEquals(0, buffer.position());
+        assertEquals(Long.MAX_VALUE, read.getId());
+        assertEquals(42L, read.getUrlId());
+        assertEquals(42L, ClickRecord.urlIdAt(buffer, ClickRecord.BYTES));
+        assertEquals(1_760_000_000_123L, read.getClickedAtMillis());
+        assertEquals("203.0.113.0", read.getIpAddress());
+        assertEquals(record.getDeviceType(), read.getDeviceType());
+        assertEquals(1, read.getUserAgentId());
+        assertEquals(2, read.getReferrerDomainId());
+        assertEquals(3, read.getCountryId());
+        assertEquals(4, read.getCityId());
+        assertEquals(5, read.getBrowserId());
+        assertEquals(Integer.MAX_VALUE, read.getOperatingSystemId());
+    }
+
+    @Test
+    void missingValuesReadBackAsNull() {
+        ClickRecord record = new ClickRecord(1L, 2L, 3L);
+        record.setIpAddress("not an address");
+
+        ByteBuffer buffer = ByteBuffer.allocate(ClickRecord.BYTES);
+        record.writeTo(buffer, 0);
+        ClickRecord read = new ClickRecord().readFrom(buffer, 0);
+
+        assertNull(read.getIpAddress());
+        assertFalse(read.getIp(new IpAddress()));
+        assertNull(read.getDeviceType());
+        assertNull(read.getUserAgentId());
+        assertNull(read.getReferrerDomainId());
+        assertNull(read.getCountryId());
+        assertNull(read.getCityId());
+        assertNull(read.getBrowserId());
+        assertNull(read.getOperatingSystemId());
+    }
+
+    @Test
+    void storesOnlyTheIpv6Network() {
+        ClickRecord record = new ClickRecord();
+        record.setIpAddress("2001:db8:abcd:12:3456:789a:bcde:f012");
+
+        ByteBuffer buffer = ByteBuffer.allocate(ClickRecord.BYTES);
+        record.writeTo(buffer, 0);
+        IpAddress read = new IpAddress();
+        assertTrue(new ClickRecord().readFrom(buffer, 0).getIp(read));
+
+        IpAddress expected = new IpAddress();
+        expected.parse("2001:db8:abcd::");
+        assertEquals(expected, read);
+        assertFalse(read.isIpv4());
+    }
+
+    // A reused reader walks a buffer without allocating, which ClickBatchWriter and LiveAnalyticsService rely on
+    @Test
+    void readingRecordsAllocatesNothing() {
+        int records = 10_000;
+        ByteBuffer buffer = ByteBuffer.allocate(records * ClickRecord.BYTES);
+        ClickRecord record = new ClickRecord();
+        record.setIpAddress("198.51.100.9");
+        for (int i = 0; i < records; i++) {
+            record.setUrlId(i);
+            record.writeTo(buffer, i * ClickRecord.BYTES);
+        }
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        ClickRecord reader = new ClickRecord();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long checksum = 0;
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < records; i++) {
+                checksum += reader.readFrom(buffer, i * ClickRecord.BYTES).getUrlId();
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(checksum > 0);
+        assertTrue(allocated < 4_096, "allocated " + allocated + " bytes");
+    }
+}
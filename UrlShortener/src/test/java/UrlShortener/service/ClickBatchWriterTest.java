@@ -0,0 +1,125 @@
+package UrlShortener.service;
+
+import UrlShortener.model.Url;
+import UrlShortener.model.User;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.repository.UserRepository;
+import UrlShortener.utils.UrlFingerprint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles({"local", "test"})
+class ClickBatchWriterTest {
+
+    private static final String REFERRER = "https://news.example.org/story";
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private ClickBatchWriter clickBatchWriter;
+
+    @Autowired
+    private ReferrerService referrerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void batchDeliveredTwiceIsCountedOnce() {
+        long urlId = saveUrl("batch01");
+        LocalDateTime clickedAt = LocalDateTime.of(2026, 4, 2, 9, 30);
+        List<ClickJournal.Entry> batch = new ArrayList<>();
+        for (long id = 9_100_001L; id <= 9_100_003L; id++) {
+            batch.add(entry(id, urlId, clickedAt));
+        }
+
+        clickBatchWriter.write(batch);
+        clickBatchWriter.write(batch);
+
+        assertEquals(3L, clicks(urlId));
+        assertEquals(3L, referrerClicks(urlId, clickedAt.toLocalDate()));
+    }
+
+    @Test
+    void retriedBatchOnlyCountsClicksNotYetStored() {
+        long urlId = saveUrl("batch02");
+        LocalDateTime clickedAt = LocalDateTime.of(2026, 4, 3, 18, 0);
+        List<ClickJournal.Entry> batch = new ArrayList<>();
+        for (long id = 9_200_001L; id <= 9_200_004L; id++) {
+            batch.add(entry(id, urlId, clickedAt));
+        }
+
+        // The first half committed before the batch failed
+        clickBatchWriter.write(batch.subList(0, 2));
+        clickBatchWriter.write(batch);
+
+        assertEquals(4L, clicks(urlId));
+        assertEquals(4L, referrerClicks(urlId, clickedAt.toLocalDate()));
+    }
+
+    @Test
+    void clicksJournaledWithoutIdGetOneWhenWritten() {
+        long urlId = saveUrl("batch03");
+        LocalDateTime clickedAt = LocalDateTime.of(2026, 4, 4, 7, 15);
+
+        clickBatchWriter.write(List.of(entry(0L, urlId, clickedAt), entry(0L, urlId, clickedAt)));
+
+        assertEquals(2L, clicks(urlId));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM click_events WHERE url_id = ? AND id = 0",
+                Long.class, urlId));
+        assertEquals(2L, referrerClicks(urlId, clickedAt.toLocalDate()));
+    }
+
+    private long clicks(long urlId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM click_events WHERE url_id = ?", Long.class, urlId);
+    }
+
+    private long referrerClicks(long urlId, LocalDate day) {
+        return jdbcTemplate.queryForObject("SELECT clicks FROM referrer_rollups "
+                        + "WHERE url_id = ? AND rollup_date = ? AND referrer_domain_id = ?", Long.class,
+                urlId, day, referrerService.domainIdOf(REFERRER));
+    }
+
+    private static ClickJournal.Entry entry(long id, long urlId, LocalDateTime clickedAt) {
+        long millis = clickedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return ClickJournal.decode(ByteBuffer.wrap(
+                ClickJournal.encode(id, urlId, millis, "203.0.113.7", "Mozilla/5.0", REFERRER)));
+    }
+
+    private long saveUrl(String shortCode) {
+        User owner = userRepository.findByEmail("batches@example.com").orElseGet(() -> {
+            User user = new User();
+            user.setEmail("batches@example.com");
+            user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Ue3Nz3N6vKrYb2Fv9sD8eW");
+            return userRepository.save(user);
+        });
+        Url url = new Url();
+        url.setShortCode(shortCode);
+        url.setOriginalUrl("https://example.com/" + shortCode);
+        url.setUrlHash(UrlFingerprint.of("https://example.com/" + shortCode));
+        url.setUser(owner);
+        return urlRepository.save(url).getId();
+    }
+}
@@ -0,0 +1,162 @@
+package UrlShortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+// Against a bare H2 urls table; Redis is a mock
+class ClickCounterBufferTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RedisBatchService redisBatchService;
+    private SimpleMeterRegistry meterRegistry;
+    private ClickCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:counter-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE urls (id BIGINT PRIMARY KEY, click_count BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO urls VALUES (1, 10), (2, 0)");
+
+        redisBatchService = mock(RedisBatchService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new ClickCounterBuffer(dataSource, meterRegistry);
+        ReflectionTestUtils.setField(buffer, "redisBatchService", redisBatchService);
+        ReflectionTestUtils.setField(buffer, "maxPending", 1_000);
+        ReflectionTestUtils.setField(buffer, "dailyRetentionDays", 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void flushAppliesDeltasInOneBatch() {
+        buffer.increment(1L, "abc1234");
+        buffer.increment(1L, "abc1234");
+        buffer.increment(2L, "xyz9876");
+        assertEquals(2, buffer.pendingClicks(1L));
+
+        buffer.flush();
+
+        assertEquals(12, clickCount(1));
+        assertEquals(1, clickCount(2));
+        assertEquals(0, buffer.pendingClicks(1L));
+        assertEquals(2, meterRegistry.counter("clicks.counter.rows_updated").count());
+        verify(redisBatchService).incrementHashFields(ClickCounterBuffer.dailyClicksKey(LocalDate.now()),
+                Map.of("abc1234", 2L, "xyz9876", 1L), Duration.ofDays(8));
+    }
+
+    @Test
+    void idleLinksAreDroppedOnTheNextFlush() {
+        buffer.increment(1L, "abc1234");
+        buffer.flush();
+        assertEquals(1.0, pendingLinks());
+
+        buffer.flush();
+
+        assertEquals(0.0, pendingLinks());
+        assertEquals(11, clickCount(1));
+    }
+
+    @Test
+    void failedUpdateKeepsDeltasForTheNextFlush() {
+        buffer.increment(1L, "abc1234");
+        jdbcTemplate.execute("ALTER TABLE urls RENAME TO urls_away");
+
+        buffer.flush();
+
+        assertEquals(1, buffer.pendingClicks(1L));
+        verify(redisBatchService, never()).incrementHashFields(anyString(), anyMap(), any());
+
+        jdbcTemplate.execute("ALTER TABLE urls_away RENAME TO urls");
+        buffer.increment(1L, "abc1234");
+        buffer.flush();
+
+        assertEquals(12, clickCount(1));
+        assertEquals(0, buffer.pendingClicks(1L));
+    }
+
+    @Test
+    void redisFailureDoesNotReplayDurableCounts() {
+        doThrow(new IllegalStateException("redis down"))
+                .when(redisBatchService).incrementHashFields(anyString(), anyMap(), any());
+        buffer.increment(1L, "abc1234");
+
+        buffer.flush();
+        buffer.flush();
+
+        assertEquals(11, clickCount(1));
+    }
+
+    // Increments racing flushes, including flushes that retire idle entries, must not lose or double clicks
+    @Test
+    void concurrentIncrementsAreNeverLost() throws InterruptedException {
+        int threads = 4;
+        int clicksPerThread = 20_000;
+        AtomicBoolean done = new AtomicBoolean();
+        Thread flusher = new Thread(() -> {
+            while (!done.get()) {
+                buffer.flush();
+            }
+        });
+        flusher.start();
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long urlId = t % 2 + 1;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < clicksPerThread; i++) {
+                    buffer.increment(urlId, "code" + urlId);
+                    if (i % 1_000 == 0) {
+                        // Let the link go idle so the flusher retires it
+                        Thread.yield();
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.set(true);
+        flusher.join();
+        buffer.flush();
+
+        assertEquals(10 + 2L * clicksPerThread, clickCount(1));
+        assertEquals(2L * clicksPerThread, clickCount(2));
+    }
+
+    private long clickCount(long urlId) {
+        return jdbcTemplate.queryForObject("SELECT click_count FROM urls WHERE id = ?", Long.class, urlId);
+    }
+
+    private double pendingLinks() {
+        return meterRegistry.get("clicks.counter.pending_links").gauge().value();
+    }
+}
@@ -0,0 +1,164 @@
+package UrlShortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ClickJournalReplayerTest {
+
+    @TempDir
+    private Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClickJournal journal;
+    private ClickBatchWriter writer;
+    private final List<Long> written = new ArrayList<>();
+    private RuntimeException failure;
+    private long failingId = -1;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = new ClickJournal(meterRegistry);
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        // Three records per segment
+        ReflectionTestUtils.setField(journal, "segmentBytes", 200);
+        journal.open();
+
+        writer = mock(ClickBatchWriter.class);
+        doAnswer(invocation -> {
+            List<ClickJournal.Entry> entries = invocation.getArgument(0);
+            if (failure != null && entries.stream().anyMatch(entry -> entry.getId() == failingId)) {
+                throw failure;
+            }
+            entries.forEach(entry -> written.add(entry.getId()));
+            return null;
+        }).when(writer).write(anyList());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+    }
+
+    @Test
+    void checkpointSurvivesRestart() throws IOException {
+        append(1, 5);
+        replayer().replay();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), written);
+        assertTrue(Files.readString(dir.resolve("checkpoint")).startsWith("2 "));
+        // The first segment is wholly replayed and deleted
+        assertFalse(Files.exists(dir.resolve(String.format("%020d.seg", 1))));
+
+        append(6, 7);
+        written.clear();
+        replayer().replay();
+
+        assertEquals(List.of(6L, 7L), written);
+        assertEquals(7.0, meterRegistry.counter("clicks.journal.replayed").count());
+    }
+
+    @Test
+    void unreadableCheckpointReplaysFromTheStart() throws IOException {
+        append(1, 2);
+        Files.writeString(dir.resolve("checkpoint"), "garbage");
+
+        replayer().replay();
+
+        assertEquals(List.of(1L, 2L), written);
+    }
+
+    @Test
+    void poisonRecordIsDeadLetteredAfterMaxAttempts() throws IOException {
+        append(1, 4);
+        failure = new DataIntegrityViolationException("bad row");
+        failingId = 2;
+        ClickJournalReplayer replayer = replayer();
+
+        replayer.replay();
+        replayer.replay();
+        assertTrue(written.isEmpty());
+
+        replayer.replay();
+
+        assertEquals(List.of(1L, 3L, 4L), written);
+        assertEquals(1.0, meterRegistry.counter("clicks.journal.dead_lettered").count());
+        try (Stream<Path> files = Files.list(dir.resolve("dead-letter"))) {
+            List<Path> deadLetters = files.toList();
+            assertEquals(1, deadLetters.size());
+            assertEquals(List.of(2L), deadLetterIds(deadLetters.get(0)));
+        }
+    }
+
+    @Test
+    void transientFailureNeverDeadLetters() throws IOException {
+        append(1, 2);
+        failure = new TransientDataAccessResourceException("database down");
+        failingId = 1;
+        ClickJournalReplayer replayer = replayer();
+
+        for (int i = 0; i < 10; i++) {
+            replayer.replay();
+        }
+
+        assertTrue(written.isEmpty());
+        assertFalse(Files.exists(dir.resolve("dead-letter")));
+        assertFalse(Files.exists(dir.resolve("checkpoint")));
+
+        failure = null;
+        replayer.replay();
+        assertEquals(List.of(1L, 2L), written);
+    }
+
+    private ClickJournalReplayer replayer() {
+        ClickJournalReplayer replayer = new ClickJournalReplayer(meterRegistry);
+        ReflectionTestUtils.setField(replayer, "clickJournal", journal);
+        ReflectionTestUtils.setField(replayer, "clickBatchWriter", writer);
+        ReflectionTestUtils.setField(replayer, "dir", dir.toString());
+        ReflectionTestUtils.setField(replayer, "batchSize", 100);
+        ReflectionTestUtils.setField(replayer, "maxBatchesPerRun", 20);
+        ReflectionTestUtils.setField(replayer, "maxAttempts", 3);
+        replayer.loadCheckpoint();
+        return replayer;
+    }
+
+    private void append(long fromId, long toId) {
+        for (long id = fromId; id <= toId; id++) {
+            assertTrue(journal.append(id, 100 + id, 1_760_000_000_000L + id, "203.0.113.1", "agent", null));
+        }
+    }
+
+    // Dead letters use the journal's record layout: int length | int crc | payload
+    private static List<Long> deadLetterIds(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        List<Long> ids = new ArrayList<>();
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            buffer.getInt();
+            ByteBuffer payload = buffer.slice(buffer.position(), length);
+            ids.add(ClickJournal.decode(payload).getId());
+            buffer.position(buffer.position() + length);
+        }
+        return ids;
+    }
+}
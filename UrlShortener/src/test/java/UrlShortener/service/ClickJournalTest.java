@@ -0,0 +1,140 @@
+package UrlShortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClickJournalTest {
+
+    // Room for three of the records below per segment
+    private static final int SEGMENT_BYTES = 200;
+
+    @TempDir
+    private Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void payloadRoundTrip() {
+        String longAgent = "a".repeat(2_000);
+
+        ClickJournal.Entry entry = ClickJournal.decode(ByteBuffer.wrap(
+                ClickJournal.encode(7L, 42L, 1_760_000_000_000L, "2001:db8::1", longAgent, null)));
+
+        assertEquals(7L, entry.getId());
+        assertEquals(42L, entry.getUrlId());
+        assertEquals(1_760_000_000_000L, entry.getClickedAtMillis());
+        assertEquals("2001:db8::1", entry.getIpAddress());
+        assertEquals(512, entry.getUserAgent().length());
+        assertNull(entry.getReferrer());
+    }
+
+    @Test
+    void readsAcrossSealedSegments() throws IOException {
+        ClickJournal journal = open();
+        for (long id = 1; id <= 7; id++) {
+            assertTrue(append(journal, id));
+        }
+
+        ClickJournal.Batch first = journal.read(1, 0, 4);
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(first));
+        assertEquals(2, first.getNextSegment());
+
+        ClickJournal.Batch rest = journal.read(first.getNextSegment(), first.getNextOffset(), 100);
+        assertEquals(List.of(5L, 6L, 7L), ids(rest));
+        assertEquals(3, rest.getNextSegment());
+
+        ClickJournal.Batch none = journal.read(rest.getNextSegment(), rest.getNextOffset(), 100);
+        assertTrue(none.getEntries().isEmpty());
+        assertEquals(rest.getNextOffset(), none.getNextOffset());
+        assertEquals(0, journal.backlogBytes(rest.getNextSegment(), rest.getNextOffset()));
+        journal.close();
+    }
+
+    @Test
+    void recordWithBadChecksumEndsItsSegment() throws IOException {
+        ClickJournal journal = open();
+        for (long id = 1; id <= 5; id++) {
+            append(journal, id);
+        }
+        journal.close();
+
+        // Flip one payload byte of the second record of the sealed first segment
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            long secondPayload = 8L + length.flip().getInt() + 8 + 3;
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, secondPayload);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~one.get(0)}), secondPayload);
+        }
+
+        ClickJournal reopened = open();
+        assertEquals(List.of(1L, 4L, 5L), ids(reopened.read(1, 0, 100)));
+        assertEquals(1.0, meterRegistry.counter("clicks.journal.corrupt_records").count());
+        reopened.close();
+    }
+
+    @Test
+    void reopenResumesAfterLastCompleteRecord() throws IOException {
+        ClickJournal journal = open();
+        append(journal, 1);
+        ClickJournal.Batch before = journal.read(1, 0, 100);
+        journal.close();
+
+        // A torn record: length written, payload and checksum never were
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 30), before.getNextOffset());
+        }
+
+        ClickJournal reopened = open();
+        append(reopened, 2);
+        assertEquals(List.of(1L, 2L), ids(reopened.read(1, 0, 100)));
+        reopened.close();
+    }
+
+    @Test
+    void disabledJournalRefusesAppends() throws IOException {
+        ClickJournal journal = new ClickJournal(meterRegistry);
+        ReflectionTestUtils.setField(journal, "enabled", false);
+        journal.open();
+
+        assertFalse(journal.isEnabled());
+        assertFalse(append(journal, 1));
+    }
+
+    private ClickJournal open() throws IOException {
+        ClickJournal journal = new ClickJournal(meterRegistry);
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", SEGMENT_BYTES);
+        journal.open();
+        return journal;
+    }
+
+    private Path segment(long sequence) {
+        return dir.resolve(String.format("%020d.seg", sequence));
+    }
+
+    private static boolean append(ClickJournal journal, long id) {
+        return journal.append(id, 100 + id, 1_760_000_000_000L + id, "203.0.113.1", "agent", null);
+    }
+
+    private static List<Long> ids(ClickJournal.Batch batch) {
+        return batch.getEntries().stream().map(ClickJournal.Entry::getId).toList();
+    }
+}
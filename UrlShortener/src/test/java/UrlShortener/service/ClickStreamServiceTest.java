@@ -0,0 +1,138 @@
+package UrlShortener.service;
+
+import UrlShortener.utils.InMemoryClickStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ClickStreamServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClickStreamService service;
+    private InMemoryClickStream stream;
+    private final List<Long> written = new ArrayList<>();
+    private final List<Integer> attempts = new ArrayList<>();
+    // The failure for a batch, or null to write it
+    private Function<List<ClickJournal.Entry>, RuntimeException> failure = entries -> null;
+
+    @BeforeEach
+    void setUp() {
+        ClickBatchWriter writer = mock(ClickBatchWriter.class);
+        doAnswer(invocation -> {
+            List<ClickJournal.Entry> entries = invocation.getArgument(0);
+            attempts.add(entries.size());
+            RuntimeException error = failure.apply(entries);
+            if (error != null) {
+                throw error;
+            }
+            entries.forEach(entry -> written.add(entry.getId()));
+            return null;
+        }).when(writer).write(anyList());
+
+        service = new ClickStreamService(meterRegistry, 1);
+        ReflectionTestUtils.setField(service, "clickBatchWriter", writer);
+        ReflectionTestUtils.setField(service, "producerEnabled", true);
+        ReflectionTestUtils.setField(service, "consumerEnabled", true);
+        ReflectionTestUtils.setField(service, "backend", "memory");
+        ReflectionTestUtils.setField(service, "group", "click-ingest");
+        ReflectionTestUtils.setField(service, "consumerName", "node-1");
+        ReflectionTestUtils.setField(service, "maxLength", 1000L);
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "maxBatchesPerPoll", 20);
+        // Pending messages can be claimed at once
+        ReflectionTestUtils.setField(service, "claimIdleMs", 0L);
+        ReflectionTestUtils.setField(service, "maxDeliveries", 3);
+        ReflectionTestUtils.setField(service, "publishTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "publishBackoffMs", 1000L);
+        service.init();
+        stream = (InMemoryClickStream) ReflectionTestUtils.getField(service, "stream");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void failedBatchStaysPendingUntilReclaimed() {
+        publish(1, 2, 3);
+        failure = entries -> new DataIntegrityViolationException("constraint violated");
+
+        service.consume();
+
+        assertTrue(written.isEmpty());
+        assertEquals(3, stream.pending("click-ingest"));
+
+        failure = entries -> null;
+        service.reclaim();
+
+        assertEquals(List.of(1L, 2L, 3L), written);
+        assertEquals(0, stream.pending("click-ingest"));
+        assertEquals(3.0, meterRegistry.counter("clicks.stream.reclaimed").count());
+        assertTrue(stream.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void poisonMessageIsDeadLetteredAfterMaxDeliveries() {
+        publish(1, 2, 3);
+        failure = entries -> entries.stream().anyMatch(entry -> entry.getId() == 2)
+                ? new DataIntegrityViolationException("constraint violated") : null;
+
+        service.consume();
+        // Second delivery: the batch fails again, the other two are written one at a time and acknowledged
+        service.reclaim();
+
+        assertEquals(List.of(1L, 3L), written);
+        assertEquals(1, stream.pending("click-ingest"));
+        assertTrue(stream.getDeadLetters().isEmpty());
+
+        // Third delivery reaches maxDeliveries
+        service.reclaim();
+
+        assertEquals(List.of(1L, 3L), written);
+        assertEquals(0, stream.pending("click-ingest"));
+        assertEquals(1, stream.getDeadLetters().size());
+        assertEquals(3, stream.getDeadLetters().get(0).getDeliveries());
+        assertEquals(1.0, meterRegistry.counter("clicks.stream.dead_lettered").count());
+    }
+
+    @Test
+    void transientFailureStopsReclaimWithoutDeadLettering() {
+        ReflectionTestUtils.setField(service, "maxDeliveries", 1);
+        publish(1, 2, 3);
+        failure = entries -> new DataIntegrityViolationException("constraint violated");
+        service.consume();
+
+        // The whole batch fails for good, then the database goes away while retrying message by message
+        attempts.clear();
+        failure = entries -> entries.size() > 1
+                ? new DataIntegrityViolationException("constraint violated")
+                : new TransientDataAccessResourceException("connection lost");
+        service.reclaim();
+
+        assertEquals(List.of(3, 1), attempts);
+        assertTrue(written.isEmpty());
+        assertEquals(3, stream.pending("click-ingest"));
+        assertTrue(stream.getDeadLetters().isEmpty());
+    }
+
+    private void publish(long... ids) {
+        for (long id : ids) {
+            assertTrue(service.publish(id, 42L, 1_760_000_000_000L + id, "203.0.113.0", "Mozilla/5.0", null));
+        }
+    }
+}
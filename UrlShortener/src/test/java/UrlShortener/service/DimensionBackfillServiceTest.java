@@ -0,0 +1,83 @@
+package UrlShortener.service;
+
+import UrlShortener.model.DimensionValue.Dimension;
+import UrlShortener.model.Url;
+import UrlShortener.model.User;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.repository.UserRepository;
+import UrlShortener.utils.UrlFingerprint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles({"local", "test"})
+class DimensionBackfillServiceTest {
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private DimensionBackfillService dimensionBackfillService;
+
+    @Autowired
+    private DimensionDictionaryService dimensionDictionaryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void backfillsLegacyColumnAcrossPages() {
+        jdbcTemplate.execute("ALTER TABLE click_events ADD COLUMN IF NOT EXISTS country VARCHAR(100)");
+        long urlId = saveUrl("dims01");
+        List<String> countries = List.of("Norway", "Chile", "Norway", "Kenya", "Chile");
+        for (String country : countries) {
+            Long id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM click_events", Long.class);
+            jdbcTemplate.update("INSERT INTO click_events (id, url_id, country, clicked_at) VALUES (?, ?, ?, ?)",
+                    id, urlId, country, Timestamp.valueOf(LocalDateTime.now()));
+        }
+
+        // Smaller than the row count, so the backfill has to page
+        ReflectionTestUtils.setField(dimensionBackfillService, "batchSize", 2);
+        dimensionBackfillService.backfill();
+
+        List<Object[]> rows = jdbcTemplate.query("SELECT country, country_id FROM click_events WHERE url_id = ?",
+                (rs, i) -> new Object[]{rs.getString(1), rs.getInt(2)}, urlId);
+        assertEquals(countries.size(), rows.size());
+        for (Object[] row : rows) {
+            assertEquals(dimensionDictionaryService.idOf(Dimension.COUNTRY, (String) row[0]), row[1]);
+        }
+    }
+
+    private long saveUrl(String shortCode) {
+        User owner = userRepository.findByEmail("dims@example.com").orElseGet(() -> {
+            User user = new User();
+            user.setEmail("dims@example.com");
+            user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Ue3Nz3N6vKrYb2Fv9sD8eW");
+            return userRepository.save(user);
+        });
+        Url url = new Url();
+        url.setShortCode(shortCode);
+        url.setOriginalUrl("https://example.com/" + shortCode);
+        url.setUrlHash(UrlFingerprint.of("https://example.com/" + shortCode));
+        url.setUser(owner);
+        return urlRepository.save(url).getId();
+    }
+}
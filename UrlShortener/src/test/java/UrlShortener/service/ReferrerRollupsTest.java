@@ -0,0 +1,121 @@
+package UrlShortener.service;
+
+import UrlShortener.model.Url;
+import UrlShortener.model.User;
+import UrlShortener.repository.UrlRepository;
+import UrlShortener.repository.UserRepository;
+import UrlShortener.utils.UrlFingerprint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs on H2 (local profile), so the upserts take the MERGE form
+@SpringBootTest
+@ActiveProfiles({"local", "test"})
+class ReferrerRollupsTest {
+
+    @MockitoBean
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private RollupWriter rollupWriter;
+
+    @Autowired
+    private ReferrerBackfillService referrerBackfillService;
+
+    @Autowired
+    private ReferrerService referrerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void upsertAddsToExistingRow() {
+        long urlId = saveUrl("rollup01");
+        LocalDate day = LocalDate.of(2026, 3, 1);
+
+        rollupWriter.addReferrerClicks(urlId, day, 7, 2);
+        rollupWriter.addReferrerClicks(urlId, day, 7, 3);
+        rollupWriter.addReferrerClicks(urlId, day, 8, 1);
+        rollupWriter.addBotClicks(urlId, day, "CRAWLER", 4);
+        rollupWriter.addBotClicks(urlId, day, "CRAWLER", 1);
+
+        assertEquals(5L, referrerClicks(urlId, day, 7));
+        assertEquals(1L, referrerClicks(urlId, day, 8));
+        assertEquals(5L, jdbcTemplate.queryForObject("SELECT clicks FROM bot_click_rollups "
+                + "WHERE url_id = ? AND rollup_date = ? AND category = 'CRAWLER'", Long.class, urlId, day));
+    }
+
+    @Test
+    void backfillRollsUpPastDaysWithoutRollups() {
+        jdbcTemplate.execute("ALTER TABLE click_events ADD COLUMN IF NOT EXISTS referrer VARCHAR(500)");
+        long urlId = saveUrl("rollup02");
+        LocalDate twoDaysAgo = LocalDate.now().minusDays(2);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+
+        insertClick(urlId, twoDaysAgo, "https://www.google.com/search?q=x");
+        insertClick(urlId, twoDaysAgo, "https://www.google.co.uk/");
+        insertClick(urlId, twoDaysAgo, null);
+        // Already rolled up: left as it is
+        insertClick(urlId, yesterday, null);
+        rollupWriter.addReferrerClicks(urlId, yesterday, ReferrerService.DIRECT_DOMAIN_ID, 1);
+        // Today is written live
+        insertClick(urlId, LocalDate.now(), null);
+
+        referrerBackfillService.backfill();
+        referrerBackfillService.backfill();
+
+        int google = referrerService.domainIdOf("https://www.google.com/");
+        assertEquals(1L, referrerClicks(urlId, twoDaysAgo, google));
+        assertEquals(1L, referrerClicks(urlId, twoDaysAgo, referrerService.domainIdOf("https://google.co.uk/")));
+        assertEquals(1L, referrerClicks(urlId, twoDaysAgo, ReferrerService.DIRECT_DOMAIN_ID));
+        assertEquals(1L, referrerClicks(urlId, yesterday, ReferrerService.DIRECT_DOMAIN_ID));
+        assertEquals(0L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM referrer_rollups "
+                + "WHERE url_id = ? AND rollup_date = ?", Long.class, urlId, LocalDate.now()));
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM click_events "
+                + "WHERE url_id = ? AND referrer_domain_id IS NOT NULL", Long.class, urlId));
+    }
+
+    private long referrerClicks(long urlId, LocalDate day, int domainId) {
+        return jdbcTemplate.queryForObject("SELECT clicks FROM referrer_rollups "
+                + "WHERE url_id = ? AND rollup_date = ? AND referrer_domain_id = ?", Long.class, urlId, day, domainId);
+    }
+
+    private void insertClick(long urlId, LocalDate day, String referrer) {
+        Long id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM click_events", Long.class);
+        jdbcTemplate.update("INSERT INTO click_events (id, url_id, referrer, clicked_at) VALUES (?, ?, ?, ?)",
+                id, urlId, referrer, Timestamp.valueOf(LocalDateTime.of(day, LocalTime.NOON)));
+    }
+
+    private long saveUrl(String shortCode) {
+        User owner = userRepository.findByEmail("rollups@example.com").orElseGet(() -> {
+            User user = new User();
+            user.setEmail("rollups@example.com");
+            user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Ue3Nz3N6vKrYb2Fv9sD8eW");
+            return userRepository.save(user);
+        });
+        Url url = new Url();
+        url.setShortCode(shortCode);
+        url.setOriginalUrl("https://example.com/" + shortCode);
+        url.setUrlHash(UrlFingerprint.of("https://example.com/" + shortCode));
+        url.setUser(owner);
+        return urlRepository.save(url).getId();
+    }
+}
@@ -0,0 +1,124 @@
+package UrlShortener.utils;
+
+import UrlShortener.model.ClickEvent;
+import UrlShortener.model.ClickRecord;
+import UrlShortener.utils.ClickArchiveFile.Column;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClickArchiveFileTest {
+
+    private static final long START = 1_760_000_000_000L;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void roundTripsRowsAcrossRowGroups() throws IOException {
+        Path path = dir.resolve("2026-01.clk");
+        List<ClickRecord> written = new ArrayList<>();
+        try (ClickArchiveFile.Writer writer = ClickArchiveFile.create(path, 4)) {
+            for (long urlId = 1; urlId <= 5; urlId++) {
+                for (int i = 0; i < urlId; i++) {
+                    ClickRecord record = new ClickRecord(urlId * 100 + i, urlId, START + urlId * 60_000 + i);
+                    record.setIpAddress(i % 2 == 0 ? "198.51.100." + i : "2001:db8::" + i);
+                    record.setUserAgentId(i + 1);
+                    record.setReferrerDomainId(i % 2 == 0 ? null : 9);
+                    record.setCountryId(3);
+                    record.setCityId(null);
+                    record.setDeviceType(ClickEvent.DeviceType.values()[i % ClickEvent.DeviceType.values().length]);
+                    record.setBrowserId(7);
+                    record.setOperatingSystemId(8);
+                    writer.add(record);
+                    written.add(record);
+                }
+            }
+            writer.finish();
+        }
+
+        try (ClickArchiveFile file = ClickArchiveFile.open(path)) {
+            assertEquals(15, file.getRowCount());
+            assertEquals(4, file.getRowGroupCount());
+            assertArrayEquals(new long[]{1, 2, 3, 4, 5}, file.distinctUrlIds());
+
+            // Link 4 spans two row groups
+            List<Long> ids = new ArrayList<>();
+            file.scan(4, START, START + 3_600_000, EnumSet.allOf(Column.class), (rows, from, to) -> {
+                for (int i = from; i < to; i++) {
+                    ClickRecord expected = find(written, rows.getLongs(Column.ID)[i]);
+                    assertEquals(expected.getUrlId(), rows.getLongs(Column.URL_ID)[i]);
+                    assertEquals(expected.getClickedAtMillis(), rows.getLongs(Column.CLICKED_AT)[i]);
+                    assertEquals(expected.getIpAddress(), rows.getStrings(Column.IP_ADDRESS)[i]);
+                    assertEquals(expected.getUserAgentId(), rows.getInts(Column.USER_AGENT_ID)[i]);
+                    assertEquals(zeroIfNull(expected.getReferrerDomainId()), rows.getInts(Column.REFERRER_DOMAIN_ID)[i]);
+                    assertEquals(0, rows.getInts(Column.CITY_ID)[i]);
+                    assertEquals(expected.getDeviceType().ordinal() + 1, rows.getInts(Column.DEVICE_TYPE)[i]);
+                    assertEquals(8, rows.getInts(Column.OPERATING_SYSTEM_ID)[i]);
+                    ids.add(rows.getLongs(Column.ID)[i]);
+                }
+            });
+            assertEquals(List.of(400L, 401L, 402L, 403L), ids);
+        }
+    }
+
+    @Test
+    void scanDecodesOnlyRequestedColumnsAndSkipsOtherLinks() throws IOException {
+        Path path = dir.resolve("2026-02.clk");
+        try (ClickArchiveFile.Writer writer = ClickArchiveFile.create(path, 2)) {
+            writer.add(new ClickRecord(1, 10, START));
+            writer.add(new ClickRecord(2, 10, START + 1));
+            writer.add(new ClickRecord(3, 20, START + 2));
+            writer.finish();
+        }
+
+        try (ClickArchiveFile file = ClickArchiveFile.open(path)) {
+            assertFalse(file.mayContain(25, START, START + 10));
+            assertFalse(file.mayContain(10, START + 10, START + 20));
+            assertTrue(file.mayContain(20, START, START + 10));
+
+            int[] visits = new int[1];
+            file.scan(20, START, START + 10, Set.of(Column.CLICKED_AT), (rows, from, to) -> {
+                visits[0]++;
+                assertEquals(1, to - from);
+                assertEquals(START + 2, rows.getLongs(Column.CLICKED_AT)[from]);
+                assertNull(rows.getLongs(Column.ID));
+                assertNull(rows.getStrings(Column.IP_ADDRESS));
+            });
+            assertEquals(1, visits[0]);
+
+            // Within the file's url id range, but no rows of its own
+            file.scan(15, START, START + 10, Set.of(Column.ID), (rows, from, to) -> visits[0]++);
+            assertEquals(1, visits[0]);
+        }
+    }
+
+    @Test
+    void rejectsRowsOutOfUrlIdOrder() throws IOException {
+        try (ClickArchiveFile.Writer writer = ClickArchiveFile.create(dir.resolve("bad.clk"), 4)) {
+            writer.add(new ClickRecord(1, 5, START));
+            assertThrows(IllegalArgumentException.class, () -> writer.add(new ClickRecord(2, 4, START)));
+        }
+    }
+
+    private static ClickRecord find(List<ClickRecord> records, long id) {
+        return records.stream().filter(record -> record.getId() == id).findFirst().orElseThrow();
+    }
+
+    private static int zeroIfNull(Integer id) {
+        return id != null ? id : 0;
+    }
+}
@@ -0,0 +1,83 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ClientIpResolverTest {
+
+    private final ClientIpResolver resolver = resolver("10.0.0.0/8, ::1/128, bogus/99");
+
+    @Test
+    void untrustedPeerIsTheClient() {
+        MockHttpServletRequest request = request("203.0.113.9");
+        request.addHeader("X-Forwarded-For", "198.51.100.1");
+        request.addHeader("X-Real-IP", "198.51.100.2");
+
+        assertEquals("203.0.113.9", resolver.getClientIpAddress(request));
+    }
+
+    @Test
+    void walksForwardedForRightToLeftPastTrustedProxies() {
+        // The client's own (spoofed) entry comes first; each proxy appends the address it saw
+        MockHttpServletRequest request = request("10.0.0.5");
+        request.addHeader("X-Forwarded-For", "1.1.1.1, 198.51.100.7, 10.0.0.4");
+
+        assertEquals("198.51.100.7", resolver.getClientIpAddress(request));
+    }
+
+    @Test
+    void prefersForwardedHeader() {
+        MockHttpServletRequest request = request("::1");
+        request.addHeader("Forwarded", "for=192.0.2.60;proto=http, For=\"[2001:db8:cafe::17]:4711\";by=10.0.0.1");
+        request.addHeader("X-Forwarded-For", "198.51.100.7");
+
+        assertEquals("2001:db8:cafe::17", resolver.getClientIpAddress(request));
+    }
+
+    @Test
+    void stopsAtHopThatDoesNotParse() {
+        MockHttpServletRequest request = request("10.0.0.5");
+        request.addHeader("X-Forwarded-For", "198.51.100.7, garbage, 10.0.0.4");
+
+        // The chain cannot be followed past the garbage hop; the last good hop is another trusted proxy
+        assertEquals("10.0.0.4", resolver.getClientIpAddress(request));
+    }
+
+    @Test
+    void fallsBackToRealIpThenPeer() {
+        MockHttpServletRequest withRealIp = request("10.0.0.5");
+        withRealIp.addHeader("X-Real-IP", "198.51.100.3");
+        assertEquals("198.51.100.3", resolver.getClientIpAddress(withRealIp));
+
+        assertEquals("10.0.0.5", resolver.getClientIpAddress(request("10.0.0.5")));
+        assertEquals("not-an-address", resolver.getClientIpAddress(request("not-an-address")));
+    }
+
+    @Test
+    void onlyConfiguredRangesAreTrusted() {
+        IpAddress address = new IpAddress();
+        address.parse("192.168.1.1");
+        MockHttpServletRequest request = request("192.168.1.1");
+        request.addHeader("X-Forwarded-For", "198.51.100.7");
+
+        assertFalse(resolver.isTrusted(address));
+        assertEquals("192.168.1.1", resolver.getClientIpAddress(request));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static ClientIpResolver resolver(String trustedProxies) {
+        ClientIpResolver resolver = new ClientIpResolver();
+        ReflectionTestUtils.setField(resolver, "trustedProxies", trustedProxies);
+        resolver.init();
+        return resolver;
+    }
+}
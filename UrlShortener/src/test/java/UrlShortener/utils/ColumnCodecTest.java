@@ -0,0 +1,119 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnCodecTest {
+
+    @Test
+    void runsRoundTrip() throws IOException {
+        long[] values = {-5, -5, 0, 0, 0, Long.MAX_VALUE, Long.MIN_VALUE, 3, 3, 3};
+
+        long[] decoded = new long[values.length];
+        ColumnCodec.decodeRuns(ByteBuffer.wrap(ColumnCodec.encodeRuns(values, values.length)), decoded, values.length);
+
+        assertArrayEquals(values, decoded);
+    }
+
+    @Test
+    void runsEncodeOnlyTheGivenCount() throws IOException {
+        long[] values = {7, 7, 8, 99, 99};
+
+        long[] decoded = new long[3];
+        ColumnCodec.decodeRuns(ByteBuffer.wrap(ColumnCodec.encodeRuns(values, 3)), decoded, 3);
+
+        assertArrayEquals(new long[]{7, 7, 8}, decoded);
+        long[] empty = new long[0];
+        ColumnCodec.decodeRuns(ByteBuffer.wrap(ColumnCodec.encodeRuns(empty, 0)), empty, 0);
+    }
+
+    @Test
+    void deltasRoundTrip() throws IOException {
+        Random random = new Random(3);
+        long[] values = new long[1_000];
+        long clock = 1_760_000_000_000L;
+        for (int i = 0; i < values.length; i++) {
+            clock += random.nextInt(10_000) - 1_000;
+            values[i] = clock;
+        }
+        values[500] = Long.MIN_VALUE;
+
+        long[] decoded = new long[values.length];
+        ColumnCodec.decodeDeltas(ByteBuffer.wrap(ColumnCodec.encodeDeltas(values, values.length)), decoded,
+                values.length);
+
+        assertArrayEquals(values, decoded);
+    }
+
+    @Test
+    void intDictionaryRoundTrip() throws IOException {
+        int[] values = new int[200];
+        for (int i = 0; i < values.length; i++) {
+            // More than 16 distinct values, so the dictionary grows; includes 0 and negatives
+            values[i] = (i / 3) % 40 - 10;
+        }
+
+        int[] decoded = new int[values.length];
+        ColumnCodec.decodeDictionary(ByteBuffer.wrap(ColumnCodec.encodeDictionary(values, values.length)), decoded,
+                values.length);
+
+        assertArrayEquals(values, decoded);
+    }
+
+    @Test
+    void stringDictionaryRoundTripKeepsNulls() throws IOException {
+        String[] values = {null, "203.0.113.0", "203.0.113.0", "", null, "2001:db8::", "Zürich", "203.0.113.0"};
+
+        String[] decoded = new String[values.length];
+        ColumnCodec.decodeDictionary(ByteBuffer.wrap(ColumnCodec.encodeDictionary(values, values.length)), decoded,
+                values.length);
+
+        assertArrayEquals(values, decoded);
+    }
+
+    @Test
+    void deflateRoundTrip() throws IOException {
+        long[] values = new long[10_000];
+        Arrays.fill(values, 0, 6_000, 12);
+        Arrays.fill(values, 6_000, 10_000, 13);
+        byte[] raw = ColumnCodec.encodeDeltas(values, values.length);
+
+        byte[] compressed = ColumnCodec.deflate(raw);
+
+        assertTrue(compressed.length < raw.length);
+        assertArrayEquals(raw, ColumnCodec.inflate(ByteBuffer.wrap(compressed), raw.length).array());
+    }
+
+    @Test
+    void corruptInputFailsWithIOException() {
+        byte[] runs = ColumnCodec.encodeRuns(new long[]{1, 1, 2}, 3);
+        // Truncated varint
+        assertThrows(IOException.class, () -> ColumnCodec.decodeRuns(
+                ByteBuffer.wrap(runs, 0, runs.length - 1), new long[3], 3));
+        // Runs covering more rows than the column holds
+        assertThrows(IOException.class, () -> ColumnCodec.decodeRuns(ByteBuffer.wrap(runs), new long[2], 2));
+        // Fewer rows than expected
+        assertThrows(IOException.class, () -> ColumnCodec.decodeRuns(ByteBuffer.wrap(runs), new long[4], 4));
+
+        // Dictionary of one value, then a run pointing at index 5
+        byte[] badIndex = {1, 2, 5, 1};
+        assertThrows(IOException.class, () -> ColumnCodec.decodeDictionary(
+                ByteBuffer.wrap(badIndex), new int[1], 1));
+        // Dictionary size beyond the bytes left
+        byte[] badSize = {100, 1};
+        assertThrows(IOException.class, () -> ColumnCodec.decodeDictionary(
+                ByteBuffer.wrap(badSize), new String[1], 1));
+
+        byte[] compressed = ColumnCodec.deflate(new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> ColumnCodec.inflate(ByteBuffer.wrap(compressed), 4));
+        assertThrows(IOException.class, () -> ColumnCodec.inflate(ByteBuffer.wrap(new byte[]{1, 2, 3}), 3));
+    }
+}
@@ -0,0 +1,60 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IntLongMapTest {
+
+    @Test
+    void zeroKeyIsKeptAside() {
+        IntLongMap map = new IntLongMap();
+        map.add(0, 2);
+        map.add(3, 1);
+        map.add(0, 2);
+
+        assertEquals(4, map.get(0));
+        assertEquals(2, map.size());
+        assertArrayEquals(new int[]{0, 3}, map.sortedKeys());
+        assertArrayEquals(new int[]{0, 3}, map.topKeys(5));
+    }
+
+    @Test
+    void matchesHashMapAcrossRehashes() {
+        IntLongMap map = new IntLongMap(1);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(30_000) - 15_000;
+            map.add(key, 1);
+            expected.merge(key, 1L, Long::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), "key " + key));
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray(),
+                map.sortedKeys());
+    }
+
+    @Test
+    void topKeysOrdersByValueDescending() {
+        IntLongMap map = new IntLongMap();
+        long[] values = {5, 40, 0, 17, 40, 3, 99, 1};
+        for (int key = 0; key < values.length; key++) {
+            map.add(key, values[key]);
+        }
+
+        int[] top = map.topKeys(3);
+
+        assertEquals(3, top.length);
+        assertEquals(6, top[0]);
+        assertEquals(40, map.get(top[1]));
+        assertEquals(40, map.get(top[2]));
+        assertEquals(0, map.topKeys(0).length);
+    }
+}
@@ -0,0 +1,101 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpAddressTest {
+
+    @Test
+    void parsesIpv4WithAndWithoutPort() {
+        IpAddress address = new IpAddress();
+
+        assertTrue(address.parse("203.0.113.7"));
+        assertTrue(address.isIpv4());
+        assertEquals("203.0.113.7", address.toString());
+
+        assertTrue(address.parse(" 198.51.100.1:8443 "));
+        assertEquals("198.51.100.1", address.toString());
+    }
+
+    @Test
+    void parsesIpv6Forms() {
+        IpAddress address = new IpAddress();
+
+        assertTrue(address.parse("2001:DB8:0:0:0:0:0:1"));
+        assertFalse(address.isIpv4());
+        assertEquals("2001:db8::1", address.toString());
+
+        assertTrue(address.parse("[2001:db8::17]:4711"));
+        assertEquals("2001:db8::17", address.toString());
+
+        assertTrue(address.parse("fe80::1%eth0"));
+        assertEquals("fe80::1", address.toString());
+
+        assertTrue(address.parse("::"));
+        assertEquals("::", address.toString());
+
+        // RFC 5952: the longest zero run is compressed, a single zero group is not
+        assertTrue(address.parse("2001:db8:0:1:0:0:0:1"));
+        assertEquals("2001:db8:0:1::1", address.toString());
+    }
+
+    @Test
+    void rejectsMalformedInputAndKeepsOldValue() {
+        IpAddress address = new IpAddress();
+        assertTrue(address.parse("192.0.2.1"));
+
+        for (String text : new String[]{null, "", "   ", "256.0.0.1", "1.2.3", "1.2.3.4.5", "a.b.c.d",
+                "2001:db8::1::2", "12345::", "[2001:db8::1", "unknown"}) {
+            assertFalse(address.parse(text), text);
+        }
+        assertEquals("192.0.2.1", address.toString());
+    }
+
+    @Test
+    void truncatesToNetwork() {
+        IpAddress v4 = new IpAddress();
+        v4.parse("203.0.113.77");
+        v4.truncate();
+        assertEquals("203.0.113.0", v4.toString());
+
+        IpAddress v6 = new IpAddress();
+        v6.parse("2001:db8:abcd:12:3456:789a:bcde:f012");
+        v6.truncate();
+        assertEquals("2001:db8:abcd::", v6.toString());
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        byte[] bytes = new byte[20];
+        IpAddress read = new IpAddress();
+        for (String text : new String[]{"198.51.100.200", "2001:db8:ffff::beef"}) {
+            IpAddress address = new IpAddress();
+            address.parse(text);
+
+            int length = address.toBytes(bytes, 2);
+            read.fromBytes(bytes, 2, length);
+
+            assertEquals(address.isIpv4() ? 4 : 16, length);
+            assertEquals(address, read);
+            assertEquals(address.hashCode(), read.hashCode());
+            assertEquals(text, read.toString());
+        }
+    }
+
+    @Test
+    void classifiesPrivateAddresses() {
+        IpAddress address = new IpAddress();
+        for (String text : new String[]{"10.1.2.3", "172.16.0.1", "172.31.255.255", "192.168.1.1", "127.0.0.1",
+                "169.254.0.1", "0.0.0.0", "::1", "::", "fd00::1", "fe80::1"}) {
+            address.parse(text);
+            assertTrue(address.isPrivate(), text);
+        }
+        for (String text : new String[]{"172.32.0.1", "8.8.8.8", "203.0.113.1", "2001:db8::1"}) {
+            address.parse(text);
+            assertFalse(address.isPrivate(), text);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpRangeTest {
+
+    @Test
+    void matchesIpv4Blocks() {
+        IpRange range = IpRange.parse("172.16.0.0/12");
+
+        assertTrue(range.contains(address("172.16.0.1")));
+        assertTrue(range.contains(address("172.31.255.255")));
+        assertFalse(range.contains(address("172.32.0.0")));
+        assertFalse(range.contains(address("172.15.255.255")));
+    }
+
+    @Test
+    void matchesIpv6Blocks() {
+        IpRange range = IpRange.parse(" 2001:db8::/32 ");
+
+        assertTrue(range.contains(address("2001:db8:ffff::1")));
+        assertFalse(range.contains(address("2001:db9::1")));
+
+        IpRange uniqueLocal = IpRange.parse("fc00::/7");
+        assertTrue(uniqueLocal.contains(address("fd12::1")));
+        assertFalse(uniqueLocal.contains(address("fe80::1")));
+    }
+
+    @Test
+    void familiesNeverMatchEachOther() {
+        assertFalse(IpRange.parse("0.0.0.0/0").contains(address("2001:db8::1")));
+        assertTrue(IpRange.parse("0.0.0.0/0").contains(address("8.8.8.8")));
+        // ::/0 covers every address, IPv4-mapped ones included
+        assertTrue(IpRange.parse("::/0").contains(address("8.8.8.8")));
+    }
+
+    @Test
+    void prefixEdges() {
+        IpRange host = IpRange.parse("192.0.2.1");
+        assertTrue(host.contains(address("192.0.2.1")));
+        assertFalse(host.contains(address("192.0.2.2")));
+
+        assertTrue(IpRange.parse("2001:db8::1/128").contains(address("2001:db8::1")));
+        assertFalse(IpRange.parse("2001:db8::1/128").contains(address("2001:db8::2")));
+
+        IpRange slash64 = IpRange.parse("2001:db8:1:2::/64");
+        assertTrue(slash64.contains(address("2001:db8:1:2:ffff::1")));
+        assertFalse(slash64.contains(address("2001:db8:1:3::1")));
+
+        IpRange slash65 = IpRange.parse("2001:db8:1:2::/65");
+        assertTrue(slash65.contains(address("2001:db8:1:2:7fff::1")));
+        assertFalse(slash65.contains(address("2001:db8:1:2:8000::1")));
+    }
+
+    @Test
+    void rejectsInvalidRanges() {
+        for (String cidr : new String[]{"10.0.0.0/33", "2001:db8::/129", "10.0.0.0/", "10.0.0.0/a",
+                "10.0.0.0/0008", "not-an-ip/8", ""}) {
+            assertNull(IpRange.parse(cidr), cidr);
+        }
+        assertNotNull(IpRange.parse("10.0.0.0/08"));
+    }
+
+    private static IpAddress address(String text) {
+        IpAddress address = new IpAddress();
+        assertTrue(address.parse(text), text);
+        return address;
+    }
+}
@@ -0,0 +1,62 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongIntMapTest {
+
+    @Test
+    void zeroKeyIsKeptAside() {
+        LongIntMap map = new LongIntMap();
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.getOrDefault(0, -1));
+
+        map.put(0, 4);
+        map.put(0, 9);
+
+        assertTrue(map.containsKey(0));
+        assertEquals(9, map.getOrDefault(0, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void indexOfNumbersKeysInFirstSeenOrder() {
+        LongIntMap map = new LongIntMap(1);
+        long[] keys = {42, 0, -7, 42, 1L << 40, 0};
+        int[] expected = {0, 1, 2, 0, 3, 1};
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(expected[i], map.indexOf(keys[i]));
+        }
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void matchesHashMapAcrossRehashes() {
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextLong() >> random.nextInt(64);
+            int value = random.nextInt();
+            map.put(key, value);
+            expected.put(key, value);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> {
+            assertTrue(map.containsKey(key));
+            assertEquals(value, map.getOrDefault(key, -1), "key " + key);
+        });
+
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
@@ -0,0 +1,73 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongLongMapTest {
+
+    @Test
+    void zeroKeyIsKeptAside() {
+        LongLongMap map = new LongLongMap();
+        assertEquals(0, map.get(0));
+        assertTrue(map.isEmpty());
+
+        map.add(0, 5);
+        map.add(0, -2);
+        map.add(7, 1);
+
+        assertEquals(3, map.get(0));
+        assertEquals(1, map.get(7));
+        assertEquals(2, map.size());
+
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(Map.of(0L, 3L, 7L, 1L), visited);
+    }
+
+    @Test
+    void matchesHashMapAcrossRehashes() {
+        LongLongMap map = new LongLongMap(1);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            // Narrow range so keys repeat; includes 0 and negatives
+            long key = random.nextInt(20_000) - 10_000;
+            long delta = random.nextInt(100);
+            map.add(key, delta);
+            expected.merge(key, delta, Long::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), "key " + key));
+        assertEquals(0, map.get(10_001));
+
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void addAllSumsSharedKeys() {
+        LongLongMap first = new LongLongMap();
+        first.add(1, 10);
+        first.add(0, 1);
+        LongLongMap second = new LongLongMap();
+        second.add(1, 5);
+        second.add(Long.MIN_VALUE, 3);
+
+        first.addAll(second);
+
+        assertEquals(15, first.get(1));
+        assertEquals(1, first.get(0));
+        assertEquals(3, first.get(Long.MIN_VALUE));
+        assertEquals(3, first.size());
+        assertFalse(first.isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Updates of keys already present must not allocate: no boxing, no entry objects. A boxed map
+// would allocate tens of megabytes over the same loop; the bound only leaves room for the
+// measurement itself.
+class PrimitiveMapAllocationTest {
+
+    private static final int KEYS = 1_000;
+    private static final int ROUNDS = 1_000;
+    private static final long MAX_BYTES = 4_096;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void countingKnownKeysAllocatesNothing() {
+        LongLongMap longLong = new LongLongMap();
+        IntLongMap intLong = new IntLongMap();
+        LongIntMap longInt = new LongIntMap();
+        for (int key = 0; key < KEYS; key++) {
+            longLong.add(key * 1_000_003L, 1);
+            intLong.add(key, 1);
+            longInt.indexOf(key * 1_000_003L);
+        }
+
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int key = 0; key < KEYS; key++) {
+                longLong.add(key * 1_000_003L, 1);
+                intLong.add(key, 1);
+                checksum += longInt.indexOf(key * 1_000_003L);
+            }
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(checksum > 0);
+        assertTrue(allocated < MAX_BYTES, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void lookingUpKnownStringsAllocatesNothing() {
+        StringDictionary dictionary = new StringDictionary();
+        String[] values = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            values[i] = "value-" + i;
+            dictionary.intern(values[i]);
+        }
+
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String value : values) {
+                checksum += dictionary.intern(value) + dictionary.idOf(value);
+            }
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(checksum > 0);
+        assertTrue(allocated < MAX_BYTES, "allocated " + allocated + " bytes");
+    }
+}
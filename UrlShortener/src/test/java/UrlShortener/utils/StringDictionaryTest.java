@@ -0,0 +1,49 @@
+package UrlShortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StringDictionaryTest {
+
+    @Test
+    void internsInFirstSeenOrder() {
+        StringDictionary dictionary = new StringDictionary();
+        assertTrue(dictionary.isEmpty());
+
+        assertEquals(0, dictionary.intern("NO"));
+        assertEquals(1, dictionary.intern(""));
+        assertEquals(0, dictionary.intern(new String("NO")));
+        assertEquals(2, dictionary.intern("CL"));
+
+        assertEquals(3, dictionary.size());
+        assertEquals(1, dictionary.idOf(""));
+        assertEquals(-1, dictionary.idOf("KE"));
+        assertEquals("CL", dictionary.valueOf(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.valueOf(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.valueOf(-1));
+    }
+
+    @Test
+    void keepsIdsAcrossRehashes() {
+        StringDictionary dictionary = new StringDictionary(1);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.intern("value-" + i));
+        }
+        // Distinct strings with equal hash codes
+        int aa = dictionary.intern("Aa");
+        int bb = dictionary.intern("BB");
+
+        assertEquals(10_002, dictionary.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.idOf("value-" + i));
+            assertEquals("value-" + i, dictionary.valueOf(i));
+        }
+        assertEquals(10_000, aa);
+        assertEquals(10_001, bb);
+        assertEquals("Aa", dictionary.valueOf(dictionary.idOf("Aa")));
+        assertEquals("BB", dictionary.valueOf(dictionary.idOf("BB")));
+    }
+}